@@ -1,8 +1,10 @@
 package com.demo.instantpay.api;
 
+import com.demo.instantpay.api.dto.MultiLegPaymentRequest;
+import com.demo.instantpay.api.dto.MultiLegPaymentResponse;
 import com.demo.instantpay.api.dto.PaymentRequest;
 import com.demo.instantpay.api.dto.PaymentResponse;
-import com.demo.instantpay.service.PaymentService;
+import com.demo.instantpay.service.PaymentDispatcher;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -25,7 +27,7 @@ import java.util.UUID;
 @Tag(name = "Payments", description = "Payment processing API")
 public class PaymentController {
 
-    private final PaymentService paymentService;
+    private final PaymentDispatcher paymentDispatcher;
 
     @Operation(
             summary = "Process payment",
@@ -38,7 +40,8 @@ public class PaymentController {
             @ApiResponse(responseCode = "400", description = "Invalid request (fund issue)"),
             @ApiResponse(responseCode = "401", description = "Unauthorized (missing or invalid jwt)"),
             @ApiResponse(responseCode = "404", description = "No account found"),
-            @ApiResponse(responseCode = "409", description = "Conflict (idempotency issue or locking failure)")
+            @ApiResponse(responseCode = "409", description = "Conflict (idempotency issue or locking failure)"),
+            @ApiResponse(responseCode = "503", description = "Payment queue is full, retry later")
     })
     @PostMapping
     public ResponseEntity<PaymentResponse> sendPayment(
@@ -53,8 +56,91 @@ public class PaymentController {
         log.info("Payment request received: sender={}, recipient={}, amount={}, idempotencyKey={}",
                 senderUsername, request.recipientAccountId(), request.amount(), idempotencyKey);
 
-        PaymentResponse paymentResponse = paymentService.sendMoney(request, idempotencyKey, senderUsername);
+        PaymentResponse paymentResponse = paymentDispatcher.sendMoney(request, idempotencyKey, senderUsername);
 
         return ResponseEntity.status(HttpStatus.OK).body(paymentResponse);
     }
+
+    @Operation(
+            summary = "Process multi-leg payment",
+            description = """
+                    Transfers money from authenticated user's account to several recipients in one transaction.
+                    Either every leg is executed or none is. Idempotency-Key Header covers the whole payment.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful payment"),
+            @ApiResponse(responseCode = "400", description = "Invalid request (fund issue)"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized (missing or invalid jwt)"),
+            @ApiResponse(responseCode = "404", description = "No account found"),
+            @ApiResponse(responseCode = "409", description = "Conflict (idempotency issue or locking failure)"),
+            @ApiResponse(responseCode = "501", description = "Not supported in the configured payment mode")
+    })
+    @PostMapping("/multi-leg")
+    public ResponseEntity<MultiLegPaymentResponse> sendMultiLegPayment(
+            @Valid @RequestBody MultiLegPaymentRequest request,
+            @Parameter(description = "Unique idempotency key (UUID) to prevent duplicate processing",
+                    required = true)
+            @RequestHeader("Idempotency-Key") UUID idempotencyKey,
+            Authentication authentication) {
+
+        String senderUsername = authentication.getName();
+
+        log.info("Multi-leg payment request received: sender={}, legs={}, idempotencyKey={}",
+                senderUsername, request.legs().size(), idempotencyKey);
+
+        MultiLegPaymentResponse paymentResponse = paymentDispatcher.sendMultiLeg(request, idempotencyKey, senderUsername);
+
+        return ResponseEntity.status(HttpStatus.OK).body(paymentResponse);
+    }
+
+    @Operation(
+            summary = "Authorize payment hold",
+            description = """
+                    Reserves funds on the authenticated user's account for a later capture or void.
+                    Idempotency-Key Header is required to avoid duplicate processing.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Funds reserved"),
+            @ApiResponse(responseCode = "400", description = "Invalid request (fund issue)"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized (missing or invalid jwt)"),
+            @ApiResponse(responseCode = "404", description = "No account found"),
+            @ApiResponse(responseCode = "409", description = "Conflict (idempotency issue)")
+    })
+    @PostMapping("/holds")
+    public ResponseEntity<PaymentResponse> authorizeHold(
+            @Valid @RequestBody PaymentRequest request,
+            @Parameter(description = "Unique idempotency key (UUID) to prevent duplicate processing",
+                    required = true)
+            @RequestHeader("Idempotency-Key") UUID idempotencyKey,
+            Authentication authentication) {
+
+        log.info("Hold request received: sender={}, recipient={}, amount={}, idempotencyKey={}",
+                authentication.getName(), request.recipientAccountId(), request.amount(), idempotencyKey);
+
+        return ResponseEntity.ok(paymentDispatcher.authorizeHold(request, idempotencyKey, authentication.getName()));
+    }
+
+    @Operation(summary = "Capture payment hold", description = "Pays the reserved funds to the recipient.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hold captured"),
+            @ApiResponse(responseCode = "403", description = "Caller is not the payee of the hold"),
+            @ApiResponse(responseCode = "404", description = "No hold found"),
+            @ApiResponse(responseCode = "409", description = "Hold already captured, voided or expired")
+    })
+    @PostMapping("/holds/{transactionId}/capture")
+    public ResponseEntity<PaymentResponse> captureHold(@PathVariable UUID transactionId, Authentication authentication) {
+        return ResponseEntity.ok(paymentDispatcher.captureHold(transactionId, authentication.getName()));
+    }
+
+    @Operation(summary = "Void payment hold", description = "Returns the reserved funds to the sender.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hold voided"),
+            @ApiResponse(responseCode = "403", description = "Caller is not the payee of the hold"),
+            @ApiResponse(responseCode = "404", description = "No hold found"),
+            @ApiResponse(responseCode = "409", description = "Hold already captured, voided or expired")
+    })
+    @PostMapping("/holds/{transactionId}/void")
+    public ResponseEntity<PaymentResponse> voidHold(@PathVariable UUID transactionId, Authentication authentication) {
+        return ResponseEntity.ok(paymentDispatcher.voidHold(transactionId, authentication.getName()));
+    }
 }
@@ -0,0 +1,90 @@
+package com.demo.instantpay.api;
+
+import com.demo.instantpay.api.dto.PayoutBatchResponse;
+import com.demo.instantpay.api.dto.PayoutEntryResponse;
+import com.demo.instantpay.infrastructure.payout.PayoutFileFormat;
+import com.demo.instantpay.service.PayoutBatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Validated
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/payouts")
+@Tag(name = "Payouts", description = "Bulk payout file API")
+public class PayoutController {
+
+    private final PayoutBatchService payoutBatchService;
+
+    @Operation(
+            summary = "Upload payout file",
+            description = """
+                    Accepts a CSV or ISO 20022 pain.001 file of transfers from the authenticated user's accounts.
+                    The file is executed in the background; poll the batch for progress.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "File accepted"),
+            @ApiResponse(responseCode = "400", description = "Unreadable file"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized (missing or invalid jwt)")
+    })
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PayoutBatchResponse> uploadPayoutFile(
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "File format: CSV or PAIN_001", required = true)
+            @RequestParam("format") PayoutFileFormat format,
+            Authentication authentication) throws IOException {
+
+        log.info("Payout file received: owner={}, format={}, size={}", authentication.getName(), format, file.getSize());
+
+        try (InputStream content = file.getInputStream()) {
+            PayoutBatchResponse batch = payoutBatchService.accept(format, content, authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batch);
+        }
+    }
+
+    @Operation(summary = "Get payout batch progress")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch found"),
+            @ApiResponse(responseCode = "404", description = "No batch found")
+    })
+    @GetMapping("/{batchId}")
+    public ResponseEntity<PayoutBatchResponse> getPayoutBatch(@PathVariable UUID batchId, Authentication authentication) {
+        return ResponseEntity.ok(payoutBatchService.getBatch(batchId, authentication.getName()));
+    }
+
+    @Operation(
+            summary = "Get payout entry results",
+            description = "Returns results of executed entries in file order, starting after the given entry number.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch found"),
+            @ApiResponse(responseCode = "404", description = "No batch found")
+    })
+    @GetMapping("/{batchId}/entries")
+    public ResponseEntity<List<PayoutEntryResponse>> getPayoutEntries(
+            @PathVariable UUID batchId,
+            @RequestParam(defaultValue = "0") @Min(0) long afterEntry,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit,
+            Authentication authentication) {
+        return ResponseEntity.ok(payoutBatchService.getEntries(batchId, authentication.getName(), afterEntry, limit));
+    }
+}
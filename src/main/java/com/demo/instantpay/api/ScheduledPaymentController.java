@@ -0,0 +1,75 @@
+package com.demo.instantpay.api;
+
+import com.demo.instantpay.api.dto.ScheduledPaymentRequest;
+import com.demo.instantpay.api.dto.ScheduledPaymentResponse;
+import com.demo.instantpay.service.ScheduledPaymentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/scheduled-payments")
+@Tag(name = "Scheduled Payments", description = "Future-dated and recurring payment API")
+public class ScheduledPaymentController {
+
+    private final ScheduledPaymentService scheduledPaymentService;
+
+    @Operation(
+            summary = "Schedule payment",
+            description = """
+                    Schedules a payment from the authenticated user's account for a future time. With a recurrence
+                    (an ISO-8601 period such as P1W or P1M) it repeats until cancelled or until maxOccurrences runs.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Payment scheduled"),
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized (missing or invalid jwt)"),
+            @ApiResponse(responseCode = "403", description = "Forbidden (user does not own sender account)"),
+            @ApiResponse(responseCode = "404", description = "Account not found")
+    })
+    @PostMapping
+    public ResponseEntity<ScheduledPaymentResponse> schedulePayment(
+            @Valid @RequestBody ScheduledPaymentRequest request,
+            Authentication authentication) {
+
+        log.info("Scheduled payment request received: sender={}, amount={}, firstRunAt={}, recurrence={}",
+                authentication.getName(), request.amount(), request.firstRunAt(), request.recurrence());
+
+        ScheduledPaymentResponse response = scheduledPaymentService.create(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Get scheduled payment")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Scheduled payment found"),
+            @ApiResponse(responseCode = "404", description = "No scheduled payment found")
+    })
+    @GetMapping("/{scheduledPaymentId}")
+    public ResponseEntity<ScheduledPaymentResponse> getScheduledPayment(
+            @PathVariable UUID scheduledPaymentId, Authentication authentication) {
+        return ResponseEntity.ok(scheduledPaymentService.get(scheduledPaymentId, authentication.getName()));
+    }
+
+    @Operation(summary = "Cancel scheduled payment", description = "Stops all further occurrences.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Scheduled payment cancelled"),
+            @ApiResponse(responseCode = "404", description = "No scheduled payment found")
+    })
+    @DeleteMapping("/{scheduledPaymentId}")
+    public ResponseEntity<ScheduledPaymentResponse> cancelScheduledPayment(
+            @PathVariable UUID scheduledPaymentId, Authentication authentication) {
+        return ResponseEntity.ok(scheduledPaymentService.cancel(scheduledPaymentId, authentication.getName()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.demo.instantpay.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record MultiLegPaymentRequest(
+        @NotNull(message = "Currency is required")
+        @Size(min = 3, max = 3, message = "Currency must be exactly 3 characters")
+        String currency,
+
+        @NotNull(message = "Sender account ID is required")
+        UUID senderAccountId,
+
+        @NotEmpty(message = "At least one leg is required")
+        @Size(max = MultiLegPaymentRequest.MAX_LEGS, message = "At most " + MultiLegPaymentRequest.MAX_LEGS + " legs are allowed")
+        List<@NotNull @Valid PaymentLeg> legs
+) {
+    public static final int MAX_LEGS = 32;
+}
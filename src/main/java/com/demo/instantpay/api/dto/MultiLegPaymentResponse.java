@@ -0,0 +1,13 @@
+package com.demo.instantpay.api.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public record MultiLegPaymentResponse(
+        UUID senderAccountId,
+        BigDecimal totalAmount,
+        String currency,
+        List<PaymentResponse> legs
+) {
+}
@@ -0,0 +1,17 @@
+package com.demo.instantpay.api.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record PaymentLeg(
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+        BigDecimal amount,
+
+        @NotNull(message = "Recipient account ID is required")
+        UUID recipientAccountId
+) {
+}
@@ -0,0 +1,17 @@
+package com.demo.instantpay.api.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record PayoutBatchResponse(
+        UUID batchId,
+        String format,
+        String status,
+        long processedEntries,
+        long succeededEntries,
+        long failedEntries,
+        String error,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt
+) {
+}
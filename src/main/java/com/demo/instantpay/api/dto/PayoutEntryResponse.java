@@ -0,0 +1,17 @@
+package com.demo.instantpay.api.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record PayoutEntryResponse(
+        long entryNumber,
+        UUID senderAccountId,
+        UUID recipientAccountId,
+        BigDecimal amount,
+        String currency,
+        String reference,
+        String status,
+        UUID transactionId,
+        String error
+) {
+}
@@ -0,0 +1,38 @@
+package com.demo.instantpay.api.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record ScheduledPaymentRequest(
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+        BigDecimal amount,
+
+        @NotNull(message = "Currency is required")
+        @Size(min = 3, max = 3, message = "Currency must be exactly 3 characters")
+        String currency,
+
+        @NotNull(message = "Sender account ID is required")
+        UUID senderAccountId,
+
+        @NotNull(message = "Recipient account ID is required")
+        UUID recipientAccountId,
+
+        @NotNull(message = "First run time is required")
+        @Future(message = "First run time must be in the future")
+        OffsetDateTime firstRunAt,
+
+        @Size(max = 50, message = "Recurrence must be an ISO-8601 period such as P1D, P1W or P1M")
+        String recurrence,
+
+        @Min(value = 1, message = "Max occurrences must be at least 1")
+        Integer maxOccurrences
+) {
+}
@@ -0,0 +1,22 @@
+package com.demo.instantpay.api.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record ScheduledPaymentResponse(
+        UUID scheduledPaymentId,
+        UUID senderAccountId,
+        UUID recipientAccountId,
+        BigDecimal amount,
+        String currency,
+        OffsetDateTime firstRunAt,
+        String recurrence,
+        Integer maxOccurrences,
+        long executedOccurrences,
+        OffsetDateTime nextRunAt,
+        String status,
+        String lastError,
+        OffsetDateTime createdAt
+) {
+}
@@ -2,11 +2,20 @@ package com.demo.instantpay.api.exception;
 
 import com.demo.instantpay.api.dto.ErrorResponse;
 import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.FxRateUnavailableException;
 import com.demo.instantpay.service.exception.IdempotencyException;
 import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import com.demo.instantpay.service.exception.PaymentHoldNotFoundException;
+import com.demo.instantpay.service.exception.PaymentHoldStateException;
+import com.demo.instantpay.service.exception.PaymentModeNotSupportedException;
+import com.demo.instantpay.service.exception.PayoutBatchNotFoundException;
+import com.demo.instantpay.service.exception.ScheduledPaymentNotFoundException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -38,6 +47,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    @ExceptionHandler(VelocityLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleVelocityLimitExceeded(
+            VelocityLimitExceededException ex, WebRequest request) {
+        log.warn("Velocity limit exceeded: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "VELOCITY_LIMIT_EXCEEDED",
+                HttpStatus.BAD_REQUEST.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.badRequest().body(error);
+    }
+
     @ExceptionHandler(AccountNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleAccountNotFound(
             AccountNotFoundException ex, WebRequest request) {
@@ -51,6 +73,58 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(PayoutBatchNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handlePayoutBatchNotFound(
+            PayoutBatchNotFoundException ex, WebRequest request) {
+        log.warn("Payout batch not found: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "PAYOUT_BATCH_NOT_FOUND",
+                HttpStatus.NOT_FOUND.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(ScheduledPaymentNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleScheduledPaymentNotFound(
+            ScheduledPaymentNotFoundException ex, WebRequest request) {
+        log.warn("Scheduled payment not found: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "SCHEDULED_PAYMENT_NOT_FOUND",
+                HttpStatus.NOT_FOUND.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(PaymentHoldNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentHoldNotFound(
+            PaymentHoldNotFoundException ex, WebRequest request) {
+        log.warn("Payment hold not found: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "HOLD_NOT_FOUND",
+                HttpStatus.NOT_FOUND.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(PaymentHoldStateException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentHoldState(
+            PaymentHoldStateException ex, WebRequest request) {
+        log.warn("Payment hold not pending: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "HOLD_NOT_PENDING",
+                HttpStatus.CONFLICT.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(IdempotencyException.class)
     public ResponseEntity<ErrorResponse> handleIdempotency(
             IdempotencyException ex, WebRequest request) {
@@ -77,6 +151,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    @ExceptionHandler(PaymentBackpressureException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentBackpressure(
+            PaymentBackpressureException ex, WebRequest request) {
+        log.warn("Payment rejected: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "SERVICE_BUSY",
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(FxRateUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleFxRateUnavailable(
+            FxRateUnavailableException ex, WebRequest request) {
+        log.warn("Payment rejected: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "FX_RATES_UNAVAILABLE",
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(
             MethodArgumentNotValidException ex, WebRequest request) {
@@ -124,6 +226,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    @ExceptionHandler(PaymentModeNotSupportedException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentModeNotSupported(
+            PaymentModeNotSupportedException ex, WebRequest request) {
+        log.warn("Payment mode not supported: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                "NOT_SUPPORTED",
+                HttpStatus.NOT_IMPLEMENTED.value(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(error);
+    }
+
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ErrorResponse> handleBadCredentials(
             BadCredentialsException ex, WebRequest request) {
@@ -0,0 +1,55 @@
+package com.demo.instantpay.config;
+
+import com.demo.instantpay.infrastructure.retry.RetryMetricsListener;
+import com.demo.instantpay.infrastructure.retry.TransientFailureClassifier;
+import com.demo.instantpay.service.TransferMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.interceptor.RetryInterceptorBuilder;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Retry advice is ordered ahead of the transaction advice so that every attempt runs in a fresh
+ * database transaction. The optimistic transfer mode gets its own attempt budget because version
+ * conflicts are its normal way of resolving contention.
+ */
+@Configuration
+@EnableRetry(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryConfig {
+
+    @Value("${payment.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${payment.retry.optimistic-max-attempts:5}")
+    private int optimisticMaxAttempts;
+
+    @Value("${payment.transfer.mode:JPA}")
+    private TransferMode transferMode;
+
+    @Value("${payment.retry.initial-backoff-ms:20}")
+    private long initialBackoffMillis;
+
+    @Value("${payment.retry.max-backoff-ms:200}")
+    private long maxBackoffMillis;
+
+    @Bean
+    public MethodInterceptor transientFailureRetryInterceptor(MeterRegistry meterRegistry) {
+        TransientFailureClassifier classifier = new TransientFailureClassifier();
+        int attempts = transferMode == TransferMode.OPTIMISTIC ? optimisticMaxAttempts : maxAttempts;
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .customPolicy(new SimpleRetryPolicy(attempts, classifier))
+                .exponentialBackoff(initialBackoffMillis, 2.0, maxBackoffMillis, true)
+                .withListener(new RetryMetricsListener(meterRegistry, "payment.transfer.retry", classifier))
+                .build();
+
+        return RetryInterceptorBuilder.stateless()
+                .retryOperations(retryTemplate)
+                .build();
+    }
+}
@@ -1,8 +1,13 @@
 package com.demo.instantpay.config;
 
+import com.demo.instantpay.infrastructure.config.RateLimitProperties;
+import com.demo.instantpay.infrastructure.ratelimit.RequestRateLimiter;
 import com.demo.instantpay.infrastructure.security.JwtAuthenticationFilter;
+import com.demo.instantpay.infrastructure.security.RateLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,10 +28,13 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ObjectProvider<RequestRateLimiter> requestRateLimiter;
+    private final ObjectProvider<RateLimitProperties> rateLimitProperties;
+    private final ObjectMapper objectMapper;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        return http
+        http
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
@@ -46,8 +54,11 @@ public class SecurityConfig {
                         .accessDeniedHandler((req, res, e) ->
                                 res.sendError(HttpServletResponse.SC_FORBIDDEN, "Not authorized"))
                 )
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                .build();
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        requestRateLimiter.ifAvailable(limiter -> http.addFilterAfter(
+                new RateLimitFilter(limiter, objectMapper, rateLimitProperties.getIfAvailable(RateLimitProperties::new).getMaxBodyBytes()),
+                JwtAuthenticationFilter.class));
+        return http.build();
     }
 
     @Bean
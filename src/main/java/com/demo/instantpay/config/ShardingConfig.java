@@ -0,0 +1,64 @@
+package com.demo.instantpay.config;
+
+import com.demo.instantpay.infrastructure.config.ShardingProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountPlacementRepository;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens a connection pool per configured shard and runs the Flyway migrations on each of them before
+ * the router is handed out, so every shard carries the same schema as the primary database. Accounts
+ * already on a shard without a recorded placement are registered in the placement directory, so they
+ * stay reachable when shards are added.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+    private static final int PLACEMENT_BATCH_SIZE = 1000;
+
+    @Value("${spring.flyway.locations:classpath:db/migration}")
+    private String[] migrationLocations;
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties, AccountPlacementRepository placements) {
+        List<Shard> shards = new ArrayList<>();
+        try {
+            for (ShardingProperties.ShardDataSource shard : properties.getShards()) {
+                shards.add(Shard.open(shards.size(), shard.getUrl(), shard.getUsername(), shard.getPassword(),
+                        properties.getMaxPoolSize(), migrationLocations));
+            }
+            shards.forEach(shard -> registerPlacements(shard, placements));
+        } catch (RuntimeException e) {
+            shards.forEach(Shard::close);
+            throw e;
+        }
+        return new ShardRouter(shards, properties.getVirtualNodes(), placements);
+    }
+
+    private static void registerPlacements(Shard shard, AccountPlacementRepository placements) {
+        List<UUID> batch = new ArrayList<>(PLACEMENT_BATCH_SIZE);
+        AtomicLong registered = new AtomicLong();
+        shard.jdbcTemplate().query("SELECT id FROM accounts", rs -> {
+            batch.add(rs.getObject(1, UUID.class));
+            if (batch.size() == PLACEMENT_BATCH_SIZE) {
+                placements.recordAll(batch, shard.index());
+                registered.addAndGet(batch.size());
+                batch.clear();
+            }
+        });
+        placements.recordAll(batch, shard.index());
+        registered.addAndGet(batch.size());
+        log.info("shard_placements_synced: shard={}, accounts={}", shard.index(), registered.get());
+    }
+}
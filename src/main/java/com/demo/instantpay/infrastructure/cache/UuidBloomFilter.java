@@ -0,0 +1,64 @@
+package com.demo.instantpay.infrastructure.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter of UUIDs. A UUID is already uniformly random, so its two halves serve
+ * directly as the two base hashes of double hashing instead of hashing it again.
+ */
+public final class UuidBloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    /**
+     * Sizes the filter so that {@code falsePositiveRate} holds once {@code expectedInsertions} UUIDs
+     * have been added.
+     */
+    public UuidBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate in (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = Math.toIntExact((bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void add(UUID value) {
+        long h1 = value.getMostSignificantBits();
+        long h2 = value.getLeastSignificantBits() | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * {@code false} means the UUID was never added; {@code true} means it probably was.
+     */
+    public boolean mightContain(UUID value) {
+        long h1 = value.getMostSignificantBits();
+        long h2 = value.getLeastSignificantBits() | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int insertions() {
+        return insertions.get();
+    }
+}
@@ -3,9 +3,11 @@ package com.demo.instantpay.infrastructure.config;
 import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
 import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
 import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ShardAccountRepository;
 import com.demo.instantpay.infrastructure.persistence.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.EventListener;
@@ -13,7 +15,12 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * Seeds the default sender and recipient. Users are always created in the primary database, which
+ * authentication reads; with sharding enabled their accounts are created on the shards.
+ */
 @Slf4j
 @Component
 @Profile({"dev", "docker"})
@@ -23,6 +30,7 @@ public class DevDataInitializer {
     private final AccountRepository accountRepository;
     private final PasswordEncoder passwordEncoder;
     private final DevSeedProperties devSeedProperties;
+    private final ObjectProvider<ShardAccountRepository> shardAccountRepository;
 
     @EventListener(ApplicationReadyEvent.class)
     public void seedData() {
@@ -43,19 +51,12 @@ public class DevDataInitializer {
             senderUser = userRepository.save(senderUser);
             log.info("Default sender user created: username={}, password={}", senderConfig.getUsername(), senderConfig.getPassword());
 
-            AccountEntity senderAccount = AccountEntity.builder()
-                    .user(senderUser)
-                    .accountNumber(senderConfig.getAccountNumber())
-                    .balance(senderConfig.getInitialBalance())
-                    .currency(currency)
-                    .build();
-
-            AccountEntity savedSenderAccount = accountRepository.save(senderAccount);
+            UUID senderAccountId = createAccount(senderUser, senderConfig, currency);
             log.info("Default sender account created: accountNumber={}, balance={} {}, accountId={}",
                     senderConfig.getAccountNumber(),
                     senderConfig.getInitialBalance(),
                     currency,
-                    savedSenderAccount.getId());
+                    senderAccountId);
 
             UserEntity recipientUser = UserEntity.builder()
                     .username(recipientConfig.getUsername())
@@ -66,37 +67,23 @@ public class DevDataInitializer {
             recipientUser = userRepository.save(recipientUser);
             log.info("Default recipient user created: username={}, password={}", recipientConfig.getUsername(), recipientConfig.getPassword());
 
-            AccountEntity recipientAccount = AccountEntity.builder()
-                    .user(recipientUser)
-                    .accountNumber(recipientConfig.getAccountNumber())
-                    .balance(recipientConfig.getInitialBalance())
-                    .currency(currency)
-                    .build();
-
-            AccountEntity savedRecipientAccount = accountRepository.save(recipientAccount);
+            UUID recipientAccountId = createAccount(recipientUser, recipientConfig, currency);
             log.info("Default recipient account created: accountNumber={}, balance={} {}, accountId={}",
                     recipientConfig.getAccountNumber(),
                     recipientConfig.getInitialBalance(),
                     currency,
-                    savedRecipientAccount.getId());
+                    recipientAccountId);
         } else {
             userRepository.findByUsername(senderConfig.getUsername()).ifPresent(user -> {
-                if (accountRepository.findByUserId(user.getId()).isEmpty()) {
+                if (!hasAccount(user)) {
                     log.warn("DEV MODE: User exists but has no account. Creating default account.");
 
-                    AccountEntity defaultAccount = AccountEntity.builder()
-                            .user(user)
-                            .accountNumber(senderConfig.getAccountNumber())
-                            .balance(senderConfig.getInitialBalance())
-                            .currency(currency)
-                            .build();
-
-                    AccountEntity savedAccount = accountRepository.save(defaultAccount);
+                    UUID accountId = createAccount(user, senderConfig, currency);
                     log.info("Default test account created for existing user: accountNumber={}, balance={} {}, accountId={}",
                             senderConfig.getAccountNumber(),
                             senderConfig.getInitialBalance(),
                             currency,
-                            savedAccount.getId());
+                            accountId);
                 }
             });
 
@@ -111,42 +98,60 @@ public class DevDataInitializer {
                         return userRepository.save(newRecipient);
                     });
 
-            if (accountRepository.findByUserId(recipientUser.getId()).isEmpty()) {
+            if (!hasAccount(recipientUser)) {
                 log.warn("DEV MODE: Recipient user exists but has no account. Creating recipient account.");
 
-                AccountEntity recipientAccount = AccountEntity.builder()
-                        .user(recipientUser)
-                        .accountNumber(recipientConfig.getAccountNumber())
-                        .balance(recipientConfig.getInitialBalance())
-                        .currency(currency)
-                        .build();
-
-                AccountEntity savedRecipientAccount = accountRepository.save(recipientAccount);
+                UUID recipientAccountId = createAccount(recipientUser, recipientConfig, currency);
                 log.info("Recipient account created: accountNumber={}, balance={} {}, accountId={}",
                         recipientConfig.getAccountNumber(),
                         recipientConfig.getInitialBalance(),
                         currency,
-                        savedRecipientAccount.getId());
+                        recipientAccountId);
             }
         }
 
         log.info("DEV MODE: Checking existing test accounts...");
-        userRepository.findByUsername(senderConfig.getUsername()).ifPresent(user -> {
-            List<AccountEntity> accounts = accountRepository.findByUserId(user.getId());
-            accounts.forEach(account ->
-                    log.info("DEV MODE: Sender account available - accountId={}, accountNumber={}, balance={} {}",
-                            account.getId(), account.getAccountNumber(), account.getBalance(), account.getCurrency())
-            );
-        });
-
-        userRepository.findByUsername(recipientConfig.getUsername()).ifPresent(user -> {
-            List<AccountEntity> accounts = accountRepository.findByUserId(user.getId());
-            accounts.forEach(account ->
-                    log.info("DEV MODE: Recipient account available - accountId={}, accountNumber={}, balance={} {}",
-                            account.getId(), account.getAccountNumber(), account.getBalance(), account.getCurrency())
-            );
-        });
+        userRepository.findByUsername(senderConfig.getUsername()).ifPresent(user -> logAccounts("Sender", user));
+        userRepository.findByUsername(recipientConfig.getUsername()).ifPresent(user -> logAccounts("Recipient", user));
 
         log.info("DEV MODE: DevDataInitializer completed.");
     }
+
+    private UUID createAccount(UserEntity user, DevSeedProperties.Participant participant, String currency) {
+        ShardAccountRepository shards = shardAccountRepository.getIfAvailable();
+        if (shards != null) {
+            return shards.createAccount(user, participant.getAccountNumber(), participant.getInitialBalance(), currency);
+        }
+        AccountEntity account = AccountEntity.builder()
+                .user(user)
+                .accountNumber(participant.getAccountNumber())
+                .balance(participant.getInitialBalance())
+                .currency(currency)
+                .build();
+        return accountRepository.save(account).getId();
+    }
+
+    private boolean hasAccount(UserEntity user) {
+        ShardAccountRepository shards = shardAccountRepository.getIfAvailable();
+        if (shards != null) {
+            return !shards.findByUserId(user.getId()).isEmpty();
+        }
+        return !accountRepository.findByUserId(user.getId()).isEmpty();
+    }
+
+    private void logAccounts(String participant, UserEntity user) {
+        ShardAccountRepository shards = shardAccountRepository.getIfAvailable();
+        if (shards != null) {
+            shards.findByUserId(user.getId()).forEach(account ->
+                    log.info("DEV MODE: {} account available - accountId={}, shard={}, balance={} {}",
+                            participant, account.id(), account.shardIndex(), account.balance(), account.currency())
+            );
+            return;
+        }
+        List<AccountEntity> accounts = accountRepository.findByUserId(user.getId());
+        accounts.forEach(account ->
+                log.info("DEV MODE: {} account available - accountId={}, accountNumber={}, balance={} {}",
+                        participant, account.getId(), account.getAccountNumber(), account.getBalance(), account.getCurrency())
+        );
+    }
 }
@@ -0,0 +1,16 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.idempotency.cache")
+public class IdempotencyCacheProperties {
+
+    private boolean enabled = false;
+    private int expectedKeys = 1_000_000;
+    private double falsePositiveRate = 0.01;
+    private int completedResults = 10_000;
+}
@@ -0,0 +1,17 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.idempotency.store")
+public class IdempotencyStoreProperties {
+
+    private boolean enabled = false;
+    private Duration ttl = Duration.ofHours(24);
+    private int purgeBatchSize = 5000;
+}
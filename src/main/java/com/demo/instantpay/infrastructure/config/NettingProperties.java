@@ -0,0 +1,18 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.netting")
+public class NettingProperties {
+
+    private boolean enabled;
+    private List<String> pairs = new ArrayList<>();
+    private int maxBatchSize = 5000;
+}
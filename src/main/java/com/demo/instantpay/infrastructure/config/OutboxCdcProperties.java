@@ -0,0 +1,20 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "outbox.cdc")
+public class OutboxCdcProperties {
+
+    private String slotName = "outbox_cdc";
+    private String publication = "outbox_cdc";
+    private int batchSize = 1000;
+    private Duration idleWait = Duration.ofMillis(10);
+    private Duration statusInterval = Duration.ofSeconds(10);
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,15 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "outbox.fast-path")
+public class OutboxFastPathProperties {
+
+    private boolean enabled = false;
+    private int queueCapacity = 10_000;
+    private int batchSize = 100;
+}
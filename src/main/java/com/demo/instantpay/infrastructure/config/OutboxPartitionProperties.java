@@ -0,0 +1,16 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "outbox.partitions")
+public class OutboxPartitionProperties {
+
+    private int premakeDays = 3;
+    private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,18 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.payouts")
+public class PayoutProperties {
+
+    private String directory = "./data/payouts";
+    private int chunkSize = 1000;
+    private int parallelism = 16;
+    private Duration staleAfter = Duration.ofMinutes(1);
+}
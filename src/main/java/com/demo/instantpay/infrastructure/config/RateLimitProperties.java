@@ -0,0 +1,31 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = false;
+    private Bucket user = new Bucket(20, 40);
+    private Bucket account = new Bucket(10, 20);
+    private int maxBodyBytes = 64 * 1024;
+
+    @Getter
+    @Setter
+    public static class Bucket {
+        private double requestsPerSecond;
+        private int burst;
+
+        public Bucket() {
+        }
+
+        public Bucket(double requestsPerSecond, int burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.scheduled")
+public class ScheduledPaymentProperties {
+
+    private boolean enabled = true;
+    private Duration tick = Duration.ofSeconds(1);
+    private int wheelSize = 512;
+    private Duration lookahead = Duration.ofMinutes(5);
+    private Duration loadInterval = Duration.ofSeconds(30);
+    private int loadPageSize = 5000;
+    private int parallelism = 16;
+    private Duration retryBackoff = Duration.ofSeconds(5);
+    private Duration maxRetryBackoff = Duration.ofMinutes(5);
+}
@@ -0,0 +1,27 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    private int virtualNodes = 128;
+    private int maxPoolSize = 10;
+    private List<ShardDataSource> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class ShardDataSource {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.instantpay.infrastructure.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.velocity")
+public class VelocityLimitProperties {
+
+    private boolean enabled = false;
+    private String defaultTier = "STANDARD";
+    private Map<String, Limits> tiers = new HashMap<>();
+    private Limits user = new Limits();
+
+    /**
+     * Maximum amounts in the account currency; a missing limit is not enforced.
+     */
+    @Getter
+    @Setter
+    public static class Limits {
+        private BigDecimal hourly;
+        private BigDecimal daily;
+    }
+}
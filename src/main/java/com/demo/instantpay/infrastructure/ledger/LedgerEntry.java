@@ -0,0 +1,16 @@
+package com.demo.instantpay.infrastructure.ledger;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record LedgerEntry(
+        UUID transactionId,
+        UUID senderAccountId,
+        UUID recipientAccountId,
+        BigDecimal amount,
+        String currency,
+        UUID idempotencyKey,
+        OffsetDateTime createdAt
+) {
+}
@@ -0,0 +1,169 @@
+package com.demo.instantpay.infrastructure.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only journal of ledger entries backed by a memory-mapped file. Records have a fixed size and
+ * their commit marker is written last, so a record torn by a crash is ignored on replay.
+ * <p>
+ * Not thread-safe: each journal has exactly one writer.
+ */
+public final class LedgerJournal implements AutoCloseable {
+    static final int RECORD_SIZE = 96;
+    private static final int COMMIT_MARKER = 0x4C45_4447;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean sync;
+
+    private LedgerJournal(FileChannel channel, MappedByteBuffer buffer, boolean sync) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.sync = sync;
+    }
+
+    public static LedgerJournal open(Path file, int capacityBytes, boolean sync) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int capacity = capacityBytes - capacityBytes % RECORD_SIZE;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            LedgerJournal journal = new LedgerJournal(channel, buffer, sync);
+            journal.seekToEnd();
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ledger journal " + file, e);
+        }
+    }
+
+    /**
+     * Returns every committed entry in append order.
+     */
+    public List<LedgerEntry> readAll() {
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (int offset = 0; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+            if (buffer.getInt(offset) != COMMIT_MARKER) {
+                break;
+            }
+            entries.add(read(buffer.slice(offset + Integer.BYTES, RECORD_SIZE - Integer.BYTES)));
+        }
+        return entries;
+    }
+
+    /**
+     * Appends an entry, returning {@code false} without writing when the journal is full.
+     */
+    public boolean tryAppend(LedgerEntry entry) {
+        int offset = buffer.position();
+        if (offset + RECORD_SIZE > buffer.capacity()) {
+            return false;
+        }
+        ByteBuffer record = buffer.slice(offset + Integer.BYTES, RECORD_SIZE - Integer.BYTES);
+        write(record, entry);
+        buffer.putInt(offset, COMMIT_MARKER);
+        buffer.position(offset + RECORD_SIZE);
+        return true;
+    }
+
+    /**
+     * Forces appended records to the storage device when the journal is configured to sync.
+     */
+    public void sync() {
+        if (sync) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Discards all entries. Only safe once every entry has been persisted elsewhere.
+     */
+    public void reset() {
+        for (int offset = 0; offset < buffer.position(); offset += RECORD_SIZE) {
+            buffer.putInt(offset, 0);
+        }
+        buffer.force();
+        buffer.position(0);
+    }
+
+    public boolean isEmpty() {
+        return buffer.position() == 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close ledger journal", e);
+        }
+    }
+
+    private void seekToEnd() {
+        int offset = 0;
+        while (offset + RECORD_SIZE <= buffer.capacity() && buffer.getInt(offset) == COMMIT_MARKER) {
+            offset += RECORD_SIZE;
+        }
+        buffer.position(offset);
+    }
+
+    private static void write(ByteBuffer record, LedgerEntry entry) {
+        putUuid(record, entry.transactionId());
+        putUuid(record, entry.senderAccountId());
+        putUuid(record, entry.recipientAccountId());
+        putUuid(record, entry.idempotencyKey());
+        record.putLong(entry.amount().unscaledValue().longValueExact());
+        record.putInt(entry.amount().scale());
+        record.put(entry.currency().getBytes(StandardCharsets.US_ASCII), 0, 3);
+        Instant createdAt = entry.createdAt().toInstant();
+        record.putLong(createdAt.getEpochSecond());
+        record.putInt(createdAt.getNano());
+    }
+
+    private static LedgerEntry read(ByteBuffer record) {
+        UUID transactionId = getUuid(record);
+        UUID senderAccountId = getUuid(record);
+        UUID recipientAccountId = getUuid(record);
+        UUID idempotencyKey = getUuid(record);
+        long unscaledAmount = record.getLong();
+        int scale = record.getInt();
+        byte[] currency = new byte[3];
+        record.get(currency);
+        Instant createdAt = Instant.ofEpochSecond(record.getLong(), record.getInt());
+        return new LedgerEntry(
+                transactionId,
+                senderAccountId,
+                recipientAccountId,
+                new BigDecimal(BigInteger.valueOf(unscaledAmount), scale),
+                new String(currency, StandardCharsets.US_ASCII),
+                idempotencyKey,
+                OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC)
+        );
+    }
+
+    private static void putUuid(ByteBuffer record, UUID uuid) {
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer record) {
+        return new UUID(record.getLong(), record.getLong());
+    }
+}
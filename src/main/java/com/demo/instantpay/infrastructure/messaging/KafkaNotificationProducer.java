@@ -1,6 +1,5 @@
 package com.demo.instantpay.infrastructure.messaging;
 
-import com.demo.instantpay.infrastructure.exception.NotificationPublishException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.KafkaException;
@@ -8,8 +7,15 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
@@ -18,30 +24,50 @@ public class KafkaNotificationProducer {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
 
-    public void sendNotification(String topic, String payload) {
-        log.debug("Sending notification to topic: {}, payload: {}", topic, payload);
+    /**
+     * Sends every message, keyed by {@link OutboxMessage#key()}, without waiting in between, then waits
+     * up to {@code timeout} for all of them together and returns the ids of the acknowledged ones.
+     * Messages that failed or are still unacknowledged are logged and left out, so their events stay in
+     * the outbox for the next poll.
+     */
+    public List<UUID> sendBatch(List<OutboxMessage> messages, Duration timeout) {
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(messages.size());
+        for (OutboxMessage message : messages) {
+            sends.add(sendNotificationAsync(message.topic(), message.key(), message.payload()));
+        }
 
         try {
-            CompletableFuture<SendResult<String, String>> future = kafkaTemplate.send(topic, payload);
-            SendResult<String, String> result = future.get();
-
-            log.info("Notification sent successfully to topic: {}, offset: {}",
-                    topic, result.getRecordMetadata().offset());
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            log.error("Kafka send interrupted for topic: {}", topic, e);
-            throw new NotificationPublishException("Interrupted while sending Kafka notification", e);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof KafkaException kafkaException) {
-                log.error("Kafka exception while sending notification to topic: {}", topic, kafkaException);
-                throw new NotificationPublishException("Kafka error while sending notification", kafkaException);
+            log.warn("Interrupted while waiting for {} Kafka acknowledgements", sends.size());
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Not every notification of the batch was acknowledged", e);
+        }
+
+        List<UUID> acknowledged = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            OutboxMessage message = messages.get(i);
+            CompletableFuture<SendResult<String, String>> send = sends.get(i);
+            if (send.state() == Future.State.SUCCESS) {
+                acknowledged.add(message.id());
+            } else if (send.state() == Future.State.FAILED) {
+                log.error("Failed to send outbox event: id={}, topic={}. Will retry on next poll.",
+                        message.id(), message.topic(), send.exceptionNow());
+            } else {
+                log.warn("Outbox event not acknowledged within {}: id={}, topic={}. Will retry on next poll.",
+                        timeout, message.id(), message.topic());
             }
-            log.error("Unexpected error while sending notification to topic: {}", topic, cause);
-            throw new NotificationPublishException("Unexpected error while sending Kafka notification", cause);
+        }
+        return acknowledged;
+    }
+
+    private CompletableFuture<SendResult<String, String>> sendNotificationAsync(String topic, String key, String payload) {
+        try {
+            return kafkaTemplate.send(topic, key, payload);
         } catch (KafkaException e) {
-            log.error("Kafka exception while sending notification to topic: {}", topic, e);
-            throw new NotificationPublishException("Kafka error while sending notification", e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 }
@@ -0,0 +1,229 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.config.OutboxCdcProperties;
+import com.demo.instantpay.infrastructure.exception.NotificationPublishException;
+import com.demo.instantpay.infrastructure.messaging.PgOutputDecoder.Commit;
+import com.demo.instantpay.infrastructure.messaging.PgOutputDecoder.Insert;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays outbox events from the write-ahead log instead of polling {@code outbox_events}. Inserts into
+ * the table are streamed from a logical replication slot through the {@code outbox_cdc} publication,
+ * in commit order, and published to Kafka a batch of whole transactions at a time. The slot is only
+ * advanced past a transaction once every event of it has been acknowledged; after a failure the relay
+ * reconnects and the slot replays everything not yet confirmed, so delivery stays at-least-once.
+ * <p>
+ * Rows are never claimed, updated or deleted one by one in this mode. The table is append-only and its
+ * daily partitions are dropped by {@link OutboxPartitionMaintenance} once past retention. Needs
+ * {@code wal_level=logical}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.relay.mode", havingValue = "CDC")
+public class OutboxCdcRelay implements SmartLifecycle {
+    private static final String OUTBOX_TABLE = "outbox_events";
+    private static final DateTimeFormatter POSTGRES_TIMESTAMPTZ = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true)
+            .optionalEnd()
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+
+    private final OutboxCdcProperties properties;
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaNotificationProducer kafkaNotificationProducer;
+    private final Duration sendTimeout;
+
+    private Thread relay;
+    private volatile boolean running;
+
+    public OutboxCdcRelay(OutboxCdcProperties properties,
+                          DataSourceProperties dataSourceProperties,
+                          JdbcTemplate jdbcTemplate,
+                          KafkaNotificationProducer kafkaNotificationProducer,
+                          @Value("${outbox.send-timeout:30s}") Duration sendTimeout) {
+        this.properties = properties;
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaNotificationProducer = kafkaNotificationProducer;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relay = Thread.ofPlatform().name("outbox-cdc-relay").daemon().start(this::run);
+        log.info("outbox_cdc_relay_started: slot={}, publication={}", properties.getSlotName(), properties.getPublication());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        relay.interrupt();
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                stream();
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("outbox_cdc_relay_interrupted: retryIn={}", properties.getReconnectDelay(), e);
+                try {
+                    Thread.sleep(properties.getReconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void stream() throws SQLException, InterruptedException {
+        try (Connection connection = openReplicationConnection()) {
+            PGConnection replication = connection.unwrap(PGConnection.class);
+            ensureSlot(replication);
+            try (PGReplicationStream stream = replication.getReplicationAPI()
+                    .replicationStream()
+                    .logical()
+                    .withSlotName(properties.getSlotName())
+                    .withSlotOption("proto_version", 1)
+                    .withSlotOption("publication_names", properties.getPublication())
+                    .withStatusInterval(Math.toIntExact(properties.getStatusInterval().toMillis()), TimeUnit.MILLISECONDS)
+                    .start()) {
+                relay(stream);
+            }
+        }
+    }
+
+    private void relay(PGReplicationStream stream) throws SQLException, InterruptedException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        List<OutboxMessage> transaction = new ArrayList<>();
+        List<OutboxMessage> batch = new ArrayList<>();
+        long batchEndLsn = 0;
+
+        while (running) {
+            ByteBuffer buffer = stream.readPending();
+            if (buffer == null) {
+                if (!batch.isEmpty()) {
+                    publish(stream, batch, batchEndLsn);
+                }
+                Thread.sleep(properties.getIdleWait());
+                continue;
+            }
+            switch (decoder.decode(buffer).orElse(null)) {
+                case Insert insert when OUTBOX_TABLE.equals(insert.table()) -> transaction.add(toMessage(insert.values()));
+                case Commit commit -> {
+                    batch.addAll(transaction);
+                    transaction.clear();
+                    batchEndLsn = commit.endLsn();
+                    if (batch.isEmpty()) {
+                        confirm(stream, batchEndLsn, false);
+                    } else if (batch.size() >= properties.getBatchSize()) {
+                        publish(stream, batch, batchEndLsn);
+                    }
+                }
+                case null, default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes whole transactions and confirms the slot up to their end only if every event was
+     * acknowledged; otherwise fails the stream so the slot replays them after reconnecting.
+     */
+    private void publish(PGReplicationStream stream, List<OutboxMessage> batch, long endLsn) throws SQLException {
+        List<UUID> acknowledged = kafkaNotificationProducer.sendBatch(batch, sendTimeout);
+        if (acknowledged.size() != batch.size()) {
+            throw new NotificationPublishException("Only " + acknowledged.size() + " of " + batch.size()
+                    + " outbox events were acknowledged");
+        }
+        log.debug("outbox_cdc_batch_relayed: events={}, lsn={}", batch.size(), LogSequenceNumber.valueOf(endLsn));
+        batch.clear();
+        confirm(stream, endLsn, true);
+    }
+
+    private static void confirm(PGReplicationStream stream, long endLsn, boolean now) throws SQLException {
+        LogSequenceNumber lsn = LogSequenceNumber.valueOf(endLsn);
+        stream.setAppliedLSN(lsn);
+        stream.setFlushedLSN(lsn);
+        if (now) {
+            stream.forceUpdateStatus();
+        }
+    }
+
+    private void ensureSlot(PGConnection replication) throws SQLException {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_replication_slots WHERE slot_name = ?", Integer.class, properties.getSlotName());
+        if (existing != null && existing > 0) {
+            return;
+        }
+        replication.getReplicationAPI()
+                .createReplicationSlot()
+                .logical()
+                .withSlotName(properties.getSlotName())
+                .withOutputPlugin("pgoutput")
+                .make();
+        log.info("outbox_cdc_slot_created: slot={}", properties.getSlotName());
+    }
+
+    private Connection openReplicationConnection() throws SQLException {
+        Properties connectionProperties = new Properties();
+        PGProperty.USER.set(connectionProperties, dataSourceProperties.determineUsername());
+        PGProperty.PASSWORD.set(connectionProperties, dataSourceProperties.determinePassword());
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(connectionProperties, "10");
+        PGProperty.REPLICATION.set(connectionProperties, "database");
+        PGProperty.PREFER_QUERY_MODE.set(connectionProperties, "simple");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), connectionProperties);
+    }
+
+    private static OutboxMessage toMessage(Map<String, String> row) {
+        return new OutboxMessage(
+                UUID.fromString(row.get("id")),
+                row.get("event_topic"),
+                row.get("partition_key") != null ? row.get("partition_key") : row.get("aggregate_id"),
+                row.get("payload"),
+                OffsetDateTime.parse(row.get("created_at"), POSTGRES_TIMESTAMPTZ));
+    }
+}
@@ -1,60 +1,110 @@
 package com.demo.instantpay.infrastructure.messaging;
 
-import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
-import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
-import lombok.RequiredArgsConstructor;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxClaimRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Relays pending outbox events to Kafka in batches. Each batch is claimed first, so any number of
+ * instances relay disjoint batches in parallel. A claimed batch is split by record key into
+ * {@code outbox.relay.workers} {@link OutboxLanes}, so events of one account keep their order while the
+ * lanes are sent in parallel. No database connection is held while the broker acknowledges a batch, and
+ * the acknowledged events are marked sent with one statement. Events that were not acknowledged stay
+ * pending and are sent again once their claim runs out, together with the later events of their key,
+ * which are not marked sent either, so a key's events are never relayed out of order. With the
+ * {@link OutboxFastPath} enabled, {@code outbox.poll.min-age} leaves fresh events to it.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.relay.mode", havingValue = "POLLING", matchIfMissing = true)
 public class OutboxEventProcessor {
-    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxClaimRepository outboxClaimRepository;
     private final KafkaNotificationProducer kafkaNotificationProducer;
+    private final Timer relayLatency;
+    private final String relayId = "relay-" + UUID.randomUUID();
 
     @Value("${outbox.poll.batch-size:100}")
     private int batchSize;
 
-    @Transactional
+    @Value("${outbox.send-timeout:30s}")
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    @Value("${outbox.relay.lease:60s}")
+    private Duration lease = Duration.ofSeconds(60);
+
+    @Value("${outbox.poll.min-age:0s}")
+    private Duration minAge = Duration.ZERO;
+
+    @Value("${outbox.relay.workers:1}")
+    private int workers = 1;
+
+    public OutboxEventProcessor(OutboxClaimRepository outboxClaimRepository,
+                                KafkaNotificationProducer kafkaNotificationProducer,
+                                MeterRegistry meterRegistry) {
+        this.outboxClaimRepository = outboxClaimRepository;
+        this.kafkaNotificationProducer = kafkaNotificationProducer;
+        this.relayLatency = Timer.builder("outbox.relay.latency")
+                .description("Time from an outbox event being written to its acknowledgement by Kafka")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     @Scheduled(fixedDelayString = "${outbox.poll.delay:5000}")
     public void processOutboxEvents() {
         log.debug("Polling outbox events for processing");
+        try {
+            while (relayBatch()) {
+                log.debug("Outbox batch fully relayed, claiming the next one");
+            }
+        } catch (Exception e) {
+            log.error("Failed to relay outbox events: relay={}. Will retry on next poll.", relayId, e);
+        }
+    }
 
-        Pageable pageable = PageRequest.of(0, batchSize);
-        List<OutboxEventEntity> pendingEvents = outboxEventRepository.findByStatus(
-                OutboxEventEntity.EventStatus.PENDING,
-                pageable
-        );
+    /**
+     * Relays one claimed batch and tells whether it was full and fully acknowledged, so a backlog drains
+     * without waiting for the next poll.
+     */
+    private boolean relayBatch() {
+        int limit = batchSize * Math.max(workers, 1);
+        List<OutboxMessage> claimed = outboxClaimRepository.claim(relayId, lease, limit, minAge);
 
-        if (pendingEvents.isEmpty()) {
+        if (claimed.isEmpty()) {
             log.trace("No pending outbox events found");
-            return;
+            return false;
         }
 
-        log.info("Processing {} pending outbox events", pendingEvents.size());
-
-        for (OutboxEventEntity event : pendingEvents) {
-            try {
-                log.debug("Processing outbox event: id={}, topic={}", event.getId(), event.getEventTopic());
+        log.info("Processing {} pending outbox events", claimed.size());
 
-                kafkaNotificationProducer.sendNotification(event.getEventTopic(), event.getPayload());
-
-                outboxEventRepository.delete(event);
+        List<UUID> acknowledged = OutboxMessage.sentInKeyOrder(claimed,
+                OutboxLanes.send(kafkaNotificationProducer, claimed, workers, sendTimeout, relayId));
+        if (!acknowledged.isEmpty()) {
+            outboxClaimRepository.markSent(acknowledged);
+            recordLatency(claimed, acknowledged);
+        }
 
-                log.info("Successfully processed outbox event: id={}, topic={}",
-                        event.getId(), event.getEventTopic());
+        log.info("Successfully processed {} of {} outbox events", acknowledged.size(), claimed.size());
+        return claimed.size() == limit && acknowledged.size() == claimed.size();
+    }
 
-            } catch (Exception e) {
-                log.error("Failed to process outbox event: id={}, topic={}. Will retry on next poll.",
-                        event.getId(), event.getEventTopic(), e);
+    private void recordLatency(List<OutboxMessage> claimed, List<UUID> acknowledged) {
+        Set<UUID> acknowledgedIds = new HashSet<>(acknowledged);
+        OffsetDateTime now = OffsetDateTime.now();
+        for (OutboxMessage message : claimed) {
+            if (acknowledgedIds.contains(message.id())) {
+                relayLatency.record(Duration.between(message.createdAt(), now));
             }
         }
     }
@@ -0,0 +1,225 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.config.OutboxFastPathProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxClaimRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes outbox events straight after their transaction commits, without reading them back. The
+ * writer registers the event it just saved; on commit it is queued in memory and a relay thread claims
+ * whatever is queued with the same lease as {@link OutboxEventProcessor}, hands the claimed events to
+ * Kafka in one batch and marks the acknowledged ones sent. An event the poller already claimed is
+ * skipped, so the two never publish the same event, and so is an event that would overtake an older
+ * pending event of its key. Nothing is queued for a rolled-back transaction. An event that is dropped
+ * because the queue is full, that Kafka does not acknowledge, or that is lost with the instance stays
+ * pending and is relayed by the poller. {@code outbox.poll.min-age} must exceed
+ * {@code outbox.send-timeout}, so the poller leaves fresh events alone while this path may still be
+ * sending them. The CDC relay streams every insert itself, so this path is off in {@code CDC} mode.
+ */
+@Slf4j
+@Component
+public class OutboxFastPath implements SmartLifecycle {
+    private static final long POLL_MILLIS = 1000;
+
+    private final OutboxFastPathProperties properties;
+    private final OutboxClaimRepository outboxClaimRepository;
+    private final KafkaNotificationProducer kafkaNotificationProducer;
+    private final Duration sendTimeout;
+    private final Duration lease;
+    private final boolean cdcMode;
+    private final String relayId = "fast-path-" + UUID.randomUUID();
+    private final BlockingQueue<OutboxMessage> queue;
+    private final Counter published;
+    private final Counter dropped;
+    private final Timer relayLatency;
+
+    private Thread relay;
+    private volatile boolean running;
+
+    public OutboxFastPath(OutboxFastPathProperties properties,
+                          OutboxClaimRepository outboxClaimRepository,
+                          KafkaNotificationProducer kafkaNotificationProducer,
+                          MeterRegistry meterRegistry,
+                          @Value("${outbox.send-timeout:30s}") Duration sendTimeout,
+                          @Value("${outbox.relay.lease:60s}") Duration lease,
+                          @Value("${outbox.poll.min-age:0s}") Duration minAge,
+                          @Value("${outbox.relay.mode:POLLING}") String relayMode) {
+        this.properties = properties;
+        this.outboxClaimRepository = outboxClaimRepository;
+        this.kafkaNotificationProducer = kafkaNotificationProducer;
+        this.sendTimeout = sendTimeout;
+        this.lease = lease;
+        this.cdcMode = "CDC".equalsIgnoreCase(relayMode);
+        if (properties.isEnabled() && !cdcMode && minAge.compareTo(sendTimeout) <= 0) {
+            throw new IllegalStateException("outbox.poll.min-age (" + minAge + ") must be greater than outbox.send-timeout ("
+                    + sendTimeout + ") when outbox.fast-path.enabled=true");
+        }
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.published = Counter.builder("outbox.fast-path")
+                .description("Outbox events handled by the after-commit fast path")
+                .tag("result", "published")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("outbox.fast-path")
+                .description("Outbox events handled by the after-commit fast path")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        this.relayLatency = Timer.builder("outbox.relay.latency")
+                .description("Time from an outbox event being written to its acknowledgement by Kafka")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the saved event for publishing once the current transaction commits. Does nothing when the
+     * fast path is disabled or no transaction is active, leaving the event to the relay.
+     */
+    public void publishAfterCommit(OutboxEventEntity event) {
+        if (!isEnabled() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        UUID key = event.getPartitionKey() != null ? event.getPartitionKey() : event.getAggregateId();
+        OutboxMessage message = new OutboxMessage(event.getId(), event.getEventTopic(), key.toString(),
+                event.getPayload(), event.getCreatedAt());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (!queue.offer(message)) {
+                    dropped.increment();
+                    log.debug("outbox_fast_path_full: eventId={}", message.id());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled() && cdcMode) {
+            log.warn("outbox_fast_path_disabled: reason=cdc_relay_mode");
+        }
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        relay = Thread.ofPlatform().name("outbox-fast-path").daemon().start(this::run);
+        log.info("outbox_fast_path_started: queueCapacity={}", properties.getQueueCapacity());
+    }
+
+    @Override
+    public void stop() {
+        if (relay == null) {
+            return;
+        }
+        running = false;
+        relay.interrupt();
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean isEnabled() {
+        return properties.isEnabled() && !cdcMode;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                relayQueued(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("outbox_fast_path_failed. Events are left to the poller.", e);
+            }
+        }
+    }
+
+    /**
+     * Waits up to {@code waitMillis} for a queued event, then claims it together with everything else
+     * queued, up to {@code outbox.fast-path.batch-size}, and publishes the events it could claim. Returns
+     * how many events were published.
+     */
+    int relayQueued(long waitMillis) throws InterruptedException {
+        OutboxMessage first = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        List<OutboxMessage> batch = new ArrayList<>(properties.getBatchSize());
+        batch.add(first);
+        queue.drainTo(batch, properties.getBatchSize() - 1);
+
+        batch = claim(batch);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<UUID> acknowledged = OutboxMessage.sentInKeyOrder(batch, kafkaNotificationProducer.sendBatch(batch, sendTimeout));
+        if (!acknowledged.isEmpty()) {
+            outboxClaimRepository.markSent(acknowledged);
+            recordLatency(batch, acknowledged);
+            published.increment(acknowledged.size());
+        }
+        if (acknowledged.size() < batch.size()) {
+            log.warn("outbox_fast_path_unacknowledged: count={}. Left to the poller.", batch.size() - acknowledged.size());
+        }
+        return acknowledged.size();
+    }
+
+    /**
+     * Keeps the queued events this relay managed to claim, in queue order. The rest were already claimed
+     * or sent by the poller.
+     */
+    private List<OutboxMessage> claim(List<OutboxMessage> batch) {
+        List<UUID> ids = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            ids.add(message.id());
+        }
+        Set<UUID> claimed = new HashSet<>(outboxClaimRepository.claimIds(relayId, lease, ids));
+        if (claimed.size() == batch.size()) {
+            return batch;
+        }
+        log.debug("outbox_fast_path_skipped: count={}. Already claimed by the poller.", batch.size() - claimed.size());
+        List<OutboxMessage> claimedBatch = new ArrayList<>(claimed.size());
+        for (OutboxMessage message : batch) {
+            if (claimed.contains(message.id())) {
+                claimedBatch.add(message);
+            }
+        }
+        return claimedBatch;
+    }
+
+    private void recordLatency(List<OutboxMessage> batch, List<UUID> acknowledged) {
+        Set<UUID> acknowledgedIds = new HashSet<>(acknowledged);
+        OffsetDateTime now = OffsetDateTime.now();
+        for (OutboxMessage message : batch) {
+            if (acknowledgedIds.contains(message.id())) {
+                relayLatency.record(Duration.between(message.createdAt(), now));
+            }
+        }
+    }
+}
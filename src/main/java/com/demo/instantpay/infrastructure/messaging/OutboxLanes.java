@@ -0,0 +1,57 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends a claimed outbox batch split by record key into {@code workers} lanes, each handed to the producer
+ * at once by its own virtual thread, so events of one key keep their order while the lanes are sent in
+ * parallel. A lane that fails leaves all of its events unacknowledged.
+ */
+@Slf4j
+final class OutboxLanes {
+
+    private OutboxLanes() {
+    }
+
+    static List<UUID> send(KafkaNotificationProducer producer, List<OutboxMessage> batch, int workers,
+                           Duration sendTimeout, String relayId) {
+        if (workers <= 1) {
+            return producer.sendBatch(batch, sendTimeout);
+        }
+        List<List<OutboxMessage>> lanes = new ArrayList<>(workers);
+        for (int lane = 0; lane < workers; lane++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (OutboxMessage message : batch) {
+            lanes.get(Math.floorMod(message.key().hashCode(), workers)).add(message);
+        }
+
+        List<Future<List<UUID>>> sends = new ArrayList<>(workers);
+        try (ExecutorService relays = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(relayId + "-lane-", 0).factory())) {
+            for (List<OutboxMessage> lane : lanes) {
+                if (!lane.isEmpty()) {
+                    sends.add(relays.submit(() -> producer.sendBatch(lane, sendTimeout)));
+                }
+            }
+        }
+
+        List<UUID> acknowledged = new ArrayList<>(batch.size());
+        for (Future<List<UUID>> lane : sends) {
+            if (lane.state() == Future.State.SUCCESS) {
+                acknowledged.addAll(lane.resultNow());
+            } else {
+                log.error("Failed to relay an outbox lane: relay={}. Will retry on next poll.", relayId, lane.exceptionNow());
+            }
+        }
+        return acknowledged;
+    }
+}
@@ -0,0 +1,39 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An outbox event as relayed to Kafka: the row it is marked sent by once acknowledged, what is sent, and
+ * when the event was written. {@code key} is the record key, the sender account where the writer knows
+ * it and the aggregate id otherwise, so all events of one account go to the same Kafka partition.
+ */
+public record OutboxMessage(UUID id, String topic, String key, String payload, OffsetDateTime createdAt) {
+
+    /**
+     * Returns the ids of the acknowledged events of {@code batch} that may be marked sent: an event
+     * following an unacknowledged event of its key is left pending too, so the key's events are relayed
+     * again in their order, after the failed one.
+     */
+    public static List<UUID> sentInKeyOrder(List<OutboxMessage> batch, Collection<UUID> acknowledged) {
+        Set<UUID> acknowledgedIds = new HashSet<>(acknowledged);
+        Set<String> failedKeys = new HashSet<>();
+        List<UUID> sent = new ArrayList<>(acknowledgedIds.size());
+        for (OutboxMessage message : batch) {
+            if (failedKeys.contains(message.key())) {
+                continue;
+            }
+            if (acknowledgedIds.contains(message.id())) {
+                sent.add(message.id());
+            } else {
+                failedKeys.add(message.key());
+            }
+        }
+        return sent;
+    }
+}
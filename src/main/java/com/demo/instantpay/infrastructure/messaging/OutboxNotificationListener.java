@@ -0,0 +1,101 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes the outbox relay as soon as outbox events are committed. An insert into {@code outbox_events}
+ * sends a {@code NOTIFY outbox_events}, which PostgreSQL delivers on commit and collapses to one per
+ * transaction; this listener holds a dedicated connection outside the pool that listens for it and
+ * runs the relay on every wakeup. Notifications arriving while the relay runs are handled together by
+ * the next run. The timed poll of {@link OutboxEventProcessor} stays as a safety net for notifications
+ * lost while the listener reconnects.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${outbox.notify.enabled:false} and '${outbox.relay.mode:POLLING}' == 'POLLING'")
+public class OutboxNotificationListener implements SmartLifecycle {
+    static final String CHANNEL = "outbox_events";
+    private static final int WAIT_MILLIS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final OutboxEventProcessor outboxEventProcessor;
+    private final Duration reconnectDelay;
+
+    private Thread listener;
+    private volatile boolean running;
+
+    public OutboxNotificationListener(DataSourceProperties dataSourceProperties,
+                                      OutboxEventProcessor outboxEventProcessor,
+                                      @Value("${outbox.notify.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.outboxEventProcessor = outboxEventProcessor;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().name("outbox-listener").daemon().start(this::listen);
+        log.info("outbox_listener_started: channel={}", CHANNEL);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listener.interrupt();
+        try {
+            listener.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                outboxEventProcessor.processOutboxEvents();
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(WAIT_MILLIS);
+                    if (received != null && received.length > 0) {
+                        outboxEventProcessor.processOutboxEvents();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("outbox_listener_disconnected: retryIn={}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.config.OutboxPartitionProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxPartitionRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxPartitionRepository.OutboxPartition;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps {@code outbox_events} partitioned by day: partitions are created {@code outbox.partitions.premake-days}
+ * ahead, and a past day's partition is dropped once it ended more than {@code outbox.partitions.retention}
+ * ago and holds no pending event. In {@code CDC} relay mode rows are never marked sent, since the slot
+ * tracks what was relayed, so past partitions are dropped on age alone. Rows in {@code outbox_events_default}
+ * are purged the same way, sent rows (or rows past retention in CDC mode), and any row left there is
+ * reported, since it means events were written outside the daily partitions. Runs on every shard as well.
+ */
+@Slf4j
+@Component
+public class OutboxPartitionMaintenance {
+    private final OutboxPartitionRepository outboxPartitionRepository;
+    private final OutboxPartitionProperties properties;
+    private final ObjectProvider<ShardRouter> shardRouter;
+    private final boolean cdcMode;
+
+    public OutboxPartitionMaintenance(OutboxPartitionRepository outboxPartitionRepository,
+                                      OutboxPartitionProperties properties,
+                                      ObjectProvider<ShardRouter> shardRouter,
+                                      @Value("${outbox.relay.mode:POLLING}") String relayMode) {
+        this.outboxPartitionRepository = outboxPartitionRepository;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.cdcMode = "CDC".equalsIgnoreCase(relayMode);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.partitions.maintenance-delay-ms:600000}")
+    public void maintainPartitions() {
+        maintain(outboxPartitionRepository, "primary");
+        shardRouter.ifAvailable(router -> {
+            for (Shard shard : router.shards()) {
+                maintain(new OutboxPartitionRepository(shard.jdbcTemplate()), "shard-" + shard.index());
+            }
+        });
+    }
+
+    void maintain(OutboxPartitionRepository repository, String database) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        try {
+            int created = repository.ensurePartitions(now.toLocalDate(), properties.getPremakeDays() + 1);
+            if (created > 0) {
+                log.info("outbox_partitions_created: database={}, count={}", database, created);
+            }
+            OffsetDateTime endedBefore = now.minus(properties.getRetention());
+            for (OutboxPartition partition : repository.findDailyPartitions()) {
+                if (!endOf(partition.day()).isBefore(endedBefore)) {
+                    break;
+                }
+                if (!cdcMode && repository.hasPending(partition)) {
+                    log.debug("outbox_partition_kept: database={}, partition={}, reason=pending", database, partition.name());
+                    continue;
+                }
+                repository.drop(partition);
+                log.info("outbox_partition_dropped: database={}, partition={}", database, partition.name());
+            }
+            purgeDefault(repository, database, endedBefore);
+        } catch (Exception e) {
+            log.error("outbox_partition_maintenance_failed: database={}. Will retry on next run.", database, e);
+        }
+    }
+
+    private void purgeDefault(OutboxPartitionRepository repository, String database, OffsetDateTime createdBefore) {
+        int purged = cdcMode
+                ? repository.purgeDefaultCreatedBefore(createdBefore)
+                : repository.purgeSentFromDefault();
+        if (purged > 0) {
+            log.info("outbox_default_partition_purged: database={}, count={}", database, purged);
+        }
+        long remaining = repository.countDefault();
+        if (remaining > 0) {
+            log.error("outbox_default_partition_not_empty: database={}, rows={}. Events were written outside the daily partitions; check outbox.partitions.premake-days and that maintenance runs.",
+                    database, remaining);
+        }
+    }
+
+    private static OffsetDateTime endOf(LocalDate day) {
+        return day.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decodes the messages of the {@code pgoutput} logical decoding plugin (protocol version 1) that the
+ * outbox relay needs: transaction boundaries and inserted rows, with column values in text form.
+ * Relation messages are remembered so inserts can be matched to their table and columns; every other
+ * message is skipped. Not thread-safe: one decoder per replication stream.
+ */
+final class PgOutputDecoder {
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    Optional<Change> decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case 'B' -> Optional.of(new Begin());
+            case 'C' -> {
+                buffer.get();
+                buffer.getLong();
+                yield Optional.of(new Commit(buffer.getLong()));
+            }
+            case 'R' -> {
+                readRelation(buffer);
+                yield Optional.empty();
+            }
+            case 'I' -> Optional.of(readInsert(buffer));
+            default -> Optional.empty();
+        };
+    }
+
+    private void readRelation(ByteBuffer buffer) {
+        int oid = buffer.getInt();
+        String namespace = readString(buffer);
+        String name = readString(buffer);
+        buffer.get();
+        short columnCount = buffer.getShort();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get();
+            columns.add(readString(buffer));
+            buffer.getInt();
+            buffer.getInt();
+        }
+        relations.put(oid, new Relation(namespace, name, columns));
+    }
+
+    private Insert readInsert(ByteBuffer buffer) {
+        int oid = buffer.getInt();
+        Relation relation = relations.get(oid);
+        if (relation == null) {
+            throw new IllegalStateException("Insert for relation " + oid + " arrived before its relation message");
+        }
+        buffer.get();
+        short columnCount = buffer.getShort();
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            byte kind = buffer.get();
+            String value = null;
+            if (kind == 't') {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            values.put(relation.columns().get(i), value);
+        }
+        return new Insert(relation.name(), values);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        int end = start;
+        while (buffer.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(bytes);
+        buffer.get();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    sealed interface Change permits Begin, Insert, Commit {
+    }
+
+    record Begin() implements Change {
+    }
+
+    record Insert(String table, Map<String, String> values) implements Change {
+    }
+
+    /**
+     * @param endLsn the position just past the transaction's commit record, to be confirmed once the
+     *               transaction has been handled
+     */
+    record Commit(long endLsn) implements Change {
+    }
+
+    private record Relation(String namespace, String name, List<String> columns) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxClaimRepository;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Relays the outbox events written on account shards, which {@link OutboxEventProcessor} does not see
+ * because it only polls the primary database. Like it, each claimed batch is sent on
+ * {@code outbox.relay.workers} {@link OutboxLanes}, and an event following an unacknowledged event of
+ * its key stays pending, so a key's events are never relayed out of order.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+public class ShardOutboxRelay {
+    private final ShardRouter shardRouter;
+    private final KafkaNotificationProducer kafkaNotificationProducer;
+    private final String relayId = "shard-relay-" + UUID.randomUUID();
+    private Function<JdbcTemplate, OutboxClaimRepository> claimRepositories = OutboxClaimRepository::new;
+
+    @Value("${outbox.poll.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.send-timeout:30s}")
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    @Value("${outbox.relay.lease:60s}")
+    private Duration lease = Duration.ofSeconds(60);
+
+    @Value("${outbox.relay.workers:1}")
+    private int workers = 1;
+
+    @Scheduled(fixedDelayString = "${outbox.poll.delay:5000}")
+    public void relayShardOutboxEvents() {
+        for (Shard shard : shardRouter.shards()) {
+            try {
+                relay(shard);
+            } catch (Exception e) {
+                log.error("Failed to poll outbox events on shard {}. Will retry on next poll.", shard.index(), e);
+            }
+        }
+    }
+
+    private void relay(Shard shard) {
+        OutboxClaimRepository outboxClaimRepository = claimRepositories.apply(shard.jdbcTemplate());
+        List<OutboxMessage> pendingEvents = outboxClaimRepository
+                .claim(relayId, lease, batchSize * Math.max(workers, 1));
+
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+
+        log.info("Processing {} pending outbox events on shard {}", pendingEvents.size(), shard.index());
+
+        List<UUID> acknowledged = OutboxMessage.sentInKeyOrder(pendingEvents,
+                OutboxLanes.send(kafkaNotificationProducer, pendingEvents, workers, sendTimeout, relayId));
+        if (!acknowledged.isEmpty()) {
+            outboxClaimRepository.markSent(acknowledged);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads CSV payout files line by line. The first line is a header naming the columns
+ * {@code sender_account_id}, {@code recipient_account_id}, {@code amount}, {@code currency} and
+ * optionally {@code reference}, in any order. Fields may be quoted with {@code "}; a quoted field
+ * cannot span lines. Blank lines are ignored and do not count as entries.
+ */
+public class CsvPayoutFileReader implements PayoutFileReader {
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("sender_account_id", "recipient_account_id", "amount", "currency");
+
+    private final BufferedReader reader;
+    private final int senderColumn;
+    private final int recipientColumn;
+    private final int amountColumn;
+    private final int currencyColumn;
+    private final int referenceColumn;
+    private long entryNumber;
+
+    public CsvPayoutFileReader(Path file) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        String header = reader.readLine();
+        if (header == null) {
+            reader.close();
+            throw new PayoutFileException("CSV payout file is empty");
+        }
+        List<String> columns = split(header.replace("\uFEFF", "")).stream()
+                .map(column -> column.trim().toLowerCase())
+                .toList();
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.contains(required)) {
+                reader.close();
+                throw new PayoutFileException("CSV payout file header is missing column " + required);
+            }
+        }
+        this.senderColumn = columns.indexOf("sender_account_id");
+        this.recipientColumn = columns.indexOf("recipient_account_id");
+        this.amountColumn = columns.indexOf("amount");
+        this.currencyColumn = columns.indexOf("currency");
+        this.referenceColumn = columns.indexOf("reference");
+    }
+
+    @Override
+    public PayoutInstruction next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        long number = ++entryNumber;
+        List<String> fields = split(line);
+        if (fields.size() <= Math.max(Math.max(senderColumn, recipientColumn), Math.max(amountColumn, currencyColumn))) {
+            return PayoutInstruction.invalid(number, "Expected at least " + REQUIRED_COLUMNS.size() + " fields");
+        }
+        try {
+            return new PayoutInstruction(
+                    number,
+                    UUID.fromString(fields.get(senderColumn).trim()),
+                    UUID.fromString(fields.get(recipientColumn).trim()),
+                    new BigDecimal(fields.get(amountColumn).trim()),
+                    fields.get(currencyColumn).trim(),
+                    referenceColumn >= 0 && referenceColumn < fields.size() ? fields.get(referenceColumn).trim() : null,
+                    null
+            );
+        } catch (IllegalArgumentException e) {
+            return PayoutInstruction.invalid(number, "Malformed field: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
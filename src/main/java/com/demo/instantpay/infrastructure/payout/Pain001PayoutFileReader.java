@@ -0,0 +1,152 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads ISO 20022 {@code pain.001} customer credit transfer initiations with StAX. Every
+ * {@code CdtTrfTxInf} becomes one entry; the sender is the {@code DbtrAcct} of its enclosing
+ * {@code PmtInf}. Accounts are identified by their account id in {@code Id/Othr/Id}; elements are
+ * matched by local name, so any {@code pain.001} schema version is accepted.
+ */
+public class Pain001PayoutFileReader implements PayoutFileReader {
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final InputStream input;
+    private final XMLStreamReader xml;
+    private final List<String> path = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+    private long entryNumber;
+
+    private String debtorAccount;
+    private TransferFields transfer;
+
+    public Pain001PayoutFileReader(Path file) throws IOException {
+        this.input = Files.newInputStream(file);
+        try {
+            this.xml = XML_INPUT_FACTORY.createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            input.close();
+            throw new PayoutFileException("Cannot read pain.001 payout file", e);
+        }
+    }
+
+    @Override
+    public PayoutInstruction next() throws IOException {
+        try {
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        path.add(xml.getLocalName());
+                        text.setLength(0);
+                        if (endsWith("PmtInf")) {
+                            debtorAccount = null;
+                        } else if (endsWith("CdtTrfTxInf")) {
+                            transfer = new TransferFields();
+                        } else if (transfer != null && endsWith("Amt", "InstdAmt")) {
+                            transfer.currency = xml.getAttributeValue(null, "Ccy");
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(xml.getText());
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        PayoutInstruction instruction = endElement(text.toString().trim());
+                        path.removeLast();
+                        text.setLength(0);
+                        if (instruction != null) {
+                            return instruction;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new PayoutFileException("Malformed pain.001 payout file after entry " + entryNumber, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new PayoutFileException("Cannot close pain.001 payout file", e);
+        } finally {
+            input.close();
+        }
+    }
+
+    private PayoutInstruction endElement(String value) {
+        if (transfer == null) {
+            if (endsWith("DbtrAcct", "Id", "Othr", "Id")) {
+                debtorAccount = value;
+            }
+            return null;
+        }
+        if (endsWith("CdtTrfTxInf")) {
+            PayoutInstruction instruction = transfer.toInstruction(++entryNumber, debtorAccount);
+            transfer = null;
+            return instruction;
+        }
+        if (endsWith("PmtId", "EndToEndId")) {
+            transfer.reference = value;
+        } else if (endsWith("Amt", "InstdAmt")) {
+            transfer.amount = value;
+        } else if (endsWith("CdtrAcct", "Id", "Othr", "Id")) {
+            transfer.creditorAccount = value;
+        }
+        return null;
+    }
+
+    private boolean endsWith(String... elements) {
+        if (path.size() < elements.length) {
+            return false;
+        }
+        int offset = path.size() - elements.length;
+        for (int i = 0; i < elements.length; i++) {
+            if (!path.get(offset + i).equals(elements[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static final class TransferFields {
+        private String amount;
+        private String currency;
+        private String creditorAccount;
+        private String reference;
+
+        PayoutInstruction toInstruction(long entryNumber, String debtorAccount) {
+            if (debtorAccount == null || creditorAccount == null || amount == null || currency == null) {
+                return PayoutInstruction.invalid(entryNumber,
+                        "Entry needs DbtrAcct/Id/Othr/Id, CdtrAcct/Id/Othr/Id and Amt/InstdAmt with Ccy");
+            }
+            try {
+                return new PayoutInstruction(entryNumber, UUID.fromString(debtorAccount), UUID.fromString(creditorAccount),
+                        new BigDecimal(amount), currency, reference, null);
+            } catch (IllegalArgumentException e) {
+                return PayoutInstruction.invalid(entryNumber, "Malformed field: " + e.getMessage());
+            }
+        }
+    }
+}
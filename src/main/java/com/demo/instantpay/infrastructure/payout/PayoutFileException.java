@@ -0,0 +1,13 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import java.io.IOException;
+
+public class PayoutFileException extends IOException {
+    public PayoutFileException(String message) {
+        super(message);
+    }
+
+    public PayoutFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public enum PayoutFileFormat {
+    CSV {
+        @Override
+        public PayoutFileReader open(Path file) throws IOException {
+            return new CsvPayoutFileReader(file);
+        }
+    },
+    PAIN_001 {
+        @Override
+        public PayoutFileReader open(Path file) throws IOException {
+            return new Pain001PayoutFileReader(file);
+        }
+    };
+
+    public abstract PayoutFileReader open(Path file) throws IOException;
+}
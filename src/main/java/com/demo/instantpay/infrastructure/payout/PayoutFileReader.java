@@ -0,0 +1,27 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads a payout file one entry at a time, so memory use does not depend on the file size.
+ */
+public interface PayoutFileReader extends Closeable {
+
+    /**
+     * Returns the next entry, or {@code null} once the file is exhausted. Throws only when the file as
+     * a whole can no longer be read; a malformed entry is returned as an invalid instruction.
+     */
+    PayoutInstruction next() throws IOException;
+
+    /**
+     * Skips the given number of entries, used to resume a file after its last checkpoint.
+     */
+    default void skip(long entries) throws IOException {
+        for (long i = 0; i < entries; i++) {
+            if (next() == null) {
+                return;
+            }
+        }
+    }
+}
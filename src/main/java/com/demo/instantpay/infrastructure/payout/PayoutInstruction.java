@@ -0,0 +1,26 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One transfer read from a payout file. {@code entryNumber} counts entries from 1 in file order. An
+ * entry that could not be parsed carries the reason in {@code error} and is reported, not executed.
+ */
+public record PayoutInstruction(
+        long entryNumber,
+        UUID senderAccountId,
+        UUID recipientAccountId,
+        BigDecimal amount,
+        String currency,
+        String reference,
+        String error
+) {
+    static PayoutInstruction invalid(long entryNumber, String error) {
+        return new PayoutInstruction(entryNumber, null, null, null, null, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
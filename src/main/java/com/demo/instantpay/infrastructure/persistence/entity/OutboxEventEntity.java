@@ -28,6 +28,9 @@ public class OutboxEventEntity {
     @Column(name = "aggregate_id", nullable = false)
     private UUID aggregateId;
 
+    @Column(name = "partition_key")
+    private UUID partitionKey;
+
     @Column(name = "event_topic", nullable = false)
     private String eventTopic;
 
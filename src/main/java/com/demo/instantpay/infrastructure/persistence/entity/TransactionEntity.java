@@ -46,6 +46,21 @@ public class TransactionEntity {
     @Column(name = "idempotency_key", nullable = false, unique = true)
     private UUID idempotencyKey;
 
+    @Column(name = "fx_rate", precision = 19, scale = 10)
+    private BigDecimal fxRate;
+
+    @Column(name = "fx_rate_version")
+    private Long fxRateVersion;
+
+    @Column(name = "credited_amount", precision = 19, scale = 4)
+    private BigDecimal creditedAmount;
+
+    @Column(name = "credited_currency", length = 3)
+    private String creditedCurrency;
+
+    @Column(name = "hold_expires_at")
+    private OffsetDateTime holdExpiresAt;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
@@ -0,0 +1,53 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Directory of the shard every account was created on, kept in the primary database. An account stays
+ * on its recorded shard even when adding a shard changes the owner the hash ring would pick for it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountPlacementRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Integer> findShardIndex(UUID accountId) {
+        return jdbcTemplate.queryForList("SELECT shard_index FROM account_shard_placements WHERE account_id = ?",
+                        Integer.class, accountId)
+                .stream()
+                .findFirst();
+    }
+
+    public void record(UUID accountId, int shardIndex) {
+        jdbcTemplate.update("""
+                        INSERT INTO account_shard_placements (account_id, shard_index)
+                        VALUES (?, ?)
+                        ON CONFLICT (account_id) DO NOTHING
+                        """,
+                accountId, shardIndex);
+    }
+
+    /**
+     * Records accounts found on a shard that have no placement yet; existing placements are kept.
+     */
+    public void recordAll(Collection<UUID> accountIds, int shardIndex) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO account_shard_placements (account_id, shard_index)
+                        VALUES (?, ?)
+                        ON CONFLICT (account_id) DO NOTHING
+                        """,
+                accountIds, accountIds.size(), (ps, accountId) -> {
+                    ps.setObject(1, accountId);
+                    ps.setInt(2, shardIndex);
+                });
+    }
+}
@@ -4,10 +4,13 @@ import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,4 +25,65 @@ public interface AccountRepository extends JpaRepository<AccountEntity, UUID> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM AccountEntity a WHERE a.id = :id")
     Optional<AccountEntity> findByIdForUpdate(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AccountEntity a WHERE a.id IN :ids ORDER BY a.id")
+    List<AccountEntity> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT a.id AS id, a.balanceSlots AS balanceSlots FROM AccountEntity a WHERE a.balanceSlots > 0")
+    List<StripedAccount> findStripedAccounts();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO account_balance_slots (account_id, slot, balance, updated_at)
+            VALUES (:accountId, :slot, :amount, CURRENT_TIMESTAMP)
+            ON CONFLICT (account_id, slot) DO UPDATE
+                SET balance = account_balance_slots.balance + EXCLUDED.balance,
+                    updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int creditBalanceSlot(@Param("accountId") UUID accountId, @Param("slot") int slot, @Param("amount") BigDecimal amount);
+
+    /**
+     * Empties the account's slots and returns the amount they held, to be added to its balance.
+     */
+    @Query(value = "SELECT sweep_balance_slots(:accountId, CURRENT_TIMESTAMP)", nativeQuery = true)
+    BigDecimal sweepBalanceSlots(@Param("accountId") UUID accountId);
+
+    /**
+     * Debits the account only if its balance covers the amount; returns the number of updated rows.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE accounts
+            SET balance = balance - :amount, version = version + 1, updated_at = CURRENT_TIMESTAMP
+            WHERE id = :accountId AND balance >= :amount
+            """, nativeQuery = true)
+    int debitIfCovered(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = """
+            UPDATE accounts
+            SET balance = balance + :amount, version = version + 1, updated_at = CURRENT_TIMESTAMP
+            WHERE id = :accountId
+            """, nativeQuery = true)
+    int credit(@Param("accountId") UUID accountId, @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT DISTINCT account_id FROM account_balance_slots WHERE balance > 0", nativeQuery = true)
+    List<UUID> findAccountIdsWithPendingSlotBalance();
+
+    @Query(value = "SELECT id AS id, limit_tier AS limitTier FROM accounts WHERE limit_tier <> :defaultTier",
+            nativeQuery = true)
+    List<TieredAccount> findAccountsOutsideTier(@Param("defaultTier") String defaultTier);
+
+    interface StripedAccount {
+        UUID getId();
+
+        int getBalanceSlots();
+    }
+
+    interface TieredAccount {
+        UUID getId();
+
+        String getLimitTier();
+    }
 }
@@ -0,0 +1,218 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class AccountTransferRepository {
+    static final String TRANSFER_SQL = """
+            SELECT outcome, account_currency
+            FROM transfer_funds(?::uuid, ?::uuid, ?::uuid, ?::numeric, ?::char(3), ?::uuid, ?, ?::timestamptz, ?, ?)
+            """;
+
+    static final RowMapper<TransferResult> RESULT_MAPPER = (rs, rowNum) -> new TransferResult(
+            Outcome.valueOf(rs.getString("outcome")),
+            rs.getString("account_currency")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferResult transfer(TransferCommand command) {
+        return jdbcTemplate.queryForObject(TRANSFER_SQL, RESULT_MAPPER,
+                command.transactionId(),
+                command.senderAccountId(),
+                command.recipientAccountId(),
+                command.amount(),
+                command.currency(),
+                command.idempotencyKey(),
+                command.senderUsername(),
+                command.createdAt(),
+                command.eventTopic(),
+                command.eventPayload()
+        );
+    }
+
+    /**
+     * Runs all transfers in one database transaction with a single commit. Each transfer executes under
+     * its own savepoint, so an unexpected database error only discards that transfer.
+     * <p>
+     * When {@code idempotencyKeysExpireAt} is given, each transfer also reserves its key in
+     * {@code idempotency_keys} under its savepoint and stores its response there once completed. A key
+     * that is already taken is answered with the stored response, and a transfer that does not complete
+     * gives its key back.
+     */
+    public List<BatchItemResult> transferAll(List<TransferCommand> commands, OffsetDateTime idempotencyKeysExpireAt) {
+        return jdbcTemplate.execute((ConnectionCallback<List<BatchItemResult>>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(TRANSFER_SQL);
+                 BatchIdempotencyKeys keys = idempotencyKeysExpireAt == null
+                         ? null
+                         : new BatchIdempotencyKeys(connection, idempotencyKeysExpireAt)) {
+                List<BatchItemResult> results = new ArrayList<>(commands.size());
+                for (TransferCommand command : commands) {
+                    results.add(transferWithinSavepoint(connection, statement, keys, command));
+                }
+                connection.commit();
+                return results;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private BatchItemResult transferWithinSavepoint(Connection connection, PreparedStatement statement,
+                                                    BatchIdempotencyKeys keys, TransferCommand command) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            if (keys != null && !keys.reserve(command)) {
+                BatchItemResult taken = keys.findResponse(command)
+                        .map(BatchItemResult::replayed)
+                        .orElseGet(() -> new BatchItemResult(new TransferResult(Outcome.DUPLICATE, null), null));
+                connection.releaseSavepoint(savepoint);
+                return taken;
+            }
+            bind(statement, command);
+            TransferResult result;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                result = RESULT_MAPPER.mapRow(resultSet, 0);
+            }
+            if (keys != null && result.outcome() != Outcome.COMPLETED) {
+                connection.rollback(savepoint);
+                return new BatchItemResult(result, null);
+            }
+            if (keys != null) {
+                keys.storeResponse(command);
+            }
+            connection.releaseSavepoint(savepoint);
+            return new BatchItemResult(result, null);
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            DataAccessException failure = jdbcTemplate.getExceptionTranslator().translate("transfer_funds", TRANSFER_SQL, e);
+            return new BatchItemResult(null, failure);
+        }
+    }
+
+    private void bind(PreparedStatement statement, TransferCommand command) throws SQLException {
+        statement.setObject(1, command.transactionId());
+        statement.setObject(2, command.senderAccountId());
+        statement.setObject(3, command.recipientAccountId());
+        statement.setBigDecimal(4, command.amount());
+        statement.setString(5, command.currency());
+        statement.setObject(6, command.idempotencyKey());
+        statement.setString(7, command.senderUsername());
+        statement.setObject(8, command.createdAt());
+        statement.setString(9, command.eventTopic());
+        statement.setString(10, command.eventPayload());
+    }
+
+    public record TransferCommand(
+            UUID transactionId,
+            UUID senderAccountId,
+            UUID recipientAccountId,
+            BigDecimal amount,
+            String currency,
+            UUID idempotencyKey,
+            String senderUsername,
+            OffsetDateTime createdAt,
+            String eventTopic,
+            String eventPayload
+    ) {
+    }
+
+    public record TransferResult(Outcome outcome, String accountCurrency) {
+    }
+
+    /**
+     * Outcome of one transfer of a batch: its result, the database error that discarded it, or the
+     * response stored under its idempotency key by an earlier payment.
+     */
+    public record BatchItemResult(TransferResult result, DataAccessException failure, String storedResponse) {
+        public BatchItemResult(TransferResult result, DataAccessException failure) {
+            this(result, failure, null);
+        }
+
+        static BatchItemResult replayed(String storedResponse) {
+            return new BatchItemResult(null, null, storedResponse);
+        }
+    }
+
+    /**
+     * The {@code idempotency_keys} statements of a batch, prepared once on its connection. The stored
+     * response is the event payload, which is the serialized response of the completed transfer.
+     */
+    private static final class BatchIdempotencyKeys implements AutoCloseable {
+        private final PreparedStatement reserve;
+        private final PreparedStatement findResponse;
+        private final PreparedStatement storeResponse;
+        private final OffsetDateTime expiresAt;
+
+        BatchIdempotencyKeys(Connection connection, OffsetDateTime expiresAt) throws SQLException {
+            this.reserve = connection.prepareStatement(IdempotencyKeyRepository.RESERVE_SQL);
+            this.findResponse = connection.prepareStatement(IdempotencyKeyRepository.FIND_RESPONSE_SQL);
+            this.storeResponse = connection.prepareStatement(IdempotencyKeyRepository.STORE_RESPONSE_SQL);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean reserve(TransferCommand command) throws SQLException {
+            reserve.setString(1, command.senderUsername());
+            reserve.setObject(2, command.idempotencyKey());
+            reserve.setObject(3, expiresAt);
+            return reserve.executeUpdate() == 1;
+        }
+
+        Optional<String> findResponse(TransferCommand command) throws SQLException {
+            findResponse.setString(1, command.senderUsername());
+            findResponse.setObject(2, command.idempotencyKey());
+            try (ResultSet resultSet = findResponse.executeQuery()) {
+                return resultSet.next() ? Optional.ofNullable(resultSet.getString(1)) : Optional.empty();
+            }
+        }
+
+        void storeResponse(TransferCommand command) throws SQLException {
+            storeResponse.setString(1, command.eventPayload());
+            storeResponse.setString(2, command.senderUsername());
+            storeResponse.setObject(3, command.idempotencyKey());
+            storeResponse.executeUpdate();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            reserve.close();
+            findResponse.close();
+            storeResponse.close();
+        }
+    }
+
+    public enum Outcome {
+        COMPLETED,
+        DUPLICATE,
+        SENDER_NOT_FOUND,
+        NOT_OWNER,
+        RECIPIENT_NOT_FOUND,
+        SENDER_CURRENCY_MISMATCH,
+        RECIPIENT_CURRENCY_MISMATCH,
+        INSUFFICIENT_FUNDS
+    }
+}
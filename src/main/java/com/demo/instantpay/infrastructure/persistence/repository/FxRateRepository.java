@@ -0,0 +1,50 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class FxRateRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads every rate together with the version of the rate table in one statement, so the version
+     * always describes exactly the rates returned. The version is bumped by a trigger on every change
+     * to {@code fx_rates}, deletes included.
+     */
+    public FxRates findAll() {
+        return jdbcTemplate.query("""
+                        SELECT v.version, r.base_currency, r.quote_currency, r.rate, r.updated_at
+                        FROM fx_rates_version v
+                        LEFT JOIN fx_rates r ON TRUE
+                        """,
+                rs -> {
+                    long version = 0;
+                    List<FxRate> rates = new ArrayList<>();
+                    while (rs.next()) {
+                        version = rs.getLong("version");
+                        if (rs.getString("base_currency") != null) {
+                            rates.add(new FxRate(
+                                    rs.getString("base_currency"),
+                                    rs.getString("quote_currency"),
+                                    rs.getBigDecimal("rate"),
+                                    rs.getObject("updated_at", OffsetDateTime.class)));
+                        }
+                    }
+                    return new FxRates(version, rates);
+                });
+    }
+
+    public record FxRates(long version, List<FxRate> rates) {
+    }
+
+    public record FxRate(String baseCurrency, String quoteCurrency, BigDecimal rate, OffsetDateTime updatedAt) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Idempotency keys per user, each with the response of the payment it was used for. A key is
+ * reserved by inserting its row, so of two concurrent requests with the same key the second blocks
+ * on the first's uncommitted row and then finds it taken.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+    static final String RESERVE_SQL = """
+            INSERT INTO idempotency_keys (username, idempotency_key, expires_at)
+            VALUES (?, ?, ?)
+            ON CONFLICT (username, idempotency_key) DO NOTHING
+            """;
+    static final String FIND_RESPONSE_SQL = """
+            SELECT response FROM idempotency_keys
+            WHERE username = ? AND idempotency_key = ?
+            """;
+    static final String STORE_RESPONSE_SQL = """
+            UPDATE idempotency_keys SET response = ?
+            WHERE username = ? AND idempotency_key = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * {@code true} if the key was free and is now reserved by the current transaction.
+     */
+    public boolean reserve(String username, UUID idempotencyKey, OffsetDateTime expiresAt) {
+        return jdbcTemplate.update(RESERVE_SQL, username, idempotencyKey, expiresAt) == 1;
+    }
+
+    /**
+     * The stored response of a reserved key, empty if the key is unknown or its payment has not
+     * stored one.
+     */
+    public Optional<String> findResponse(String username, UUID idempotencyKey) {
+        return jdbcTemplate.queryForList(FIND_RESPONSE_SQL, String.class, username, idempotencyKey)
+                .stream()
+                .filter(response -> response != null)
+                .findFirst();
+    }
+
+    public void storeResponse(String username, UUID idempotencyKey, String response) {
+        jdbcTemplate.update(STORE_RESPONSE_SQL, response, username, idempotencyKey);
+    }
+
+    /**
+     * Deletes up to {@code limit} keys expired before {@code now}, oldest first, and returns how
+     * many were deleted.
+     */
+    public int deleteExpired(OffsetDateTime now, int limit) {
+        return jdbcTemplate.update("""
+                        DELETE FROM idempotency_keys
+                        WHERE ctid = ANY(ARRAY(
+                            SELECT ctid FROM idempotency_keys
+                            WHERE expires_at < ?
+                            ORDER BY expires_at
+                            LIMIT ?))
+                        """,
+                now, limit);
+    }
+}
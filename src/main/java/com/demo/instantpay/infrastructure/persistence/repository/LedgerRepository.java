@@ -0,0 +1,132 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * JDBC access used by the in-memory ledger: loading account state on startup and persisting
+ * journaled transfers in batches.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerRepository {
+    private static final String ACCOUNT_SQL = """
+            SELECT a.id, u.username, a.currency,
+                   a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0)
+                       AS total_balance
+            FROM accounts a
+            JOIN users u ON u.id = a.user_id
+            """;
+
+    private static final RowMapper<LedgerAccountRow> ACCOUNT_MAPPER = (rs, rowNum) -> new LedgerAccountRow(
+            rs.getObject("id", UUID.class),
+            rs.getString("username"),
+            rs.getString("currency"),
+            rs.getBigDecimal("total_balance")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<LedgerAccountRow> findAllAccounts() {
+        return jdbcTemplate.query(ACCOUNT_SQL, ACCOUNT_MAPPER);
+    }
+
+    public Optional<LedgerAccountRow> findAccount(UUID accountId) {
+        return jdbcTemplate.query(ACCOUNT_SQL + " WHERE a.id = ?", ACCOUNT_MAPPER, accountId).stream().findFirst();
+    }
+
+    public void forEachIdempotencyKeySince(OffsetDateTime since, BiConsumer<UUID, OffsetDateTime> consumer) {
+        jdbcTemplate.query("SELECT idempotency_key, created_at FROM transactions WHERE created_at >= ?",
+                rs -> {
+                    consumer.accept(rs.getObject(1, UUID.class), rs.getObject(2, OffsetDateTime.class));
+                },
+                since);
+    }
+
+    public Set<UUID> findPersistedTransactionIds(Collection<UUID> transactionIds) {
+        Set<UUID> persisted = new HashSet<>();
+        if (transactionIds.isEmpty()) {
+            return persisted;
+        }
+        jdbcTemplate.query("SELECT id FROM transactions WHERE id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", transactionIds.toArray())),
+                rs -> {
+                    persisted.add(rs.getObject(1, UUID.class));
+                });
+        return persisted;
+    }
+
+    /**
+     * Writes the transactions, their outbox events and the resulting balance changes in one database
+     * transaction, so the persisted balances always reflect exactly the persisted transactions. Slot
+     * balances of touched accounts are folded into the main balance, since the ledger tracks the total.
+     */
+    @Transactional
+    public void persist(List<TransferCommand> commands) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO transactions (id, sender_account_id, recipient_account_id, amount, currency,
+                                                  status, idempotency_key, created_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                        """,
+                commands, commands.size(), (ps, command) -> {
+                    ps.setObject(1, command.transactionId());
+                    ps.setObject(2, command.senderAccountId());
+                    ps.setObject(3, command.recipientAccountId());
+                    ps.setBigDecimal(4, command.amount());
+                    ps.setString(5, command.currency());
+                    ps.setString(6, TransactionEntity.TransactionStatus.COMPLETED.name());
+                    ps.setObject(7, command.idempotencyKey());
+                    ps.setObject(8, command.createdAt());
+                });
+
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO outbox_events (aggregate_type, aggregate_id, partition_key, event_topic, payload, status, created_at)
+                        VALUES ('Transaction', ?, ?, ?, ?, 'PENDING', ?)
+                        """,
+                commands, commands.size(), (ps, command) -> {
+                    ps.setObject(1, command.transactionId());
+                    ps.setObject(2, command.senderAccountId());
+                    ps.setString(3, command.eventTopic());
+                    ps.setString(4, command.eventPayload());
+                    ps.setObject(5, command.createdAt());
+                });
+
+        Map<UUID, BigDecimal> deltas = new TreeMap<>();
+        for (TransferCommand command : commands) {
+            deltas.merge(command.senderAccountId(), command.amount().negate(), BigDecimal::add);
+            deltas.merge(command.recipientAccountId(), command.amount(), BigDecimal::add);
+        }
+        jdbcTemplate.batchUpdate("""
+                        UPDATE accounts
+                        SET balance = balance + ? + sweep_balance_slots(?, CURRENT_TIMESTAMP),
+                            version = version + 1,
+                            updated_at = CURRENT_TIMESTAMP
+                        WHERE id = ?
+                        """,
+                deltas.entrySet(), deltas.size(), (ps, delta) -> {
+                    ps.setBigDecimal(1, delta.getValue());
+                    ps.setObject(2, delta.getKey());
+                    ps.setObject(3, delta.getKey());
+                });
+    }
+
+    public record LedgerAccountRow(UUID id, String ownerUsername, String currency, BigDecimal balance) {
+    }
+}
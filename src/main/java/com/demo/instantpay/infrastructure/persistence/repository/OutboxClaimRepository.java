@@ -0,0 +1,138 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.infrastructure.messaging.OutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims pending outbox events for one relay at a time. A claim is a lease: the claimed rows are
+ * skipped by other relays until it runs out, so relays on any number of instances and threads take
+ * disjoint batches, and the events of a relay that dies are picked up again once its lease expires.
+ * Rows being claimed concurrently are skipped rather than waited for. An event is only claimed once
+ * every older event of its record key is sent or claimed along with it, so a key is never held by two
+ * relays at once and a failed send cannot be overtaken by a later event of the same key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxClaimRepository {
+    /**
+     * Claims the {@code candidates} rows, except those with an older pending event of the same record key
+     * that is not a candidate itself: that event is leased to another relay, still being claimed, or left
+     * unacknowledged, and publishing past it would reorder the key.
+     */
+    private static final String CLAIM_IN_KEY_ORDER = """
+            , claimable AS (
+                SELECT c.id, c.created_at FROM candidates c
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM outbox_events o
+                    WHERE o.status = 'PENDING'
+                      AND COALESCE(o.partition_key, o.aggregate_id) = c.record_key
+                      AND (o.created_at, o.id) < (c.created_at, c.id)
+                      AND NOT EXISTS (SELECT 1 FROM candidates p WHERE p.id = o.id AND p.created_at = o.created_at)
+                )
+            ), claimed AS (
+                UPDATE outbox_events e
+                SET claimed_by = ?,
+                    claimed_until = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond'
+                FROM claimable
+                WHERE e.id = claimable.id
+                  AND e.created_at = claimable.created_at
+                RETURNING e.id, e.event_topic, COALESCE(e.partition_key, e.aggregate_id) AS record_key,
+                          e.payload, e.created_at
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims up to {@code limit} of the oldest pending, unclaimed events for {@code lease} and returns
+     * them oldest first.
+     */
+    public List<OutboxMessage> claim(String relayId, Duration lease, int limit) {
+        return claim(relayId, lease, limit, Duration.ZERO);
+    }
+
+    /**
+     * Like {@link #claim(String, Duration, int)}, but skips events written less than {@code minAge} ago.
+     * Events whose record key has an older event under another relay's lease are not even considered, so
+     * they do not crowd other keys out of the batch.
+     */
+    public List<OutboxMessage> claim(String relayId, Duration lease, int limit, Duration minAge) {
+        return jdbcTemplate.query("""
+                        WITH candidates AS (
+                            SELECT id, created_at, COALESCE(partition_key, aggregate_id) AS record_key FROM outbox_events e
+                            WHERE status = 'PENDING'
+                              AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP)
+                              AND created_at <= CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond'
+                              AND NOT EXISTS (
+                                  SELECT 1 FROM outbox_events o
+                                  WHERE o.status = 'PENDING'
+                                    AND COALESCE(o.partition_key, o.aggregate_id) = COALESCE(e.partition_key, e.aggregate_id)
+                                    AND (o.created_at, o.id) < (e.created_at, e.id)
+                                    AND o.claimed_until >= CURRENT_TIMESTAMP
+                              )
+                            ORDER BY created_at, id
+                            LIMIT ?
+                            FOR UPDATE SKIP LOCKED
+                        )
+                        """ + CLAIM_IN_KEY_ORDER + """
+                        SELECT id, event_topic, record_key, payload, created_at FROM claimed ORDER BY created_at, id
+                        """,
+                (rs, rowNum) -> new OutboxMessage(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("event_topic"),
+                        rs.getString("record_key"),
+                        rs.getString("payload"),
+                        rs.getObject("created_at", OffsetDateTime.class)),
+                minAge.toMillis(), limit, relayId, lease.toMillis());
+    }
+
+    /**
+     * Claims the given events for {@code lease} if they are still pending and unclaimed, and returns the
+     * ids of those it claimed. An event another relay holds, that was already sent, or that would
+     * overtake an older pending event of its record key left out of this claim is skipped.
+     */
+    public List<UUID> claimIds(String relayId, Duration lease, Collection<UUID> ids) {
+        return jdbcTemplate.query("""
+                        WITH candidates AS (
+                            SELECT id, created_at, COALESCE(partition_key, aggregate_id) AS record_key FROM outbox_events
+                            WHERE id = ANY(?)
+                              AND status = 'PENDING'
+                              AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP)
+                            FOR UPDATE SKIP LOCKED
+                        )
+                        """ + CLAIM_IN_KEY_ORDER + """
+                        SELECT id FROM claimed
+                        """,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray()));
+                    ps.setString(2, relayId);
+                    ps.setLong(3, lease.toMillis());
+                },
+                (rs, rowNum) -> rs.getObject("id", UUID.class));
+    }
+
+    /**
+     * Marks relayed events {@code SENT} instead of deleting them, which drops them from the pending
+     * index; the rows themselves go away with their partition.
+     */
+    public int markSent(Collection<UUID> ids) {
+        return jdbcTemplate.update("""
+                        UPDATE outbox_events
+                        SET status = 'SENT',
+                            processed_at = CURRENT_TIMESTAMP,
+                            claimed_by = NULL,
+                            claimed_until = NULL
+                        WHERE id = ANY(?)
+                          AND status = 'PENDING'
+                        """,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())));
+    }
+}
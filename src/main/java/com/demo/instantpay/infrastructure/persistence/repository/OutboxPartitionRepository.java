@@ -0,0 +1,91 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the daily partitions of {@code outbox_events}, named {@code outbox_events_pYYYYMMDD} and
+ * covering one UTC day each. Rows outside every daily partition land in {@code outbox_events_default},
+ * which is never dropped.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxPartitionRepository {
+    private static final Pattern DAILY_PARTITION = Pattern.compile("outbox_events_p(\\d{8})");
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the missing daily partitions for {@code days} days starting at {@code from} and returns
+     * how many were created. Rows of a created day are moved out of {@code outbox_events_default}; a
+     * day that cannot be created is skipped with a database warning and does not stop the others.
+     */
+    public int ensurePartitions(LocalDate from, int days) {
+        Integer created = jdbcTemplate.queryForObject("SELECT ensure_outbox_partitions(?, ?)", Integer.class, from, days);
+        return created == null ? 0 : created;
+    }
+
+    public List<OutboxPartition> findDailyPartitions() {
+        return jdbcTemplate.queryForList("""
+                                SELECT c.relname FROM pg_inherits i
+                                JOIN pg_class c ON c.oid = i.inhrelid
+                                WHERE i.inhparent = 'outbox_events'::regclass
+                                ORDER BY c.relname
+                                """,
+                        String.class)
+                .stream()
+                .map(DAILY_PARTITION::matcher)
+                .filter(Matcher::matches)
+                .map(m -> new OutboxPartition(m.group(), LocalDate.parse(m.group(1), PARTITION_DAY)))
+                .toList();
+    }
+
+    public boolean hasPending(OutboxPartition partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + partition.name() + " WHERE status = 'PENDING')", Boolean.class));
+    }
+
+    /**
+     * Deletes the sent rows of {@code outbox_events_default}, which is never dropped, and returns how
+     * many were deleted.
+     */
+    public int purgeSentFromDefault() {
+        return jdbcTemplate.update("DELETE FROM outbox_events_default WHERE status = 'SENT'");
+    }
+
+    /**
+     * Deletes the rows of {@code outbox_events_default} created before {@code createdBefore}, whatever
+     * their status, and returns how many were deleted.
+     */
+    public int purgeDefaultCreatedBefore(OffsetDateTime createdBefore) {
+        return jdbcTemplate.update("DELETE FROM outbox_events_default WHERE created_at < ?", createdBefore);
+    }
+
+    public long countDefault() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events_default", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Drops the partition with its rows in one catalog operation, however many rows it holds.
+     */
+    public void drop(OutboxPartition partition) {
+        jdbcTemplate.execute("DROP TABLE " + partition.name());
+    }
+
+    /**
+     * @param name always matches {@code outbox_events_pYYYYMMDD}, so it is safe to use as an identifier
+     * @param day  the UTC day the partition covers
+     */
+    public record OutboxPartition(String name, LocalDate day) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.infrastructure.payout.PayoutFileFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Payout batches, their files and the per-entry results of executing them. The file is kept in the
+ * database until the batch finishes, so whichever instance claims the batch can read it. Results of a
+ * chunk are written together with the batch checkpoint, so after a crash a batch resumes right after
+ * its last recorded chunk.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PayoutBatchRepository {
+    private static final int FILE_SLICE_BYTES = 4 * 1024 * 1024;
+    private static final String BATCH_COLUMNS = """
+            id, owner_username, file_format, status, processed_entries, succeeded_entries,
+            failed_entries, error, created_at, updated_at
+            """;
+
+    private static final RowMapper<PayoutBatch> BATCH_MAPPER = (rs, rowNum) -> new PayoutBatch(
+            rs.getObject("id", UUID.class),
+            rs.getString("owner_username"),
+            PayoutFileFormat.valueOf(rs.getString("file_format")),
+            BatchStatus.valueOf(rs.getString("status")),
+            rs.getLong("processed_entries"),
+            rs.getLong("succeeded_entries"),
+            rs.getLong("failed_entries"),
+            rs.getString("error"),
+            rs.getObject("created_at", OffsetDateTime.class),
+            rs.getObject("updated_at", OffsetDateTime.class)
+    );
+
+    private static final RowMapper<PayoutEntry> ENTRY_MAPPER = (rs, rowNum) -> new PayoutEntry(
+            rs.getLong("entry_number"),
+            rs.getObject("sender_account_id", UUID.class),
+            rs.getObject("recipient_account_id", UUID.class),
+            rs.getBigDecimal("amount"),
+            rs.getString("currency"),
+            rs.getString("reference"),
+            EntryStatus.valueOf(rs.getString("status")),
+            rs.getObject("transaction_id", UUID.class),
+            rs.getString("error")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stores the batch together with the content of {@code file}, which is streamed rather than read
+     * into memory.
+     */
+    @Transactional
+    public void create(UUID batchId, String ownerUsername, PayoutFileFormat format, Path file) throws IOException {
+        jdbcTemplate.update("""
+                INSERT INTO payout_batches (id, owner_username, file_format, status)
+                VALUES (?, ?, ?, 'RECEIVED')
+                """, batchId, ownerUsername, format.name());
+        long size = Files.size(file);
+        try (InputStream content = Files.newInputStream(file)) {
+            jdbcTemplate.update("INSERT INTO payout_batch_files (batch_id, content) VALUES (?, ?)", statement -> {
+                statement.setObject(1, batchId);
+                statement.setBinaryStream(2, content, size);
+            });
+        }
+    }
+
+    /**
+     * Writes the stored file of a batch to {@code target} a slice at a time, so a large file is never
+     * held in memory whole.
+     */
+    public void copyFile(UUID batchId, OutputStream target) throws IOException {
+        for (int offset = 1; ; offset += FILE_SLICE_BYTES) {
+            List<byte[]> slice = jdbcTemplate.query(
+                    "SELECT substring(content FROM ?::int FOR ?::int) FROM payout_batch_files WHERE batch_id = ?",
+                    (rs, rowNum) -> rs.getBytes(1), offset, FILE_SLICE_BYTES, batchId);
+            if (slice.isEmpty()) {
+                throw new IOException("No file stored for payout batch " + batchId);
+            }
+            target.write(slice.getFirst());
+            if (slice.getFirst().length < FILE_SLICE_BYTES) {
+                return;
+            }
+        }
+    }
+
+    public Optional<PayoutBatch> findById(UUID batchId) {
+        return jdbcTemplate.query("SELECT " + BATCH_COLUMNS + " FROM payout_batches WHERE id = ?", BATCH_MAPPER, batchId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Claims the oldest batch that is waiting, or whose processing has not checkpointed for
+     * {@code staleAfter} because its instance died. Concurrent claimers never get the same batch.
+     */
+    public Optional<PayoutBatch> claimNext(Duration staleAfter) {
+        return jdbcTemplate.query("""
+                        UPDATE payout_batches
+                        SET status = 'PROCESSING', updated_at = CURRENT_TIMESTAMP
+                        WHERE id = (
+                            SELECT id FROM payout_batches
+                            WHERE status = 'RECEIVED'
+                               OR (status = 'PROCESSING' AND updated_at < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond')
+                            ORDER BY created_at
+                            LIMIT 1
+                            FOR UPDATE SKIP LOCKED
+                        )
+                        RETURNING
+                        """ + BATCH_COLUMNS,
+                        BATCH_MAPPER, staleAfter.toMillis())
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Stores the results of one chunk and advances the checkpoint to the last entry of the chunk.
+     */
+    @Transactional
+    public void checkpoint(UUID batchId, List<PayoutEntry> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO payout_batch_entries (batch_id, entry_number, sender_account_id, recipient_account_id,
+                                                          amount, currency, reference, status, transaction_id, error)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        ON CONFLICT (batch_id, entry_number) DO NOTHING
+                        """,
+                results,
+                results.size(),
+                (statement, entry) -> {
+                    statement.setObject(1, batchId);
+                    statement.setLong(2, entry.entryNumber());
+                    statement.setObject(3, entry.senderAccountId());
+                    statement.setObject(4, entry.recipientAccountId());
+                    statement.setBigDecimal(5, entry.amount());
+                    statement.setString(6, entry.currency());
+                    statement.setString(7, entry.reference());
+                    statement.setString(8, entry.status().name());
+                    statement.setObject(9, entry.transactionId());
+                    statement.setString(10, entry.error());
+                });
+        long succeeded = results.stream().filter(entry -> entry.status() != EntryStatus.FAILED).count();
+        jdbcTemplate.update("""
+                        UPDATE payout_batches
+                        SET processed_entries = ?,
+                            succeeded_entries = succeeded_entries + ?,
+                            failed_entries = failed_entries + ?,
+                            updated_at = CURRENT_TIMESTAMP
+                        WHERE id = ?
+                        """,
+                results.getLast().entryNumber(), succeeded, results.size() - succeeded, batchId);
+    }
+
+    /**
+     * Records the final status and drops the file, which is not read again.
+     */
+    @Transactional
+    public void finish(UUID batchId, BatchStatus status, String error) {
+        jdbcTemplate.update("""
+                UPDATE payout_batches
+                SET status = ?, error = ?, updated_at = CURRENT_TIMESTAMP
+                WHERE id = ?
+                """, status.name(), error, batchId);
+        jdbcTemplate.update("DELETE FROM payout_batch_files WHERE batch_id = ?", batchId);
+    }
+
+    public List<PayoutEntry> findEntries(UUID batchId, long afterEntry, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT entry_number, sender_account_id, recipient_account_id, amount, currency, reference,
+                               status, transaction_id, error
+                        FROM payout_batch_entries
+                        WHERE batch_id = ? AND entry_number > ?
+                        ORDER BY entry_number
+                        LIMIT ?
+                        """,
+                ENTRY_MAPPER, batchId, afterEntry, limit);
+    }
+
+    public enum BatchStatus {
+        RECEIVED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+
+    public enum EntryStatus {
+        COMPLETED,
+        PENDING,
+        FAILED
+    }
+
+    public record PayoutBatch(
+            UUID id,
+            String ownerUsername,
+            PayoutFileFormat format,
+            BatchStatus status,
+            long processedEntries,
+            long succeededEntries,
+            long failedEntries,
+            String error,
+            OffsetDateTime createdAt,
+            OffsetDateTime updatedAt
+    ) {
+    }
+
+    public record PayoutEntry(
+            long entryNumber,
+            UUID senderAccountId,
+            UUID recipientAccountId,
+            BigDecimal amount,
+            String currency,
+            String reference,
+            EntryStatus status,
+            UUID transactionId,
+            String error
+    ) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Future-dated and recurring payments. Each row carries its own cursor: the number of the next
+ * occurrence and when it is due. Advancing the cursor is guarded by the occurrence number, so an
+ * occurrence is only ever advanced past once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduledPaymentRepository {
+    private static final String COLUMNS = """
+            id, owner_username, sender_account_id, recipient_account_id, amount, currency, first_run_at,
+            recurrence, max_occurrences, occurrence, next_run_at, status, last_error, created_at, updated_at
+            """;
+
+    private static final RowMapper<ScheduledPayment> MAPPER = (rs, rowNum) -> new ScheduledPayment(
+            rs.getObject("id", UUID.class),
+            rs.getString("owner_username"),
+            rs.getObject("sender_account_id", UUID.class),
+            rs.getObject("recipient_account_id", UUID.class),
+            rs.getBigDecimal("amount"),
+            rs.getString("currency"),
+            rs.getObject("first_run_at", OffsetDateTime.class),
+            rs.getString("recurrence"),
+            rs.getObject("max_occurrences", Integer.class),
+            rs.getLong("occurrence"),
+            rs.getObject("next_run_at", OffsetDateTime.class),
+            Status.valueOf(rs.getString("status")),
+            rs.getString("last_error"),
+            rs.getObject("created_at", OffsetDateTime.class),
+            rs.getObject("updated_at", OffsetDateTime.class)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void create(ScheduledPayment payment) {
+        jdbcTemplate.update("""
+                        INSERT INTO scheduled_payments (id, owner_username, sender_account_id, recipient_account_id, amount,
+                                                        currency, first_run_at, recurrence, max_occurrences, occurrence,
+                                                        next_run_at, status)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """,
+                payment.id(), payment.ownerUsername(), payment.senderAccountId(), payment.recipientAccountId(),
+                payment.amount(), payment.currency(), payment.firstRunAt(), payment.recurrence(),
+                payment.maxOccurrences(), payment.occurrence(), payment.nextRunAt(), payment.status().name());
+    }
+
+    public Optional<ScheduledPayment> findById(UUID id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM scheduled_payments WHERE id = ?", MAPPER, id)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Active payments due in {@code [from, until)}, in due order, starting after the given keyset
+     * position so a large window can be read page by page.
+     */
+    public List<ScheduledPayment> findActiveDue(OffsetDateTime from, OffsetDateTime until,
+                                                OffsetDateTime afterRunAt, UUID afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + """
+                        FROM scheduled_payments
+                        WHERE status = 'ACTIVE'
+                          AND next_run_at >= ? AND next_run_at < ?
+                          AND (next_run_at, id) > (?, ?)
+                        ORDER BY next_run_at, id
+                        LIMIT ?
+                        """,
+                MAPPER, from, until, afterRunAt, afterId, limit);
+    }
+
+    /**
+     * Moves the cursor from {@code occurrence} to the next occurrence, or closes the payment when
+     * {@code nextRunAt} is {@code null}. Returns {@code false} when another run already moved it.
+     */
+    public boolean advance(UUID id, long occurrence, OffsetDateTime nextRunAt, String lastError) {
+        return jdbcTemplate.update("""
+                        UPDATE scheduled_payments
+                        SET occurrence = occurrence + 1,
+                            next_run_at = COALESCE(?, next_run_at),
+                            status = CASE WHEN ?::timestamptz IS NULL THEN 'COMPLETED' ELSE status END,
+                            last_error = ?,
+                            updated_at = CURRENT_TIMESTAMP
+                        WHERE id = ? AND occurrence = ? AND status = 'ACTIVE'
+                        """,
+                nextRunAt, nextRunAt, lastError, id, occurrence) == 1;
+    }
+
+    public boolean cancel(UUID id) {
+        return jdbcTemplate.update("""
+                UPDATE scheduled_payments
+                SET status = 'CANCELLED', updated_at = CURRENT_TIMESTAMP
+                WHERE id = ? AND status = 'ACTIVE'
+                """, id) == 1;
+    }
+
+    public enum Status {
+        ACTIVE,
+        COMPLETED,
+        CANCELLED
+    }
+
+    public record ScheduledPayment(
+            UUID id,
+            String ownerUsername,
+            UUID senderAccountId,
+            UUID recipientAccountId,
+            BigDecimal amount,
+            String currency,
+            OffsetDateTime firstRunAt,
+            String recurrence,
+            Integer maxOccurrences,
+            long occurrence,
+            OffsetDateTime nextRunAt,
+            Status status,
+            String lastError,
+            OffsetDateTime createdAt,
+            OffsetDateTime updatedAt
+    ) {
+        public ScheduledPayment withOccurrence(long nextOccurrence, OffsetDateTime nextRunAt) {
+            return new ScheduledPayment(id, ownerUsername, senderAccountId, recipientAccountId, amount, currency,
+                    firstRunAt, recurrence, maxOccurrences, nextOccurrence, nextRunAt, status, lastError, createdAt,
+                    updatedAt);
+        }
+    }
+}
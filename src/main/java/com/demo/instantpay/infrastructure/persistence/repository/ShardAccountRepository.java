@@ -0,0 +1,77 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.infrastructure.persistence.converter.EncryptionAttributeConverter;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Creates and reads accounts on the shard their id maps to. A new account's shard is recorded in the
+ * placement directory before the account is written. The owning user row is copied to that shard as
+ * well, since ownership checks and foreign keys are resolved locally.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+public class ShardAccountRepository {
+    private final ShardRouter shardRouter;
+    private final EncryptionAttributeConverter encryptionAttributeConverter;
+
+    public UUID createAccount(UserEntity user, String accountNumber, BigDecimal balance, String currency) {
+        UUID accountId = UUID.randomUUID();
+        Shard shard = shardRouter.place(accountId);
+        shard.jdbcTemplate().update("""
+                        INSERT INTO users (id, username, password_hash, role)
+                        VALUES (?, ?, ?, ?)
+                        ON CONFLICT (id) DO NOTHING
+                        """,
+                user.getId(), user.getUsername(), user.getPasswordHash(), user.getRole());
+        shard.jdbcTemplate().update("""
+                        INSERT INTO accounts (id, user_id, account_number_encrypted, balance, currency)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                accountId, user.getId(), encryptionAttributeConverter.convertToDatabaseColumn(accountNumber),
+                balance, currency);
+        return accountId;
+    }
+
+    /**
+     * The user's accounts across all shards.
+     */
+    public List<ShardAccount> findByUserId(UUID userId) {
+        List<ShardAccount> accounts = new ArrayList<>();
+        for (Shard shard : shardRouter.shards()) {
+            accounts.addAll(shard.jdbcTemplate().query("""
+                            SELECT id, balance, currency FROM accounts WHERE user_id = ?
+                            """,
+                    (rs, rowNum) -> new ShardAccount(
+                            rs.getObject("id", UUID.class),
+                            shard.index(),
+                            rs.getBigDecimal("balance"),
+                            rs.getString("currency")),
+                    userId));
+        }
+        return accounts;
+    }
+
+    public Optional<BigDecimal> findTotalBalance(UUID accountId) {
+        return shardRouter.shardFor(accountId).jdbcTemplate().query("""
+                        SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0)
+                        FROM accounts a
+                        WHERE a.id = ?
+                        """,
+                (rs, rowNum) -> rs.getBigDecimal(1), accountId).stream().findFirst();
+    }
+
+    public record ShardAccount(UUID id, int shardIndex, BigDecimal balance, String currency) {
+    }
+}
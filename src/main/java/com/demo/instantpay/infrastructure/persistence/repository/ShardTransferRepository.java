@@ -0,0 +1,146 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.RESULT_MAPPER;
+import static com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TRANSFER_SQL;
+
+/**
+ * Transfer steps executed against a single shard. Every call is one database function invocation and
+ * therefore one local transaction on that shard.
+ */
+@Repository
+public class ShardTransferRepository {
+    private static final String DEBIT_SQL = """
+            SELECT outcome, account_currency
+            FROM saga_debit(?::uuid, ?::uuid, ?::uuid, ?::numeric, ?::char(3), ?::uuid, ?, ?::timestamptz, ?)
+            """;
+
+    private static final String CREDIT_SQL = """
+            SELECT outcome, account_currency
+            FROM saga_credit(?::uuid, ?::uuid, ?::numeric, ?::char(3), ?::timestamptz, ?, ?)
+            """;
+
+    private static final RowMapper<StalledSaga> STALLED_SAGA_MAPPER = (rs, rowNum) -> new StalledSaga(
+            rs.getObject("id", UUID.class),
+            rs.getObject("sender_account_id", UUID.class),
+            rs.getObject("recipient_account_id", UUID.class),
+            rs.getBigDecimal("amount"),
+            rs.getString("currency"),
+            rs.getObject("idempotency_key", UUID.class),
+            rs.getObject("created_at", OffsetDateTime.class),
+            rs.getString("event_payload")
+    );
+
+    /**
+     * Runs a transfer whose accounts both live on the given shard through {@code transfer_funds}.
+     */
+    public TransferResult transfer(Shard shard, TransferCommand command) {
+        return shard.jdbcTemplate().queryForObject(TRANSFER_SQL, RESULT_MAPPER,
+                command.transactionId(),
+                command.senderAccountId(),
+                command.recipientAccountId(),
+                command.amount(),
+                command.currency(),
+                command.idempotencyKey(),
+                command.senderUsername(),
+                command.createdAt(),
+                command.eventTopic(),
+                command.eventPayload()
+        );
+    }
+
+    /**
+     * First saga step on the sender's shard: checks idempotency, ownership and funds, debits the sender
+     * and records the saga as {@code DEBITED} and its transaction as {@code PENDING}.
+     */
+    public TransferResult debit(Shard shard, TransferCommand command) {
+        return shard.jdbcTemplate().queryForObject(DEBIT_SQL, RESULT_MAPPER,
+                command.transactionId(),
+                command.senderAccountId(),
+                command.recipientAccountId(),
+                command.amount(),
+                command.currency(),
+                command.idempotencyKey(),
+                command.senderUsername(),
+                command.createdAt(),
+                command.eventPayload()
+        );
+    }
+
+    /**
+     * Second saga step on the recipient's shard: credits the recipient and writes the completion outbox
+     * event. Crediting the same saga twice is a no-op that reports {@code COMPLETED}.
+     */
+    public TransferResult credit(Shard shard, TransferCommand command) {
+        return shard.jdbcTemplate().queryForObject(CREDIT_SQL, RESULT_MAPPER,
+                command.transactionId(),
+                command.recipientAccountId(),
+                command.amount(),
+                command.currency(),
+                command.createdAt(),
+                command.eventTopic(),
+                command.eventPayload()
+        );
+    }
+
+    /**
+     * Marks a credited saga and its transaction on the sender's shard as {@code COMPLETED}.
+     */
+    public void markCompleted(Shard shard, UUID sagaId) {
+        shard.jdbcTemplate().update("""
+                WITH completed AS (
+                    UPDATE transfer_sagas
+                    SET status = 'COMPLETED', updated_at = CURRENT_TIMESTAMP
+                    WHERE id = ? AND status = 'DEBITED'
+                    RETURNING id
+                )
+                UPDATE transactions
+                SET status = 'COMPLETED'
+                WHERE id IN (SELECT id FROM completed)
+                """, sagaId);
+    }
+
+    /**
+     * Refunds the sender of a saga that is still {@code DEBITED}, marks its transaction {@code FAILED}
+     * and writes the compensation outbox event. Returns {@code false} when the saga was already
+     * completed or compensated.
+     */
+    public boolean compensate(Shard shard, UUID sagaId, String eventTopic) {
+        return Boolean.TRUE.equals(shard.jdbcTemplate().queryForObject(
+                "SELECT compensated FROM saga_compensate(?::uuid, ?)", Boolean.class, sagaId, eventTopic));
+    }
+
+    public List<StalledSaga> findStalledSagas(Shard shard, OffsetDateTime debitedBefore, int limit) {
+        return shard.jdbcTemplate().query("""
+                        SELECT id, sender_account_id, recipient_account_id, amount, currency, idempotency_key,
+                               created_at, event_payload
+                        FROM transfer_sagas
+                        WHERE status = 'DEBITED' AND created_at < ?
+                        ORDER BY created_at
+                        LIMIT ?
+                        """,
+                STALLED_SAGA_MAPPER, debitedBefore, limit);
+    }
+
+    public record StalledSaga(
+            UUID id,
+            UUID senderAccountId,
+            UUID recipientAccountId,
+            BigDecimal amount,
+            String currency,
+            UUID idempotencyKey,
+            OffsetDateTime createdAt,
+            String eventPayload
+    ) {
+    }
+}
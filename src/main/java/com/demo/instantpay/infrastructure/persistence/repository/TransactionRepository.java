@@ -1,9 +1,17 @@
 package com.demo.instantpay.infrastructure.persistence.repository;
 
 import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,4 +21,57 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
     Optional<TransactionEntity> findByIdempotencyKey(UUID idempotencyKey);
 
     boolean existsByIdempotencyKey(UUID idempotencyKey);
+
+    @Query("""
+            SELECT t FROM TransactionEntity t
+            WHERE t.status = :status
+              AND t.holdExpiresAt IS NULL
+              AND ((t.senderAccount.id = :accountId AND t.recipientAccount.id = :otherAccountId)
+                OR (t.senderAccount.id = :otherAccountId AND t.recipientAccount.id = :accountId))
+            ORDER BY t.createdAt
+            """)
+    List<TransactionEntity> findBetweenAccounts(@Param("status") TransactionEntity.TransactionStatus status,
+                                                @Param("accountId") UUID accountId,
+                                                @Param("otherAccountId") UUID otherAccountId,
+                                                Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TransactionEntity t WHERE t.id = :id")
+    Optional<TransactionEntity> findByIdForUpdate(@Param("id") UUID id);
+
+    @Query(value = """
+            SELECT * FROM transactions
+            WHERE status = 'PENDING' AND hold_expires_at < :now
+            ORDER BY hold_expires_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<TransactionEntity> lockExpiredHolds(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT t.sender_account_id AS senderAccountId,
+                   u.username AS senderUsername,
+                   t.currency AS currency,
+                   CAST(EXTRACT(EPOCH FROM date_trunc('minute', t.created_at)) * 1000 AS BIGINT) AS minuteMillis,
+                   SUM(t.amount) AS amount
+            FROM transactions t
+            JOIN accounts a ON a.id = t.sender_account_id
+            JOIN users u ON u.id = a.user_id
+            WHERE t.created_at >= :since
+              AND t.status IN ('COMPLETED', 'PENDING')
+            GROUP BY t.sender_account_id, u.username, t.currency, date_trunc('minute', t.created_at)
+            """, nativeQuery = true)
+    List<RecentSpend> findRecentSpendPerMinute(@Param("since") OffsetDateTime since);
+
+    interface RecentSpend {
+        UUID getSenderAccountId();
+
+        String getSenderUsername();
+
+        String getCurrency();
+
+        long getMinuteMillis();
+
+        BigDecimal getAmount();
+    }
 }
@@ -0,0 +1,85 @@
+package com.demo.instantpay.infrastructure.ratelimit;
+
+import com.demo.instantpay.infrastructure.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets of the payments API, one per authenticated user and one per sender account. Buckets
+ * are created on first use and dropped once they have refilled completely, which makes them
+ * indistinguishable from a new one, so memory follows the number of recently active clients rather
+ * than the number of users.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.rate-limit.enabled", havingValue = "true")
+public class RequestRateLimiter {
+    private final RateLimitProperties properties;
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<UUID, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Counter userRejections;
+    private final Counter accountRejections;
+
+    public RequestRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.userRejections = Counter.builder("payment.rate_limit.rejected")
+                .description("Payments API requests rejected by rate limiting")
+                .tag("key", "user")
+                .register(meterRegistry);
+        this.accountRejections = Counter.builder("payment.rate_limit.rejected")
+                .description("Payments API requests rejected by rate limiting")
+                .tag("key", "account")
+                .register(meterRegistry);
+        meterRegistry.gauge("payment.rate_limit.buckets", this, limiter -> limiter.userBuckets.size() + limiter.accountBuckets.size());
+    }
+
+    /**
+     * Returns 0 when the request may proceed, otherwise the nanoseconds until the user may retry.
+     */
+    public long acquireForUser(String username) {
+        long now = System.nanoTime();
+        long waitNanos = userBuckets.computeIfAbsent(username, key -> newBucket(properties.getUser(), now)).tryAcquire(now);
+        if (waitNanos > 0) {
+            userRejections.increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Returns 0 when the request may proceed, otherwise the nanoseconds until the account may be used
+     * again.
+     */
+    public long acquireForAccount(UUID accountId) {
+        long now = System.nanoTime();
+        long waitNanos = accountBuckets.computeIfAbsent(accountId, key -> newBucket(properties.getAccount(), now)).tryAcquire(now);
+        if (waitNanos > 0) {
+            accountRejections.increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * A request racing with the removal of its bucket is counted against the dropped bucket, which at
+     * worst lets one extra request through.
+     */
+    @Scheduled(fixedDelayString = "${payment.rate-limit.evict-ms:10000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int before = userBuckets.size() + accountBuckets.size();
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        accountBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        log.debug("rate_limit_buckets_evicted: before={}, after={}", before, userBuckets.size() + accountBuckets.size());
+    }
+
+    private static TokenBucket newBucket(RateLimitProperties.Bucket limits, long now) {
+        return new TokenBucket(limits.getRequestsPerSecond(), limits.getBurst(), now);
+    }
+}
@@ -0,0 +1,55 @@
+package com.demo.instantpay.infrastructure.ratelimit;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Sum of values added within a trailing time window, kept in a ring of fixed-width buckets. The window
+ * slides one bucket at a time, so a sum may still include up to one bucket's worth of values that are
+ * just older than the window: limits enforced with it err on the strict side.
+ * <p>
+ * Not thread-safe; callers serialize access.
+ */
+public final class SlidingWindowCounter {
+    private final long bucketMillis;
+    private final long[] bucketIds;
+    private final long[] sums;
+
+    public SlidingWindowCounter(Duration window, int buckets) {
+        if (buckets < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("window must span at least one millisecond per bucket");
+        }
+        this.bucketMillis = window.toMillis() / buckets;
+        this.bucketIds = new long[buckets];
+        this.sums = new long[buckets];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds {@code value} to the bucket of {@code atMillis}. Values for a time whose bucket has already
+     * been reused by a later one are outside the window and dropped.
+     */
+    public void add(long value, long atMillis) {
+        long bucketId = Math.floorDiv(atMillis, bucketMillis);
+        int index = (int) Math.floorMod(bucketId, (long) sums.length);
+        if (bucketIds[index] > bucketId) {
+            return;
+        }
+        if (bucketIds[index] < bucketId) {
+            bucketIds[index] = bucketId;
+            sums[index] = 0;
+        }
+        sums[index] += value;
+    }
+
+    public long sum(long nowMillis) {
+        long oldestBucketId = Math.floorDiv(nowMillis, bucketMillis) - sums.length + 1;
+        long sum = 0;
+        for (int i = 0; i < sums.length; i++) {
+            if (bucketIds[i] >= oldestBucketId) {
+                sum += sums[i];
+            }
+        }
+        return sum;
+    }
+}
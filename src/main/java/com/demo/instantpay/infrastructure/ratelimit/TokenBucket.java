@@ -0,0 +1,48 @@
+package com.demo.instantpay.infrastructure.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count and a refill timestamp it keeps a single
+ * theoretical arrival time: the moment the bucket would be full again if no more tokens were taken.
+ * Taking a token pushes that moment one refill interval further, and is refused while it lies more
+ * than {@code capacity} intervals ahead of now, so a take is one compare-and-set.
+ */
+public final class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrivalNanos;
+
+    public TokenBucket(double tokensPerSecond, int capacity, long nowNanos) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("tokensPerSecond must be positive and capacity at least 1");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000L / tokensPerSecond));
+        this.toleranceNanos = intervalNanos * capacity;
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token and returns 0, or returns the nanoseconds until a token will be available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrivalNanos.get();
+            long next = Math.max(arrival, nowNanos) + intervalNanos;
+            long waitNanos = next - nowNanos - toleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A full bucket behaves exactly like a newly created one, so it can be dropped and recreated later.
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrivalNanos.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.instantpay.infrastructure.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.classify.Classifier;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+
+import java.util.Objects;
+
+@Slf4j
+@RequiredArgsConstructor
+public class RetryMetricsListener implements RetryListener {
+    private static final String TRANSIENT_FAILURE_SEEN = "transientFailureSeen";
+
+    private final MeterRegistry meterRegistry;
+    private final String metricPrefix;
+    private final Classifier<Throwable, Boolean> retryableClassifier;
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (!Boolean.TRUE.equals(retryableClassifier.classify(throwable))) {
+            return;
+        }
+        context.setAttribute(TRANSIENT_FAILURE_SEEN, true);
+
+        String reason = Objects.requireNonNullElse(TransientFailureClassifier.findSqlState(throwable),
+                throwable.getClass().getSimpleName());
+        log.warn("transient_failure: attempt={}, reason={}", context.getRetryCount(), reason);
+        Counter.builder(metricPrefix + ".attempts.failed")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (!context.hasAttribute(TRANSIENT_FAILURE_SEEN)) {
+            return;
+        }
+        String outcome = throwable == null ? "recovered" : "exhausted";
+        Counter.builder(metricPrefix + ".retried")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.instantpay.infrastructure.retry;
+
+import org.springframework.classify.BinaryExceptionClassifier;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Classifies a failure as retryable when its cause chain contains an optimistic locking conflict or
+ * an {@link SQLException} carrying a deadlock ({@code 40P01}) or serialization failure ({@code 40001})
+ * SQLSTATE.
+ */
+public class TransientFailureClassifier extends BinaryExceptionClassifier {
+    static final String DEADLOCK_DETECTED = "40P01";
+    static final String SERIALIZATION_FAILURE = "40001";
+
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of(DEADLOCK_DETECTED, SERIALIZATION_FAILURE);
+
+    public TransientFailureClassifier() {
+        super(false);
+    }
+
+    @Override
+    public Boolean classify(Throwable throwable) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current instanceof OptimisticLockingFailureException) {
+                return true;
+            }
+        }
+        return findSqlState(throwable) != null;
+    }
+
+    public static String findSqlState(Throwable throwable) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current instanceof SQLException sqlException
+                    && RETRYABLE_SQL_STATES.contains(sqlException.getSQLState())) {
+                return sqlException.getSQLState();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.instantpay.infrastructure.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel. Level 0 has {@code wheelSize} buckets of one tick each, and every
+ * further level has buckets spanning a full rotation of the level below, so adding and advancing cost
+ * O(1) per entry no matter how many entries are waiting or how far ahead they are due.
+ * When time crosses the start of a higher-level bucket, its entries cascade down to finer levels until
+ * they reach the bucket of their own tick.
+ * <p>
+ * Not thread-safe; callers serialize access.
+ */
+public final class HierarchicalTimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<List<List<Entry<T>>>> levels = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Adds an entry due at the given time. Returns {@code false} without adding it when it is already
+     * due, so the caller can run it right away.
+     */
+    public boolean add(T item, long dueAtMillis) {
+        long dueTick = Math.floorDiv(dueAtMillis, tickMillis);
+        if (dueTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(item, dueTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time and hands every entry that became due to {@code expired},
+     * in due order at tick granularity.
+     */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels.size() - 1; level > 0; level--) {
+                long span = span(level);
+                if (currentTick % span == 0) {
+                    List<Entry<T>> bucket = takeBucket(level, (int) ((currentTick / span) % wheelSize));
+                    for (Entry<T> entry : bucket) {
+                        if (entry.dueTick() <= currentTick) {
+                            size--;
+                            expired.accept(entry.item());
+                        } else {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+            if (!levels.isEmpty()) {
+                for (Entry<T> entry : takeBucket(0, (int) (currentTick % wheelSize))) {
+                    size--;
+                    expired.accept(entry.item());
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentTimeMillis() {
+        return currentTick * tickMillis;
+    }
+
+    /**
+     * Puts the entry on the lowest level whose rotation still reaches its tick.
+     */
+    private void place(Entry<T> entry) {
+        long delta = entry.dueTick() - currentTick;
+        int level = 0;
+        long span = 1;
+        while (delta >= span * wheelSize) {
+            span *= wheelSize;
+            level++;
+        }
+        while (levels.size() <= level) {
+            List<List<Entry<T>>> buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            levels.add(buckets);
+        }
+        levels.get(level).get((int) ((entry.dueTick() / span) % wheelSize)).add(entry);
+    }
+
+    private List<Entry<T>> takeBucket(int level, int index) {
+        List<List<Entry<T>>> buckets = levels.get(level);
+        List<Entry<T>> bucket = buckets.get(index);
+        if (bucket.isEmpty()) {
+            return bucket;
+        }
+        buckets.set(index, new ArrayList<>());
+        return bucket;
+    }
+
+    private long span(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= wheelSize;
+        }
+        return span;
+    }
+
+    private record Entry<T>(T item, long dueTick) {
+    }
+}
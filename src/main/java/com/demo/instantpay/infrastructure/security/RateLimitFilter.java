@@ -0,0 +1,149 @@
+package com.demo.instantpay.infrastructure.security;
+
+import com.demo.instantpay.api.dto.ErrorResponse;
+import com.demo.instantpay.infrastructure.ratelimit.RequestRateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the payments API per authenticated user and, for JSON requests naming one, per sender
+ * account. Runs right after {@link JwtAuthenticationFilter}, so an over-limit request is answered with
+ * {@code 429} and {@code Retry-After} before it reaches a controller or the database. Unauthenticated
+ * requests pass through to be rejected by the security chain.
+ * <p>
+ * The endpoints whose body names the sender account must send it with a {@code Content-Length} of at
+ * most {@code payment.rate-limit.max-body-bytes}; a chunked body is refused with {@code 411} and a
+ * larger one with {@code 413}, so no payment can get past the account bucket by its body's framing.
+ * <p>
+ * Not a Spring bean: as a bean it would also be registered with the servlet container and run
+ * before authentication.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String PAYMENTS_PATH = "/api/payments";
+    private static final Set<String> SENDER_BODY_PATHS = Set.of(
+            PAYMENTS_PATH, PAYMENTS_PATH + "/multi-leg", PAYMENTS_PATH + "/holds");
+
+    private final RequestRateLimiter requestRateLimiter;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    public RateLimitFilter(RequestRateLimiter requestRateLimiter, ObjectMapper objectMapper, int maxBodyBytes) {
+        this.requestRateLimiter = requestRateLimiter;
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !path.equals(PAYMENTS_PATH) && !path.startsWith(PAYMENTS_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = requestRateLimiter.acquireForUser(authentication.getName());
+        if (waitNanos > 0) {
+            log.warn("rate_limited: user={}, path={}", authentication.getName(), request.getRequestURI());
+            reject(request, response, waitNanos, "Too many requests, please retry later");
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        if (namesSenderAccount(request)) {
+            long contentLength = request.getContentLengthLong();
+            if (contentLength < 0) {
+                reject(request, response, HttpStatus.LENGTH_REQUIRED, "LENGTH_REQUIRED",
+                        "Payment requests must declare a Content-Length");
+                return;
+            }
+            if (contentLength > maxBodyBytes) {
+                reject(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "PAYLOAD_TOO_LARGE",
+                        "Payment request body exceeds " + maxBodyBytes + " bytes");
+                return;
+            }
+        }
+        if (hasSmallJsonBody(request)) {
+            CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(request, request.getInputStream().readAllBytes());
+            forwarded = cached;
+            UUID senderAccountId = senderAccountId(cached.body());
+            if (senderAccountId != null) {
+                waitNanos = requestRateLimiter.acquireForAccount(senderAccountId);
+                if (waitNanos > 0) {
+                    log.warn("rate_limited: user={}, senderAccount={}", authentication.getName(), senderAccountId);
+                    reject(request, response, waitNanos, "Too many requests for this account, please retry later");
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static boolean namesSenderAccount(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && SENDER_BODY_PATHS.contains(path(request));
+    }
+
+    private boolean hasSmallJsonBody(HttpServletRequest request) {
+        long contentLength = request.getContentLengthLong();
+        return contentLength > 0 && contentLength <= maxBodyBytes
+                && request.getContentType() != null
+                && MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Malformed bodies are left to request validation.
+     */
+    private UUID senderAccountId(byte[] body) {
+        try {
+            JsonNode senderAccountId = objectMapper.readTree(body).path("senderAccountId");
+            return senderAccountId.isTextual() ? UUID.fromString(senderAccountId.asText()) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos, String message) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        reject(request, response, HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED", message);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String code,
+                        String message) throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                message,
+                code,
+                status.value(),
+                request.getRequestURI()
+        );
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
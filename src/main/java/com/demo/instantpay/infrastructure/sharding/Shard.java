@@ -0,0 +1,46 @@
+package com.demo.instantpay.infrastructure.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One account shard: a separate Postgres database with the full schema, holding the accounts whose ids
+ * hash to it together with their transactions and outbox events.
+ */
+public record Shard(int index, HikariDataSource dataSource, JdbcTemplate jdbcTemplate) implements AutoCloseable {
+
+    /**
+     * Connects to a shard database and brings its schema up to date with the given Flyway locations.
+     */
+    public static Shard open(int index, String url, String username, String password, int maxPoolSize,
+                             String... migrationLocations) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("shard-" + index);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maxPoolSize);
+        try {
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(migrationLocations)
+                    .load()
+                    .migrate();
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        return new Shard(index, dataSource, new JdbcTemplate(dataSource));
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Shard[" + index + "]";
+    }
+}
@@ -0,0 +1,102 @@
+package com.demo.instantpay.infrastructure.sharding;
+
+import com.demo.instantpay.infrastructure.persistence.repository.AccountPlacementRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps account ids to shards with a consistent hash ring. Every shard owns a fixed set of virtual nodes
+ * whose positions depend only on the shard index, so adding a shard moves roughly {@code 1/N} of the
+ * accounts and leaves the others where they are.
+ * <p>
+ * With an {@link AccountPlacementRepository} the ring only places new accounts: the shard an account was
+ * created on is recorded and used from then on, so adding a shard does not strand existing accounts.
+ */
+public class ShardRouter implements AutoCloseable {
+    private final List<Shard> shards;
+    private final NavigableMap<Long, Shard> ring = new TreeMap<>();
+    private final AccountPlacementRepository placements;
+    private final ConcurrentMap<UUID, Shard> placed = new ConcurrentHashMap<>();
+
+    public ShardRouter(List<Shard> shards, int virtualNodes) {
+        this(shards, virtualNodes, null);
+    }
+
+    public ShardRouter(List<Shard> shards, int virtualNodes, AccountPlacementRepository placements) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.placements = placements;
+        for (Shard shard : shards) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(mix(mix(((long) shard.index() << 32) | node)), shard);
+            }
+        }
+    }
+
+    /**
+     * The shard holding the account: its recorded placement if there is one, otherwise its owner on the
+     * hash ring.
+     */
+    public Shard shardFor(UUID accountId) {
+        Shard shard = placed.get(accountId);
+        if (shard != null) {
+            return shard;
+        }
+        if (placements != null) {
+            shard = placements.findShardIndex(accountId)
+                    .filter(index -> index < shards.size())
+                    .map(shards::get)
+                    .orElse(null);
+            if (shard != null) {
+                placed.putIfAbsent(accountId, shard);
+                return shard;
+            }
+        }
+        return ringOwner(accountId);
+    }
+
+    /**
+     * Picks the shard for a new account and records the placement before the account is created there.
+     */
+    public Shard place(UUID accountId) {
+        Shard shard = ringOwner(accountId);
+        if (placements != null) {
+            placements.record(accountId, shard.index());
+        }
+        placed.put(accountId, shard);
+        return shard;
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(Shard::close);
+    }
+
+    private Shard ringOwner(UUID accountId) {
+        Map.Entry<Long, Shard> entry = ring.ceilingEntry(hash(accountId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    static long hash(UUID accountId) {
+        return mix(accountId.getMostSignificantBits() ^ Long.rotateLeft(accountId.getLeastSignificantBits(), 32));
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,15 @@
+package com.demo.instantpay.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rate for converting an amount of the base currency into the quote currency, together with the
+ * version of the rate snapshot it was read from.
+ */
+public record FxQuote(BigDecimal rate, long snapshotVersion) {
+
+    public BigDecimal convert(BigDecimal amount) {
+        return amount.multiply(rate).setScale(PaymentService.EXPECTED_SCALE, RoundingMode.HALF_EVEN);
+    }
+}
@@ -0,0 +1,59 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRates;
+import com.demo.instantpay.service.exception.FxRateUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * In-memory FX rates for the payment path. The {@code fx_rates} table is re-read on a schedule into a
+ * new {@link FxRateSnapshot} that replaces the current one in a single volatile write, so a lookup
+ * never queries the database or takes a lock, and a payment always converts with rates of one
+ * consistent snapshot. Once the snapshot is older than {@code payment.fx.max-age}, because refreshes
+ * keep failing, quotes are refused rather than served from outdated rates.
+ */
+@Slf4j
+@Component
+public class FxRateRegistry {
+    private final FxRateRepository fxRateRepository;
+    private final Duration maxAge;
+
+    private volatile FxRateSnapshot snapshot = FxRateSnapshot.EMPTY;
+
+    public FxRateRegistry(FxRateRepository fxRateRepository,
+                          @Value("${payment.fx.max-age:5m}") Duration maxAge) {
+        this.fxRateRepository = fxRateRepository;
+        this.maxAge = maxAge;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.fx.refresh-ms:60000}")
+    public void refresh() {
+        FxRates rates = fxRateRepository.findAll();
+        FxRateSnapshot refreshed = FxRateSnapshot.of(rates.version(), rates.rates(), Instant.now());
+        if (refreshed.version() != snapshot.version()) {
+            log.info("fx_rates_refreshed: version={}, quotes={}", refreshed.version(), refreshed.size());
+        }
+        snapshot = refreshed;
+    }
+
+    /**
+     * Returns the current quote for converting {@code baseCurrency} into {@code quoteCurrency}, or
+     * {@code null} when no rate is known.
+     *
+     * @throws FxRateUnavailableException when the rates were last read more than {@code payment.fx.max-age} ago
+     */
+    public FxQuote quote(String baseCurrency, String quoteCurrency) {
+        FxRateSnapshot current = snapshot;
+        if (current.isOlderThan(maxAge, System.currentTimeMillis())) {
+            log.warn("fx_rates_stale: version={}, loadedAt={}", current.version(), current.loadedAt());
+            throw new FxRateUnavailableException("FX rates are temporarily unavailable");
+        }
+        return current.quote(baseCurrency, quoteCurrency);
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of FX rates. Inverse rates are derived when the snapshot is built, so a lookup is two
+ * hash map reads and never computes anything. A configured rate always wins over a derived inverse.
+ * The snapshot remembers when it was read, so rates that could not be refreshed for too long are
+ * recognised as stale.
+ */
+public final class FxRateSnapshot {
+    static final FxRateSnapshot EMPTY = new FxRateSnapshot(0, Map.of(), Instant.EPOCH);
+
+    private static final MathContext INVERSE_PRECISION = MathContext.DECIMAL64;
+
+    private final long version;
+    private final Map<String, Map<String, FxQuote>> quotesByBase;
+    private final Instant loadedAt;
+
+    private FxRateSnapshot(long version, Map<String, Map<String, FxQuote>> quotesByBase, Instant loadedAt) {
+        this.version = version;
+        this.quotesByBase = quotesByBase;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Builds a snapshot of {@code rates} read at {@code loadedAt}. The version is the one the rate table
+     * carried when read, which changes with every insert, update and delete, so every instance reading
+     * the same rates reports the same version and no two rate sets share one.
+     */
+    public static FxRateSnapshot of(long version, List<FxRate> rates, Instant loadedAt) {
+        Map<String, Map<String, FxQuote>> quotes = new HashMap<>();
+        for (FxRate rate : rates) {
+            BigDecimal inverse = BigDecimal.ONE.divide(rate.rate(), INVERSE_PRECISION);
+            quotes.computeIfAbsent(rate.quoteCurrency(), currency -> new HashMap<>())
+                    .putIfAbsent(rate.baseCurrency(), new FxQuote(inverse, version));
+        }
+        for (FxRate rate : rates) {
+            quotes.computeIfAbsent(rate.baseCurrency(), currency -> new HashMap<>())
+                    .put(rate.quoteCurrency(), new FxQuote(rate.rate(), version));
+        }
+
+        Map<String, Map<String, FxQuote>> frozen = new HashMap<>();
+        quotes.forEach((base, byQuote) -> frozen.put(base, Map.copyOf(byQuote)));
+        return new FxRateSnapshot(version, Map.copyOf(frozen), loadedAt);
+    }
+
+    /**
+     * Returns the quote for converting {@code baseCurrency} into {@code quoteCurrency}, or {@code null}
+     * when no rate is known.
+     */
+    public FxQuote quote(String baseCurrency, String quoteCurrency) {
+        Map<String, FxQuote> byQuote = quotesByBase.get(baseCurrency);
+        return byQuote == null ? null : byQuote.get(quoteCurrency);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    public boolean isOlderThan(Duration maxAge, long nowMillis) {
+        return loadedAt.toEpochMilli() + maxAge.toMillis() < nowMillis;
+    }
+
+    public int size() {
+        return quotesByBase.values().stream().mapToInt(Map::size).sum();
+    }
+}
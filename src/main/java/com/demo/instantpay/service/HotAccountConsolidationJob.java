@@ -0,0 +1,61 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Periodically folds sub-balance slot credits back into the main account balance, one short
+ * transaction per account.
+ */
+@Slf4j
+@Component
+public class HotAccountConsolidationJob {
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public HotAccountConsolidationJob(AccountRepository accountRepository, PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.hot-accounts.consolidation-delay-ms:10000}")
+    public void consolidate() {
+        List<UUID> accountIds = accountRepository.findAccountIdsWithPendingSlotBalance();
+        if (accountIds.isEmpty()) {
+            return;
+        }
+
+        for (UUID accountId : accountIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> consolidate(accountId));
+            } catch (Exception e) {
+                log.error("slot_consolidation_failed: accountId={}. Will retry on next run.", maskUuid(accountId), e);
+            }
+        }
+    }
+
+    private void consolidate(UUID accountId) {
+        AccountEntity account = accountRepository.findByIdForUpdate(accountId).orElse(null);
+        if (account == null) {
+            return;
+        }
+        BigDecimal swept = accountRepository.sweepBalanceSlots(accountId);
+        if (swept.signum() == 0) {
+            return;
+        }
+        account.setBalance(account.getBalance().add(swept));
+        accountRepository.save(account);
+        log.debug("slots_consolidated: accountId={}, amount={}", maskUuid(accountId), swept);
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of the accounts whose balance is striped across sub-balance slots, so the payment
+ * path can decide which rows to lock without an extra query. A stale entry is harmless: slot credits
+ * are always included in the account's total balance and swept by consolidation.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotAccountRegistry {
+    private final AccountRepository accountRepository;
+
+    private volatile Map<UUID, Integer> slotsByAccountId = Map.of();
+
+    @Scheduled(fixedDelayString = "${payment.hot-accounts.refresh-ms:30000}")
+    public void refresh() {
+        Map<UUID, Integer> refreshed = accountRepository.findStripedAccounts().stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        AccountRepository.StripedAccount::getId,
+                        AccountRepository.StripedAccount::getBalanceSlots));
+        if (!refreshed.equals(slotsByAccountId)) {
+            log.info("hot_accounts_refreshed: count={}", refreshed.size());
+        }
+        slotsByAccountId = refreshed;
+    }
+
+    public boolean isStriped(UUID accountId) {
+        return slotsByAccountId.containsKey(accountId);
+    }
+
+    public int pickSlot(UUID accountId) {
+        return ThreadLocalRandom.current().nextInt(slotsByAccountId.getOrDefault(accountId, 1));
+    }
+}
@@ -0,0 +1,214 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.cache.UuidBloomFilter;
+import com.demo.instantpay.infrastructure.config.IdempotencyCacheProperties;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * In-memory front of the idempotency check. Keys of payments completed by this instance go into a Bloom
+ * filter, so {@link PaymentService} can skip the idempotency lookup for a key that is definitely new,
+ * and their responses into a bounded LRU, so a retry of a recent payment is answered with the original
+ * response. A duplicate arriving while the original is still executing waits for it and shares its
+ * outcome instead of racing it to the unique constraint.
+ * <p>
+ * The filter only knows keys completed here since startup. A key completed elsewhere is still caught by
+ * the unique constraint on {@code transactions.idempotency_key}, which is reported as an
+ * {@link IdempotencyException} like a key found by the lookup. Once the current filter holds
+ * {@code payment.idempotency.cache.expected-keys} keys it is replaced by a fresh one, and the previous
+ * one is still consulted until the next replacement.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyCache {
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String IDEMPOTENCY_KEY_COLUMN = "idempotency_key";
+
+    private final IdempotencyCacheProperties properties;
+    private final Map<UUID, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletedPayment> completed;
+    private final Counter definitelyNew;
+    private final Counter maybeSeen;
+    private final Counter falsePositives;
+    private final Counter replayed;
+    private final Counter coalesced;
+
+    private volatile UuidBloomFilter currentKeys;
+    private volatile UuidBloomFilter previousKeys;
+
+    public IdempotencyKeyCache(IdempotencyCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        int completedResults = properties.getCompletedResults();
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CompletedPayment> eldest) {
+                return size() > completedResults;
+            }
+        };
+        this.definitelyNew = counter(meterRegistry, "definitely_new");
+        this.maybeSeen = counter(meterRegistry, "maybe_seen");
+        this.falsePositives = counter(meterRegistry, "false_positive");
+        this.replayed = counter(meterRegistry, "replayed");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        if (properties.isEnabled()) {
+            this.currentKeys = newFilter();
+            this.previousKeys = newFilter();
+        }
+    }
+
+    /**
+     * Runs the payment unless a payment with the same key and sender is in flight or recently completed
+     * here, in which case its outcome is returned instead. A payment of another sender reusing the key
+     * is left to the regular idempotency check, so it never sees someone else's response.
+     */
+    public PaymentResponse execute(UUID idempotencyKey, String senderUsername, Supplier<PaymentResponse> payment) {
+        if (!properties.isEnabled()) {
+            return translateDuplicate(payment);
+        }
+        Flight flight = new Flight(senderUsername, new CompletableFuture<>());
+        Flight original = inFlight.putIfAbsent(idempotencyKey, flight);
+        if (original != null) {
+            if (!original.senderUsername().equals(senderUsername)) {
+                return translateDuplicate(payment);
+            }
+            coalesced.increment();
+            log.info("idempotency_coalesced: idemKey={}", truncateIdem(idempotencyKey));
+            return await(original.result());
+        }
+        try {
+            CompletedPayment previous = findCompleted(idempotencyKey);
+            if (previous != null && previous.senderUsername().equals(senderUsername)) {
+                replayed.increment();
+                flight.result().complete(previous.response());
+                return previous.response();
+            }
+            PaymentResponse response = translateDuplicate(payment);
+            remember(idempotencyKey, senderUsername, response);
+            flight.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, flight);
+        }
+    }
+
+    /**
+     * {@code true} only when no payment with this key completed here since the filter was last replaced
+     * twice, so the database lookup can be skipped.
+     */
+    public boolean isDefinitelyNew(UUID idempotencyKey) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        if (currentKeys.mightContain(idempotencyKey) || previousKeys.mightContain(idempotencyKey)) {
+            maybeSeen.increment();
+            return false;
+        }
+        definitelyNew.increment();
+        return true;
+    }
+
+    /**
+     * Called when the filter reported a key as possibly seen but the database has no payment for it.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    private void remember(UUID idempotencyKey, String senderUsername, PaymentResponse response) {
+        UuidBloomFilter keys = currentKeys;
+        keys.add(idempotencyKey);
+        if (keys.insertions() >= properties.getExpectedKeys()) {
+            rotate(keys);
+        }
+        synchronized (completed) {
+            completed.put(idempotencyKey, new CompletedPayment(senderUsername, response));
+        }
+    }
+
+    private synchronized void rotate(UuidBloomFilter full) {
+        if (currentKeys == full) {
+            previousKeys = full;
+            currentKeys = newFilter();
+            log.info("idempotency_filter_rotated: keys={}", full.insertions());
+        }
+    }
+
+    private CompletedPayment findCompleted(UUID idempotencyKey) {
+        synchronized (completed) {
+            return completed.get(idempotencyKey);
+        }
+    }
+
+    private UuidBloomFilter newFilter() {
+        return new UuidBloomFilter(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+    }
+
+    private static PaymentResponse await(CompletableFuture<PaymentResponse> original) {
+        try {
+            return original.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reports a concurrent insert of the same key, caught by the unique constraint, as a duplicate.
+     */
+    private static PaymentResponse translateDuplicate(Supplier<PaymentResponse> payment) {
+        try {
+            return payment.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateIdempotencyKey(e)) {
+                throw new IdempotencyException("Transaction already processed", e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isDuplicateIdempotencyKey(Throwable throwable) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION.equals(sqlException.getSQLState())
+                    && sqlException.getMessage() != null
+                    && sqlException.getMessage().contains(IDEMPOTENCY_KEY_COLUMN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("payment.idempotency.cache")
+                .description("Idempotency front cache lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Flight(String senderUsername, CompletableFuture<PaymentResponse> result) {
+    }
+
+    private record CompletedPayment(String senderUsername, PaymentResponse response) {
+    }
+}
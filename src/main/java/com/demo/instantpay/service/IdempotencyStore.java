@@ -0,0 +1,127 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.IdempotencyStoreProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.IdempotencyKeyRepository;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Reserves the idempotency key of a payment as the first statement of its transaction and stores the
+ * payment's response under it in the same transaction. A retry with the same key by the same user
+ * finds the key taken and gets the stored response back, without touching any account. A concurrent
+ * retry blocks on the original's reservation until it commits or rolls back, so it either replays the
+ * committed response or, after a rollback, executes the payment itself.
+ * <p>
+ * The locked path, netted payments and group commits go through the store; the group committer reserves
+ * and completes keys with its own statements inside the batch transaction. The in-memory ledger and
+ * sharded modes keep balances outside this database and answer a reused key with
+ * {@link IdempotencyException} instead of a replay.
+ * <p>
+ * Keys expire after {@code payment.idempotency.store.ttl} and are purged in bounded batches.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private final IdempotencyStoreProperties properties;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyStore(IdempotencyStoreProperties properties,
+                            IdempotencyKeyRepository idempotencyKeyRepository,
+                            ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Reserves the key for the current transaction, or returns the response stored by the payment that
+     * already used it. Must run inside the payment's transaction.
+     */
+    public Optional<PaymentResponse> reserve(String username, UUID idempotencyKey) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        if (idempotencyKeyRepository.reserve(username, idempotencyKey, expiresAtFromNow())) {
+            return Optional.empty();
+        }
+        String stored = idempotencyKeyRepository.findResponse(username, idempotencyKey)
+                .orElseThrow(() -> new IdempotencyException("Transaction already processed"));
+        return Optional.of(replay(idempotencyKey, stored));
+    }
+
+    /**
+     * Expiry of a key reserved now, for writers that reserve keys with their own statements.
+     */
+    public OffsetDateTime expiresAtFromNow() {
+        return OffsetDateTime.now(ZoneOffset.UTC).plus(properties.getTtl());
+    }
+
+    /**
+     * Reads the response stored under a key that was already taken.
+     */
+    public PaymentResponse replay(UUID idempotencyKey, String stored) {
+        log.info("idempotency_replayed: idemKey={}", truncateIdem(idempotencyKey));
+        return read(stored);
+    }
+
+    /**
+     * Stores the response of the payment that reserved the key, in the same transaction.
+     */
+    public void complete(String username, UUID idempotencyKey, PaymentResponse response) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            idempotencyKeyRepository.storeResponse(username, idempotencyKey, objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize payment response", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.store.purge-delay-ms:60000}")
+    public void purgeExpired() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int batchSize = properties.getPurgeBatchSize();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        try {
+            long purged = 0;
+            int deleted;
+            do {
+                deleted = idempotencyKeyRepository.deleteExpired(now, batchSize);
+                purged += deleted;
+            } while (deleted == batchSize);
+            if (purged > 0) {
+                log.info("idempotency_keys_purged: count={}", purged);
+            }
+        } catch (Exception e) {
+            log.error("idempotency_key_purge_failed. Will retry on next run.", e);
+        }
+    }
+
+    private PaymentResponse read(String stored) {
+        try {
+            return objectMapper.readValue(stored, PaymentResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored payment response", e);
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.ledger.LedgerEntry;
+import com.demo.instantpay.infrastructure.ledger.LedgerJournal;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.Outcome;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.infrastructure.persistence.repository.LedgerRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.LedgerRepository.LedgerAccountRow;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Payment engine that keeps account balances in memory as the source of truth. Accounts are
+ * partitioned by id and every partition is owned by a single thread, so balances are never locked.
+ * <p>
+ * A transfer is debited by the sender's partition, appended to that partition's memory-mapped journal
+ * and acknowledged once the journal is synced; the credit is then handed to the recipient's partition.
+ * Transactions, outbox events and balance deltas are written to Postgres asynchronously in batches.
+ * On startup balances are loaded from Postgres and journal entries not yet persisted are replayed.
+ * <p>
+ * Idempotency keys are loaded on startup and kept in memory for {@code payment.ledger.idempotency-window}
+ * after their transfer was persisted, so a payment never waits on Postgres. A key reused after the window
+ * is refused by the unique constraint on the transactions when written behind, and that transfer is
+ * quarantined.
+ * <p>
+ * The engine must be the only writer of account balances, so it is meant for a single instance with
+ * every payment routed through it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.ledger.enabled", havingValue = "true")
+public class InMemoryLedgerEngine implements SmartLifecycle {
+    private static final TransferResult COMPLETED = new TransferResult(Outcome.COMPLETED, null);
+    private static final long NOT_PERSISTED = Long.MAX_VALUE;
+
+    private final LedgerRepository ledgerRepository;
+    private final SingleStatementTransferExecutor singleStatementTransferExecutor;
+    private final VelocityLimiter velocityLimiter;
+    private final Path journalDirectory;
+    private final int journalCapacityBytes;
+    private final boolean journalSync;
+    private final int partitionQueueCapacity;
+    private final int writeBehindBatchSize;
+    private final long writeBehindIntervalMs;
+    private final Duration idempotencyWindow;
+
+    private final ConcurrentMap<UUID, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    // Idempotency key -> epoch millis after which it may be evicted; NOT_PERSISTED until written to Postgres.
+    private final ConcurrentMap<UUID, Long> idempotencyKeys = new ConcurrentHashMap<>();
+    private final BlockingQueue<PersistRequest> writeBehindQueue = new LinkedBlockingQueue<>();
+    private final Partition[] partitions;
+
+    private Thread writeBehindThread;
+    private volatile boolean running;
+
+    public InMemoryLedgerEngine(LedgerRepository ledgerRepository,
+                                SingleStatementTransferExecutor singleStatementTransferExecutor,
+                                VelocityLimiter velocityLimiter,
+                                MeterRegistry meterRegistry,
+                                @Value("${payment.ledger.partitions:4}") int partitionCount,
+                                @Value("${payment.ledger.journal.directory:./data/ledger}") Path journalDirectory,
+                                @Value("${payment.ledger.journal.capacity-bytes:67108864}") int journalCapacityBytes,
+                                @Value("${payment.ledger.journal.sync:true}") boolean journalSync,
+                                @Value("${payment.ledger.partition-queue-capacity:10000}") int partitionQueueCapacity,
+                                @Value("${payment.ledger.write-behind.batch-size:500}") int writeBehindBatchSize,
+                                @Value("${payment.ledger.write-behind.interval-ms:20}") long writeBehindIntervalMs,
+                                @Value("${payment.ledger.idempotency-window:PT24H}") Duration idempotencyWindow) {
+        this.ledgerRepository = ledgerRepository;
+        this.singleStatementTransferExecutor = singleStatementTransferExecutor;
+        this.velocityLimiter = velocityLimiter;
+        this.journalDirectory = journalDirectory;
+        this.journalCapacityBytes = journalCapacityBytes;
+        this.journalSync = journalSync;
+        this.partitionQueueCapacity = partitionQueueCapacity;
+        this.writeBehindBatchSize = writeBehindBatchSize;
+        this.writeBehindIntervalMs = writeBehindIntervalMs;
+        this.idempotencyWindow = idempotencyWindow;
+        this.partitions = new Partition[partitionCount];
+        meterRegistry.gauge("payment.ledger.write_behind.backlog", writeBehindQueue, BlockingQueue::size);
+        meterRegistry.gauge("payment.ledger.idempotency_keys", idempotencyKeys, Map::size);
+    }
+
+    public PaymentResponse sendMoney(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        log.info("payment_send requested: sender={}, senderAccount={}, recip={}, amount={}, currency={}, idemKey={}",
+                senderUsername,
+                maskUuid(request.senderAccountId()),
+                maskUuid(request.recipientAccountId()),
+                request.amount(),
+                request.currency(),
+                truncateIdem(idempotencyKey)
+        );
+
+        TransferCommand command = singleStatementTransferExecutor.prepare(request, idempotencyKey, senderUsername);
+
+        LedgerAccount sender = findAccount(request.senderAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Sender account not found: " + request.senderAccountId()));
+        if (!sender.ownerUsername().equals(senderUsername)) {
+            log.warn("authorization_failure: user '{}' attempted to use account '{}' which is not theirs.",
+                    senderUsername, maskUuid(sender.id()));
+            throw new AccessDeniedException("User does not own this account");
+        }
+        LedgerAccount recipient = findAccount(request.recipientAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Recipient account not found: " + request.recipientAccountId()));
+
+        PaymentValidator.ensureCurrenciesMatch(sender.currency(), request.currency(), "sender");
+        PaymentValidator.ensureCurrenciesMatch(recipient.currency(), request.currency(), "recipient");
+
+        if (idempotencyKeys.putIfAbsent(idempotencyKey, NOT_PERSISTED) != null) {
+            log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(idempotencyKey));
+            throw new IdempotencyException("Transaction already processed");
+        }
+        VelocityLimiter.Reservation reservation;
+        try {
+            reservation = velocityLimiter.reserve(sender.id(), senderUsername, request.currency(), request.amount());
+        } catch (RuntimeException e) {
+            idempotencyKeys.remove(idempotencyKey);
+            throw e;
+        }
+
+        PendingTransfer pending = new PendingTransfer(command, new CompletableFuture<>());
+        if (!running || !partitionFor(sender.id()).offer(pending)) {
+            idempotencyKeys.remove(idempotencyKey);
+            reservation.release();
+            throw new PaymentBackpressureException("Ledger partition is busy, please retry later");
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            reservation.release();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, LedgerJournal.open(
+                    journalDirectory.resolve("partition-" + i + ".journal"), journalCapacityBytes, journalSync));
+        }
+        List<LedgerAccountRow> rows = ledgerRepository.findAllAccounts();
+        rows.forEach(row -> {
+            accounts.put(row.id(), LedgerAccount.from(row));
+            partitionFor(row.id()).balances.put(row.id(), row.balance());
+        });
+        ledgerRepository.forEachIdempotencyKeySince(OffsetDateTime.now().minus(idempotencyWindow),
+                (key, createdAt) -> idempotencyKeys.put(key, createdAt.plus(idempotencyWindow).toInstant().toEpochMilli()));
+        for (Partition partition : partitions) {
+            partition.replay();
+        }
+
+        running = true;
+        for (Partition partition : partitions) {
+            partition.thread = Thread.ofPlatform().name("ledger-partition-" + partition.index).start(partition);
+        }
+        writeBehindThread = Thread.ofPlatform().name("ledger-write-behind").start(this::writeBehind);
+        log.info("ledger_started: accounts={}, partitions={}, pendingWrites={}",
+                rows.size(), partitions.length, writeBehindQueue.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Partition partition : partitions) {
+            partition.thread.interrupt();
+            joinQuietly(partition.thread);
+        }
+        joinQuietly(writeBehindThread);
+        for (Partition partition : partitions) {
+            partition.close();
+        }
+        log.info("ledger_stopped: unpersisted={}", writeBehindQueue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Evicts the keys of transfers persisted longer than the idempotency window ago; retries that come
+     * later are caught by the unique constraint when written behind.
+     */
+    @Scheduled(fixedDelayString = "${payment.ledger.idempotency-eviction-delay-ms:60000}")
+    public void evictExpiredIdempotencyKeys() {
+        long now = System.currentTimeMillis();
+        int before = idempotencyKeys.size();
+        idempotencyKeys.values().removeIf(expiresAt -> expiresAt <= now);
+        int evicted = before - idempotencyKeys.size();
+        if (evicted > 0) {
+            log.debug("ledger_idempotency_keys_evicted: count={}, remaining={}", evicted, idempotencyKeys.size());
+        }
+    }
+
+    private Optional<LedgerAccount> findAccount(UUID accountId) {
+        LedgerAccount account = accounts.get(accountId);
+        if (account != null) {
+            return Optional.of(account);
+        }
+        Optional<LedgerAccountRow> row = ledgerRepository.findAccount(accountId);
+        if (row.isEmpty()) {
+            return Optional.empty();
+        }
+        // Queued before the account becomes visible, so no transfer reaches the partition ahead of its
+        // balance. A second load of the same account is ignored by the partition.
+        partitionFor(accountId).queue.add(new OpenAccount(accountId, row.get().balance()));
+        return Optional.of(accounts.computeIfAbsent(accountId, id -> LedgerAccount.from(row.get())));
+    }
+
+    private long expiryFromNow() {
+        return System.currentTimeMillis() + idempotencyWindow.toMillis();
+    }
+
+    private Partition partitionFor(UUID accountId) {
+        return partitions[Math.floorMod(accountId.hashCode(), partitions.length)];
+    }
+
+    private void writeBehind() {
+        List<PersistRequest> batch = new ArrayList<>(writeBehindBatchSize);
+        while (running || !writeBehindQueue.isEmpty()) {
+            try {
+                PersistRequest first = writeBehindQueue.poll(writeBehindIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writeBehindQueue.drainTo(batch, writeBehindBatchSize - 1);
+                if (!persist(batch)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Persists a batch, retrying with backoff while the database is unavailable. A batch the database
+     * refuses for its data is split until the offending entry is found, so one bad entry cannot hold
+     * back the others.
+     */
+    private boolean persist(List<PersistRequest> batch) throws InterruptedException {
+        long backoffMs = writeBehindIntervalMs;
+        while (true) {
+            try {
+                ledgerRepository.persist(batch.stream().map(PersistRequest::command).toList());
+                markPersisted(batch);
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                if (batch.size() == 1) {
+                    quarantine(batch.getFirst(), e);
+                    return true;
+                }
+                int half = batch.size() / 2;
+                return persist(batch.subList(0, half)) && persist(batch.subList(half, batch.size()));
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("ledger_write_behind_abandoned: batchSize={}, entries remain in the journal", batch.size(), e);
+                    return false;
+                }
+                log.error("ledger_write_behind_failed: batchSize={}, retryInMs={}", batch.size(), backoffMs, e);
+                TimeUnit.MILLISECONDS.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, 5_000);
+            }
+        }
+    }
+
+    private void markPersisted(List<PersistRequest> batch) {
+        long expiresAt = expiryFromNow();
+        batch.forEach(request -> {
+            request.partition().persisted.incrementAndGet();
+            idempotencyKeys.replace(request.command().idempotencyKey(), NOT_PERSISTED, expiresAt);
+        });
+    }
+
+    /**
+     * Gives up on a transfer the database will never accept and reverses it in memory, so the balances
+     * stay those of the persisted transactions. Its idempotency key is kept until the window passes.
+     */
+    private void quarantine(PersistRequest request, DataIntegrityViolationException e) {
+        TransferCommand command = request.command();
+        log.error("ledger_write_behind_quarantined: txId={}, sender={}, recip={}, amount={}, idemKey={}",
+                command.transactionId(),
+                maskUuid(command.senderAccountId()),
+                maskUuid(command.recipientAccountId()),
+                command.amount(),
+                truncateIdem(command.idempotencyKey()),
+                e);
+        partitionFor(command.senderAccountId()).queue.add(new Credit(command.senderAccountId(), command.amount()));
+        partitionFor(command.recipientAccountId()).queue.add(new Credit(command.recipientAccountId(), command.amount().negate()));
+        markPersisted(List.of(request));
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LedgerEntry toEntry(TransferCommand command) {
+        return new LedgerEntry(
+                command.transactionId(),
+                command.senderAccountId(),
+                command.recipientAccountId(),
+                command.amount(),
+                command.currency(),
+                command.idempotencyKey(),
+                command.createdAt()
+        );
+    }
+
+    private final class Partition implements Runnable {
+        private final int index;
+        private final LedgerJournal journal;
+        private final BlockingQueue<LedgerOp> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger queuedTransfers = new AtomicInteger();
+        private final AtomicLong persisted = new AtomicLong();
+        private final Map<UUID, BigDecimal> balances = new HashMap<>();
+        private final List<PendingTransfer> unsynced = new ArrayList<>();
+        private long appended;
+        private Thread thread;
+
+        private Partition(int index, LedgerJournal journal) {
+            this.index = index;
+            this.journal = journal;
+        }
+
+        boolean offer(PendingTransfer pending) {
+            if (queuedTransfers.incrementAndGet() > partitionQueueCapacity) {
+                queuedTransfers.decrementAndGet();
+                log.warn("ledger_partition_rejected: partition={}, queued={}", index, partitionQueueCapacity);
+                return false;
+            }
+            queue.add(pending);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            List<LedgerOp> batch = new ArrayList<>();
+            while (running) {
+                try {
+                    LedgerOp first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    batch.forEach(this::apply);
+                    commitUnsynced();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    batch.clear();
+                }
+            }
+            commitUnsynced();
+            List<LedgerOp> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(op -> {
+                if (op instanceof PendingTransfer pending) {
+                    idempotencyKeys.remove(pending.command().idempotencyKey());
+                    pending.result().completeExceptionally(
+                            new PaymentBackpressureException("Payment service is shutting down"));
+                }
+            });
+        }
+
+        private void apply(LedgerOp op) {
+            try {
+                applyOp(op);
+            } catch (RuntimeException e) {
+                log.error("ledger_operation_failed: partition={}, op={}", index, op.getClass().getSimpleName(), e);
+                if (op instanceof PendingTransfer pending) {
+                    idempotencyKeys.remove(pending.command().idempotencyKey());
+                    pending.result().completeExceptionally(e);
+                }
+            }
+        }
+
+        private void applyOp(LedgerOp op) {
+            switch (op) {
+                case OpenAccount open -> balances.putIfAbsent(open.accountId(), open.balance());
+                case Credit credit -> balances.merge(credit.accountId(), credit.amount(), BigDecimal::add);
+                case PendingTransfer pending -> debit(pending);
+            }
+        }
+
+        private void debit(PendingTransfer pending) {
+            queuedTransfers.decrementAndGet();
+            TransferCommand command = pending.command();
+            BigDecimal balance = balances.get(command.senderAccountId());
+            if (balance.compareTo(command.amount()) < 0) {
+                idempotencyKeys.remove(command.idempotencyKey());
+                log.warn("insufficient_funds: accountId={}, balance={}, requested={}",
+                        maskUuid(command.senderAccountId()), balance, command.amount());
+                pending.result().completeExceptionally(new InsufficientFundsException("Insufficient funds"));
+                return;
+            }
+            LedgerEntry entry = toEntry(command);
+            if (!journal.tryAppend(entry)) {
+                commitUnsynced();
+                awaitPersisted();
+                journal.reset();
+                if (!journal.tryAppend(entry)) {
+                    throw new IllegalStateException("Ledger journal cannot hold a single entry");
+                }
+            }
+            appended++;
+            balances.put(command.senderAccountId(), balance.subtract(command.amount()));
+            unsynced.add(pending);
+        }
+
+        /**
+         * Syncs the journal, then acknowledges the debited transfers and releases their credits, so
+         * no recipient can spend funds whose transfer is not yet durable.
+         */
+        private void commitUnsynced() {
+            if (unsynced.isEmpty()) {
+                return;
+            }
+            journal.sync();
+            for (PendingTransfer pending : unsynced) {
+                TransferCommand command = pending.command();
+                credit(command.recipientAccountId(), command.amount());
+                writeBehindQueue.add(new PersistRequest(this, command));
+                pending.result().complete(singleStatementTransferExecutor.complete(command, COMPLETED));
+            }
+            unsynced.clear();
+        }
+
+        private void credit(UUID accountId, BigDecimal amount) {
+            Partition owner = partitionFor(accountId);
+            if (owner == this) {
+                balances.merge(accountId, amount, BigDecimal::add);
+            } else {
+                owner.queue.add(new Credit(accountId, amount));
+            }
+        }
+
+        private void awaitPersisted() {
+            while (persisted.get() < appended) {
+                if (!running) {
+                    throw new IllegalStateException("Ledger stopped while waiting for journal write-behind");
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        private void replay() {
+            List<LedgerEntry> entries = journal.readAll();
+            Set<UUID> persistedIds = ledgerRepository.findPersistedTransactionIds(
+                    entries.stream().map(LedgerEntry::transactionId).toList());
+            for (LedgerEntry entry : entries) {
+                if (persistedIds.contains(entry.transactionId())) {
+                    continue;
+                }
+                partitionFor(entry.senderAccountId()).balances
+                        .merge(entry.senderAccountId(), entry.amount().negate(), BigDecimal::add);
+                partitionFor(entry.recipientAccountId()).balances
+                        .merge(entry.recipientAccountId(), entry.amount(), BigDecimal::add);
+                idempotencyKeys.put(entry.idempotencyKey(), NOT_PERSISTED);
+                writeBehindQueue.add(new PersistRequest(this, singleStatementTransferExecutor.toCommand(
+                        entry.transactionId(),
+                        new PaymentRequest(entry.amount(), entry.currency(), entry.senderAccountId(), entry.recipientAccountId()),
+                        entry.idempotencyKey(),
+                        null,
+                        entry.createdAt())));
+                appended++;
+            }
+            if (appended == 0 && !journal.isEmpty()) {
+                journal.reset();
+            }
+            log.info("ledger_journal_replayed: partition={}, entries={}, unpersisted={}", index, entries.size(), appended);
+        }
+
+        private void close() {
+            journal.close();
+        }
+    }
+
+    private sealed interface LedgerOp permits OpenAccount, Credit, PendingTransfer {
+    }
+
+    private record OpenAccount(UUID accountId, BigDecimal balance) implements LedgerOp {
+    }
+
+    private record Credit(UUID accountId, BigDecimal amount) implements LedgerOp {
+    }
+
+    private record PendingTransfer(TransferCommand command, CompletableFuture<PaymentResponse> result) implements LedgerOp {
+    }
+
+    private record PersistRequest(Partition partition, TransferCommand command) {
+    }
+
+    private record LedgerAccount(UUID id, String ownerUsername, String currency) {
+        static LedgerAccount from(LedgerAccountRow row) {
+            return new LedgerAccount(row.id(), row.ownerUsername(), row.currency().trim());
+        }
+    }
+}
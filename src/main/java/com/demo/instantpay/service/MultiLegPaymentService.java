@@ -0,0 +1,188 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.MultiLegPaymentRequest;
+import com.demo.instantpay.api.dto.MultiLegPaymentResponse;
+import com.demo.instantpay.api.dto.PaymentLeg;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.OutboxMessageCreationException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Executes a payment that fans out from one sender to several recipients as a single all-or-nothing
+ * transaction. All involved accounts are locked once, in id order, and the per-leg transactions and
+ * outbox events are written with batched inserts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MultiLegPaymentService {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final PaymentMapper paymentMapper;
+    private final ObjectMapper objectMapper;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final VelocityLimiter velocityLimiter;
+
+    @Transactional
+    @Retryable(interceptor = "transientFailureRetryInterceptor")
+    public MultiLegPaymentResponse sendMultiLeg(MultiLegPaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        log.info("payment_multi_leg requested: sender={}, senderAccount={}, legs={}, currency={}, idemKey={}",
+                senderUsername,
+                maskUuid(request.senderAccountId()),
+                request.legs().size(),
+                request.currency(),
+                truncateIdem(idempotencyKey)
+        );
+
+        List<UUID> legKeys = legIdempotencyKeys(idempotencyKey, request.legs().size());
+        if (transactionRepository.existsByIdempotencyKey(legKeys.getFirst())) {
+            log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(idempotencyKey));
+            throw new IdempotencyException("Transaction already processed");
+        }
+
+        Set<UUID> lockedAccountIds = new LinkedHashSet<>();
+        Set<UUID> stripedAccountIds = new LinkedHashSet<>();
+        lockedAccountIds.add(request.senderAccountId());
+        for (PaymentLeg leg : request.legs()) {
+            PaymentValidator.ensureDifferentAccounts(request.senderAccountId(), leg.recipientAccountId());
+            PaymentValidator.ensurePositiveAmount(leg.amount());
+            PaymentValidator.ensureValidCurrencyScale(leg.amount(), request.currency());
+            if (hotAccountRegistry.isStriped(leg.recipientAccountId())) {
+                stripedAccountIds.add(leg.recipientAccountId());
+            } else {
+                lockedAccountIds.add(leg.recipientAccountId());
+            }
+        }
+
+        Map<UUID, AccountEntity> accounts = new HashMap<>();
+        accountRepository.findAllByIdForUpdate(lockedAccountIds).forEach(account -> accounts.put(account.getId(), account));
+        if (!stripedAccountIds.isEmpty()) {
+            accountRepository.findAllById(stripedAccountIds).forEach(account -> accounts.put(account.getId(), account));
+        }
+
+        AccountEntity senderAccount = Optional.ofNullable(accounts.get(request.senderAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException("Sender account not found: " + request.senderAccountId()));
+
+        if (!senderAccount.getUser().getUsername().equals(senderUsername)) {
+            log.warn("authorization_failure: user '{}' attempted to use account '{}' which is not theirs.",
+                    senderUsername, maskUuid(senderAccount.getId()));
+            throw new AccessDeniedException("User does not own this account");
+        }
+        PaymentValidator.ensureCurrenciesMatch(senderAccount.getCurrency(), request.currency(), "sender");
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (PaymentLeg leg : request.legs()) {
+            AccountEntity recipientAccount = Optional.ofNullable(accounts.get(leg.recipientAccountId()))
+                    .orElseThrow(() -> new AccountNotFoundException("Recipient account not found: " + leg.recipientAccountId()));
+            PaymentValidator.ensureCurrenciesMatch(recipientAccount.getCurrency(), request.currency(), "recipient");
+            totalAmount = totalAmount.add(leg.amount());
+        }
+        velocityLimiter.reserve(senderAccount.getId(), senderUsername, request.currency(), totalAmount);
+
+        if (senderAccount.getBalance().compareTo(totalAmount) < 0 && senderAccount.getBalanceSlots() > 0) {
+            senderAccount.setBalance(senderAccount.getBalance()
+                    .add(accountRepository.sweepBalanceSlots(senderAccount.getId())));
+        }
+        if (senderAccount.getBalance().compareTo(totalAmount) < 0) {
+            log.warn("insufficient_funds: accountId={}, balance={}, requested={}",
+                    maskUuid(senderAccount.getId()),
+                    senderAccount.getBalance(),
+                    totalAmount
+            );
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+
+        senderAccount.setBalance(senderAccount.getBalance().subtract(totalAmount));
+        List<TransactionEntity> transactions = new ArrayList<>(request.legs().size());
+        for (int i = 0; i < request.legs().size(); i++) {
+            PaymentLeg leg = request.legs().get(i);
+            AccountEntity recipientAccount = accounts.get(leg.recipientAccountId());
+            if (stripedAccountIds.contains(recipientAccount.getId())) {
+                accountRepository.creditBalanceSlot(recipientAccount.getId(),
+                        hotAccountRegistry.pickSlot(recipientAccount.getId()), leg.amount());
+            } else {
+                recipientAccount.setBalance(recipientAccount.getBalance().add(leg.amount()));
+            }
+            transactions.add(TransactionEntity.builder()
+                    .senderAccount(senderAccount)
+                    .recipientAccount(recipientAccount)
+                    .amount(leg.amount())
+                    .currency(request.currency())
+                    .status(TransactionEntity.TransactionStatus.COMPLETED)
+                    .idempotencyKey(legKeys.get(i))
+                    .build());
+        }
+
+        accountRepository.saveAll(lockedAccountIds.stream().map(accounts::get).toList());
+        transactionRepository.saveAll(transactions);
+        outboxEventRepository.saveAll(transactions.stream().map(this::createOutboxEvent).toList());
+
+        log.info("payment_multi_leg_processed: senderAccount={}, legs={}, totalAmount={}, currency={}",
+                maskUuid(senderAccount.getId()), transactions.size(), totalAmount, request.currency());
+
+        List<PaymentResponse> legs = transactions.stream().map(paymentMapper::toPaymentResponse).toList();
+        return new MultiLegPaymentResponse(senderAccount.getId(), totalAmount, request.currency(), legs);
+    }
+
+    /**
+     * Each leg is stored as its own transaction, so each needs its own unique idempotency key. They are
+     * derived from the request key, which makes a replay of the request collide on the first leg.
+     */
+    static List<UUID> legIdempotencyKeys(UUID idempotencyKey, int legs) {
+        List<UUID> keys = new ArrayList<>(legs);
+        for (int i = 0; i < legs; i++) {
+            keys.add(UUID.nameUUIDFromBytes((idempotencyKey + "/" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        return keys;
+    }
+
+    private OutboxEventEntity createOutboxEvent(TransactionEntity transaction) {
+        try {
+            PaymentResponse paymentResponse = paymentMapper.toPaymentResponse(transaction);
+            String payload = objectMapper.writeValueAsString(paymentResponse);
+            return OutboxEventEntity.builder()
+                    .aggregateType("Transaction")
+                    .aggregateId(transaction.getId())
+                    .partitionKey(transaction.getSenderAccount().getId())
+                    .eventTopic("payment.completed")
+                    .payload(payload)
+                    .status(OutboxEventEntity.EventStatus.PENDING)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("outbox_creation_failed: txId={}", maskUuid(transaction.getId()), e);
+            throw new OutboxMessageCreationException("Failed to serialize outbox event payload", e);
+        }
+    }
+}
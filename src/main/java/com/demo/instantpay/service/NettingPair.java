@@ -0,0 +1,32 @@
+package com.demo.instantpay.service;
+
+import java.util.UUID;
+
+/**
+ * Unordered pair of accounts whose payments are netted. The ids are kept in ascending order, which is
+ * also the order their rows are locked in.
+ */
+record NettingPair(UUID first, UUID second) {
+
+    static NettingPair of(UUID accountId, UUID otherAccountId) {
+        return accountId.compareTo(otherAccountId) <= 0
+                ? new NettingPair(accountId, otherAccountId)
+                : new NettingPair(otherAccountId, accountId);
+    }
+
+    /**
+     * Parses a pair written as {@code <account-id>:<account-id>}.
+     */
+    static NettingPair parse(String pair) {
+        String[] ids = pair.trim().split(":");
+        if (ids.length != 2) {
+            throw new IllegalArgumentException("Netting pair must be '<account-id>:<account-id>': " + pair);
+        }
+        UUID accountId = UUID.fromString(ids[0].trim());
+        UUID otherAccountId = UUID.fromString(ids[1].trim());
+        if (accountId.equals(otherAccountId)) {
+            throw new IllegalArgumentException("Netting pair must name two different accounts: " + pair);
+        }
+        return of(accountId, otherAccountId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.MultiLegPaymentRequest;
+import com.demo.instantpay.api.dto.MultiLegPaymentResponse;
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.service.exception.PaymentModeNotSupportedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Entry point for payment execution. Routes each payment to the configured execution strategy outside
+ * of any transaction, so callers that wait for a shared batch do not hold a connection meanwhile.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentDispatcher {
+    private final PaymentService paymentService;
+    private final MultiLegPaymentService multiLegPaymentService;
+    private final PaymentHoldService paymentHoldService;
+    private final IdempotencyKeyCache idempotencyKeyCache;
+    private final Optional<PaymentGroupCommitter> paymentGroupCommitter;
+    private final Optional<InMemoryLedgerEngine> inMemoryLedgerEngine;
+    private final Optional<ShardedPaymentService> shardedPaymentService;
+    private final Optional<PaymentSenderLanes> paymentSenderLanes;
+    private final Optional<PaymentNettingService> paymentNettingService;
+
+    public PaymentResponse sendMoney(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        return idempotencyKeyCache.execute(idempotencyKey, senderUsername,
+                () -> route(request, idempotencyKey, senderUsername));
+    }
+
+    private PaymentResponse route(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        if (inMemoryLedgerEngine.isPresent()) {
+            return inMemoryLedgerEngine.get().sendMoney(request, idempotencyKey, senderUsername);
+        }
+        if (shardedPaymentService.isPresent()) {
+            return shardedPaymentService.get().sendMoney(request, idempotencyKey, senderUsername);
+        }
+        if (paymentNettingService.isPresent() && paymentNettingService.get().isNetted(request)) {
+            return paymentNettingService.get().record(request, idempotencyKey, senderUsername);
+        }
+        if (paymentGroupCommitter.isPresent()) {
+            return paymentGroupCommitter.get().submit(request, idempotencyKey, senderUsername);
+        }
+        return paymentSenderLanes
+                .map(lanes -> lanes.submit(request, idempotencyKey, senderUsername))
+                .orElseGet(() -> paymentService.sendMoney(request, idempotencyKey, senderUsername));
+    }
+
+    public MultiLegPaymentResponse sendMultiLeg(MultiLegPaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        ensureDatabaseOwnsBalances("Multi-leg payments");
+        return multiLegPaymentService.sendMultiLeg(request, idempotencyKey, senderUsername);
+    }
+
+    public PaymentResponse authorizeHold(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        ensureDatabaseOwnsBalances("Payment holds");
+        return paymentHoldService.authorize(request, idempotencyKey, senderUsername);
+    }
+
+    public PaymentResponse captureHold(UUID transactionId, String username) {
+        ensureDatabaseOwnsBalances("Payment holds");
+        return paymentHoldService.capture(transactionId, username);
+    }
+
+    public PaymentResponse voidHold(UUID transactionId, String username) {
+        ensureDatabaseOwnsBalances("Payment holds");
+        return paymentHoldService.voidHold(transactionId, username);
+    }
+
+    /**
+     * Multi-leg payments and holds update account rows in PostgreSQL directly, so they are not available
+     * while balances are owned by the in-memory ledger or spread over shards.
+     */
+    private void ensureDatabaseOwnsBalances(String feature) {
+        if (inMemoryLedgerEngine.isPresent() || shardedPaymentService.isPresent()) {
+            throw new PaymentModeNotSupportedException(feature + " are not supported in the configured payment mode");
+        }
+    }
+}
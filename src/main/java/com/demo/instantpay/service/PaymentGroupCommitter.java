@@ -0,0 +1,196 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.BatchItemResult;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent payments for a short window and commits them together in one database
+ * transaction, so many payments share a single commit (and WAL flush) instead of paying for one each.
+ * Every payment runs under its own savepoint and its caller receives its own result or error.
+ * <p>
+ * With the {@link IdempotencyStore} enabled each payment reserves its key under its savepoint, and a
+ * retry is answered with the stored response.
+ * <p>
+ * Row locks taken by earlier payments of a batch are held until the batch commits, so the window
+ * should stay in the low milliseconds.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.group-commit.enabled", havingValue = "true")
+public class PaymentGroupCommitter implements SmartLifecycle {
+    private final AccountTransferRepository accountTransferRepository;
+    private final SingleStatementTransferExecutor singleStatementTransferExecutor;
+    private final VelocityLimiter velocityLimiter;
+    private final IdempotencyStore idempotencyStore;
+    private final BlockingQueue<PendingPayment> queue;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int flushers;
+    private final DistributionSummary batchSizes;
+    private final List<Thread> flusherThreads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public PaymentGroupCommitter(AccountTransferRepository accountTransferRepository,
+                                 SingleStatementTransferExecutor singleStatementTransferExecutor,
+                                 VelocityLimiter velocityLimiter,
+                                 IdempotencyStore idempotencyStore,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${payment.group-commit.max-batch-size:64}") int maxBatchSize,
+                                 @Value("${payment.group-commit.max-wait-ms:5}") long maxWaitMs,
+                                 @Value("${payment.group-commit.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${payment.group-commit.flushers:1}") int flushers) {
+        this.accountTransferRepository = accountTransferRepository;
+        this.singleStatementTransferExecutor = singleStatementTransferExecutor;
+        this.velocityLimiter = velocityLimiter;
+        this.idempotencyStore = idempotencyStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.flushers = flushers;
+        this.batchSizes = DistributionSummary.builder("payment.group_commit.batch.size")
+                .description("Payments committed per database transaction")
+                .register(meterRegistry);
+        meterRegistry.gauge("payment.group_commit.queue.size", queue, BlockingQueue::size);
+    }
+
+    public PaymentResponse submit(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        TransferCommand command = singleStatementTransferExecutor.prepare(request, idempotencyKey, senderUsername);
+        VelocityLimiter.Reservation reservation = velocityLimiter.reserve(
+                request.senderAccountId(), senderUsername, request.currency(), request.amount());
+        PendingPayment pending = new PendingPayment(command, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            reservation.release();
+            log.warn("group_commit_rejected: queueSize={}", queue.size());
+            throw new PaymentBackpressureException("Payment queue is full, please retry later");
+        }
+        try {
+            PaymentResponse response = pending.result().join();
+            if (!response.transactionId().equals(command.transactionId())) {
+                // Replayed response of an earlier payment, which was counted when it ran.
+                reservation.release();
+            }
+            return response;
+        } catch (CompletionException e) {
+            reservation.release();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < flushers; i++) {
+            flusherThreads.add(Thread.ofVirtual().name("payment-group-commit-", i).start(this::drain));
+        }
+        log.info("group_commit_started: maxBatchSize={}, maxWaitMs={}, flushers={}",
+                maxBatchSize, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), flushers);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flusherThreads.forEach(Thread::interrupt);
+        flusherThreads.clear();
+        List<PendingPayment> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.result().completeExceptionally(
+                new PaymentBackpressureException("Payment service is shutting down")));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                List<PendingPayment> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<PendingPayment> nextBatch() throws InterruptedException {
+        List<PendingPayment> batch = new ArrayList<>(maxBatchSize);
+        PendingPayment first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingPayment next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    void flush(List<PendingPayment> batch) {
+        batchSizes.record(batch.size());
+        List<BatchItemResult> results;
+        try {
+            results = accountTransferRepository.transferAll(batch.stream().map(PendingPayment::command).toList(),
+                    idempotencyStore.isEnabled() ? idempotencyStore.expiresAtFromNow() : null);
+        } catch (RuntimeException e) {
+            log.error("group_commit_failed: batchSize={}", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), results.get(i));
+        }
+    }
+
+    private void complete(PendingPayment pending, BatchItemResult itemResult) {
+        if (itemResult.failure() != null) {
+            pending.result().completeExceptionally(itemResult.failure());
+            return;
+        }
+        if (itemResult.storedResponse() != null) {
+            pending.result().complete(idempotencyStore.replay(pending.command().idempotencyKey(), itemResult.storedResponse()));
+            return;
+        }
+        try {
+            pending.result().complete(singleStatementTransferExecutor.complete(pending.command(), itemResult.result()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    record PendingPayment(TransferCommand command, CompletableFuture<PaymentResponse> result) {
+    }
+}
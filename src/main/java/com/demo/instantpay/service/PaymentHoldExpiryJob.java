@@ -0,0 +1,34 @@
+package com.demo.instantpay.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically releases payment holds that were neither captured nor voided in time, one short
+ * transaction per batch.
+ */
+@Slf4j
+@Component
+public class PaymentHoldExpiryJob {
+    private final PaymentHoldService paymentHoldService;
+    private final int batchSize;
+
+    public PaymentHoldExpiryJob(PaymentHoldService paymentHoldService,
+                                @Value("${payment.holds.expiry-batch-size:500}") int batchSize) {
+        this.paymentHoldService = paymentHoldService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.holds.expiry-delay-ms:60000}")
+    public void releaseExpiredHolds() {
+        try {
+            while (paymentHoldService.releaseExpired(batchSize) == batchSize) {
+                log.debug("payment_hold_expiry_continuing: batchSize={}", batchSize);
+            }
+        } catch (Exception e) {
+            log.error("payment_hold_expiry_failed. Will retry on next run.", e);
+        }
+    }
+}
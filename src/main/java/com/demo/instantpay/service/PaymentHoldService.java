@@ -0,0 +1,259 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.OutboxMessageCreationException;
+import com.demo.instantpay.service.exception.PaymentHoldNotFoundException;
+import com.demo.instantpay.service.exception.PaymentHoldStateException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Two-phase payments. Authorizing debits the sender with a single guarded update and records the hold
+ * as a {@code PENDING} transaction; capturing credits the recipient and voiding refunds the sender.
+ * Each phase is its own short transaction that locks only the rows it changes, so no lock is held while
+ * the merchant decides. Only the merchant, the owner of the recipient account, may capture or void. Holds not finalized before {@code payment.holds.ttl} are released by
+ * {@link PaymentHoldExpiryJob}.
+ */
+@Slf4j
+@Service
+public class PaymentHoldService {
+    static final String AUTHORIZED_EVENT_TOPIC = "payment.authorized";
+    static final String COMPLETED_EVENT_TOPIC = "payment.completed";
+    static final String CANCELLED_EVENT_TOPIC = "payment.cancelled";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final PaymentMapper paymentMapper;
+    private final ObjectMapper objectMapper;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final VelocityLimiter velocityLimiter;
+    private final Duration holdTtl;
+
+    public PaymentHoldService(AccountRepository accountRepository,
+                              TransactionRepository transactionRepository,
+                              OutboxEventRepository outboxEventRepository,
+                              PaymentMapper paymentMapper,
+                              ObjectMapper objectMapper,
+                              HotAccountRegistry hotAccountRegistry,
+                              VelocityLimiter velocityLimiter,
+                              @Value("${payment.holds.ttl:7d}") Duration holdTtl) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.paymentMapper = paymentMapper;
+        this.objectMapper = objectMapper;
+        this.hotAccountRegistry = hotAccountRegistry;
+        this.velocityLimiter = velocityLimiter;
+        this.holdTtl = holdTtl;
+    }
+
+    @Transactional
+    @Retryable(interceptor = "transientFailureRetryInterceptor")
+    public PaymentResponse authorize(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        log.info("payment_authorize requested: sender={}, senderAccount={}, recip={}, amount={}, currency={}, idemKey={}",
+                senderUsername,
+                maskUuid(request.senderAccountId()),
+                maskUuid(request.recipientAccountId()),
+                request.amount(),
+                request.currency(),
+                truncateIdem(idempotencyKey)
+        );
+
+        transactionRepository.findByIdempotencyKey(idempotencyKey).ifPresent(existing -> {
+            log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(idempotencyKey));
+            throw new IdempotencyException("Transaction already processed");
+        });
+
+        Map<UUID, AccountEntity> accounts = accountRepository
+                .findAllById(List.of(request.senderAccountId(), request.recipientAccountId()))
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+
+        AccountEntity senderAccount = Optional.ofNullable(accounts.get(request.senderAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException("Sender account not found: " + request.senderAccountId()));
+
+        if (!senderAccount.getUser().getUsername().equals(senderUsername)) {
+            log.warn("authorization_failure: user '{}' attempted to use account '{}' which is not theirs.",
+                    senderUsername, maskUuid(senderAccount.getId()));
+            throw new AccessDeniedException("User does not own this account");
+        }
+
+        AccountEntity recipientAccount = Optional.ofNullable(accounts.get(request.recipientAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException("Recipient account not found: " + request.recipientAccountId()));
+
+        PaymentValidator.ensureCurrenciesMatch(senderAccount.getCurrency(), request.currency(), "sender");
+        PaymentValidator.ensureCurrenciesMatch(recipientAccount.getCurrency(), request.currency(), "recipient");
+        PaymentValidator.ensureDifferentAccounts(senderAccount.getId(), recipientAccount.getId());
+        PaymentValidator.ensurePositiveAmount(request.amount());
+        PaymentValidator.ensureValidCurrencyScale(request.amount(), request.currency());
+        velocityLimiter.reserve(senderAccount.getId(), senderUsername, request.currency(), request.amount());
+
+        if (!reserve(senderAccount, request.amount())) {
+            log.warn("insufficient_funds: accountId={}, requested={}", maskUuid(senderAccount.getId()), request.amount());
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+
+        TransactionEntity hold = transactionRepository.save(TransactionEntity.builder()
+                .senderAccount(senderAccount)
+                .recipientAccount(recipientAccount)
+                .amount(request.amount())
+                .currency(request.currency())
+                .status(TransactionEntity.TransactionStatus.PENDING)
+                .idempotencyKey(idempotencyKey)
+                .holdExpiresAt(OffsetDateTime.now().plus(holdTtl))
+                .build());
+        outboxEventRepository.save(createOutboxEvent(hold, AUTHORIZED_EVENT_TOPIC));
+
+        log.info("payment_authorized: txId={}, amount={}, currency={}, expiresAt={}",
+                maskUuid(hold.getId()), hold.getAmount(), hold.getCurrency(), hold.getHoldExpiresAt());
+
+        return paymentMapper.toPaymentResponse(hold);
+    }
+
+    @Transactional
+    @Retryable(interceptor = "transientFailureRetryInterceptor")
+    public PaymentResponse capture(UUID transactionId, String username) {
+        TransactionEntity hold = lockPendingHold(transactionId, username);
+        if (hold.getHoldExpiresAt().isBefore(OffsetDateTime.now())) {
+            throw new PaymentHoldStateException("Hold has expired: " + transactionId);
+        }
+
+        UUID recipientAccountId = hold.getRecipientAccount().getId();
+        if (hotAccountRegistry.isStriped(recipientAccountId)) {
+            accountRepository.creditBalanceSlot(recipientAccountId, hotAccountRegistry.pickSlot(recipientAccountId), hold.getAmount());
+        } else {
+            accountRepository.credit(recipientAccountId, hold.getAmount());
+        }
+        hold.setStatus(TransactionEntity.TransactionStatus.COMPLETED);
+        outboxEventRepository.save(createOutboxEvent(hold, COMPLETED_EVENT_TOPIC));
+
+        log.info("payment_captured: txId={}, amount={}, currency={}", maskUuid(hold.getId()), hold.getAmount(), hold.getCurrency());
+        return paymentMapper.toPaymentResponse(hold);
+    }
+
+    @Transactional
+    @Retryable(interceptor = "transientFailureRetryInterceptor")
+    public PaymentResponse voidHold(UUID transactionId, String username) {
+        TransactionEntity hold = lockPendingHold(transactionId, username);
+
+        accountRepository.credit(hold.getSenderAccount().getId(), hold.getAmount());
+        hold.setStatus(TransactionEntity.TransactionStatus.CANCELLED);
+        outboxEventRepository.save(createOutboxEvent(hold, CANCELLED_EVENT_TOPIC));
+
+        log.info("payment_voided: txId={}, amount={}, currency={}", maskUuid(hold.getId()), hold.getAmount(), hold.getCurrency());
+        return paymentMapper.toPaymentResponse(hold);
+    }
+
+    /**
+     * Cancels up to {@code limit} expired holds and refunds their senders with one update per sender.
+     * Holds being captured or voided concurrently are skipped, not waited for.
+     */
+    @Transactional
+    public int releaseExpired(int limit) {
+        List<TransactionEntity> expired = transactionRepository.lockExpiredHolds(OffsetDateTime.now(), limit);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, BigDecimal> refunds = new TreeMap<>();
+        for (TransactionEntity hold : expired) {
+            refunds.merge(hold.getSenderAccount().getId(), hold.getAmount(), BigDecimal::add);
+            hold.setStatus(TransactionEntity.TransactionStatus.CANCELLED);
+        }
+        refunds.forEach(accountRepository::credit);
+        outboxEventRepository.saveAll(expired.stream()
+                .map(hold -> createOutboxEvent(hold, CANCELLED_EVENT_TOPIC))
+                .toList());
+
+        log.info("payment_holds_expired: released={}, senders={}", expired.size(), refunds.size());
+        return expired.size();
+    }
+
+    /**
+     * Debits the sender if the balance covers the amount, sweeping striped credits into the balance
+     * once when it does not.
+     */
+    private boolean reserve(AccountEntity senderAccount, BigDecimal amount) {
+        if (accountRepository.debitIfCovered(senderAccount.getId(), amount) == 1) {
+            return true;
+        }
+        if (senderAccount.getBalanceSlots() == 0) {
+            return false;
+        }
+        BigDecimal swept = accountRepository.sweepBalanceSlots(senderAccount.getId());
+        if (swept.signum() > 0) {
+            accountRepository.credit(senderAccount.getId(), swept);
+        }
+        return accountRepository.debitIfCovered(senderAccount.getId(), amount) == 1;
+    }
+
+    /**
+     * Only the payee may finalize a hold. The payer already gave up the funds when authorizing, so a
+     * payer able to void could take back a payment the merchant is about to capture.
+     */
+    private TransactionEntity lockPendingHold(UUID transactionId, String username) {
+        TransactionEntity hold = transactionRepository.findByIdForUpdate(transactionId)
+                .filter(transaction -> transaction.getHoldExpiresAt() != null)
+                .orElseThrow(() -> new PaymentHoldNotFoundException("Payment hold not found: " + transactionId));
+
+        if (!hold.getRecipientAccount().getUser().getUsername().equals(username)) {
+            log.warn("authorization_failure: user '{}' attempted to finalize hold '{}' without being its payee.",
+                    username, maskUuid(transactionId));
+            throw new AccessDeniedException("User is not the payee of this hold");
+        }
+        if (hold.getStatus() != TransactionEntity.TransactionStatus.PENDING) {
+            throw new PaymentHoldStateException("Hold is already " + hold.getStatus() + ": " + transactionId);
+        }
+        return hold;
+    }
+
+    private OutboxEventEntity createOutboxEvent(TransactionEntity transaction, String topic) {
+        try {
+            PaymentResponse paymentResponse = paymentMapper.toPaymentResponse(transaction);
+            String payload = objectMapper.writeValueAsString(paymentResponse);
+            return OutboxEventEntity.builder()
+                    .aggregateType("Transaction")
+                    .aggregateId(transaction.getId())
+                    .partitionKey(transaction.getSenderAccount().getId())
+                    .eventTopic(topic)
+                    .payload(payload)
+                    .status(OutboxEventEntity.EventStatus.PENDING)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("outbox_creation_failed: txId={}", maskUuid(transaction.getId()), e);
+            throw new OutboxMessageCreationException("Failed to serialize outbox event payload", e);
+        }
+    }
+}
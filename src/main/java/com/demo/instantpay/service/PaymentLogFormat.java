@@ -0,0 +1,21 @@
+package com.demo.instantpay.service;
+
+import java.util.UUID;
+
+final class PaymentLogFormat {
+
+    private PaymentLogFormat() {
+    }
+
+    static String truncateIdem(UUID key) {
+        if (key == null) return null;
+        String s = key.toString();
+        return s.substring(0, 8) + "..." + s.substring(s.length() - 4);
+    }
+
+    static String maskUuid(UUID id) {
+        if (id == null) return null;
+        String s = id.toString();
+        return s.substring(0, 8) + "****" + s.substring(s.length() - 4);
+    }
+}
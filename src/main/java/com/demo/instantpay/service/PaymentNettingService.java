@@ -0,0 +1,144 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.NettingProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Records payments between configured account pairs as {@code PENDING} transactions without touching
+ * either balance. {@link PaymentNettingSettler} later applies the net movement of each pair in one
+ * short transaction.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "payment.netting.enabled", havingValue = "true")
+public class PaymentNettingService {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final PaymentMapper paymentMapper;
+    private final VelocityLimiter velocityLimiter;
+    private final IdempotencyStore idempotencyStore;
+    private final Set<NettingPair> pairs;
+
+    public PaymentNettingService(AccountRepository accountRepository,
+                                 TransactionRepository transactionRepository,
+                                 PaymentMapper paymentMapper,
+                                 VelocityLimiter velocityLimiter,
+                                 IdempotencyStore idempotencyStore,
+                                 NettingProperties nettingProperties) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.paymentMapper = paymentMapper;
+        this.velocityLimiter = velocityLimiter;
+        this.idempotencyStore = idempotencyStore;
+        this.pairs = nettingProperties.getPairs().stream()
+                .map(NettingPair::parse)
+                .collect(Collectors.toUnmodifiableSet());
+        log.info("netting_pairs_configured: count={}", pairs.size());
+    }
+
+    public boolean isNetted(PaymentRequest request) {
+        return !request.senderAccountId().equals(request.recipientAccountId())
+                && pairs.contains(NettingPair.of(request.senderAccountId(), request.recipientAccountId()));
+    }
+
+    Set<NettingPair> pairs() {
+        return pairs;
+    }
+
+    /**
+     * Validates the payment like the locked path does and stores it as {@code PENDING}. The funds check
+     * here reads the balance without a lock, so it only rejects obvious overdrafts; the settler decides.
+     */
+    @Transactional
+    public PaymentResponse record(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        log.info("payment_netting_requested: sender={}, senderAccount={}, recip={}, amount={}, currency={}, idemKey={}",
+                senderUsername,
+                maskUuid(request.senderAccountId()),
+                maskUuid(request.recipientAccountId()),
+                request.amount(),
+                request.currency(),
+                truncateIdem(idempotencyKey)
+        );
+
+        Optional<PaymentResponse> stored = idempotencyStore.reserve(senderUsername, idempotencyKey);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        if (!idempotencyStore.isEnabled()) {
+            transactionRepository.findByIdempotencyKey(idempotencyKey).ifPresent(existing -> {
+                log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(idempotencyKey));
+                throw new IdempotencyException("Transaction already processed");
+            });
+        }
+
+        Map<UUID, AccountEntity> accounts = accountRepository
+                .findAllById(List.of(request.senderAccountId(), request.recipientAccountId()))
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+
+        AccountEntity senderAccount = Optional.ofNullable(accounts.get(request.senderAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException("Sender account not found: " + request.senderAccountId()));
+
+        if (!senderAccount.getUser().getUsername().equals(senderUsername)) {
+            log.warn("authorization_failure: user '{}' attempted to use account '{}' which is not theirs.",
+                    senderUsername, maskUuid(senderAccount.getId()));
+            throw new AccessDeniedException("User does not own this account");
+        }
+
+        AccountEntity recipientAccount = Optional.ofNullable(accounts.get(request.recipientAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException("Recipient account not found: " + request.recipientAccountId()));
+
+        PaymentValidator.ensureCurrenciesMatch(senderAccount.getCurrency(), request.currency(), "sender");
+        PaymentValidator.ensureCurrenciesMatch(recipientAccount.getCurrency(), request.currency(), "recipient");
+        PaymentValidator.ensurePositiveAmount(request.amount());
+        PaymentValidator.ensureValidCurrencyScale(request.amount(), request.currency());
+        velocityLimiter.reserve(senderAccount.getId(), senderUsername, request.currency(), request.amount());
+
+        if (senderAccount.getBalanceSlots() == 0 && senderAccount.getBalance().compareTo(request.amount()) < 0) {
+            log.warn("insufficient_funds: accountId={}, balance={}, requested={}",
+                    maskUuid(senderAccount.getId()), senderAccount.getBalance(), request.amount());
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+
+        TransactionEntity tx = transactionRepository.save(TransactionEntity.builder()
+                .senderAccount(senderAccount)
+                .recipientAccount(recipientAccount)
+                .amount(request.amount())
+                .currency(request.currency())
+                .status(TransactionEntity.TransactionStatus.PENDING)
+                .idempotencyKey(idempotencyKey)
+                .build());
+
+        log.info("payment_netting_recorded: txId={}, amount={}, currency={}",
+                maskUuid(tx.getId()), tx.getAmount(), tx.getCurrency());
+
+        PaymentResponse response = paymentMapper.toPaymentResponse(tx);
+        idempotencyStore.complete(senderUsername, idempotencyKey, response);
+        return response;
+    }
+}
@@ -0,0 +1,157 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.NettingProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.OutboxMessageCreationException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Settles the pending payments of every netting pair. Per pair, both account rows are locked once, the
+ * pending payments are replayed in arrival order against running balances, and only the resulting
+ * balances are written, so a window of any size costs one update per account. A payment the sender
+ * cannot cover at its turn is marked {@code FAILED}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.netting.enabled", havingValue = "true")
+public class PaymentNettingSettler {
+    static final String COMPLETED_EVENT_TOPIC = "payment.completed";
+    static final String FAILED_EVENT_TOPIC = "payment.failed";
+
+    private final PaymentNettingService paymentNettingService;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final PaymentMapper paymentMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+
+    public PaymentNettingSettler(PaymentNettingService paymentNettingService,
+                                 AccountRepository accountRepository,
+                                 TransactionRepository transactionRepository,
+                                 OutboxEventRepository outboxEventRepository,
+                                 PaymentMapper paymentMapper,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 NettingProperties nettingProperties) {
+        this.paymentNettingService = paymentNettingService;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.paymentMapper = paymentMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = nettingProperties.getMaxBatchSize();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.netting.settle-interval-ms:1000}")
+    public void settleAll() {
+        for (NettingPair pair : paymentNettingService.pairs()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> settle(pair));
+            } catch (Exception e) {
+                log.error("netting_settlement_failed: pair={}/{}. Will retry on next run.",
+                        maskUuid(pair.first()), maskUuid(pair.second()), e);
+            }
+        }
+    }
+
+    /**
+     * Must run inside a transaction. The pending payments are read after the account rows are locked,
+     * so two settlers can never apply the same payment.
+     */
+    void settle(NettingPair pair) {
+        Map<UUID, AccountEntity> accounts = new HashMap<>();
+        accountRepository.findAllByIdForUpdate(List.of(pair.first(), pair.second()))
+                .forEach(account -> accounts.put(account.getId(), account));
+        if (accounts.size() < 2) {
+            log.warn("netting_pair_incomplete: pair={}/{}", maskUuid(pair.first()), maskUuid(pair.second()));
+            return;
+        }
+
+        List<TransactionEntity> pending = transactionRepository.findBetweenAccounts(
+                TransactionEntity.TransactionStatus.PENDING, pair.first(), pair.second(), PageRequest.of(0, maxBatchSize));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        for (AccountEntity account : accounts.values()) {
+            if (account.getBalanceSlots() > 0) {
+                account.setBalance(account.getBalance().add(accountRepository.sweepBalanceSlots(account.getId())));
+            }
+        }
+        Map<UUID, BigDecimal> opening = new HashMap<>();
+        accounts.forEach((id, account) -> opening.put(id, account.getBalance()));
+
+        List<OutboxEventEntity> events = new ArrayList<>(pending.size());
+        int failed = 0;
+        for (TransactionEntity tx : pending) {
+            AccountEntity sender = accounts.get(tx.getSenderAccount().getId());
+            AccountEntity recipient = accounts.get(tx.getRecipientAccount().getId());
+            if (sender.getBalance().compareTo(tx.getAmount()) < 0) {
+                log.warn("netting_insufficient_funds: txId={}, accountId={}, requested={}",
+                        maskUuid(tx.getId()), maskUuid(sender.getId()), tx.getAmount());
+                tx.setStatus(TransactionEntity.TransactionStatus.FAILED);
+                events.add(createOutboxEvent(tx, FAILED_EVENT_TOPIC));
+                failed++;
+                continue;
+            }
+            sender.setBalance(sender.getBalance().subtract(tx.getAmount()));
+            recipient.setBalance(recipient.getBalance().add(tx.getAmount()));
+            tx.setStatus(TransactionEntity.TransactionStatus.COMPLETED);
+            events.add(createOutboxEvent(tx, COMPLETED_EVENT_TOPIC));
+        }
+
+        accountRepository.saveAll(accounts.values());
+        transactionRepository.saveAll(pending);
+        outboxEventRepository.saveAll(events);
+
+        AccountEntity first = accounts.get(pair.first());
+        log.info("netting_settled: pair={}/{}, payments={}, failed={}, netMovement={}",
+                maskUuid(pair.first()), maskUuid(pair.second()), pending.size(), failed,
+                first.getBalance().subtract(opening.get(pair.first())));
+    }
+
+    private OutboxEventEntity createOutboxEvent(TransactionEntity transaction, String topic) {
+        try {
+            PaymentResponse paymentResponse = paymentMapper.toPaymentResponse(transaction);
+            String payload = objectMapper.writeValueAsString(paymentResponse);
+            return OutboxEventEntity.builder()
+                    .aggregateType("Transaction")
+                    .aggregateId(transaction.getId())
+                    .partitionKey(transaction.getSenderAccount().getId())
+                    .eventTopic(topic)
+                    .payload(payload)
+                    .status(OutboxEventEntity.EventStatus.PENDING)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("outbox_creation_failed: txId={}", maskUuid(transaction.getId()), e);
+            throw new OutboxMessageCreationException("Failed to serialize outbox event payload", e);
+        }
+    }
+}
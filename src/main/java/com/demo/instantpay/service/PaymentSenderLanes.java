@@ -0,0 +1,186 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Runs payments of the same sender account one after another on a lane of their own, so a burst from
+ * one account waits in memory instead of holding a pooled connection while blocked on the sender's
+ * row lock. Lanes of different senders run in parallel, each drained by its own virtual thread, and a
+ * lane is dropped as soon as it runs empty.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.sender-lanes.enabled", havingValue = "true")
+public class PaymentSenderLanes implements SmartLifecycle {
+    private final PaymentService paymentService;
+    private final int maxQueueDepth;
+    private final Map<UUID, Lane> lanes = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+    private final DistributionSummary queueDepths;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public PaymentSenderLanes(PaymentService paymentService,
+                              MeterRegistry meterRegistry,
+                              @Value("${payment.sender-lanes.max-queue-depth:32}") int maxQueueDepth) {
+        this.paymentService = paymentService;
+        this.maxQueueDepth = maxQueueDepth;
+        this.waitTimer = Timer.builder("payment.sender_lane.wait")
+                .description("Time a payment waits in its sender lane before it starts executing")
+                .register(meterRegistry);
+        this.queueDepths = DistributionSummary.builder("payment.sender_lane.queue.depth")
+                .description("Payments queued in a sender lane when a payment is added to it")
+                .register(meterRegistry);
+        meterRegistry.gauge("payment.sender_lane.active", lanes, Map::size);
+    }
+
+    public PaymentResponse submit(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        LaneTask task = new LaneTask(() -> paymentService.sendMoney(request, idempotencyKey, senderUsername),
+                System.nanoTime(), new CompletableFuture<>());
+        enqueue(request.senderAccountId(), task);
+        try {
+            return task.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-sender-lane-", 0).factory());
+        running = true;
+        log.info("sender_lanes_started: maxQueueDepth={}", maxQueueDepth);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("sender_lanes_stop_timeout: activeLanes={}", lanes.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void enqueue(UUID senderAccountId, LaneTask task) {
+        while (true) {
+            if (!running) {
+                throw new PaymentBackpressureException("Payment service is shutting down");
+            }
+            Lane lane = lanes.computeIfAbsent(senderAccountId, Lane::new);
+            switch (lane.offer(task)) {
+                case STARTED -> executor.execute(lane::drain);
+                case QUEUED -> {
+                }
+                case FULL -> {
+                    log.warn("sender_lane_rejected: senderAccount={}, queued={}", maskUuid(senderAccountId), maxQueueDepth);
+                    throw new PaymentBackpressureException("Too many payments in flight for this account, please retry later");
+                }
+                case RETIRED -> {
+                    continue;
+                }
+            }
+            return;
+        }
+    }
+
+    private enum OfferResult {
+        STARTED,
+        QUEUED,
+        FULL,
+        RETIRED
+    }
+
+    private final class Lane {
+        private final UUID accountId;
+        private final Deque<LaneTask> tasks = new ArrayDeque<>();
+        private boolean draining;
+        private boolean retired;
+
+        private Lane(UUID accountId) {
+            this.accountId = accountId;
+        }
+
+        synchronized OfferResult offer(LaneTask task) {
+            if (retired) {
+                return OfferResult.RETIRED;
+            }
+            if (tasks.size() >= maxQueueDepth) {
+                return OfferResult.FULL;
+            }
+            tasks.add(task);
+            queueDepths.record(tasks.size());
+            if (draining) {
+                return OfferResult.QUEUED;
+            }
+            draining = true;
+            return OfferResult.STARTED;
+        }
+
+        /**
+         * Runs queued payments until the lane is empty, then retires it so a later payment of the same
+         * sender opens a fresh lane.
+         */
+        void drain() {
+            LaneTask task;
+            while ((task = next()) != null) {
+                waitTimer.record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+                try {
+                    task.result().complete(task.payment().get());
+                } catch (RuntimeException e) {
+                    task.result().completeExceptionally(e);
+                }
+            }
+            lanes.remove(accountId, this);
+        }
+
+        private synchronized LaneTask next() {
+            LaneTask task = tasks.poll();
+            if (task == null) {
+                draining = false;
+                retired = true;
+            }
+            return task;
+        }
+    }
+
+    private record LaneTask(Supplier<PaymentResponse> payment, long enqueuedAt,
+                            CompletableFuture<PaymentResponse> result) {
+    }
+}
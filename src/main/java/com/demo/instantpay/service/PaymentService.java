@@ -2,6 +2,7 @@ package com.demo.instantpay.service;
 
 import com.demo.instantpay.api.dto.PaymentRequest;
 import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.messaging.OutboxFastPath;
 import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
 import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
 import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
@@ -16,12 +17,22 @@ import com.demo.instantpay.service.mapper.PaymentMapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
 
 @Slf4j
 @Service
@@ -34,8 +45,19 @@ public class PaymentService {
     private final OutboxEventRepository outboxEventRepository;
     private final PaymentMapper paymentMapper;
     private final ObjectMapper objectMapper;
+    private final SingleStatementTransferExecutor singleStatementTransferExecutor;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final FxRateRegistry fxRateRegistry;
+    private final VelocityLimiter velocityLimiter;
+    private final IdempotencyKeyCache idempotencyKeyCache;
+    private final IdempotencyStore idempotencyStore;
+    private final OutboxFastPath outboxFastPath;
+
+    @Value("${payment.transfer.mode:JPA}")
+    private TransferMode transferMode = TransferMode.JPA;
 
     @Transactional
+    @Retryable(interceptor = "transientFailureRetryInterceptor")
     public PaymentResponse sendMoney(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
         log.info("payment_send requested: sender={}, senderAccount={}, recip={}, amount={}, currency={}, idemKey={}",
                 senderUsername,
@@ -46,12 +68,37 @@ public class PaymentService {
                 truncateIdem(idempotencyKey)
         );
 
-        transactionRepository.findByIdempotencyKey(idempotencyKey).ifPresent(existing -> {
-            log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(idempotencyKey));
-            throw new IdempotencyException("Transaction already processed");
-        });
+        Optional<PaymentResponse> stored = idempotencyStore.reserve(senderUsername, idempotencyKey);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        velocityLimiter.reserve(request.senderAccountId(), senderUsername, request.currency(), request.amount());
+
+        if (transferMode == TransferMode.SINGLE_STATEMENT) {
+            PaymentResponse response = singleStatementTransferExecutor.execute(request, idempotencyKey, senderUsername);
+            idempotencyStore.complete(senderUsername, idempotencyKey, response);
+            return response;
+        }
+
+        if (!idempotencyStore.isEnabled() && !idempotencyKeyCache.isDefinitelyNew(idempotencyKey)) {
+            transactionRepository.findByIdempotencyKey(idempotencyKey).ifPresentOrElse(existing -> {
+                log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(idempotencyKey));
+                throw new IdempotencyException("Transaction already processed");
+            }, idempotencyKeyCache::recordFalsePositive);
+        }
+
+        boolean stripedCredit = hotAccountRegistry.isStriped(request.recipientAccountId())
+                && !request.recipientAccountId().equals(request.senderAccountId());
+        List<UUID> lockedAccountIds = stripedCredit
+                ? List.of(request.senderAccountId())
+                : List.of(request.senderAccountId(), request.recipientAccountId());
 
-        AccountEntity senderAccount = accountRepository.findByIdForUpdate(request.senderAccountId())
+        Map<UUID, AccountEntity> accounts = loadAccounts(lockedAccountIds)
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+
+        AccountEntity senderAccount = Optional.ofNullable(accounts.get(request.senderAccountId()))
                 .orElseThrow(() -> new AccountNotFoundException("Sender account not found: " + request.senderAccountId()));
 
         if (!senderAccount.getUser().getUsername().equals(senderUsername)) {
@@ -60,14 +107,28 @@ public class PaymentService {
             throw new AccessDeniedException("User does not own this account");
         }
 
-        AccountEntity recipientAccount = accountRepository.findByIdForUpdate(request.recipientAccountId())
+        AccountEntity recipientAccount = (stripedCredit
+                ? accountRepository.findById(request.recipientAccountId())
+                : Optional.ofNullable(accounts.get(request.recipientAccountId())))
                 .orElseThrow(() -> new AccountNotFoundException("Recipient account not found: " + request.recipientAccountId()));
 
-        ensureCurrenciesMatch(senderAccount.getCurrency(), request.currency(), "sender");
-        ensureCurrenciesMatch(recipientAccount.getCurrency(), request.currency(), "recipient");
-        ensureDifferentAccounts(senderAccount.getId(), recipientAccount.getId());
-        ensurePositiveAmount(request.amount());
-        ensureValidCurrencyScale(request.amount(), request.currency());
+        PaymentValidator.ensureCurrenciesMatch(senderAccount.getCurrency(), request.currency(), "sender");
+        FxQuote fxQuote = recipientAccount.getCurrency().equals(request.currency())
+                ? null
+                : fxRateRegistry.quote(request.currency(), recipientAccount.getCurrency());
+        if (fxQuote == null) {
+            PaymentValidator.ensureCurrenciesMatch(recipientAccount.getCurrency(), request.currency(), "recipient");
+        }
+        PaymentValidator.ensureDifferentAccounts(senderAccount.getId(), recipientAccount.getId());
+        PaymentValidator.ensurePositiveAmount(request.amount());
+        PaymentValidator.ensureValidCurrencyScale(request.amount(), request.currency());
+        BigDecimal creditedAmount = fxQuote == null ? request.amount() : fxQuote.convert(request.amount());
+        PaymentValidator.ensurePositiveAmount(creditedAmount);
+
+        if (senderAccount.getBalance().compareTo(request.amount()) < 0 && senderAccount.getBalanceSlots() > 0) {
+            senderAccount.setBalance(senderAccount.getBalance()
+                    .add(accountRepository.sweepBalanceSlots(senderAccount.getId())));
+        }
 
         BigDecimal newSenderBalance = senderAccount.getBalance().subtract(request.amount());
         if (newSenderBalance.compareTo(BigDecimal.ZERO) < 0) {
@@ -80,7 +141,9 @@ public class PaymentService {
         }
 
         senderAccount.setBalance(newSenderBalance);
-        recipientAccount.setBalance(recipientAccount.getBalance().add(request.amount()));
+        if (!stripedCredit) {
+            recipientAccount.setBalance(recipientAccount.getBalance().add(creditedAmount));
+        }
 
         TransactionEntity tx = TransactionEntity.builder()
                 .senderAccount(senderAccount)
@@ -90,18 +153,44 @@ public class PaymentService {
                 .status(TransactionEntity.TransactionStatus.COMPLETED)
                 .idempotencyKey(idempotencyKey)
                 .build();
+        if (fxQuote != null) {
+            tx.setFxRate(fxQuote.rate());
+            tx.setFxRateVersion(fxQuote.snapshotVersion());
+            tx.setCreditedAmount(creditedAmount);
+            tx.setCreditedCurrency(recipientAccount.getCurrency());
+        }
 
         accountRepository.save(senderAccount);
-        accountRepository.save(recipientAccount);
+        if (stripedCredit) {
+            accountRepository.creditBalanceSlot(recipientAccount.getId(),
+                    hotAccountRegistry.pickSlot(recipientAccount.getId()), creditedAmount);
+        } else {
+            accountRepository.save(recipientAccount);
+        }
         transactionRepository.save(tx);
 
         OutboxEventEntity outbox = createOutboxEvent(tx);
         outboxEventRepository.save(outbox);
+        outboxFastPath.publishAfterCommit(outbox);
 
         log.info("payment_processed: txId={}, amount={}, currency={}",
                 maskUuid(tx.getId()), tx.getAmount(), tx.getCurrency());
+        if (fxQuote != null) {
+            log.info("payment_fx_applied: txId={}, credited={} {}, rate={}, rateVersion={}",
+                    maskUuid(tx.getId()), creditedAmount, tx.getCreditedCurrency(), fxQuote.rate(),
+                    fxQuote.snapshotVersion());
+        }
 
-        return paymentMapper.toPaymentResponse(tx);
+        PaymentResponse response = paymentMapper.toPaymentResponse(tx);
+        idempotencyStore.complete(senderUsername, idempotencyKey, response);
+        return response;
+    }
+
+    private List<AccountEntity> loadAccounts(List<UUID> accountIds) {
+        if (transferMode == TransferMode.OPTIMISTIC) {
+            return accountRepository.findAllById(accountIds);
+        }
+        return accountRepository.findAllByIdForUpdate(accountIds);
     }
 
     private OutboxEventEntity createOutboxEvent(TransactionEntity transaction) {
@@ -111,6 +200,7 @@ public class PaymentService {
             return OutboxEventEntity.builder()
                     .aggregateType("Transaction")
                     .aggregateId(transaction.getId())
+                    .partitionKey(transaction.getSenderAccount().getId())
                     .eventTopic("payment.completed")
                     .payload(payload)
                     .status(OutboxEventEntity.EventStatus.PENDING)
@@ -120,42 +210,4 @@ public class PaymentService {
             throw new OutboxMessageCreationException("Failed to serialize outbox event payload", e);
         }
     }
-
-    private void ensureCurrenciesMatch(String actual, String expected, String role) {
-        if (!actual.equals(expected)) {
-            throw new IllegalArgumentException("Currency mismatch for " + role + ": " + actual + " vs " + expected);
-        }
-    }
-
-    private void ensureDifferentAccounts(UUID senderId, UUID recipientId) {
-        if (senderId.equals(recipientId)) {
-            throw new IllegalArgumentException("Cannot transfer to the same account");
-        }
-    }
-
-    private void ensurePositiveAmount(BigDecimal amount) {
-        if (amount == null || amount.signum() <= 0) {
-            throw new IllegalArgumentException("Amount must be positive");
-        }
-    }
-
-    private void ensureValidCurrencyScale(BigDecimal amount, String currency) {
-        if (amount.scale() > EXPECTED_SCALE) {
-            log.warn("invalid_amount_scale: scale={}, expected={}", amount.scale(), EXPECTED_SCALE);
-            throw new IllegalArgumentException("Amount scale (" + amount.scale() +
-                    ") exceeds the allowed scale for currency " + currency + " (" + EXPECTED_SCALE + ")");
-        }
-    }
-
-    private String truncateIdem(UUID key) {
-        if (key == null) return null;
-        String s = key.toString();
-        return s.substring(0, 8) + "..." + s.substring(s.length() - 4);
-    }
-
-    private String maskUuid(UUID id) {
-        if (id == null) return null;
-        String s = id.toString();
-        return s.substring(0, 8) + "****" + s.substring(s.length() - 4);
-    }
 }
@@ -0,0 +1,40 @@
+package com.demo.instantpay.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Slf4j
+final class PaymentValidator {
+    static final int EXPECTED_SCALE = PaymentService.EXPECTED_SCALE;
+
+    private PaymentValidator() {
+    }
+
+    static void ensureCurrenciesMatch(String actual, String expected, String role) {
+        if (!actual.equals(expected)) {
+            throw new IllegalArgumentException("Currency mismatch for " + role + ": " + actual + " vs " + expected);
+        }
+    }
+
+    static void ensureDifferentAccounts(UUID senderId, UUID recipientId) {
+        if (senderId.equals(recipientId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+    }
+
+    static void ensurePositiveAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+    }
+
+    static void ensureValidCurrencyScale(BigDecimal amount, String currency) {
+        if (amount.scale() > EXPECTED_SCALE) {
+            log.warn("invalid_amount_scale: scale={}, expected={}", amount.scale(), EXPECTED_SCALE);
+            throw new IllegalArgumentException("Amount scale (" + amount.scale() +
+                    ") exceeds the allowed scale for currency " + currency + " (" + EXPECTED_SCALE + ")");
+        }
+    }
+}
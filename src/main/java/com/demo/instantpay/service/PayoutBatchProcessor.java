@@ -0,0 +1,252 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.PayoutProperties;
+import com.demo.instantpay.infrastructure.payout.PayoutFileReader;
+import com.demo.instantpay.infrastructure.payout.PayoutInstruction;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.BatchStatus;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.EntryStatus;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.PayoutBatch;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.PayoutEntry;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Executes accepted payout files. A file is read as a stream in chunks of
+ * {@code payment.payouts.chunk-size} entries. Within a chunk, the entries of each sender run one after
+ * another while different senders run in parallel, so a chunk never contends on a sender's row lock
+ * with itself. Every entry goes through {@link PaymentDispatcher} under an idempotency key derived from
+ * its position in the file, and the chunk's results and checkpoint are stored together. A batch whose
+ * instance died is claimed again once stale and resumes after its last checkpoint; entries of the
+ * interrupted chunk that already ran are recognised by their idempotency key.
+ * <p>
+ * A rejected payment fails its entry. A transient failure, such as backpressure or an unreachable
+ * database, interrupts the chunk instead: nothing of it is recorded, and the batch resumes from the
+ * same checkpoint once stale. The file is copied from the database to {@code payment.payouts.directory}
+ * for each run and deleted afterwards.
+ */
+@Slf4j
+@Component
+public class PayoutBatchProcessor {
+    private static final int MAX_REFERENCE_LENGTH = 255;
+
+    private final PayoutBatchRepository payoutBatchRepository;
+    private final PaymentDispatcher paymentDispatcher;
+    private final TransactionRepository transactionRepository;
+    private final Path directory;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration staleAfter;
+    private final Counter completedEntries;
+    private final Counter failedEntries;
+
+    public PayoutBatchProcessor(PayoutBatchRepository payoutBatchRepository,
+                                PaymentDispatcher paymentDispatcher,
+                                TransactionRepository transactionRepository,
+                                PayoutProperties payoutProperties,
+                                MeterRegistry meterRegistry) {
+        this.payoutBatchRepository = payoutBatchRepository;
+        this.paymentDispatcher = paymentDispatcher;
+        this.transactionRepository = transactionRepository;
+        this.directory = Path.of(payoutProperties.getDirectory());
+        this.chunkSize = payoutProperties.getChunkSize();
+        this.parallelism = payoutProperties.getParallelism();
+        this.staleAfter = payoutProperties.getStaleAfter();
+        this.completedEntries = Counter.builder("payment.payout.entries")
+                .description("Payout file entries executed")
+                .tag("outcome", "completed")
+                .register(meterRegistry);
+        this.failedEntries = Counter.builder("payment.payout.entries")
+                .description("Payout file entries executed")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.payouts.poll-delay-ms:1000}")
+    public void processPendingBatches() {
+        Optional<PayoutBatch> batch;
+        while ((batch = payoutBatchRepository.claimNext(staleAfter)).isPresent()) {
+            process(batch.get());
+        }
+    }
+
+    void process(PayoutBatch batch) {
+        log.info("payout_batch_started: batchId={}, format={}, resumeAfterEntry={}",
+                maskUuid(batch.id()), batch.format(), batch.processedEntries());
+        Path file = directory.resolve(batch.id() + "." + batch.format().name().toLowerCase());
+        try (PayoutFileReader reader = batch.format().open(fetch(batch, file))) {
+            reader.skip(batch.processedEntries());
+            List<PayoutInstruction> chunk = new ArrayList<>(chunkSize);
+            PayoutInstruction instruction;
+            while ((instruction = reader.next()) != null) {
+                chunk.add(instruction);
+                if (chunk.size() == chunkSize) {
+                    payoutBatchRepository.checkpoint(batch.id(), execute(batch, chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                payoutBatchRepository.checkpoint(batch.id(), execute(batch, chunk));
+            }
+            payoutBatchRepository.finish(batch.id(), BatchStatus.COMPLETED, null);
+            log.info("payout_batch_completed: batchId={}", maskUuid(batch.id()));
+        } catch (IOException e) {
+            log.error("payout_batch_failed: batchId={}", maskUuid(batch.id()), e);
+            payoutBatchRepository.finish(batch.id(), BatchStatus.FAILED, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("payout_batch_interrupted: batchId={}. Will resume once the batch is stale.", maskUuid(batch.id()), e);
+        } finally {
+            delete(file);
+        }
+    }
+
+    /**
+     * Failing to copy the stored file interrupts the batch rather than failing it, as the file itself
+     * may be fine.
+     */
+    private Path fetch(PayoutBatch batch, Path file) {
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream target = Files.newOutputStream(file)) {
+                payoutBatchRepository.copyFile(batch.id(), target);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("payout_file_delete_failed: file={}", file, e);
+        }
+    }
+
+    /**
+     * Throws the first transient failure of the chunk after every sender has stopped, so the chunk is
+     * not checkpointed.
+     */
+    List<PayoutEntry> execute(PayoutBatch batch, List<PayoutInstruction> chunk) {
+        PayoutEntry[] results = new PayoutEntry[chunk.size()];
+        Map<UUID, List<Integer>> bySender = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            PayoutInstruction instruction = chunk.get(i);
+            if (instruction.isValid()) {
+                bySender.computeIfAbsent(instruction.senderAccountId(), sender -> new ArrayList<>()).add(i);
+            } else {
+                results[i] = failed(instruction, instruction.error());
+            }
+        }
+
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<RuntimeException> interruption = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Integer> senderEntries : bySender.values()) {
+                executor.execute(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        for (int index : senderEntries) {
+                            if (interruption.get() != null) {
+                                return;
+                            }
+                            results[index] = executeEntry(batch, chunk.get(index));
+                        }
+                    } catch (RuntimeException e) {
+                        interruption.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (interruption.get() != null) {
+            throw interruption.get();
+        }
+        return Arrays.asList(results);
+    }
+
+    private PayoutEntry executeEntry(PayoutBatch batch, PayoutInstruction instruction) {
+        UUID idempotencyKey = entryIdempotencyKey(batch.id(), instruction.entryNumber());
+        try {
+            if (instruction.currency().length() != 3) {
+                return failed(instruction, "Currency must be exactly 3 characters");
+            }
+            PaymentResponse response = paymentDispatcher.sendMoney(new PaymentRequest(instruction.amount(),
+                    instruction.currency(), instruction.senderAccountId(), instruction.recipientAccountId()),
+                    idempotencyKey, batch.ownerUsername());
+            return executed(instruction, response.transactionId(),
+                    "PENDING".equals(response.status()) ? EntryStatus.PENDING : EntryStatus.COMPLETED);
+        } catch (IdempotencyException e) {
+            UUID transactionId = transactionRepository.findByIdempotencyKey(idempotencyKey)
+                    .map(TransactionEntity::getId)
+                    .orElse(null);
+            return executed(instruction, transactionId, EntryStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            if (TransientPaymentFailures.isTransient(e)) {
+                log.warn("payout_entry_deferred: batchId={}, entry={}, reason={}",
+                        maskUuid(batch.id()), instruction.entryNumber(), e.getMessage());
+                throw e;
+            }
+            return failed(instruction, e.getMessage());
+        }
+    }
+
+    /**
+     * Stable per entry, so an entry executed just before a crash is rejected as a duplicate when its
+     * chunk is replayed.
+     */
+    static UUID entryIdempotencyKey(UUID batchId, long entryNumber) {
+        return UUID.nameUUIDFromBytes((batchId + "#" + entryNumber).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PayoutEntry executed(PayoutInstruction instruction, UUID transactionId, EntryStatus status) {
+        completedEntries.increment();
+        return new PayoutEntry(instruction.entryNumber(), instruction.senderAccountId(), instruction.recipientAccountId(),
+                instruction.amount(), instruction.currency(), reference(instruction), status, transactionId, null);
+    }
+
+    private PayoutEntry failed(PayoutInstruction instruction, String error) {
+        failedEntries.increment();
+        String currency = instruction.currency() != null && instruction.currency().length() == 3 ? instruction.currency() : null;
+        return new PayoutEntry(instruction.entryNumber(), instruction.senderAccountId(), instruction.recipientAccountId(),
+                instruction.amount(), currency, reference(instruction), EntryStatus.FAILED, null, error);
+    }
+
+    private static String reference(PayoutInstruction instruction) {
+        String reference = instruction.reference();
+        return reference != null && reference.length() > MAX_REFERENCE_LENGTH
+                ? reference.substring(0, MAX_REFERENCE_LENGTH)
+                : reference;
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PayoutBatchResponse;
+import com.demo.instantpay.api.dto.PayoutEntryResponse;
+import com.demo.instantpay.infrastructure.config.PayoutProperties;
+import com.demo.instantpay.infrastructure.payout.PayoutFileException;
+import com.demo.instantpay.infrastructure.payout.PayoutFileFormat;
+import com.demo.instantpay.infrastructure.payout.PayoutFileReader;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.PayoutBatch;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.PayoutEntry;
+import com.demo.instantpay.service.exception.PayoutBatchNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Accepts payout files and reports on their progress. An upload is spooled to
+ * {@code payment.payouts.directory} to be checked, then stored in the database with its batch and
+ * executed later by {@link PayoutBatchProcessor} on whichever instance claims it.
+ */
+@Slf4j
+@Service
+public class PayoutBatchService {
+    private final PayoutBatchRepository payoutBatchRepository;
+    private final Path directory;
+
+    public PayoutBatchService(PayoutBatchRepository payoutBatchRepository, PayoutProperties payoutProperties) {
+        this.payoutBatchRepository = payoutBatchRepository;
+        this.directory = Path.of(payoutProperties.getDirectory());
+    }
+
+    public PayoutBatchResponse accept(PayoutFileFormat format, InputStream content, String ownerUsername) throws IOException {
+        UUID batchId = UUID.randomUUID();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(batchId + ".upload");
+        try {
+            Files.copy(content, file);
+            try (PayoutFileReader ignored = format.open(file)) {
+                log.debug("payout_file_readable: batchId={}", maskUuid(batchId));
+            } catch (PayoutFileException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+
+            payoutBatchRepository.create(batchId, ownerUsername, format, file);
+            log.info("payout_batch_received: batchId={}, owner={}, format={}, bytes={}",
+                    maskUuid(batchId), ownerUsername, format, Files.size(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return toResponse(find(batchId, ownerUsername));
+    }
+
+    public PayoutBatchResponse getBatch(UUID batchId, String ownerUsername) {
+        return toResponse(find(batchId, ownerUsername));
+    }
+
+    public List<PayoutEntryResponse> getEntries(UUID batchId, String ownerUsername, long afterEntry, int limit) {
+        find(batchId, ownerUsername);
+        return payoutBatchRepository.findEntries(batchId, afterEntry, limit).stream()
+                .map(PayoutBatchService::toResponse)
+                .toList();
+    }
+
+    /**
+     * Batches of other users are reported as missing, so batch ids cannot be probed.
+     */
+    private PayoutBatch find(UUID batchId, String ownerUsername) {
+        return payoutBatchRepository.findById(batchId)
+                .filter(batch -> batch.ownerUsername().equals(ownerUsername))
+                .orElseThrow(() -> new PayoutBatchNotFoundException("Payout batch not found: " + batchId));
+    }
+
+    private static PayoutBatchResponse toResponse(PayoutBatch batch) {
+        return new PayoutBatchResponse(batch.id(), batch.format().name(), batch.status().name(),
+                batch.processedEntries(), batch.succeededEntries(), batch.failedEntries(), batch.error(),
+                batch.createdAt(), batch.updatedAt());
+    }
+
+    private static PayoutEntryResponse toResponse(PayoutEntry entry) {
+        return new PayoutEntryResponse(entry.entryNumber(), entry.senderAccountId(), entry.recipientAccountId(),
+                entry.amount(), entry.currency(), entry.reference(), entry.status().name(), entry.transactionId(),
+                entry.error());
+    }
+}
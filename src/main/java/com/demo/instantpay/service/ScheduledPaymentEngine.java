@@ -0,0 +1,312 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.infrastructure.config.ScheduledPaymentProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.ScheduledPaymentRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ScheduledPaymentRepository.ScheduledPayment;
+import com.demo.instantpay.infrastructure.scheduling.HierarchicalTimingWheel;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Fires scheduled payments from an in-memory {@link HierarchicalTimingWheel}. Only payments due within
+ * {@code payment.scheduled.lookahead} are held in memory: a loader reads each new window of the
+ * {@code scheduled_payments} table once, in keyset pages, and payments created or advanced inside an
+ * already loaded window are added directly. Due payments run through {@link PaymentDispatcher} on
+ * virtual threads, at most {@code payment.scheduled.parallelism} at a time.
+ * <p>
+ * Each row's occurrence number is its persisted cursor. An occurrence pays under an idempotency key
+ * derived from the payment id and occurrence number, and the cursor is advanced afterwards, so after a
+ * restart the occurrence in flight is retried and recognised as already paid instead of paying twice.
+ * <p>
+ * A rejected payment is recorded on the row and the schedule moves on. A transient failure, or the
+ * database being unreachable, retries the same occurrence after {@code payment.scheduled.retry-backoff},
+ * doubled on each further attempt up to {@code payment.scheduled.max-retry-backoff}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.scheduled.enabled", havingValue = "true", matchIfMissing = true)
+public class ScheduledPaymentEngine implements SmartLifecycle {
+    private static final OffsetDateTime BEGINNING = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final ScheduledPaymentRepository scheduledPaymentRepository;
+    private final PaymentDispatcher paymentDispatcher;
+    private final ScheduledPaymentProperties properties;
+    private final Set<UUID> scheduled = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Integer> retries = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final Timer firingLag;
+    private final Counter completedExecutions;
+    private final Counter failedExecutions;
+    private final Counter retriedExecutions;
+
+    private HierarchicalTimingWheel<ScheduledPayment> wheel;
+    private OffsetDateTime loadedUntil = BEGINNING;
+    private ScheduledExecutorService ticker;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public ScheduledPaymentEngine(ScheduledPaymentRepository scheduledPaymentRepository,
+                                  PaymentDispatcher paymentDispatcher,
+                                  ScheduledPaymentProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.scheduledPaymentRepository = scheduledPaymentRepository;
+        this.paymentDispatcher = paymentDispatcher;
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getParallelism());
+        this.firingLag = Timer.builder("payment.scheduled.firing.lag")
+                .description("Delay between a scheduled payment falling due and starting to execute")
+                .register(meterRegistry);
+        this.completedExecutions = Counter.builder("payment.scheduled.executions")
+                .description("Scheduled payment occurrences executed")
+                .tag("outcome", "completed")
+                .register(meterRegistry);
+        this.failedExecutions = Counter.builder("payment.scheduled.executions")
+                .description("Scheduled payment occurrences executed")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.retriedExecutions = Counter.builder("payment.scheduled.executions")
+                .description("Scheduled payment occurrences executed")
+                .tag("outcome", "retried")
+                .register(meterRegistry);
+        meterRegistry.gauge("payment.scheduled.pending", scheduled, Set::size);
+    }
+
+    @Override
+    public void start() {
+        long tickMillis = properties.getTick().toMillis();
+        synchronized (this) {
+            wheel = new HierarchicalTimingWheel<>(tickMillis, properties.getWheelSize(), System.currentTimeMillis());
+            loadedUntil = BEGINNING;
+        }
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scheduled-payment-", 0).factory());
+        ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("scheduled-payment-wheel").daemon().factory());
+        ticker.scheduleWithFixedDelay(this::load, 0, properties.getLoadInterval().toMillis(), TimeUnit.MILLISECONDS);
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("scheduled_payments_started: tickMs={}, wheelSize={}, lookahead={}",
+                tickMillis, properties.getWheelSize(), properties.getLookahead());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ticker.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("scheduled_payments_stop_timeout: inFlight={}", properties.getParallelism() - permits.availablePermits());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Picks up a payment created or advanced in this instance. Payments due beyond the loaded window are
+     * left to the loader.
+     */
+    public void register(ScheduledPayment payment) {
+        synchronized (this) {
+            if (!payment.nextRunAt().isBefore(loadedUntil)) {
+                return;
+            }
+        }
+        enqueue(payment, payment.nextRunAt().toInstant().toEpochMilli());
+    }
+
+    /**
+     * Reads payments due in the next window. The window is marked loaded before it is read, so a payment
+     * created meanwhile is registered directly and, if the loader sees it too, deduplicated by id.
+     */
+    void load() {
+        try {
+            OffsetDateTime from;
+            OffsetDateTime until = OffsetDateTime.now().plus(properties.getLookahead());
+            synchronized (this) {
+                from = loadedUntil;
+                loadedUntil = until;
+            }
+            OffsetDateTime afterRunAt = from;
+            UUID afterId = MIN_ID;
+            int loaded = 0;
+            List<ScheduledPayment> page;
+            do {
+                page = scheduledPaymentRepository.findActiveDue(from, until, afterRunAt, afterId, properties.getLoadPageSize());
+                for (ScheduledPayment payment : page) {
+                    enqueue(payment, payment.nextRunAt().toInstant().toEpochMilli());
+                }
+                if (!page.isEmpty()) {
+                    afterRunAt = page.getLast().nextRunAt();
+                    afterId = page.getLast().id();
+                    loaded += page.size();
+                }
+            } while (page.size() == properties.getLoadPageSize());
+            log.debug("scheduled_payments_loaded: count={}, until={}", loaded, until);
+        } catch (Exception e) {
+            synchronized (this) {
+                loadedUntil = BEGINNING;
+            }
+            log.error("scheduled_payments_load_failed. Will reload on next run.", e);
+        }
+    }
+
+    void tick() {
+        List<ScheduledPayment> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(System.currentTimeMillis(), due::add);
+        }
+        due.forEach(this::dispatch);
+    }
+
+    private void enqueue(ScheduledPayment payment, long dueAtMillis) {
+        if (!scheduled.add(payment.id())) {
+            return;
+        }
+        boolean added;
+        synchronized (this) {
+            added = wheel.add(payment, dueAtMillis);
+        }
+        if (!added) {
+            dispatch(payment);
+        }
+    }
+
+    private void dispatch(ScheduledPayment payment) {
+        executor.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                fire(payment);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Executes one occurrence and hands the following one back to the wheel. If the occurrence failed
+     * transiently it is handed back itself, to be retried after a backoff rather than on a restart.
+     */
+    void fire(ScheduledPayment snapshot) {
+        ScheduledPayment next;
+        try {
+            next = runOccurrence(snapshot);
+        } catch (RuntimeException e) {
+            int attempt = retries.merge(snapshot.id(), 1, Integer::sum);
+            long delayMillis = retryDelayMillis(attempt);
+            log.error("scheduled_payment_fire_failed: id={}, occurrence={}, attempt={}. Will retry in {}ms.",
+                    maskUuid(snapshot.id()), snapshot.occurrence(), attempt, delayMillis, e);
+            scheduled.remove(snapshot.id());
+            enqueue(snapshot, System.currentTimeMillis() + delayMillis);
+            return;
+        }
+        retries.remove(snapshot.id());
+        scheduled.remove(snapshot.id());
+        if (next != null) {
+            register(next);
+        }
+    }
+
+    /**
+     * Runs against the current row, so a payment cancelled or already advanced since it was loaded is
+     * skipped. Returns the next occurrence, or {@code null} when there is none.
+     */
+    private ScheduledPayment runOccurrence(ScheduledPayment snapshot) {
+        ScheduledPayment payment = scheduledPaymentRepository.findById(snapshot.id())
+                .filter(current -> current.status() == ScheduledPaymentRepository.Status.ACTIVE)
+                .filter(current -> current.occurrence() == snapshot.occurrence())
+                .orElse(null);
+        if (payment == null) {
+            return null;
+        }
+        firingLag.record(Duration.between(payment.nextRunAt(), OffsetDateTime.now()));
+
+        String error = execute(payment);
+        long nextOccurrence = payment.occurrence() + 1;
+        OffsetDateTime nextRunAt = nextRunAt(payment, nextOccurrence);
+        if (!scheduledPaymentRepository.advance(payment.id(), payment.occurrence(), nextRunAt, error) || nextRunAt == null) {
+            return null;
+        }
+        return payment.withOccurrence(nextOccurrence, nextRunAt);
+    }
+
+    long retryDelayMillis(int attempt) {
+        long initial = properties.getRetryBackoff().toMillis();
+        long max = properties.getMaxRetryBackoff().toMillis();
+        return attempt > Long.numberOfLeadingZeros(initial) ? max : Math.min(initial << (attempt - 1), max);
+    }
+
+    /**
+     * Returns the failure reason, or {@code null} when the occurrence was paid now or before a restart.
+     * Throws a transient failure, leaving the occurrence to be retried.
+     */
+    private String execute(ScheduledPayment payment) {
+        UUID idempotencyKey = occurrenceIdempotencyKey(payment.id(), payment.occurrence());
+        try {
+            paymentDispatcher.sendMoney(new PaymentRequest(payment.amount(), payment.currency(),
+                    payment.senderAccountId(), payment.recipientAccountId()), idempotencyKey, payment.ownerUsername());
+            completedExecutions.increment();
+            return null;
+        } catch (IdempotencyException e) {
+            log.info("scheduled_payment_already_paid: id={}, occurrence={}", maskUuid(payment.id()), payment.occurrence());
+            return null;
+        } catch (RuntimeException e) {
+            if (TransientPaymentFailures.isTransient(e)) {
+                retriedExecutions.increment();
+                throw e;
+            }
+            failedExecutions.increment();
+            log.warn("scheduled_payment_failed: id={}, occurrence={}, reason={}",
+                    maskUuid(payment.id()), payment.occurrence(), e.getMessage());
+            return e.getMessage();
+        }
+    }
+
+    static UUID occurrenceIdempotencyKey(UUID scheduledPaymentId, long occurrence) {
+        return UUID.nameUUIDFromBytes((scheduledPaymentId + "@" + occurrence).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Occurrences are computed from the first run, so monthly payments on the 31st do not drift after
+     * a short month. Returns {@code null} once the payment has no further occurrence.
+     */
+    static OffsetDateTime nextRunAt(ScheduledPayment payment, long occurrence) {
+        if (payment.recurrence() == null
+                || (payment.maxOccurrences() != null && occurrence >= payment.maxOccurrences())) {
+            return null;
+        }
+        return payment.firstRunAt().plus(Period.parse(payment.recurrence()).multipliedBy(Math.toIntExact(occurrence)));
+    }
+}
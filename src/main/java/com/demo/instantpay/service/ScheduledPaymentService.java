@@ -0,0 +1,120 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.ScheduledPaymentRequest;
+import com.demo.instantpay.api.dto.ScheduledPaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ScheduledPaymentRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ScheduledPaymentRepository.ScheduledPayment;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.ScheduledPaymentNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.Period;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Creates, reads and cancels future-dated and recurring payments. Each occurrence is executed by
+ * {@link ScheduledPaymentEngine}, which re-checks ownership and funds through the regular payment path.
+ */
+@Slf4j
+@Service
+public class ScheduledPaymentService {
+    private final ScheduledPaymentRepository scheduledPaymentRepository;
+    private final AccountRepository accountRepository;
+    private final Optional<ScheduledPaymentEngine> scheduledPaymentEngine;
+
+    public ScheduledPaymentService(ScheduledPaymentRepository scheduledPaymentRepository,
+                                   AccountRepository accountRepository,
+                                   Optional<ScheduledPaymentEngine> scheduledPaymentEngine) {
+        this.scheduledPaymentRepository = scheduledPaymentRepository;
+        this.accountRepository = accountRepository;
+        this.scheduledPaymentEngine = scheduledPaymentEngine;
+    }
+
+    public ScheduledPaymentResponse create(ScheduledPaymentRequest request, String ownerUsername) {
+        PaymentValidator.ensurePositiveAmount(request.amount());
+        PaymentValidator.ensureDifferentAccounts(request.senderAccountId(), request.recipientAccountId());
+        PaymentValidator.ensureValidCurrencyScale(request.amount(), request.currency());
+        String recurrence = parseRecurrence(request.recurrence());
+        if (recurrence == null && request.maxOccurrences() != null && request.maxOccurrences() > 1) {
+            throw new IllegalArgumentException("A one-off payment cannot have more than one occurrence");
+        }
+
+        AccountEntity senderAccount = accountRepository.findById(request.senderAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Sender account not found: " + request.senderAccountId()));
+        if (!senderAccount.getUser().getUsername().equals(ownerUsername)) {
+            log.warn("scheduled_payment_ownership_violation: senderAccount={}, requestedBy={}",
+                    maskUuid(request.senderAccountId()), ownerUsername);
+            throw new AccessDeniedException("User does not own this account");
+        }
+        AccountEntity recipientAccount = accountRepository.findById(request.recipientAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Recipient account not found: " + request.recipientAccountId()));
+        PaymentValidator.ensureCurrenciesMatch(request.currency(), senderAccount.getCurrency(), "sender");
+        PaymentValidator.ensureCurrenciesMatch(request.currency(), recipientAccount.getCurrency(), "recipient");
+
+        ScheduledPayment payment = new ScheduledPayment(UUID.randomUUID(), ownerUsername, request.senderAccountId(),
+                request.recipientAccountId(), request.amount(), request.currency(), request.firstRunAt(), recurrence,
+                request.maxOccurrences(), 0, request.firstRunAt(), ScheduledPaymentRepository.Status.ACTIVE, null,
+                null, null);
+        scheduledPaymentRepository.create(payment);
+        scheduledPaymentEngine.ifPresent(engine -> engine.register(payment));
+
+        log.info("scheduled_payment_created: id={}, senderAccount={}, firstRunAt={}, recurrence={}",
+                maskUuid(payment.id()), maskUuid(payment.senderAccountId()), payment.firstRunAt(), recurrence);
+        return get(payment.id(), ownerUsername);
+    }
+
+    public ScheduledPaymentResponse get(UUID scheduledPaymentId, String ownerUsername) {
+        return toResponse(find(scheduledPaymentId, ownerUsername));
+    }
+
+    /**
+     * Stops further occurrences. An occurrence already executing when the payment is cancelled still
+     * completes.
+     */
+    public ScheduledPaymentResponse cancel(UUID scheduledPaymentId, String ownerUsername) {
+        find(scheduledPaymentId, ownerUsername);
+        if (scheduledPaymentRepository.cancel(scheduledPaymentId)) {
+            log.info("scheduled_payment_cancelled: id={}", maskUuid(scheduledPaymentId));
+        }
+        return get(scheduledPaymentId, ownerUsername);
+    }
+
+    /**
+     * Payments of other users are reported as missing, so ids cannot be probed.
+     */
+    private ScheduledPayment find(UUID scheduledPaymentId, String ownerUsername) {
+        return scheduledPaymentRepository.findById(scheduledPaymentId)
+                .filter(payment -> payment.ownerUsername().equals(ownerUsername))
+                .orElseThrow(() -> new ScheduledPaymentNotFoundException("Scheduled payment not found: " + scheduledPaymentId));
+    }
+
+    private static String parseRecurrence(String recurrence) {
+        if (recurrence == null || recurrence.isBlank()) {
+            return null;
+        }
+        try {
+            Period period = Period.parse(recurrence);
+            if (period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Recurrence must be a positive period");
+            }
+            return period.toString();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Recurrence must be an ISO-8601 period such as P1D, P1W or P1M");
+        }
+    }
+
+    private static ScheduledPaymentResponse toResponse(ScheduledPayment payment) {
+        return new ScheduledPaymentResponse(payment.id(), payment.senderAccountId(), payment.recipientAccountId(),
+                payment.amount(), payment.currency(), payment.firstRunAt(), payment.recurrence(),
+                payment.maxOccurrences(), payment.occurrence(), payment.nextRunAt(), payment.status().name(),
+                payment.lastError(), payment.createdAt());
+    }
+}
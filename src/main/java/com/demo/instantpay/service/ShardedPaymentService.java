@@ -0,0 +1,134 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.Outcome;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.infrastructure.persistence.repository.ShardTransferRepository;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Executes payments against account shards. A transfer between accounts of the same shard is one local
+ * transaction through {@code transfer_funds}. A cross-shard transfer runs as a saga: the sender is
+ * debited on its shard, the recipient is credited on its shard, and the debit is compensated when the
+ * credit is refused. Completion and compensation are published through each shard's outbox.
+ * <p>
+ * If the credit step fails unexpectedly, the payment is answered as {@code PENDING} and finished by
+ * {@link TransferSagaRecoveryJob}. A payment is counted against the sender's {@link VelocityLimiter}
+ * limits up front and handed back when it is refused.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+public class ShardedPaymentService {
+    static final String COMPENSATED_EVENT_TOPIC = "payment.compensated";
+
+    private final ShardRouter shardRouter;
+    private final ShardTransferRepository shardTransferRepository;
+    private final SingleStatementTransferExecutor singleStatementTransferExecutor;
+    private final VelocityLimiter velocityLimiter;
+
+    public PaymentResponse sendMoney(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        log.info("payment_send requested: sender={}, senderAccount={}, recip={}, amount={}, currency={}, idemKey={}",
+                senderUsername,
+                maskUuid(request.senderAccountId()),
+                maskUuid(request.recipientAccountId()),
+                request.amount(),
+                request.currency(),
+                truncateIdem(idempotencyKey)
+        );
+
+        TransferCommand command = singleStatementTransferExecutor.prepare(request, idempotencyKey, senderUsername);
+        VelocityLimiter.Reservation reservation = velocityLimiter.reserve(
+                request.senderAccountId(), senderUsername, request.currency(), request.amount());
+        try {
+            return transfer(command);
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+    }
+
+    private PaymentResponse transfer(TransferCommand command) {
+        Shard senderShard = shardRouter.shardFor(command.senderAccountId());
+        Shard recipientShard = shardRouter.shardFor(command.recipientAccountId());
+
+        if (senderShard == recipientShard) {
+            return singleStatementTransferExecutor.complete(command, shardTransferRepository.transfer(senderShard, command));
+        }
+
+        TransferResult debit = shardTransferRepository.debit(senderShard, command);
+        if (debit.outcome() != Outcome.COMPLETED) {
+            return singleStatementTransferExecutor.complete(command, debit);
+        }
+        log.info("saga_debited: sagaId={}, senderShard={}, recipientShard={}",
+                maskUuid(command.transactionId()), senderShard.index(), recipientShard.index());
+
+        TransferResult credit;
+        try {
+            credit = shardTransferRepository.credit(recipientShard, command);
+        } catch (RuntimeException e) {
+            log.error("saga_credit_failed: sagaId={}. Recovery will resume it.", maskUuid(command.transactionId()), e);
+            return pendingResponse(command);
+        }
+        return settle(senderShard, command, credit);
+    }
+
+    /**
+     * Re-runs the credit step of a saga left {@code DEBITED} and settles it.
+     */
+    void resume(Shard senderShard, TransferCommand command) {
+        TransferResult credit = shardTransferRepository.credit(shardRouter.shardFor(command.recipientAccountId()), command);
+        if (credit.outcome() == Outcome.COMPLETED) {
+            shardTransferRepository.markCompleted(senderShard, command.transactionId());
+            log.info("saga_resumed: sagaId={}", maskUuid(command.transactionId()));
+        } else {
+            compensate(senderShard, command, credit);
+        }
+    }
+
+    private PaymentResponse settle(Shard senderShard, TransferCommand command, TransferResult credit) {
+        if (credit.outcome() == Outcome.COMPLETED) {
+            try {
+                shardTransferRepository.markCompleted(senderShard, command.transactionId());
+            } catch (RuntimeException e) {
+                log.warn("saga_mark_completed_failed: sagaId={}. Recovery will finish it.",
+                        maskUuid(command.transactionId()), e);
+            }
+        } else {
+            compensate(senderShard, command, credit);
+        }
+        return singleStatementTransferExecutor.complete(command, credit);
+    }
+
+    private void compensate(Shard senderShard, TransferCommand command, TransferResult credit) {
+        if (shardTransferRepository.compensate(senderShard, command.transactionId(), COMPENSATED_EVENT_TOPIC)) {
+            log.warn("saga_compensated: sagaId={}, reason={}", maskUuid(command.transactionId()), credit.outcome());
+        }
+    }
+
+    private PaymentResponse pendingResponse(TransferCommand command) {
+        return new PaymentResponse(
+                command.transactionId(),
+                command.senderAccountId(),
+                command.recipientAccountId(),
+                command.amount(),
+                command.currency(),
+                TransactionEntity.TransactionStatus.PENDING.name(),
+                command.createdAt()
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.OutboxMessageCreationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+import static com.demo.instantpay.service.PaymentLogFormat.truncateIdem;
+
+/**
+ * Executes a transfer as a single call to the {@code transfer_funds} database function, so both
+ * account row locks are taken and released within one round trip instead of being held across
+ * the separate lookups, updates and inserts of the JPA path.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SingleStatementTransferExecutor {
+    static final String EVENT_TOPIC = "payment.completed";
+
+    private final AccountTransferRepository accountTransferRepository;
+    private final ObjectMapper objectMapper;
+
+    public PaymentResponse execute(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        TransferCommand command = prepare(request, idempotencyKey, senderUsername);
+        return complete(command, accountTransferRepository.transfer(command));
+    }
+
+    TransferCommand prepare(PaymentRequest request, UUID idempotencyKey, String senderUsername) {
+        PaymentValidator.ensureDifferentAccounts(request.senderAccountId(), request.recipientAccountId());
+        PaymentValidator.ensurePositiveAmount(request.amount());
+        PaymentValidator.ensureValidCurrencyScale(request.amount(), request.currency());
+
+        return toCommand(UUID.randomUUID(), request, idempotencyKey, senderUsername, OffsetDateTime.now());
+    }
+
+    TransferCommand toCommand(UUID transactionId, PaymentRequest request, UUID idempotencyKey,
+                              String senderUsername, OffsetDateTime createdAt) {
+        PaymentResponse response = toResponse(transactionId, request, createdAt);
+
+        return new TransferCommand(
+                transactionId,
+                request.senderAccountId(),
+                request.recipientAccountId(),
+                request.amount(),
+                request.currency(),
+                idempotencyKey,
+                senderUsername,
+                createdAt,
+                EVENT_TOPIC,
+                serialize(response)
+        );
+    }
+
+    PaymentResponse complete(TransferCommand command, TransferResult result) {
+        return switch (result.outcome()) {
+            case COMPLETED -> {
+                log.info("payment_processed: txId={}, amount={}, currency={}",
+                        maskUuid(command.transactionId()), command.amount(), command.currency());
+                yield new PaymentResponse(
+                        command.transactionId(),
+                        command.senderAccountId(),
+                        command.recipientAccountId(),
+                        command.amount(),
+                        command.currency(),
+                        TransactionEntity.TransactionStatus.COMPLETED.name(),
+                        command.createdAt()
+                );
+            }
+            case DUPLICATE -> {
+                log.warn("duplicate_idempotency_key: idemKey={}", truncateIdem(command.idempotencyKey()));
+                throw new IdempotencyException("Transaction already processed");
+            }
+            case SENDER_NOT_FOUND ->
+                    throw new AccountNotFoundException("Sender account not found: " + command.senderAccountId());
+            case NOT_OWNER -> {
+                log.warn("authorization_failure: user '{}' attempted to use account '{}' which is not theirs.",
+                        command.senderUsername(), maskUuid(command.senderAccountId()));
+                throw new AccessDeniedException("User does not own this account");
+            }
+            case RECIPIENT_NOT_FOUND ->
+                    throw new AccountNotFoundException("Recipient account not found: " + command.recipientAccountId());
+            case SENDER_CURRENCY_MISMATCH -> throw new IllegalArgumentException(
+                    "Currency mismatch for sender: " + result.accountCurrency() + " vs " + command.currency());
+            case RECIPIENT_CURRENCY_MISMATCH -> throw new IllegalArgumentException(
+                    "Currency mismatch for recipient: " + result.accountCurrency() + " vs " + command.currency());
+            case INSUFFICIENT_FUNDS -> {
+                log.warn("insufficient_funds: accountId={}, requested={}",
+                        maskUuid(command.senderAccountId()), command.amount());
+                throw new InsufficientFundsException("Insufficient funds");
+            }
+        };
+    }
+
+    private PaymentResponse toResponse(UUID transactionId, PaymentRequest request, OffsetDateTime createdAt) {
+        return new PaymentResponse(
+                transactionId,
+                request.senderAccountId(),
+                request.recipientAccountId(),
+                request.amount(),
+                request.currency(),
+                TransactionEntity.TransactionStatus.COMPLETED.name(),
+                createdAt
+        );
+    }
+
+    private String serialize(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.error("outbox_creation_failed: txId={}", maskUuid(response.transactionId()), e);
+            throw new OutboxMessageCreationException("Failed to serialize outbox event payload", e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.demo.instantpay.service;
+
+public enum TransferMode {
+    JPA,
+    SINGLE_STATEMENT,
+    OPTIMISTIC
+}
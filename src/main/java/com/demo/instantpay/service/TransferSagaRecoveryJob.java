@@ -0,0 +1,81 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.ShardTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ShardTransferRepository.StalledSaga;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Finishes cross-shard sagas that stayed {@code DEBITED}, e.g. because the instance died between the
+ * debit and the credit. The credit step is idempotent, so a saga that was credited but not yet marked
+ * completed is simply marked.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.sharding.enabled", havingValue = "true")
+public class TransferSagaRecoveryJob {
+    private final ShardRouter shardRouter;
+    private final ShardTransferRepository shardTransferRepository;
+    private final ShardedPaymentService shardedPaymentService;
+    private final long staleAfterMs;
+    private final int batchSize;
+
+    public TransferSagaRecoveryJob(ShardRouter shardRouter,
+                                   ShardTransferRepository shardTransferRepository,
+                                   ShardedPaymentService shardedPaymentService,
+                                   @Value("${payment.sharding.saga-stale-after-ms:30000}") long staleAfterMs,
+                                   @Value("${payment.sharding.saga-recovery-batch-size:100}") int batchSize) {
+        this.shardRouter = shardRouter;
+        this.shardTransferRepository = shardTransferRepository;
+        this.shardedPaymentService = shardedPaymentService;
+        this.staleAfterMs = staleAfterMs;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.sharding.saga-recovery-delay-ms:10000}")
+    public void recover() {
+        OffsetDateTime debitedBefore = OffsetDateTime.now().minusNanos(staleAfterMs * 1_000_000);
+        for (Shard shard : shardRouter.shards()) {
+            List<StalledSaga> sagas;
+            try {
+                sagas = shardTransferRepository.findStalledSagas(shard, debitedBefore, batchSize);
+            } catch (Exception e) {
+                log.error("saga_recovery_scan_failed: shard={}. Will retry on next run.", shard.index(), e);
+                continue;
+            }
+            for (StalledSaga saga : sagas) {
+                try {
+                    shardedPaymentService.resume(shard, toCommand(saga));
+                } catch (Exception e) {
+                    log.error("saga_recovery_failed: sagaId={}. Will retry on next run.", maskUuid(saga.id()), e);
+                }
+            }
+        }
+    }
+
+    private TransferCommand toCommand(StalledSaga saga) {
+        return new TransferCommand(
+                saga.id(),
+                saga.senderAccountId(),
+                saga.recipientAccountId(),
+                saga.amount(),
+                saga.currency().trim(),
+                saga.idempotencyKey(),
+                null,
+                saga.createdAt(),
+                SingleStatementTransferExecutor.EVENT_TOPIC,
+                saga.eventPayload()
+        );
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.retry.TransientFailureClassifier;
+import com.demo.instantpay.service.exception.FxRateUnavailableException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+/**
+ * Tells failures that say nothing about the payment itself apart from rejections of it. Backpressure,
+ * a lock or serialization conflict that outlived its retries and an unreachable database are worth
+ * trying again later, so background jobs do not record them as a failed payment.
+ */
+final class TransientPaymentFailures {
+    private static final TransientFailureClassifier CLASSIFIER = new TransientFailureClassifier();
+
+    private TransientPaymentFailures() {
+    }
+
+    static boolean isTransient(Throwable failure) {
+        if (CLASSIFIER.classify(failure)) {
+            return true;
+        }
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof PaymentBackpressureException
+                    || current instanceof FxRateUnavailableException
+                    || current instanceof TransientDataAccessException
+                    || current instanceof RecoverableDataAccessException
+                    || current instanceof DataAccessResourceFailureException
+                    || current instanceof CannotCreateTransactionException
+                    || current instanceof SQLTransientException
+                    || current instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
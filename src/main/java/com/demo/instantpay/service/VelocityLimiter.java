@@ -0,0 +1,237 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties.Limits;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository.RecentSpend;
+import com.demo.instantpay.infrastructure.ratelimit.SlidingWindowCounter;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.demo.instantpay.service.PaymentLogFormat.maskUuid;
+
+/**
+ * Hourly and daily spending limits per sender account, by the account's limit tier, and per user and
+ * currency. Spend is kept in memory in sliding windows rebuilt from the last day of transactions at
+ * startup, so a payment over its limit is rejected before any row is locked and without summing
+ * {@code transactions}. Each window has a monitor of its own, so payments of unrelated senders never
+ * contend.
+ * <p>
+ * A payment is counted when it passes the check, so concurrent payments cannot all slip under the
+ * same limit, and handed back if its transaction rolls back. Paths that move money outside a Spring
+ * transaction release the returned {@link Reservation} themselves when the payment fails. Windows only
+ * see payments made through this instance since startup.
+ */
+@Slf4j
+@Component
+public class VelocityLimiter {
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Duration DAY = Duration.ofDays(1);
+
+    private final VelocityLimitProperties properties;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final Map<String, SpendWindow> windows = new ConcurrentHashMap<>();
+
+    private volatile Map<UUID, String> tiersByAccountId = Map.of();
+
+    public VelocityLimiter(VelocityLimitProperties properties,
+                           AccountRepository accountRepository,
+                           TransactionRepository transactionRepository) {
+        this.properties = properties;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        refreshTiers();
+        OffsetDateTime since = OffsetDateTime.now(ZoneOffset.UTC).minus(DAY);
+        int rows = 0;
+        for (RecentSpend spend : transactionRepository.findRecentSpendPerMinute(since)) {
+            long amount = toMinorUnits(spend.getAmount());
+            add(accountKey(spend.getSenderAccountId()), amount, spend.getMinuteMillis());
+            add(userKey(spend.getSenderUsername(), spend.getCurrency()), amount, spend.getMinuteMillis());
+            rows++;
+        }
+        log.info("velocity_windows_rebuilt: since={}, rows={}, windows={}", since, rows, windows.size());
+    }
+
+    @Scheduled(fixedDelayString = "${payment.velocity.tier-refresh-ms:60000}")
+    public void refreshTiers() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        tiersByAccountId = accountRepository.findAccountsOutsideTier(properties.getDefaultTier()).stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        AccountRepository.TieredAccount::getId,
+                        AccountRepository.TieredAccount::getLimitTier));
+    }
+
+    /**
+     * Drops windows with nothing left in the last day, so memory follows the number of recently active
+     * senders.
+     */
+    @Scheduled(fixedDelayString = "${payment.velocity.evict-ms:300000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        windows.forEach((key, window) -> {
+            synchronized (window) {
+                if (window.daily.sum(now) <= 0) {
+                    window.retired = true;
+                    windows.remove(key, window);
+                }
+            }
+        });
+    }
+
+    /**
+     * Counts a payment against the limits of its sender account and user, or throws
+     * {@link VelocityLimitExceededException} without counting it.
+     */
+    public Reservation reserve(UUID senderAccountId, String senderUsername, String currency, BigDecimal amount) {
+        if (!properties.isEnabled()) {
+            return new Reservation(null, null, 0, 0);
+        }
+        String accountKey = accountKey(senderAccountId);
+        String userKey = userKey(senderUsername, currency);
+        Limits accountLimits = properties.getTiers().get(
+                tiersByAccountId.getOrDefault(senderAccountId, properties.getDefaultTier()));
+        long value = toMinorUnits(amount);
+        long now = System.currentTimeMillis();
+
+        while (true) {
+            SpendWindow accountWindow = windows.computeIfAbsent(accountKey, key -> new SpendWindow());
+            SpendWindow userWindow = windows.computeIfAbsent(userKey, key -> new SpendWindow());
+            synchronized (accountWindow) {
+                synchronized (userWindow) {
+                    if (accountWindow.retired || userWindow.retired) {
+                        continue;
+                    }
+                    if (!accountWindow.allows(value, accountLimits, now)) {
+                        log.warn("velocity_limit_exceeded: senderAccount={}, amount={}", maskUuid(senderAccountId), amount);
+                        throw new VelocityLimitExceededException("Spending limit exceeded for this account");
+                    }
+                    if (!userWindow.allows(value, properties.getUser(), now)) {
+                        log.warn("velocity_limit_exceeded: user={}, currency={}, amount={}", senderUsername, currency, amount);
+                        throw new VelocityLimitExceededException("Spending limit exceeded for this user");
+                    }
+                    accountWindow.add(value, now);
+                    userWindow.add(value, now);
+                }
+            }
+            break;
+        }
+
+        Reservation reservation = new Reservation(accountKey, userKey, value, now);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    private void add(String key, long value, long atMillis) {
+        while (true) {
+            SpendWindow window = windows.computeIfAbsent(key, k -> new SpendWindow());
+            synchronized (window) {
+                if (!window.retired) {
+                    window.add(value, atMillis);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String accountKey(UUID accountId) {
+        return "account:" + accountId;
+    }
+
+    private static String userKey(String username, String currency) {
+        return "user:" + currency + ":" + username;
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(PaymentService.EXPECTED_SCALE).setScale(0, RoundingMode.UP).longValueExact();
+    }
+
+    private static long limitInMinorUnits(BigDecimal limit) {
+        return limit == null ? Long.MAX_VALUE : toMinorUnits(limit);
+    }
+
+    /**
+     * A payment counted by {@link #reserve}. Releasing hands its amount back to the minute it was counted
+     * in; releasing twice, or a reservation made while limits are disabled, does nothing.
+     */
+    public final class Reservation {
+        private final String accountKey;
+        private final String userKey;
+        private final long value;
+        private final long atMillis;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(String accountKey, String userKey, long value, long atMillis) {
+            this.accountKey = accountKey;
+            this.userKey = userKey;
+            this.value = value;
+            this.atMillis = atMillis;
+        }
+
+        public void release() {
+            if (accountKey == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            add(accountKey, -value, atMillis);
+            add(userKey, -value, atMillis);
+        }
+    }
+
+    /**
+     * Last hour by the minute and last day by the quarter hour. Guarded by its own monitor.
+     */
+    private static final class SpendWindow {
+        private final SlidingWindowCounter hourly = new SlidingWindowCounter(HOUR, 60);
+        private final SlidingWindowCounter daily = new SlidingWindowCounter(DAY, 96);
+        private boolean retired;
+
+        boolean allows(long value, Limits limits, long now) {
+            if (limits == null) {
+                return true;
+            }
+            return hourly.sum(now) + value <= limitInMinorUnits(limits.getHourly())
+                    && daily.sum(now) + value <= limitInMinorUnits(limits.getDaily());
+        }
+
+        void add(long value, long atMillis) {
+            hourly.add(value, atMillis);
+            daily.add(value, atMillis);
+        }
+    }
+}
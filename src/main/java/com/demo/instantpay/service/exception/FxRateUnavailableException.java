@@ -0,0 +1,8 @@
+package com.demo.instantpay.service.exception;
+
+public class FxRateUnavailableException extends RuntimeException {
+
+    public FxRateUnavailableException(String message) {
+        super(message);
+    }
+}
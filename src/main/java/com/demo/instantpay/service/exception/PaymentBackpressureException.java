@@ -0,0 +1,12 @@
+package com.demo.instantpay.service.exception;
+
+public class PaymentBackpressureException extends RuntimeException {
+
+    public PaymentBackpressureException(String message) {
+        super(message);
+    }
+
+    public PaymentBackpressureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
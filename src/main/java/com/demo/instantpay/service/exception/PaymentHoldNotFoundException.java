@@ -0,0 +1,8 @@
+package com.demo.instantpay.service.exception;
+
+public class PaymentHoldNotFoundException extends RuntimeException {
+
+    public PaymentHoldNotFoundException(String message) {
+        super(message);
+    }
+}
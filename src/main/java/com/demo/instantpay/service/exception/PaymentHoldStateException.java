@@ -0,0 +1,8 @@
+package com.demo.instantpay.service.exception;
+
+public class PaymentHoldStateException extends RuntimeException {
+
+    public PaymentHoldStateException(String message) {
+        super(message);
+    }
+}
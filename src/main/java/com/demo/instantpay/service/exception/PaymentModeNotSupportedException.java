@@ -0,0 +1,8 @@
+package com.demo.instantpay.service.exception;
+
+public class PaymentModeNotSupportedException extends RuntimeException {
+
+    public PaymentModeNotSupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.demo.instantpay.service.exception;
+
+public class PayoutBatchNotFoundException extends RuntimeException {
+
+    public PayoutBatchNotFoundException(String message) {
+        super(message);
+    }
+}
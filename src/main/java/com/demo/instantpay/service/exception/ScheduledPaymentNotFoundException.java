@@ -0,0 +1,8 @@
+package com.demo.instantpay.service.exception;
+
+public class ScheduledPaymentNotFoundException extends RuntimeException {
+
+    public ScheduledPaymentNotFoundException(String message) {
+        super(message);
+    }
+}
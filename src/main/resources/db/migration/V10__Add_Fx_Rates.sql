@@ -0,0 +1,14 @@
+CREATE TABLE fx_rates (
+    base_currency  VARCHAR(3)     NOT NULL,
+    quote_currency VARCHAR(3)     NOT NULL,
+    rate           NUMERIC(19, 10) NOT NULL CHECK (rate > 0),
+    updated_at     TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (base_currency, quote_currency),
+    CHECK (base_currency <> quote_currency)
+);
+
+ALTER TABLE transactions
+    ADD COLUMN fx_rate           NUMERIC(19, 10),
+    ADD COLUMN fx_rate_version   BIGINT,
+    ADD COLUMN credited_amount   NUMERIC(19, 4),
+    ADD COLUMN credited_currency VARCHAR(3);
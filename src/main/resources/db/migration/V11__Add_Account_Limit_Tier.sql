@@ -0,0 +1,2 @@
+ALTER TABLE accounts
+    ADD COLUMN limit_tier VARCHAR(32) NOT NULL DEFAULT 'STANDARD';
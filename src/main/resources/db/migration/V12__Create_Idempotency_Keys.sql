@@ -0,0 +1,10 @@
+CREATE TABLE idempotency_keys (
+                                  username VARCHAR(255) NOT NULL,
+                                  idempotency_key UUID NOT NULL,
+                                  response TEXT,
+                                  created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                  expires_at TIMESTAMPTZ NOT NULL,
+                                  PRIMARY KEY (username, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
@@ -0,0 +1,4 @@
+ALTER TABLE outbox_events ADD COLUMN claimed_by VARCHAR(255);
+ALTER TABLE outbox_events ADD COLUMN claimed_until TIMESTAMPTZ;
+
+CREATE INDEX idx_outbox_events_pending_created_at ON outbox_events(created_at) WHERE status = 'PENDING';
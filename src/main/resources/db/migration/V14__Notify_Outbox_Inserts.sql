@@ -0,0 +1,14 @@
+CREATE OR REPLACE FUNCTION notify_outbox_events()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM pg_notify('outbox_events', '');
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_outbox_events_notify
+    AFTER INSERT ON outbox_events
+    FOR EACH STATEMENT
+EXECUTE FUNCTION notify_outbox_events();
@@ -0,0 +1 @@
+CREATE PUBLICATION outbox_cdc FOR TABLE outbox_events WITH (publish = 'insert');
@@ -0,0 +1,65 @@
+CREATE OR REPLACE FUNCTION ensure_outbox_partitions(p_from DATE, p_days INTEGER)
+RETURNS INTEGER
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_day     DATE;
+    v_name    TEXT;
+    v_created INTEGER := 0;
+BEGIN
+    FOR i IN 0..p_days - 1 LOOP
+        v_day := p_from + i;
+        v_name := 'outbox_events_p' || to_char(v_day, 'YYYYMMDD');
+        IF to_regclass(v_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF outbox_events FOR VALUES FROM (%L) TO (%L)',
+                           v_name,
+                           v_day::timestamp AT TIME ZONE 'UTC',
+                           (v_day + 1)::timestamp AT TIME ZONE 'UTC');
+            v_created := v_created + 1;
+        END IF;
+    END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+ALTER PUBLICATION outbox_cdc DROP TABLE outbox_events;
+DROP TRIGGER trg_outbox_events_notify ON outbox_events;
+ALTER TABLE outbox_events RENAME TO outbox_events_unpartitioned;
+
+CREATE TABLE outbox_events (
+                               id UUID NOT NULL DEFAULT gen_random_uuid(),
+                               aggregate_type VARCHAR(255) NOT NULL,
+                               aggregate_id UUID NOT NULL,
+                               event_topic VARCHAR(255) NOT NULL,
+                               payload TEXT NOT NULL,
+                               status VARCHAR(50) NOT NULL DEFAULT 'PENDING',
+                               created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                               processed_at TIMESTAMPTZ,
+                               claimed_by VARCHAR(255),
+                               claimed_until TIMESTAMPTZ,
+                               PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE outbox_events_default PARTITION OF outbox_events DEFAULT;
+
+SELECT ensure_outbox_partitions(CURRENT_DATE - 1, 5);
+
+INSERT INTO outbox_events (id, aggregate_type, aggregate_id, event_topic, payload, status, created_at,
+                           processed_at, claimed_by, claimed_until)
+SELECT id, aggregate_type, aggregate_id, event_topic, payload, status, created_at,
+       processed_at, claimed_by, claimed_until
+FROM outbox_events_unpartitioned;
+
+DROP TABLE outbox_events_unpartitioned;
+
+CREATE INDEX idx_outbox_events_pending_created_at ON outbox_events(created_at, id) INCLUDE (claimed_until)
+    WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_aggregate ON outbox_events(aggregate_type, aggregate_id);
+
+CREATE TRIGGER trg_outbox_events_notify
+    AFTER INSERT ON outbox_events
+    FOR EACH STATEMENT
+EXECUTE FUNCTION notify_outbox_events();
+
+ALTER PUBLICATION outbox_cdc SET (publish = 'insert', publish_via_partition_root = true);
+ALTER PUBLICATION outbox_cdc ADD TABLE outbox_events;
@@ -0,0 +1,143 @@
+ALTER TABLE transactions DROP CONSTRAINT fk_transactions_recipient_account;
+
+CREATE OR REPLACE FUNCTION saga_debit(
+    p_saga_id UUID,
+    p_sender_account_id UUID,
+    p_recipient_account_id UUID,
+    p_amount NUMERIC(19, 4),
+    p_currency CHAR(3),
+    p_idempotency_key UUID,
+    p_sender_username VARCHAR(255),
+    p_created_at TIMESTAMPTZ,
+    p_event_payload TEXT,
+    OUT outcome VARCHAR(50),
+    OUT account_currency CHAR(3)
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_sender_username VARCHAR(255);
+    v_sender_currency CHAR(3);
+BEGIN
+    IF EXISTS (SELECT 1 FROM transactions WHERE idempotency_key = p_idempotency_key)
+        OR EXISTS (SELECT 1 FROM transfer_sagas WHERE idempotency_key = p_idempotency_key) THEN
+        outcome := 'DUPLICATE';
+        RETURN;
+    END IF;
+
+    SELECT u.username, a.currency
+    INTO v_sender_username, v_sender_currency
+    FROM accounts a
+             JOIN users u ON u.id = a.user_id
+    WHERE a.id = p_sender_account_id
+        FOR UPDATE OF a;
+
+    IF NOT FOUND THEN
+        outcome := 'SENDER_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_username <> p_sender_username THEN
+        outcome := 'NOT_OWNER';
+        RETURN;
+    END IF;
+
+    IF v_sender_currency <> p_currency THEN
+        outcome := 'SENDER_CURRENCY_MISMATCH';
+        account_currency := v_sender_currency;
+        RETURN;
+    END IF;
+
+    UPDATE accounts
+    SET balance    = balance - p_amount,
+        version    = version + 1,
+        updated_at = p_created_at
+    WHERE id = p_sender_account_id
+      AND balance >= p_amount;
+
+    IF NOT FOUND THEN
+        WITH swept AS (
+            UPDATE account_balance_slots
+                SET balance = 0,
+                    updated_at = p_created_at
+                WHERE account_id = p_sender_account_id
+                    AND balance > 0
+                RETURNING balance)
+        UPDATE accounts
+        SET balance    = balance + (SELECT COALESCE(SUM(balance), 0) FROM swept),
+            version    = version + 1,
+            updated_at = p_created_at
+        WHERE id = p_sender_account_id;
+
+        UPDATE accounts
+        SET balance    = balance - p_amount,
+            version    = version + 1,
+            updated_at = p_created_at
+        WHERE id = p_sender_account_id
+          AND balance >= p_amount;
+
+        IF NOT FOUND THEN
+            outcome := 'INSUFFICIENT_FUNDS';
+            RETURN;
+        END IF;
+    END IF;
+
+    INSERT INTO transactions (id, sender_account_id, recipient_account_id, amount, currency, status,
+                              idempotency_key, created_at)
+    VALUES (p_saga_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, 'PENDING',
+            p_idempotency_key, p_created_at);
+
+    INSERT INTO transfer_sagas (id, sender_account_id, recipient_account_id, amount, currency, idempotency_key,
+                                status, event_payload, created_at, updated_at)
+    VALUES (p_saga_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, p_idempotency_key,
+            'DEBITED', p_event_payload, p_created_at, p_created_at);
+
+    outcome := 'COMPLETED';
+EXCEPTION
+    WHEN unique_violation THEN
+        outcome := 'DUPLICATE';
+        account_currency := NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION saga_compensate(
+    p_saga_id UUID,
+    p_event_topic VARCHAR(255),
+    OUT compensated BOOLEAN
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_sender_account_id UUID;
+    v_amount NUMERIC(19, 4);
+    v_payload TEXT;
+BEGIN
+    UPDATE transfer_sagas
+    SET status     = 'COMPENSATED',
+        updated_at = CURRENT_TIMESTAMP
+    WHERE id = p_saga_id
+      AND status = 'DEBITED'
+    RETURNING sender_account_id, amount, event_payload
+        INTO v_sender_account_id, v_amount, v_payload;
+
+    IF NOT FOUND THEN
+        compensated := FALSE;
+        RETURN;
+    END IF;
+
+    UPDATE accounts
+    SET balance    = balance + v_amount,
+        version    = version + 1,
+        updated_at = CURRENT_TIMESTAMP
+    WHERE id = v_sender_account_id;
+
+    UPDATE transactions
+    SET status = 'FAILED'
+    WHERE id = p_saga_id;
+
+    INSERT INTO outbox_events (aggregate_type, aggregate_id, partition_key, event_topic, payload, status, created_at)
+    VALUES ('Transaction', p_saga_id, v_sender_account_id, p_event_topic, v_payload, 'PENDING', CURRENT_TIMESTAMP);
+
+    compensated := TRUE;
+END;
+$$;
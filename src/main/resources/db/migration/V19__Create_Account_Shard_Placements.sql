@@ -0,0 +1,5 @@
+CREATE TABLE account_shard_placements (
+                                          account_id UUID PRIMARY KEY,
+                                          shard_index INTEGER NOT NULL,
+                                          created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
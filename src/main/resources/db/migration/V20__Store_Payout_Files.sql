@@ -0,0 +1,8 @@
+CREATE TABLE payout_batch_files (
+                                    batch_id UUID PRIMARY KEY,
+                                    content BYTEA NOT NULL,
+                                    CONSTRAINT fk_payout_batch_files_batch FOREIGN KEY (batch_id) REFERENCES payout_batches(id) ON DELETE CASCADE
+);
+
+ALTER TABLE payout_batches
+    DROP COLUMN file_path;
@@ -0,0 +1,20 @@
+CREATE TABLE fx_rates_version (
+    version BIGINT NOT NULL
+);
+
+INSERT INTO fx_rates_version (version) VALUES (1);
+
+CREATE OR REPLACE FUNCTION bump_fx_rates_version()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE fx_rates_version SET version = version + 1;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_fx_rates_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON fx_rates
+    FOR EACH STATEMENT
+EXECUTE FUNCTION bump_fx_rates_version();
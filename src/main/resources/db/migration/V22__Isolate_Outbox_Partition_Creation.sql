@@ -0,0 +1,37 @@
+CREATE OR REPLACE FUNCTION ensure_outbox_partitions(p_from DATE, p_days INTEGER)
+RETURNS INTEGER
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_day     DATE;
+    v_name    TEXT;
+    v_start   TIMESTAMPTZ;
+    v_end     TIMESTAMPTZ;
+    v_created INTEGER := 0;
+BEGIN
+    FOR i IN 0..p_days - 1 LOOP
+        v_day := p_from + i;
+        v_name := 'outbox_events_p' || to_char(v_day, 'YYYYMMDD');
+        CONTINUE WHEN to_regclass(v_name) IS NOT NULL;
+        v_start := v_day::timestamp AT TIME ZONE 'UTC';
+        v_end := (v_day + 1)::timestamp AT TIME ZONE 'UTC';
+        -- Rows of this day that already landed in the default partition would make the partition
+        -- impossible to attach, so they are moved into the new table first. Each day runs in its own
+        -- subtransaction: a day that still cannot be created is rolled back and reported, and the
+        -- remaining days are created regardless.
+        BEGIN
+            EXECUTE format('CREATE TABLE %I (LIKE outbox_events INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+            EXECUTE format('WITH moved AS (DELETE FROM outbox_events_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                               || 'INSERT INTO %I SELECT * FROM moved',
+                           v_start, v_end, v_name);
+            EXECUTE format('ALTER TABLE outbox_events ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           v_name, v_start, v_end);
+            v_created := v_created + 1;
+        EXCEPTION
+            WHEN OTHERS THEN
+                RAISE WARNING 'outbox partition % not created: %', v_name, SQLERRM;
+        END;
+    END LOOP;
+    RETURN v_created;
+END;
+$$;
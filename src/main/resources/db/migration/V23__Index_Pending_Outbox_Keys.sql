@@ -0,0 +1,3 @@
+CREATE INDEX idx_outbox_events_pending_key ON outbox_events ((COALESCE(partition_key, aggregate_id)), created_at, id)
+    INCLUDE (claimed_until)
+    WHERE status = 'PENDING';
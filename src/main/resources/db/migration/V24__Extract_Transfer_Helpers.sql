@@ -0,0 +1,252 @@
+-- Moves the balance steps shared by transfer_funds and saga_debit into helper functions, so later
+-- migrations change one small helper instead of re-pasting the whole transfer body.
+--
+-- Changed from V17 (transfer_funds) and V18 (saga_debit):
+--   * sweep_balance_slots: new. Sweeping slots used UPDATE ... SET balance = 0 RETURNING balance,
+--     which returns the new balance (0), so the slots were emptied but nothing was added to the
+--     account. The helper returns the amounts the slots held before they were zeroed.
+--   * debit_account: new. The debit-then-sweep-then-retry block of both functions.
+--   * credit_account: new. The slot-or-balance credit of transfer_funds.
+--   * transfer_funds, saga_debit: same signatures and outcomes, now calling the helpers.
+
+CREATE OR REPLACE FUNCTION sweep_balance_slots(p_account_id UUID, p_at TIMESTAMPTZ)
+RETURNS NUMERIC(19, 4)
+LANGUAGE sql
+AS $$
+    WITH held AS (
+        SELECT slot, balance
+        FROM account_balance_slots
+        WHERE account_id = p_account_id
+          AND balance > 0
+            FOR UPDATE
+    ), swept AS (
+        UPDATE account_balance_slots s
+            SET balance = 0,
+                updated_at = p_at
+            FROM held
+            WHERE s.account_id = p_account_id
+                AND s.slot = held.slot
+            RETURNING held.balance)
+    SELECT COALESCE(SUM(balance), 0) FROM swept;
+$$;
+
+CREATE OR REPLACE FUNCTION debit_account(p_account_id UUID, p_amount NUMERIC(19, 4), p_at TIMESTAMPTZ)
+RETURNS BOOLEAN
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE accounts
+    SET balance    = balance - p_amount,
+        version    = version + 1,
+        updated_at = p_at
+    WHERE id = p_account_id
+      AND balance >= p_amount;
+
+    IF FOUND THEN
+        RETURN TRUE;
+    END IF;
+
+    UPDATE accounts
+    SET balance    = balance + sweep_balance_slots(p_account_id, p_at),
+        version    = version + 1,
+        updated_at = p_at
+    WHERE id = p_account_id;
+
+    UPDATE accounts
+    SET balance    = balance - p_amount,
+        version    = version + 1,
+        updated_at = p_at
+    WHERE id = p_account_id
+      AND balance >= p_amount;
+
+    RETURN FOUND;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION credit_account(p_account_id UUID, p_amount NUMERIC(19, 4), p_slots INTEGER, p_at TIMESTAMPTZ)
+RETURNS VOID
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF p_slots > 0 THEN
+        INSERT INTO account_balance_slots (account_id, slot, balance, updated_at)
+        VALUES (p_account_id, floor(random() * p_slots)::INTEGER, p_amount, p_at)
+        ON CONFLICT (account_id, slot) DO UPDATE
+            SET balance    = account_balance_slots.balance + EXCLUDED.balance,
+                updated_at = EXCLUDED.updated_at;
+    ELSE
+        UPDATE accounts
+        SET balance    = balance + p_amount,
+            version    = version + 1,
+            updated_at = p_at
+        WHERE id = p_account_id;
+    END IF;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION transfer_funds(
+    p_transaction_id UUID,
+    p_sender_account_id UUID,
+    p_recipient_account_id UUID,
+    p_amount NUMERIC(19, 4),
+    p_currency CHAR(3),
+    p_idempotency_key UUID,
+    p_sender_username VARCHAR(255),
+    p_created_at TIMESTAMPTZ,
+    p_event_topic VARCHAR(255),
+    p_event_payload TEXT,
+    OUT outcome VARCHAR(50),
+    OUT account_currency CHAR(3)
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_sender_username VARCHAR(255);
+    v_sender_currency CHAR(3);
+    v_recipient_currency CHAR(3);
+    v_recipient_slots INTEGER;
+BEGIN
+    IF EXISTS (SELECT 1 FROM transactions WHERE idempotency_key = p_idempotency_key)
+        OR EXISTS (SELECT 1 FROM transfer_sagas WHERE idempotency_key = p_idempotency_key) THEN
+        outcome := 'DUPLICATE';
+        RETURN;
+    END IF;
+
+    PERFORM 1
+    FROM accounts
+    WHERE id = p_sender_account_id
+       OR (id = p_recipient_account_id AND balance_slots = 0)
+    ORDER BY id
+    FOR UPDATE;
+
+    SELECT u.username, a.currency
+    INTO v_sender_username, v_sender_currency
+    FROM accounts a
+             JOIN users u ON u.id = a.user_id
+    WHERE a.id = p_sender_account_id;
+
+    IF NOT FOUND THEN
+        outcome := 'SENDER_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_username <> p_sender_username THEN
+        outcome := 'NOT_OWNER';
+        RETURN;
+    END IF;
+
+    SELECT a.currency, a.balance_slots
+    INTO v_recipient_currency, v_recipient_slots
+    FROM accounts a
+    WHERE a.id = p_recipient_account_id;
+
+    IF NOT FOUND THEN
+        outcome := 'RECIPIENT_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_currency <> p_currency THEN
+        outcome := 'SENDER_CURRENCY_MISMATCH';
+        account_currency := v_sender_currency;
+        RETURN;
+    END IF;
+
+    IF v_recipient_currency <> p_currency THEN
+        outcome := 'RECIPIENT_CURRENCY_MISMATCH';
+        account_currency := v_recipient_currency;
+        RETURN;
+    END IF;
+
+    IF NOT debit_account(p_sender_account_id, p_amount, p_created_at) THEN
+        outcome := 'INSUFFICIENT_FUNDS';
+        RETURN;
+    END IF;
+
+    PERFORM credit_account(p_recipient_account_id, p_amount, v_recipient_slots, p_created_at);
+
+    INSERT INTO transactions (id, sender_account_id, recipient_account_id, amount, currency, status,
+                              idempotency_key, created_at)
+    VALUES (p_transaction_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, 'COMPLETED',
+            p_idempotency_key, p_created_at);
+
+    INSERT INTO outbox_events (aggregate_type, aggregate_id, partition_key, event_topic, payload, status, created_at)
+    VALUES ('Transaction', p_transaction_id, p_sender_account_id, p_event_topic, p_event_payload, 'PENDING', p_created_at);
+
+    outcome := 'COMPLETED';
+EXCEPTION
+    WHEN unique_violation THEN
+        outcome := 'DUPLICATE';
+        account_currency := NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION saga_debit(
+    p_saga_id UUID,
+    p_sender_account_id UUID,
+    p_recipient_account_id UUID,
+    p_amount NUMERIC(19, 4),
+    p_currency CHAR(3),
+    p_idempotency_key UUID,
+    p_sender_username VARCHAR(255),
+    p_created_at TIMESTAMPTZ,
+    p_event_payload TEXT,
+    OUT outcome VARCHAR(50),
+    OUT account_currency CHAR(3)
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_sender_username VARCHAR(255);
+    v_sender_currency CHAR(3);
+BEGIN
+    IF EXISTS (SELECT 1 FROM transactions WHERE idempotency_key = p_idempotency_key)
+        OR EXISTS (SELECT 1 FROM transfer_sagas WHERE idempotency_key = p_idempotency_key) THEN
+        outcome := 'DUPLICATE';
+        RETURN;
+    END IF;
+
+    SELECT u.username, a.currency
+    INTO v_sender_username, v_sender_currency
+    FROM accounts a
+             JOIN users u ON u.id = a.user_id
+    WHERE a.id = p_sender_account_id
+        FOR UPDATE OF a;
+
+    IF NOT FOUND THEN
+        outcome := 'SENDER_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_username <> p_sender_username THEN
+        outcome := 'NOT_OWNER';
+        RETURN;
+    END IF;
+
+    IF v_sender_currency <> p_currency THEN
+        outcome := 'SENDER_CURRENCY_MISMATCH';
+        account_currency := v_sender_currency;
+        RETURN;
+    END IF;
+
+    IF NOT debit_account(p_sender_account_id, p_amount, p_created_at) THEN
+        outcome := 'INSUFFICIENT_FUNDS';
+        RETURN;
+    END IF;
+
+    INSERT INTO transactions (id, sender_account_id, recipient_account_id, amount, currency, status,
+                              idempotency_key, created_at)
+    VALUES (p_saga_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, 'PENDING',
+            p_idempotency_key, p_created_at);
+
+    INSERT INTO transfer_sagas (id, sender_account_id, recipient_account_id, amount, currency, idempotency_key,
+                                status, event_payload, created_at, updated_at)
+    VALUES (p_saga_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, p_idempotency_key,
+            'DEBITED', p_event_payload, p_created_at, p_created_at);
+
+    outcome := 'COMPLETED';
+EXCEPTION
+    WHEN unique_violation THEN
+        outcome := 'DUPLICATE';
+        account_currency := NULL;
+END;
+$$;
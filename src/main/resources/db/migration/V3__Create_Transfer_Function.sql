@@ -0,0 +1,101 @@
+CREATE OR REPLACE FUNCTION transfer_funds(
+    p_transaction_id UUID,
+    p_sender_account_id UUID,
+    p_recipient_account_id UUID,
+    p_amount NUMERIC(19, 4),
+    p_currency CHAR(3),
+    p_idempotency_key UUID,
+    p_sender_username VARCHAR(255),
+    p_created_at TIMESTAMPTZ,
+    p_event_topic VARCHAR(255),
+    p_event_payload TEXT,
+    OUT outcome VARCHAR(50),
+    OUT account_currency CHAR(3)
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_sender_username VARCHAR(255);
+    v_sender_currency CHAR(3);
+    v_recipient_currency CHAR(3);
+BEGIN
+    IF EXISTS (SELECT 1 FROM transactions WHERE idempotency_key = p_idempotency_key) THEN
+        outcome := 'DUPLICATE';
+        RETURN;
+    END IF;
+
+    PERFORM 1
+    FROM accounts
+    WHERE id IN (p_sender_account_id, p_recipient_account_id)
+    ORDER BY id
+    FOR UPDATE;
+
+    SELECT u.username, a.currency
+    INTO v_sender_username, v_sender_currency
+    FROM accounts a
+             JOIN users u ON u.id = a.user_id
+    WHERE a.id = p_sender_account_id;
+
+    IF NOT FOUND THEN
+        outcome := 'SENDER_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_username <> p_sender_username THEN
+        outcome := 'NOT_OWNER';
+        RETURN;
+    END IF;
+
+    SELECT a.currency
+    INTO v_recipient_currency
+    FROM accounts a
+    WHERE a.id = p_recipient_account_id;
+
+    IF NOT FOUND THEN
+        outcome := 'RECIPIENT_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_currency <> p_currency THEN
+        outcome := 'SENDER_CURRENCY_MISMATCH';
+        account_currency := v_sender_currency;
+        RETURN;
+    END IF;
+
+    IF v_recipient_currency <> p_currency THEN
+        outcome := 'RECIPIENT_CURRENCY_MISMATCH';
+        account_currency := v_recipient_currency;
+        RETURN;
+    END IF;
+
+    UPDATE accounts
+    SET balance    = balance - p_amount,
+        updated_at = p_created_at
+    WHERE id = p_sender_account_id
+      AND balance >= p_amount;
+
+    IF NOT FOUND THEN
+        outcome := 'INSUFFICIENT_FUNDS';
+        RETURN;
+    END IF;
+
+    UPDATE accounts
+    SET balance    = balance + p_amount,
+        updated_at = p_created_at
+    WHERE id = p_recipient_account_id;
+
+    INSERT INTO transactions (id, sender_account_id, recipient_account_id, amount, currency, status,
+                              idempotency_key, created_at)
+    VALUES (p_transaction_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, 'COMPLETED',
+            p_idempotency_key, p_created_at);
+
+    INSERT INTO outbox_events (aggregate_type, aggregate_id, event_topic, payload, status, created_at)
+    VALUES ('Transaction', p_transaction_id, p_event_topic, p_event_payload, 'PENDING', p_created_at);
+
+    outcome := 'COMPLETED';
+EXCEPTION
+    WHEN unique_violation THEN
+        outcome := 'DUPLICATE';
+        account_currency := NULL;
+END;
+$$;
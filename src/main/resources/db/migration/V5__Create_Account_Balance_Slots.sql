@@ -0,0 +1,151 @@
+ALTER TABLE accounts
+    ADD COLUMN balance_slots INTEGER NOT NULL DEFAULT 0,
+    ADD CONSTRAINT chk_balance_slots_non_negative CHECK (balance_slots >= 0);
+
+CREATE TABLE account_balance_slots (
+                                       account_id UUID NOT NULL,
+                                       slot INTEGER NOT NULL,
+                                       balance NUMERIC(19, 4) NOT NULL DEFAULT 0.0000,
+                                       updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                       CONSTRAINT pk_account_balance_slots PRIMARY KEY (account_id, slot),
+                                       CONSTRAINT fk_account_balance_slots_account FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+                                       CONSTRAINT chk_slot_balance_non_negative CHECK (balance >= 0)
+);
+
+CREATE INDEX idx_account_balance_slots_pending ON account_balance_slots(account_id) WHERE balance > 0;
+
+CREATE OR REPLACE FUNCTION transfer_funds(
+    p_transaction_id UUID,
+    p_sender_account_id UUID,
+    p_recipient_account_id UUID,
+    p_amount NUMERIC(19, 4),
+    p_currency CHAR(3),
+    p_idempotency_key UUID,
+    p_sender_username VARCHAR(255),
+    p_created_at TIMESTAMPTZ,
+    p_event_topic VARCHAR(255),
+    p_event_payload TEXT,
+    OUT outcome VARCHAR(50),
+    OUT account_currency CHAR(3)
+)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_sender_username VARCHAR(255);
+    v_sender_currency CHAR(3);
+    v_recipient_currency CHAR(3);
+    v_recipient_slots INTEGER;
+BEGIN
+    IF EXISTS (SELECT 1 FROM transactions WHERE idempotency_key = p_idempotency_key) THEN
+        outcome := 'DUPLICATE';
+        RETURN;
+    END IF;
+
+    PERFORM 1
+    FROM accounts
+    WHERE id = p_sender_account_id
+       OR (id = p_recipient_account_id AND balance_slots = 0)
+    ORDER BY id
+    FOR UPDATE;
+
+    SELECT u.username, a.currency
+    INTO v_sender_username, v_sender_currency
+    FROM accounts a
+             JOIN users u ON u.id = a.user_id
+    WHERE a.id = p_sender_account_id;
+
+    IF NOT FOUND THEN
+        outcome := 'SENDER_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_username <> p_sender_username THEN
+        outcome := 'NOT_OWNER';
+        RETURN;
+    END IF;
+
+    SELECT a.currency, a.balance_slots
+    INTO v_recipient_currency, v_recipient_slots
+    FROM accounts a
+    WHERE a.id = p_recipient_account_id;
+
+    IF NOT FOUND THEN
+        outcome := 'RECIPIENT_NOT_FOUND';
+        RETURN;
+    END IF;
+
+    IF v_sender_currency <> p_currency THEN
+        outcome := 'SENDER_CURRENCY_MISMATCH';
+        account_currency := v_sender_currency;
+        RETURN;
+    END IF;
+
+    IF v_recipient_currency <> p_currency THEN
+        outcome := 'RECIPIENT_CURRENCY_MISMATCH';
+        account_currency := v_recipient_currency;
+        RETURN;
+    END IF;
+
+    UPDATE accounts
+    SET balance    = balance - p_amount,
+        version    = version + 1,
+        updated_at = p_created_at
+    WHERE id = p_sender_account_id
+      AND balance >= p_amount;
+
+    IF NOT FOUND THEN
+        WITH swept AS (
+            UPDATE account_balance_slots
+                SET balance = 0,
+                    updated_at = p_created_at
+                WHERE account_id = p_sender_account_id
+                    AND balance > 0
+                RETURNING balance)
+        UPDATE accounts
+        SET balance    = balance + (SELECT COALESCE(SUM(balance), 0) FROM swept),
+            version    = version + 1,
+            updated_at = p_created_at
+        WHERE id = p_sender_account_id;
+
+        UPDATE accounts
+        SET balance    = balance - p_amount,
+            version    = version + 1,
+            updated_at = p_created_at
+        WHERE id = p_sender_account_id
+          AND balance >= p_amount;
+
+        IF NOT FOUND THEN
+            outcome := 'INSUFFICIENT_FUNDS';
+            RETURN;
+        END IF;
+    END IF;
+
+    IF v_recipient_slots > 0 THEN
+        INSERT INTO account_balance_slots (account_id, slot, balance, updated_at)
+        VALUES (p_recipient_account_id, floor(random() * v_recipient_slots)::INTEGER, p_amount, p_created_at)
+        ON CONFLICT (account_id, slot) DO UPDATE
+            SET balance    = account_balance_slots.balance + EXCLUDED.balance,
+                updated_at = EXCLUDED.updated_at;
+    ELSE
+        UPDATE accounts
+        SET balance    = balance + p_amount,
+            version    = version + 1,
+            updated_at = p_created_at
+        WHERE id = p_recipient_account_id;
+    END IF;
+
+    INSERT INTO transactions (id, sender_account_id, recipient_account_id, amount, currency, status,
+                              idempotency_key, created_at)
+    VALUES (p_transaction_id, p_sender_account_id, p_recipient_account_id, p_amount, p_currency, 'COMPLETED',
+            p_idempotency_key, p_created_at);
+
+    INSERT INTO outbox_events (aggregate_type, aggregate_id, event_topic, payload, status, created_at)
+    VALUES ('Transaction', p_transaction_id, p_event_topic, p_event_payload, 'PENDING', p_created_at);
+
+    outcome := 'COMPLETED';
+EXCEPTION
+    WHEN unique_violation THEN
+        outcome := 'DUPLICATE';
+        account_currency := NULL;
+END;
+$$;
@@ -0,0 +1,30 @@
+CREATE TABLE payout_batches (
+                                id UUID PRIMARY KEY,
+                                owner_username VARCHAR(255) NOT NULL,
+                                file_format VARCHAR(50) NOT NULL,
+                                file_path TEXT NOT NULL,
+                                status VARCHAR(50) NOT NULL,
+                                processed_entries BIGINT NOT NULL DEFAULT 0,
+                                succeeded_entries BIGINT NOT NULL DEFAULT 0,
+                                failed_entries BIGINT NOT NULL DEFAULT 0,
+                                error TEXT,
+                                created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_payout_batches_open ON payout_batches(created_at) WHERE status IN ('RECEIVED', 'PROCESSING');
+
+CREATE TABLE payout_batch_entries (
+                                      batch_id UUID NOT NULL,
+                                      entry_number BIGINT NOT NULL,
+                                      sender_account_id UUID,
+                                      recipient_account_id UUID,
+                                      amount NUMERIC(19, 4),
+                                      currency CHAR(3),
+                                      reference VARCHAR(255),
+                                      status VARCHAR(50) NOT NULL,
+                                      transaction_id UUID,
+                                      error TEXT,
+                                      PRIMARY KEY (batch_id, entry_number),
+                                      CONSTRAINT fk_payout_batch_entries_batch FOREIGN KEY (batch_id) REFERENCES payout_batches(id) ON DELETE CASCADE
+);
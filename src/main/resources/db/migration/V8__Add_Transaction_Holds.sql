@@ -0,0 +1,5 @@
+ALTER TABLE transactions
+    ADD COLUMN hold_expires_at TIMESTAMPTZ;
+
+CREATE INDEX idx_transactions_open_holds ON transactions(hold_expires_at)
+    WHERE status = 'PENDING' AND hold_expires_at IS NOT NULL;
@@ -0,0 +1,22 @@
+CREATE TABLE scheduled_payments (
+                                    id UUID PRIMARY KEY,
+                                    owner_username VARCHAR(255) NOT NULL,
+                                    sender_account_id UUID NOT NULL,
+                                    recipient_account_id UUID NOT NULL,
+                                    amount NUMERIC(19, 4) NOT NULL,
+                                    currency CHAR(3) NOT NULL,
+                                    first_run_at TIMESTAMPTZ NOT NULL,
+                                    recurrence VARCHAR(50),
+                                    max_occurrences INTEGER,
+                                    occurrence BIGINT NOT NULL DEFAULT 0,
+                                    next_run_at TIMESTAMPTZ NOT NULL,
+                                    status VARCHAR(50) NOT NULL,
+                                    last_error TEXT,
+                                    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                    updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                    CONSTRAINT fk_scheduled_payments_sender_account FOREIGN KEY (sender_account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+                                    CONSTRAINT fk_scheduled_payments_recipient_account FOREIGN KEY (recipient_account_id) REFERENCES accounts(id) ON DELETE CASCADE,
+                                    CONSTRAINT chk_scheduled_payment_amount_positive CHECK (amount > 0)
+);
+
+CREATE INDEX idx_scheduled_payments_due ON scheduled_payments(next_run_at, id) WHERE status = 'ACTIVE';
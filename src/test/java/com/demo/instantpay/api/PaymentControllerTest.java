@@ -1,14 +1,18 @@
 package com.demo.instantpay.api;
 
+import com.demo.instantpay.api.dto.MultiLegPaymentRequest;
+import com.demo.instantpay.api.dto.MultiLegPaymentResponse;
+import com.demo.instantpay.api.dto.PaymentLeg;
 import com.demo.instantpay.api.dto.PaymentRequest;
 import com.demo.instantpay.api.dto.PaymentResponse;
 import com.demo.instantpay.config.SecurityConfig;
 import com.demo.instantpay.infrastructure.security.JwtAuthenticationFilter;
 import com.demo.instantpay.infrastructure.security.JwtTokenProvider;
-import com.demo.instantpay.service.PaymentService;
+import com.demo.instantpay.service.PaymentDispatcher;
 import com.demo.instantpay.service.exception.AccountNotFoundException;
 import com.demo.instantpay.service.exception.IdempotencyException;
 import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentModeNotSupportedException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -28,6 +32,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -47,7 +52,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DisplayName("PaymentController Integration Tests")
 class PaymentControllerTest {
     @MockitoBean
-    private PaymentService paymentService;
+    private PaymentDispatcher paymentDispatcher;
     @MockitoBean
     private UserDetailsService userDetailsService;
 
@@ -115,7 +120,7 @@ class PaymentControllerTest {
     @Test
     @DisplayName("Should return 400 Bad Request when InsufficientFundsException is thrown")
     void shouldReturnBadRequestWhenInsufficientFunds() throws Exception {
-        when(paymentService.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
+        when(paymentDispatcher.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
                 .thenThrow(new InsufficientFundsException("Insufficient funds"));
 
         mockMvc.perform(post("/api/payments")
@@ -131,7 +136,7 @@ class PaymentControllerTest {
     @Test
     @DisplayName("Should return 404 Not Found when AccountNotFoundException is thrown")
     void shouldReturnNotFoundWhenAccountNotFound() throws Exception {
-        when(paymentService.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
+        when(paymentDispatcher.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
                 .thenThrow(new AccountNotFoundException("Account not found"));
 
         mockMvc.perform(post("/api/payments")
@@ -147,7 +152,7 @@ class PaymentControllerTest {
     @Test
     @DisplayName("Should return 409 Conflict when IdempotencyException is thrown")
     void shouldReturnConflictWhenIdempotencyViolation() throws Exception {
-        when(paymentService.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
+        when(paymentDispatcher.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
                 .thenThrow(new IdempotencyException("Transaction already processed"));
 
         mockMvc.perform(post("/api/payments")
@@ -163,7 +168,7 @@ class PaymentControllerTest {
     @Test
     @DisplayName("Should return 409 Conflict when OptimisticLockingFailureException is thrown")
     void shouldReturnConflictWhenOptimisticLockingFailure() throws Exception {
-        when(paymentService.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
+        when(paymentDispatcher.sendMoney(any(PaymentRequest.class), any(UUID.class), any(String.class)))
                 .thenThrow(new OptimisticLockingFailureException("Concurrent modification"));
 
         mockMvc.perform(post("/api/payments")
@@ -189,7 +194,7 @@ class PaymentControllerTest {
                 "COMPLETED",
                 OffsetDateTime.now()
         );
-        when(paymentService.sendMoney(any(PaymentRequest.class), eq(idempotencyKey), eq("testuser")))
+        when(paymentDispatcher.sendMoney(any(PaymentRequest.class), eq(idempotencyKey), eq("testuser")))
                 .thenReturn(response);
 
         mockMvc.perform(post("/api/payments")
@@ -212,4 +217,61 @@ class PaymentControllerTest {
                         .content(objectMapper.writeValueAsString(validRequest)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @DisplayName("Should return 200 OK with every leg when multi-leg payment is successful")
+    void shouldReturnOkWhenMultiLegPaymentSuccessful() throws Exception {
+        UUID senderAccountId = UUID.randomUUID();
+        MultiLegPaymentRequest request = new MultiLegPaymentRequest("USD", senderAccountId, List.of(
+                new PaymentLeg(new BigDecimal("90.00"), UUID.randomUUID()),
+                new PaymentLeg(new BigDecimal("10.00"), UUID.randomUUID())));
+        MultiLegPaymentResponse response = new MultiLegPaymentResponse(senderAccountId, new BigDecimal("100.00"), "USD",
+                request.legs().stream()
+                        .map(leg -> new PaymentResponse(UUID.randomUUID(), senderAccountId, leg.recipientAccountId(),
+                                leg.amount(), "USD", "COMPLETED", OffsetDateTime.now()))
+                        .toList());
+        when(paymentDispatcher.sendMultiLeg(any(MultiLegPaymentRequest.class), eq(idempotencyKey), eq("testuser")))
+                .thenReturn(response);
+
+        mockMvc.perform(post("/api/payments/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + validJwtToken)
+                        .header("Idempotency-Key", idempotencyKey.toString())
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalAmount").value(100.00))
+                .andExpect(jsonPath("$.legs.length()").value(2))
+                .andExpect(jsonPath("$.legs[0].status").value("COMPLETED"));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request when multi-leg payment has no legs")
+    void shouldReturnBadRequestWhenMultiLegPaymentHasNoLegs() throws Exception {
+        MultiLegPaymentRequest request = new MultiLegPaymentRequest("USD", UUID.randomUUID(), List.of());
+
+        mockMvc.perform(post("/api/payments/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + validJwtToken)
+                        .header("Idempotency-Key", idempotencyKey.toString())
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"));
+    }
+
+    @Test
+    @DisplayName("Should return 501 Not Implemented when the payment mode does not support multi-leg payments")
+    void shouldReturnNotImplementedWhenPaymentModeNotSupported() throws Exception {
+        MultiLegPaymentRequest request = new MultiLegPaymentRequest("USD", UUID.randomUUID(), List.of(
+                new PaymentLeg(new BigDecimal("90.00"), UUID.randomUUID())));
+        when(paymentDispatcher.sendMultiLeg(any(MultiLegPaymentRequest.class), eq(idempotencyKey), eq("testuser")))
+                .thenThrow(new PaymentModeNotSupportedException("Multi-leg payments are not supported in the configured payment mode"));
+
+        mockMvc.perform(post("/api/payments/multi-leg")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + validJwtToken)
+                        .header("Idempotency-Key", idempotencyKey.toString())
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotImplemented())
+                .andExpect(jsonPath("$.error").value("NOT_SUPPORTED"));
+    }
 }
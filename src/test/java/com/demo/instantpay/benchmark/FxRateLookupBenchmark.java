@@ -0,0 +1,111 @@
+package com.demo.instantpay.benchmark;
+
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRate;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRates;
+import com.demo.instantpay.service.FxQuote;
+import com.demo.instantpay.service.FxRateRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the cost of an FX rate lookup on the payment path, single-threaded and with all cores
+ * reading while the snapshot is being replaced. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("FX Rate Lookup Benchmark")
+class FxRateLookupBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(FxRateLookupBenchmark.class);
+    private static final List<String> CURRENCIES = List.of(
+            "USD", "EUR", "GBP", "CHF", "JPY", "CAD", "AUD", "SEK", "NOK", "DKK", "PLN", "CZK");
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int LOOKUPS_PER_ROUND = 20_000_000;
+
+    @Test
+    @DisplayName("Rate lookup latency")
+    void measureLookup() throws Exception {
+        FxRateRepository repository = mock(FxRateRepository.class);
+        when(repository.findAll()).thenReturn(new FxRates(1, rates()));
+        FxRateRegistry registry = new FxRateRegistry(repository, Duration.ofMinutes(5));
+        registry.refresh();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            lookupRound(registry);
+        }
+
+        log.info(String.format("%-10s %8s %12s", "scenario", "threads", "ns/lookup"));
+        log.info(String.format("%-10s %8d %12.2f", "idle", 1, measure(registry)));
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        Thread refresher = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                registry.refresh();
+            }
+        });
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> measure(registry)));
+            }
+            double total = 0;
+            for (Future<Double> result : results) {
+                total += result.get();
+            }
+            log.info(String.format("%-10s %8d %12.2f", "refreshing", threads, total / threads));
+        } finally {
+            refresher.interrupt();
+        }
+    }
+
+    private static double measure(FxRateRegistry registry) {
+        long start = System.nanoTime();
+        long hits = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            hits += lookupRound(registry);
+        }
+        double nanosPerLookup = (double) (System.nanoTime() - start) / ((long) MEASURED_ROUNDS * LOOKUPS_PER_ROUND);
+        assertThat(hits).isPositive();
+        return nanosPerLookup;
+    }
+
+    private static long lookupRound(FxRateRegistry registry) {
+        long hits = 0;
+        int size = CURRENCIES.size();
+        for (int i = 0; i < LOOKUPS_PER_ROUND; i++) {
+            FxQuote quote = registry.quote(CURRENCIES.get(i % size), CURRENCIES.get((i / size + 1) % size));
+            if (quote != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static List<FxRate> rates() {
+        List<FxRate> rates = new ArrayList<>();
+        OffsetDateTime updatedAt = OffsetDateTime.now();
+        for (int i = 1; i < CURRENCIES.size(); i++) {
+            rates.add(new FxRate("USD", CURRENCIES.get(i), BigDecimal.valueOf(0.5 + i * 0.1), updatedAt));
+            for (int j = i + 1; j < CURRENCIES.size(); j++) {
+                rates.add(new FxRate(CURRENCIES.get(i), CURRENCIES.get(j), BigDecimal.valueOf((double) j / i), updatedAt));
+            }
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,168 @@
+package com.demo.instantpay.benchmark;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.UserRepository;
+import com.demo.instantpay.service.InMemoryLedgerEngine;
+import com.demo.instantpay.service.PaymentService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Compares throughput and latency of the JPA transfer path with the in-memory ledger engine. Each
+ * path works on its own set of accounts, since the ledger must be the only writer of its balances.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "outbox.poll.delay=3600000",
+        "payment.retry.max-attempts=10",
+        "payment.ledger.enabled=true",
+        "payment.ledger.journal.directory=target/ledger-benchmark",
+        "jwt.secret=benchmark-jwt-secret-key-must-be-at-least-32-characters-long",
+        "jwt.expirationMillis=3600000"
+})
+@DisplayName("Ledger Throughput Benchmark")
+class LedgerThroughputBenchmark extends AbstractDbIntegrationTest {
+    private static final Logger log = LoggerFactory.getLogger(LedgerThroughputBenchmark.class);
+    private static final int ACCOUNT_COUNT = 50;
+    private static final int CONCURRENCY = 32;
+    private static final int TRANSFERS_PER_WORKER = 200;
+    private static final String USERNAME = "ledger-benchmark-user";
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registerDatasourceProperties(registry, POSTGRES);
+    }
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        stopContainer(POSTGRES);
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private InMemoryLedgerEngine inMemoryLedgerEngine;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("JPA path vs in-memory ledger")
+    void compareJpaWithLedger() throws Exception {
+        UserEntity user = userRepository.save(UserEntity.builder()
+                .username(USERNAME)
+                .passwordHash("$2a$10$hashed")
+                .role("USER")
+                .build());
+
+        List<String> rows = new ArrayList<>();
+        rows.add(run("JPA", seedAccounts(user, "JPA"),
+                request -> paymentService.sendMoney(request, UUID.randomUUID(), USERNAME)));
+        rows.add(run("LEDGER", seedAccounts(user, "LEDGER"),
+                request -> inMemoryLedgerEngine.sendMoney(request, UUID.randomUUID(), USERNAME)));
+
+        log.info(String.format("%-8s %12s %10s %10s %9s", "engine", "tx/s", "p50 ms", "p99 ms", "failed"));
+        rows.forEach(log::info);
+    }
+
+    private String run(String engine, List<UUID> accountIds, Function<PaymentRequest, ?> transfer) throws Exception {
+        long[] latencies = new long[CONCURRENCY * TRANSFERS_PER_WORKER];
+        AtomicInteger slot = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < CONCURRENCY; w++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_WORKER; i++) {
+                        PaymentRequest request = nextRequest(accountIds);
+                        long t0 = System.nanoTime();
+                        try {
+                            transfer.apply(request);
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[slot.getAndIncrement()] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        return String.format("%-8s %12.1f %10.2f %10.2f %9d",
+                engine,
+                latencies.length / elapsedSeconds,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                failed.get());
+    }
+
+    private PaymentRequest nextRequest(List<UUID> accountIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(accountIds.size());
+        int recipient;
+        do {
+            recipient = random.nextInt(accountIds.size());
+        } while (recipient == sender);
+        return new PaymentRequest(BigDecimal.ONE, "USD", accountIds.get(sender), accountIds.get(recipient));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private List<UUID> seedAccounts(UserEntity user, String prefix) {
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            AccountEntity account = accountRepository.save(AccountEntity.builder()
+                    .user(user)
+                    .accountNumber(prefix + "-BENCH-" + i)
+                    .balance(new BigDecimal("1000000.00"))
+                    .currency("USD")
+                    .build());
+            accountIds.add(account.getId());
+        }
+        return accountIds;
+    }
+}
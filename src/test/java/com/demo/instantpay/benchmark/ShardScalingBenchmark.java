@@ -0,0 +1,173 @@
+package com.demo.instantpay.benchmark;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.infrastructure.persistence.converter.EncryptionAttributeConverter;
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ShardAccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ShardTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import com.demo.instantpay.service.ShardedPaymentService;
+import com.demo.instantpay.service.SingleStatementTransferExecutor;
+import com.demo.instantpay.service.VelocityLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures throughput and latency of the sharded payment path with 1, 2 and 4 shards, each shard being
+ * its own Postgres container. Transfers pick random account pairs, so the cross-shard share grows
+ * with the shard count. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Shard Scaling Benchmark")
+class ShardScalingBenchmark extends AbstractDbIntegrationTest {
+    private static final Logger log = LoggerFactory.getLogger(ShardScalingBenchmark.class);
+    private static final int MAX_SHARDS = 4;
+    private static final int ACCOUNT_COUNT = 200;
+    private static final int CONCURRENCY = 64;
+    private static final int TRANSFERS_PER_WORKER = 200;
+
+    private static final List<PostgreSQLContainer<?>> CONTAINERS = IntStream.range(0, MAX_SHARDS)
+            .<PostgreSQLContainer<?>>mapToObj(i -> createPostgresContainer().withDatabaseName("instantpay_shard_" + i))
+            .toList();
+
+    @BeforeAll
+    static void startShardContainers() {
+        CONTAINERS.parallelStream().forEach(AbstractDbIntegrationTest::startContainer);
+    }
+
+    @AfterAll
+    static void stopShardContainers() {
+        CONTAINERS.forEach(AbstractDbIntegrationTest::stopContainer);
+    }
+
+    @Test
+    @DisplayName("Throughput with 1, 2 and 4 shards")
+    void compareShardCounts() throws Exception {
+        List<String> rows = new ArrayList<>();
+        for (int shardCount : new int[]{1, 2, 4}) {
+            try (ShardRouter router = new ShardRouter(openShards(shardCount), 128)) {
+                rows.add(run(router));
+            }
+        }
+
+        log.info(String.format("%-8s %12s %10s %10s %12s %9s", "shards", "tx/s", "p50 ms", "p99 ms", "crossShard", "failed"));
+        rows.forEach(log::info);
+    }
+
+    private String run(ShardRouter router) throws Exception {
+        EncryptionAttributeConverter converter = new EncryptionAttributeConverter();
+        ReflectionTestUtils.setField(converter, "encryptionKeyBase64", "VTgDasP1R776SZNpu+5p+KYyznjZUaGbzBO2Pfs7rAY=");
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        ShardedPaymentService service = new ShardedPaymentService(router, new ShardTransferRepository(),
+                new SingleStatementTransferExecutor(mock(AccountTransferRepository.class), objectMapper),
+                new VelocityLimiter(new VelocityLimitProperties(), mock(AccountRepository.class),
+                        mock(TransactionRepository.class)));
+
+        UserEntity user = UserEntity.builder()
+                .id(UUID.randomUUID())
+                .username("shard-benchmark-" + router.shards().size())
+                .passwordHash("$2a$10$hashed")
+                .role("USER")
+                .build();
+        ShardAccountRepository accounts = new ShardAccountRepository(router, converter);
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountIds.add(accounts.createAccount(user, "SHARD-BENCH-" + i, new BigDecimal("1000000.00"), "USD"));
+        }
+
+        long[] latencies = new long[CONCURRENCY * TRANSFERS_PER_WORKER];
+        AtomicInteger slot = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger crossShard = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < CONCURRENCY; w++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_WORKER; i++) {
+                        PaymentRequest request = nextRequest(accountIds);
+                        if (router.shardFor(request.senderAccountId()) != router.shardFor(request.recipientAccountId())) {
+                            crossShard.incrementAndGet();
+                        }
+                        long t0 = System.nanoTime();
+                        try {
+                            service.sendMoney(request, UUID.randomUUID(), user.getUsername());
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[slot.getAndIncrement()] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        return String.format("%-8d %12.1f %10.2f %10.2f %11.1f%% %9d",
+                router.shards().size(),
+                latencies.length / elapsedSeconds,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                100.0 * crossShard.get() / latencies.length,
+                failed.get());
+    }
+
+    private List<Shard> openShards(int shardCount) {
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            PostgreSQLContainer<?> container = CONTAINERS.get(i);
+            shards.add(Shard.open(i, container.getJdbcUrl(), container.getUsername(), container.getPassword(),
+                    CONCURRENCY / shardCount + 1, "classpath:db/migration"));
+        }
+        return shards;
+    }
+
+    private PaymentRequest nextRequest(List<UUID> accountIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(accountIds.size());
+        int recipient;
+        do {
+            recipient = random.nextInt(accountIds.size());
+        } while (recipient == sender);
+        return new PaymentRequest(BigDecimal.ONE, "USD", accountIds.get(sender), accountIds.get(recipient));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,176 @@
+package com.demo.instantpay.benchmark;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.UserRepository;
+import com.demo.instantpay.service.PaymentService;
+import com.demo.instantpay.service.TransferMode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares throughput and tail latency of the pessimistic and optimistic transfer modes while
+ * increasing the share of traffic that lands on a small set of hot accounts.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "outbox.poll.delay=3600000",
+        "payment.retry.max-attempts=10",
+        "jwt.secret=benchmark-jwt-secret-key-must-be-at-least-32-characters-long",
+        "jwt.expirationMillis=3600000"
+})
+@DisplayName("Transfer Mode Benchmark")
+class TransferModeBenchmark extends AbstractDbIntegrationTest {
+    private static final Logger log = LoggerFactory.getLogger(TransferModeBenchmark.class);
+    private static final int ACCOUNT_COUNT = 50;
+    private static final int HOT_ACCOUNT_COUNT = 2;
+    private static final int CONCURRENCY = 32;
+    private static final int TRANSFERS_PER_WORKER = 200;
+    private static final String USERNAME = "benchmark-user";
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registerDatasourceProperties(registry, POSTGRES);
+    }
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        stopContainer(POSTGRES);
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Pessimistic vs optimistic transfer mode across account skew levels")
+    void compareTransferModes() throws Exception {
+        List<UUID> accountIds = seedAccounts();
+        List<String> rows = new ArrayList<>();
+
+        for (double hotShare : new double[]{0.0, 0.5, 0.9}) {
+            for (TransferMode mode : new TransferMode[]{TransferMode.JPA, TransferMode.OPTIMISTIC}) {
+                ReflectionTestUtils.setField(AopTestUtils.getTargetObject(paymentService), "transferMode", mode);
+                rows.add(run(mode, hotShare, accountIds));
+            }
+        }
+
+        log.info(String.format("%-12s %-9s %12s %10s %10s %9s", "mode", "hotShare", "tx/s", "p50 ms", "p99 ms", "failed"));
+        rows.forEach(log::info);
+    }
+
+    private String run(TransferMode mode, double hotShare, List<UUID> accountIds) throws Exception {
+        long[] latencies = new long[CONCURRENCY * TRANSFERS_PER_WORKER];
+        AtomicInteger slot = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < CONCURRENCY; w++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_WORKER; i++) {
+                        PaymentRequest request = nextRequest(accountIds, hotShare);
+                        long t0 = System.nanoTime();
+                        try {
+                            paymentService.sendMoney(request, UUID.randomUUID(), USERNAME);
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[slot.getAndIncrement()] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        return String.format("%-12s %-9.2f %12.1f %10.2f %10.2f %9d",
+                mode, hotShare,
+                latencies.length / elapsedSeconds,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                failed.get());
+    }
+
+    private PaymentRequest nextRequest(List<UUID> accountIds, double hotShare) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = pickAccount(random, hotShare);
+        int recipient;
+        do {
+            recipient = pickAccount(random, hotShare);
+        } while (recipient == sender);
+        return new PaymentRequest(BigDecimal.ONE, "USD", accountIds.get(sender), accountIds.get(recipient));
+    }
+
+    private int pickAccount(ThreadLocalRandom random, double hotShare) {
+        return random.nextDouble() < hotShare
+                ? random.nextInt(HOT_ACCOUNT_COUNT)
+                : random.nextInt(ACCOUNT_COUNT);
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private List<UUID> seedAccounts() {
+        UserEntity user = userRepository.save(UserEntity.builder()
+                .username(USERNAME)
+                .passwordHash("$2a$10$hashed")
+                .role("USER")
+                .build());
+
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            AccountEntity account = accountRepository.save(AccountEntity.builder()
+                    .user(user)
+                    .accountNumber("BENCH-" + i)
+                    .balance(new BigDecimal("1000000.00"))
+                    .currency("USD")
+                    .build());
+            accountIds.add(account.getId());
+        }
+        return accountIds;
+    }
+}
@@ -0,0 +1,38 @@
+package com.demo.instantpay.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("KafkaConfig Unit Tests")
+class KafkaConfigTest {
+
+    @Test
+    @DisplayName("Should apply the configured batch size and linger to the producer")
+    void shouldApplyProducerBatchingProperties() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.getProducer().setBatchSize(DataSize.ofBytes(65536));
+        kafkaProperties.getProducer().getProperties().put("linger.ms", "5");
+        kafkaProperties.getProducer().getProperties().put("acks", "0");
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:29092");
+
+        Map<String, Object> config = ((DefaultKafkaProducerFactory<String, String>) kafkaConfig.producerFactory(kafkaProperties))
+                .getConfigurationProperties();
+
+        assertThat(config)
+                .containsEntry(ProducerConfig.BATCH_SIZE_CONFIG, 65536)
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, "5")
+                .containsEntry(ProducerConfig.ACKS_CONFIG, "all")
+                .containsEntry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true)
+                .containsEntry(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:29092");
+    }
+}
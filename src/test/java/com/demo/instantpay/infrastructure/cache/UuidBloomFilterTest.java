@@ -0,0 +1,64 @@
+package com.demo.instantpay.infrastructure.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UuidBloomFilter Unit Tests")
+class UuidBloomFilterTest {
+
+    @Test
+    @DisplayName("Should report every added UUID as possibly present")
+    void shouldHaveNoFalseNegatives() {
+        UuidBloomFilter filter = new UuidBloomFilter(10_000, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID value = UUID.randomUUID();
+            filter.add(value);
+            added.add(value);
+        }
+
+        assertThat(added).allMatch(filter::mightContain);
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("Should keep the false positive rate near the configured rate at the expected size")
+    void shouldKeepFalsePositiveRateNearConfigured() {
+        UuidBloomFilter filter = new UuidBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Should report nothing as present while empty")
+    void shouldBeEmptyInitially() {
+        UuidBloomFilter filter = new UuidBloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid size or rate")
+    void shouldRejectInvalidArguments() {
+        assertThatThrownBy(() -> new UuidBloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new UuidBloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
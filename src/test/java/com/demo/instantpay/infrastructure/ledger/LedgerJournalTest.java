@@ -0,0 +1,58 @@
+package com.demo.instantpay.infrastructure.ledger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LedgerJournal Unit Tests")
+class LedgerJournalTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should read back appended entries after reopening the journal")
+    void shouldReadBackEntriesAfterReopen() {
+        Path file = directory.resolve("partition-0.journal");
+        LedgerEntry first = entry("10.50");
+        LedgerEntry second = entry("0.01");
+
+        try (LedgerJournal journal = LedgerJournal.open(file, 4096, true)) {
+            assertThat(journal.tryAppend(first)).isTrue();
+            assertThat(journal.tryAppend(second)).isTrue();
+        }
+
+        try (LedgerJournal journal = LedgerJournal.open(file, 4096, true)) {
+            assertThat(journal.readAll()).containsExactly(first, second);
+            journal.tryAppend(entry("3.00"));
+            assertThat(journal.readAll()).hasSize(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse appends when full and accept them again after reset")
+    void shouldRefuseAppendsWhenFull() {
+        try (LedgerJournal journal = LedgerJournal.open(directory.resolve("small.journal"), LedgerJournal.RECORD_SIZE * 2, false)) {
+            assertThat(journal.tryAppend(entry("1.00"))).isTrue();
+            assertThat(journal.tryAppend(entry("2.00"))).isTrue();
+            assertThat(journal.tryAppend(entry("3.00"))).isFalse();
+
+            journal.reset();
+
+            assertThat(journal.readAll()).isEmpty();
+            assertThat(journal.tryAppend(entry("3.00"))).isTrue();
+        }
+    }
+
+    private LedgerEntry entry(String amount) {
+        return new LedgerEntry(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), new BigDecimal(amount), "USD",
+                UUID.randomUUID(), OffsetDateTime.of(2025, 1, 2, 3, 4, 5, 6_000, ZoneOffset.UTC));
+    }
+}
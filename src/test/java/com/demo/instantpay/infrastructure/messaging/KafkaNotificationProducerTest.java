@@ -0,0 +1,93 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KafkaNotificationProducer Unit Tests")
+class KafkaNotificationProducerTest {
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @InjectMocks
+    private KafkaNotificationProducer producer;
+
+    @Test
+    @DisplayName("Should send the whole batch before waiting and return every acknowledged event")
+    void shouldSendWholeBatchBeforeWaiting() {
+        CompletableFuture<SendResult<String, String>> first = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, String>> second = new CompletableFuture<>();
+        when(kafkaTemplate.send("payment.completed", "key-a", "a")).thenAnswer(invocation -> {
+            verify(kafkaTemplate, never()).send("payment.completed", "key-b", "b");
+            return first;
+        });
+        when(kafkaTemplate.send("payment.completed", "key-b", "b")).thenAnswer(invocation -> {
+            first.complete(ack("a"));
+            second.complete(ack("b"));
+            return second;
+        });
+        OutboxMessage a = message("a");
+        OutboxMessage b = message("b");
+
+        List<UUID> acknowledged = producer.sendBatch(List.of(a, b), Duration.ofSeconds(1));
+
+        assertThat(acknowledged).containsExactly(a.id(), b.id());
+    }
+
+    @Test
+    @DisplayName("Should leave out events that failed or were rejected by the producer")
+    void shouldLeaveOutFailedEvents() {
+        when(kafkaTemplate.send("payment.completed", "key-ok", "ok")).thenReturn(CompletableFuture.completedFuture(ack("ok")));
+        when(kafkaTemplate.send("payment.completed", "key-failed", "failed"))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker unavailable")));
+        when(kafkaTemplate.send("payment.completed", "key-rejected", "rejected")).thenThrow(new KafkaException("record too large"));
+        OutboxMessage ok = message("ok");
+        OutboxMessage failed = message("failed");
+        OutboxMessage rejected = message("rejected");
+
+        List<UUID> acknowledged = producer.sendBatch(List.of(failed, ok, rejected), Duration.ofSeconds(1));
+
+        assertThat(acknowledged).containsExactly(ok.id());
+    }
+
+    @Test
+    @DisplayName("Should leave out events not acknowledged within the timeout")
+    void shouldLeaveOutUnacknowledgedEvents() {
+        when(kafkaTemplate.send("payment.completed", "key-ok", "ok")).thenReturn(CompletableFuture.completedFuture(ack("ok")));
+        when(kafkaTemplate.send("payment.completed", "key-slow", "slow")).thenReturn(new CompletableFuture<>());
+        OutboxMessage ok = message("ok");
+        OutboxMessage slow = message("slow");
+
+        List<UUID> acknowledged = producer.sendBatch(List.of(ok, slow), Duration.ofMillis(50));
+
+        assertThat(acknowledged).containsExactly(ok.id());
+    }
+
+    private OutboxMessage message(String payload) {
+        return new OutboxMessage(UUID.randomUUID(), "payment.completed", "key-" + payload, payload, OffsetDateTime.now());
+    }
+
+    private SendResult<String, String> ack(String payload) {
+        return new SendResult<>(new ProducerRecord<>("payment.completed", payload),
+                new RecordMetadata(new TopicPartition("payment.completed", 0), 0, 0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,190 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.infrastructure.config.OutboxCdcProperties;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("OutboxCdcRelay Tests")
+class OutboxCdcRelayTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer()
+            .withDatabaseName("instantpay_outbox_cdc")
+            .withCommand("postgres", "-c", "wal_level=logical");
+
+    private static Shard database;
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+        database = Shard.open(0, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), 2,
+                "classpath:db/migration");
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        database.close();
+        stopContainer(POSTGRES);
+    }
+
+    private KafkaNotificationProducer kafkaNotificationProducer;
+    private List<OutboxMessage> published;
+    private OutboxCdcRelay relay;
+    private String slotName;
+
+    @BeforeEach
+    void setUp() {
+        slotName = "outbox_cdc_test_" + UUID.randomUUID().toString().replace("-", "");
+        published = new CopyOnWriteArrayList<>();
+        kafkaNotificationProducer = mock(KafkaNotificationProducer.class);
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenAnswer(invocation -> {
+            List<OutboxMessage> batch = invocation.getArgument(0);
+            published.addAll(batch);
+            return batch.stream().map(OutboxMessage::id).toList();
+        });
+        relay = relay(slotName);
+        relay.start();
+        awaitSlot();
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.stop();
+        awaitCondition(() -> database.jdbcTemplate().queryForObject(
+                "SELECT count(*) FROM pg_replication_slots WHERE slot_name = ? AND active", Integer.class, slotName) == 0);
+        database.jdbcTemplate().queryForList("SELECT pg_drop_replication_slot(?)", slotName);
+    }
+
+    @Test
+    @DisplayName("Should publish committed outbox inserts in commit order and confirm the slot")
+    void shouldPublishInCommitOrder() {
+        String confirmedBefore = confirmedLsn();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        inTransaction(() -> {
+            insertEvent(first);
+            insertEvent(second);
+        });
+        inTransaction(() -> insertEvent(third));
+
+        awaitPublished(3);
+        assertThat(published).extracting(OutboxMessage::id).containsExactly(first, second, third);
+        assertThat(published.getFirst().topic()).isEqualTo("payment.completed");
+        assertThat(published.getFirst().createdAt()).isNotNull();
+        awaitCondition(() -> !confirmedLsn().equals(confirmedBefore));
+    }
+
+    @Test
+    @DisplayName("Should not publish outbox inserts that were rolled back")
+    void shouldSkipRolledBackInserts() {
+        UUID rolledBack = UUID.randomUUID();
+        UUID committed = UUID.randomUUID();
+        new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())).executeWithoutResult(status -> {
+            insertEvent(rolledBack);
+            status.setRollbackOnly();
+        });
+        inTransaction(() -> insertEvent(committed));
+
+        awaitPublished(1);
+        assertThat(published).extracting(OutboxMessage::id).containsExactly(committed);
+    }
+
+    @Test
+    @DisplayName("Should replay events from the slot when Kafka did not acknowledge them")
+    void shouldReplayUnacknowledgedEvents() {
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenAnswer(invocation -> {
+            List<OutboxMessage> batch = invocation.getArgument(0);
+            if (failOnce.getAndSet(false)) {
+                return List.of();
+            }
+            published.addAll(batch);
+            return batch.stream().map(OutboxMessage::id).toList();
+        });
+        UUID event = UUID.randomUUID();
+
+        inTransaction(() -> insertEvent(event));
+
+        awaitPublished(1);
+        assertThat(published).extracting(OutboxMessage::id).containsExactly(event);
+        verify(kafkaNotificationProducer, atLeast(2)).sendBatch(anyList(), any());
+    }
+
+    private OutboxCdcRelay relay(String slot) {
+        OutboxCdcProperties properties = new OutboxCdcProperties();
+        properties.setSlotName(slot);
+        properties.setIdleWait(Duration.ofMillis(5));
+        properties.setReconnectDelay(Duration.ofMillis(100));
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(POSTGRES.getJdbcUrl());
+        dataSourceProperties.setUsername(POSTGRES.getUsername());
+        dataSourceProperties.setPassword(POSTGRES.getPassword());
+        return new OutboxCdcRelay(properties, dataSourceProperties, database.jdbcTemplate(),
+                kafkaNotificationProducer, Duration.ofSeconds(1));
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(new DataSourceTransactionManager(database.dataSource()))
+                .executeWithoutResult(status -> work.run());
+    }
+
+    private void insertEvent(UUID id) {
+        database.jdbcTemplate().update("""
+                        INSERT INTO outbox_events (id, aggregate_type, aggregate_id, event_topic, payload)
+                        VALUES (?, 'Transaction', ?, 'payment.completed', '{}')
+                        """,
+                id, UUID.randomUUID());
+    }
+
+    private String confirmedLsn() {
+        return database.jdbcTemplate().queryForObject(
+                "SELECT coalesce(confirmed_flush_lsn::text, '') FROM pg_replication_slots WHERE slot_name = ?",
+                String.class, slotName);
+    }
+
+    private void awaitSlot() {
+        awaitCondition(() -> database.jdbcTemplate().queryForObject(
+                "SELECT count(*) FROM pg_replication_slots WHERE slot_name = ? AND active", Integer.class, slotName) == 1);
+    }
+
+    private void awaitPublished(int events) {
+        awaitCondition(() -> published.size() >= events);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
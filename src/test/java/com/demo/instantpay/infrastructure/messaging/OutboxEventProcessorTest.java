@@ -0,0 +1,136 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxClaimRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxEventProcessor Unit Tests")
+class OutboxEventProcessorTest {
+    @Mock
+    private OutboxClaimRepository outboxClaimRepository;
+    @Mock
+    private KafkaNotificationProducer kafkaNotificationProducer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxEventProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new OutboxEventProcessor(outboxClaimRepository, kafkaNotificationProducer, meterRegistry);
+        ReflectionTestUtils.setField(processor, "batchSize", 2);
+        ReflectionTestUtils.setField(processor, "sendTimeout", Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Should mark only acknowledged events sent with one statement")
+    void shouldDeleteAcknowledgedEventsInBulk() {
+        OutboxMessage acked = message();
+        OutboxMessage failed = message();
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt(), any())).thenReturn(List.of(acked, failed));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of(acked.id()));
+
+        processor.processOutboxEvents();
+
+        verify(outboxClaimRepository).markSent(List.of(acked.id()));
+        verify(outboxClaimRepository, times(1)).claim(anyString(), any(), anyInt(), any());
+        assertThat(meterRegistry.get("outbox.relay.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep relaying while full batches are fully acknowledged")
+    void shouldDrainBacklog() {
+        OutboxMessage first = message();
+        OutboxMessage second = message();
+        OutboxMessage third = message();
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt(), any()))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any()))
+                .thenReturn(List.of(first.id(), second.id()))
+                .thenReturn(List.of(third.id()));
+
+        processor.processOutboxEvents();
+
+        verify(outboxClaimRepository).markSent(List.of(first.id(), second.id()));
+        verify(outboxClaimRepository).markSent(List.of(third.id()));
+        verify(outboxClaimRepository, times(2)).claim(anyString(), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should not mark anything sent when no event was acknowledged")
+    void shouldNotDeleteWhenNothingAcknowledged() {
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt(), any())).thenReturn(List.of(message()));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of());
+
+        processor.processOutboxEvents();
+
+        verify(outboxClaimRepository, never()).markSent(any());
+    }
+
+    @Test
+    @DisplayName("Should send each key's events in claim order on one lane per worker")
+    void shouldFanOutByKeyPreservingOrder() {
+        ReflectionTestUtils.setField(processor, "workers", 2);
+        OutboxMessage a1 = message("a");
+        OutboxMessage b1 = message("b");
+        OutboxMessage a2 = message("a");
+        OutboxMessage b2 = message("b");
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt(), any())).thenReturn(List.of(a1, b1, a2, b2))
+                .thenReturn(List.of());
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenAnswer(invocation -> {
+            List<OutboxMessage> lane = invocation.getArgument(0);
+            return lane.stream().map(OutboxMessage::id).toList();
+        });
+
+        processor.processOutboxEvents();
+
+        verify(outboxClaimRepository, times(2)).claim(anyString(), any(), eq(4), any());
+        verify(kafkaNotificationProducer).sendBatch(List.of(a1, a2), Duration.ofSeconds(1));
+        verify(kafkaNotificationProducer).sendBatch(List.of(b1, b2), Duration.ofSeconds(1));
+        verify(outboxClaimRepository).markSent(argThat(ids -> ids.size() == 4
+                && ids.containsAll(List.of(a1.id(), a2.id(), b1.id(), b2.id()))));
+    }
+
+    @Test
+    @DisplayName("Should leave the events after an unacknowledged one of the same key pending")
+    void shouldNotReorderKeyAfterPartialFailure() {
+        OutboxMessage a1 = message("a");
+        OutboxMessage b1 = message("b");
+        OutboxMessage a2 = message("a");
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt(), any())).thenReturn(List.of(a1, b1, a2));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of(b1.id(), a2.id()));
+
+        processor.processOutboxEvents();
+
+        verify(outboxClaimRepository).markSent(List.of(b1.id()));
+        assertThat(meterRegistry.get("outbox.relay.latency").timer().count()).isEqualTo(1);
+    }
+
+    private OutboxMessage message() {
+        return message(UUID.randomUUID().toString());
+    }
+
+    private OutboxMessage message(String key) {
+        return new OutboxMessage(UUID.randomUUID(), "payment.completed", key, "{}", OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.config.OutboxFastPathProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxClaimRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxFastPath Unit Tests")
+class OutboxFastPathTest {
+    @Mock
+    private OutboxClaimRepository outboxClaimRepository;
+    @Mock
+    private KafkaNotificationProducer kafkaNotificationProducer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxFastPathProperties properties;
+    private OutboxFastPath fastPath;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new OutboxFastPathProperties();
+        properties.setEnabled(true);
+        properties.setQueueCapacity(2);
+        fastPath = fastPath(Duration.ofSeconds(2), "POLLING");
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Should publish events committed together in one batch and mark them sent")
+    void shouldPublishCommittedEvents() throws InterruptedException {
+        OutboxEventEntity first = event();
+        OutboxEventEntity second = event();
+        claimAll();
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of(first.getId(), second.getId()));
+
+        fastPath.publishAfterCommit(first);
+        fastPath.publishAfterCommit(second);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(fastPath.relayQueued(0)).isEqualTo(2);
+        verify(outboxClaimRepository).claimIds(anyString(), eq(Duration.ofSeconds(60)), eq(List.of(first.getId(), second.getId())));
+        verify(kafkaNotificationProducer).sendBatch(
+                argThat(batch -> batch.stream().map(OutboxMessage::id).toList().equals(List.of(first.getId(), second.getId()))),
+                any());
+        verify(outboxClaimRepository).markSent(List.of(first.getId(), second.getId()));
+        assertThat(meterRegistry.counter("outbox.fast-path", "result", "published").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should only send the events it claimed and leave those the poller holds")
+    void shouldSkipEventsClaimedByPoller() throws InterruptedException {
+        OutboxEventEntity polled = event();
+        OutboxEventEntity fresh = event();
+        when(outboxClaimRepository.claimIds(anyString(), any(), anyCollection())).thenReturn(List.of(fresh.getId()));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of(fresh.getId()));
+
+        fastPath.publishAfterCommit(polled);
+        fastPath.publishAfterCommit(fresh);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(fastPath.relayQueued(0)).isEqualTo(1);
+        verify(kafkaNotificationProducer).sendBatch(
+                argThat(batch -> batch.stream().map(OutboxMessage::id).toList().equals(List.of(fresh.getId()))),
+                any());
+        verify(outboxClaimRepository).markSent(List.of(fresh.getId()));
+    }
+
+    @Test
+    @DisplayName("Should send nothing when the poller already claimed every queued event")
+    void shouldSendNothingWhenNothingClaimed() throws InterruptedException {
+        when(outboxClaimRepository.claimIds(anyString(), any(), anyCollection())).thenReturn(List.of());
+
+        fastPath.publishAfterCommit(event());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(fastPath.relayQueued(0)).isZero();
+        verifyNoInteractions(kafkaNotificationProducer);
+        verify(outboxClaimRepository, never()).markSent(any());
+    }
+
+    @Test
+    @DisplayName("Should not publish events of a rolled-back transaction")
+    void shouldSkipRolledBackEvents() throws InterruptedException {
+        fastPath.publishAfterCommit(event());
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(fastPath.relayQueued(0)).isZero();
+        verifyNoInteractions(kafkaNotificationProducer, outboxClaimRepository);
+    }
+
+    @Test
+    @DisplayName("Should leave events to the poller when the queue is full")
+    void shouldDropWhenQueueIsFull() {
+        fastPath.publishAfterCommit(event());
+        fastPath.publishAfterCommit(event());
+        fastPath.publishAfterCommit(event());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(meterRegistry.counter("outbox.fast-path", "result", "dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not mark anything sent when no event was acknowledged")
+    void shouldLeaveUnacknowledgedEventsPending() throws InterruptedException {
+        claimAll();
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of());
+
+        fastPath.publishAfterCommit(event());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(fastPath.relayQueued(0)).isZero();
+        verify(outboxClaimRepository, never()).markSent(any());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void shouldIgnoreEventsWhenDisabled() throws InterruptedException {
+        properties.setEnabled(false);
+
+        fastPath.publishAfterCommit(event());
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        assertThat(fastPath.relayQueued(0)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refuse to start when the poller's minimum age does not exceed the send timeout")
+    void shouldRejectMinAgeNotAboveSendTimeout() {
+        assertThatThrownBy(() -> fastPath(Duration.ofSeconds(1), "POLLING"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("outbox.poll.min-age");
+    }
+
+    @Test
+    @DisplayName("Should stay off in CDC relay mode")
+    void shouldStayOffInCdcMode() throws InterruptedException {
+        OutboxFastPath cdcFastPath = fastPath(Duration.ZERO, "CDC");
+
+        cdcFastPath.publishAfterCommit(event());
+        cdcFastPath.start();
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        assertThat(cdcFastPath.isRunning()).isFalse();
+        assertThat(cdcFastPath.relayQueued(0)).isZero();
+    }
+
+    private OutboxFastPath fastPath(Duration minAge, String relayMode) {
+        return new OutboxFastPath(properties, outboxClaimRepository, kafkaNotificationProducer, meterRegistry,
+                Duration.ofSeconds(1), Duration.ofSeconds(60), minAge, relayMode);
+    }
+
+    private void claimAll() {
+        when(outboxClaimRepository.claimIds(anyString(), any(), anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<UUID>>getArgument(2)));
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static OutboxEventEntity event() {
+        return OutboxEventEntity.builder()
+                .id(UUID.randomUUID())
+                .aggregateType("Transaction")
+                .aggregateId(UUID.randomUUID())
+                .eventTopic("payment.completed")
+                .payload("{}")
+                .status(OutboxEventEntity.EventStatus.PENDING)
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+}
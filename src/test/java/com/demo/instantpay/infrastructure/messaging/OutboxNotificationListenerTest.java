@@ -0,0 +1,88 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@DisplayName("OutboxNotificationListener Tests")
+class OutboxNotificationListenerTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer().withDatabaseName("instantpay_outbox_notify");
+
+    private static Shard database;
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+        database = Shard.open(0, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), 2,
+                "classpath:db/migration");
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        database.close();
+        stopContainer(POSTGRES);
+    }
+
+    private OutboxEventProcessor outboxEventProcessor;
+    private OutboxNotificationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(POSTGRES.getJdbcUrl());
+        dataSourceProperties.setUsername(POSTGRES.getUsername());
+        dataSourceProperties.setPassword(POSTGRES.getPassword());
+        outboxEventProcessor = mock(OutboxEventProcessor.class);
+        listener = new OutboxNotificationListener(dataSourceProperties, outboxEventProcessor, Duration.ofMillis(100));
+        listener.start();
+        verify(outboxEventProcessor, timeout(5000)).processOutboxEvents();
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    @DisplayName("Should run the relay once an outbox event is committed")
+    void shouldRelayOnCommit() {
+        insertEvent();
+
+        verify(outboxEventProcessor, timeout(5000).times(2)).processOutboxEvents();
+    }
+
+    @Test
+    @DisplayName("Should not run the relay for an outbox event that was rolled back")
+    void shouldIgnoreRolledBackInsert() throws InterruptedException {
+        new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())).executeWithoutResult(status -> {
+            insertEvent();
+            status.setRollbackOnly();
+        });
+
+        Thread.sleep(1500);
+        verify(outboxEventProcessor, times(1)).processOutboxEvents();
+    }
+
+    private void insertEvent() {
+        database.jdbcTemplate().update("""
+                        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_topic, payload)
+                        VALUES ('Transaction', ?, 'payment.completed', '{}')
+                        """,
+                UUID.randomUUID());
+    }
+}
@@ -0,0 +1,168 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.infrastructure.config.OutboxPartitionProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxPartitionRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxPartitionRepository.OutboxPartition;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("OutboxPartitionMaintenance Tests")
+class OutboxPartitionMaintenanceTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer().withDatabaseName("instantpay_outbox_partitions");
+
+    private static Shard database;
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+        database = Shard.open(0, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), 2,
+                "classpath:db/migration");
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        database.close();
+        stopContainer(POSTGRES);
+    }
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private OutboxPartitionRepository outboxPartitionRepository;
+
+    @BeforeEach
+    void setUp() {
+        database.jdbcTemplate().update("DELETE FROM outbox_events");
+        outboxPartitionRepository = new OutboxPartitionRepository(database.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should create daily partitions ahead of time")
+    void shouldCreatePartitionsAhead() {
+        maintenance("POLLING").maintain(outboxPartitionRepository, "primary");
+
+        assertThat(outboxPartitionRepository.findDailyPartitions())
+                .extracting(OutboxPartition::day)
+                .contains(today, today.plusDays(1), today.plusDays(2), today.plusDays(3));
+    }
+
+    @Test
+    @DisplayName("Should drop past partitions whose events were all sent and keep those with pending events")
+    void shouldDropOnlyFullySentPartitions() {
+        LocalDate sentDay = today.minusDays(10);
+        LocalDate pendingDay = today.minusDays(9);
+        outboxPartitionRepository.ensurePartitions(sentDay, 2);
+        insertEvent(sentDay, "SENT");
+        insertEvent(pendingDay, "PENDING");
+
+        maintenance("POLLING").maintain(outboxPartitionRepository, "primary");
+
+        assertThat(outboxPartitionRepository.findDailyPartitions())
+                .extracting(OutboxPartition::day)
+                .doesNotContain(sentDay)
+                .contains(pendingDay, today);
+        assertThat(database.jdbcTemplate().queryForObject("SELECT count(*) FROM outbox_events", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop past partitions regardless of status in CDC mode")
+    void shouldDropPastPartitionsInCdcMode() {
+        LocalDate pastDay = today.minusDays(5);
+        outboxPartitionRepository.ensurePartitions(pastDay, 1);
+        insertEvent(pastDay, "PENDING");
+
+        maintenance("CDC").maintain(outboxPartitionRepository, "primary");
+
+        assertThat(outboxPartitionRepository.findDailyPartitions())
+                .extracting(OutboxPartition::day)
+                .doesNotContain(pastDay);
+    }
+
+    @Test
+    @DisplayName("Should create a partition whose day already has rows in the default partition, and keep creating the other days when one fails")
+    void shouldCreatePartitionsDespiteDefaultRows() {
+        LocalDate blockedDay = today.plusDays(1);
+        LocalDate defaultRowDay = today.plusDays(2);
+        dropPartition(blockedDay);
+        dropPartition(defaultRowDay);
+        insertEvent(defaultRowDay, "PENDING");
+        database.jdbcTemplate().execute("CREATE TYPE " + partitionName(blockedDay) + " AS (id UUID)");
+        try {
+            maintenance("POLLING").maintain(outboxPartitionRepository, "primary");
+        } finally {
+            database.jdbcTemplate().execute("DROP TYPE " + partitionName(blockedDay));
+        }
+
+        assertThat(outboxPartitionRepository.findDailyPartitions())
+                .extracting(OutboxPartition::day)
+                .contains(today, defaultRowDay, today.plusDays(3))
+                .doesNotContain(blockedDay);
+        assertThat(count(partitionName(defaultRowDay))).isEqualTo(1);
+        assertThat(count("outbox_events_default")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should purge sent rows from the default partition and keep pending ones")
+    void shouldPurgeSentRowsFromDefaultPartition() {
+        LocalDate unpartitionedDay = today.minusDays(30);
+        insertEvent(unpartitionedDay, "SENT");
+        insertEvent(unpartitionedDay, "PENDING");
+
+        maintenance("POLLING").maintain(outboxPartitionRepository, "primary");
+
+        assertThat(database.jdbcTemplate().queryForList("SELECT status FROM outbox_events_default", String.class))
+                .containsExactly("PENDING");
+        assertThat(outboxPartitionRepository.countDefault()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should purge past rows from the default partition regardless of status in CDC mode")
+    void shouldPurgeDefaultPartitionInCdcMode() {
+        insertEvent(today.minusDays(30), "PENDING");
+
+        maintenance("CDC").maintain(outboxPartitionRepository, "primary");
+
+        assertThat(outboxPartitionRepository.countDefault()).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OutboxPartitionMaintenance maintenance(String relayMode) {
+        return new OutboxPartitionMaintenance(new OutboxPartitionRepository(database.jdbcTemplate()),
+                new OutboxPartitionProperties(), mock(ObjectProvider.class), relayMode);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return "outbox_events_p" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private static void dropPartition(LocalDate day) {
+        database.jdbcTemplate().execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    private static long count(String table) {
+        Long count = database.jdbcTemplate().queryForObject("SELECT count(*) FROM " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private void insertEvent(LocalDate day, String status) {
+        database.jdbcTemplate().update("""
+                        INSERT INTO outbox_events (aggregate_type, aggregate_id, event_topic, payload, status, created_at)
+                        VALUES ('Transaction', ?, 'payment.completed', '{}', ?, ?)
+                        """,
+                UUID.randomUUID(), status, day.atTime(12, 0).atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,128 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.messaging.PgOutputDecoder.Begin;
+import com.demo.instantpay.infrastructure.messaging.PgOutputDecoder.Change;
+import com.demo.instantpay.infrastructure.messaging.PgOutputDecoder.Commit;
+import com.demo.instantpay.infrastructure.messaging.PgOutputDecoder.Insert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PgOutputDecoder Unit Tests")
+class PgOutputDecoderTest {
+    private final PgOutputDecoder decoder = new PgOutputDecoder();
+
+    @Test
+    @DisplayName("Should decode an insert with the column names of its relation")
+    void shouldDecodeInsert() throws IOException {
+        assertThat(decoder.decode(relation(16384, "outbox_events", "id", "payload", "processed_at"))).isEmpty();
+
+        Optional<Change> change = decoder.decode(insert(16384, "7f1d2c1e-0000-0000-0000-000000000001", "{\"a\":1}", null));
+
+        assertThat(change).containsInstanceOf(Insert.class);
+        Insert insert = (Insert) change.orElseThrow();
+        assertThat(insert.table()).isEqualTo("outbox_events");
+        assertThat(insert.values())
+                .containsEntry("id", "7f1d2c1e-0000-0000-0000-000000000001")
+                .containsEntry("payload", "{\"a\":1}")
+                .containsEntry("processed_at", null);
+    }
+
+    @Test
+    @DisplayName("Should decode transaction boundaries with the end position of the commit")
+    void shouldDecodeBeginAndCommit() throws IOException {
+        assertThat(decoder.decode(begin())).containsInstanceOf(Begin.class);
+        assertThat(decoder.decode(commit(0x1000L, 0x1050L))).contains(new Commit(0x1050L));
+    }
+
+    @Test
+    @DisplayName("Should skip messages the relay does not need")
+    void shouldSkipOtherMessages() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('Y');
+        out.writeInt(25);
+
+        assertThat(decoder.decode(ByteBuffer.wrap(bytes.toByteArray()))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject an insert for a relation it has not seen")
+    void shouldRejectInsertForUnknownRelation() {
+        assertThatThrownBy(() -> decoder.decode(insert(42, "x")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ByteBuffer relation(int oid, String name, String... columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('R');
+        out.writeInt(oid);
+        writeString(out, "public");
+        writeString(out, name);
+        out.writeByte('d');
+        out.writeShort(columns.length);
+        for (String column : columns) {
+            out.writeByte(0);
+            writeString(out, column);
+            out.writeInt(25);
+            out.writeInt(-1);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static ByteBuffer insert(int oid, String... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('I');
+        out.writeInt(oid);
+        out.writeByte('N');
+        out.writeShort(values.length);
+        for (String value : values) {
+            if (value == null) {
+                out.writeByte('n');
+            } else {
+                byte[] text = value.getBytes(StandardCharsets.UTF_8);
+                out.writeByte('t');
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static ByteBuffer begin() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('B');
+        out.writeLong(0x1050L);
+        out.writeLong(0L);
+        out.writeInt(731);
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static ByteBuffer commit(long commitLsn, long endLsn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('C');
+        out.writeByte(0);
+        out.writeLong(commitLsn);
+        out.writeLong(endLsn);
+        out.writeLong(0L);
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.UTF_8));
+        out.writeByte(0);
+    }
+}
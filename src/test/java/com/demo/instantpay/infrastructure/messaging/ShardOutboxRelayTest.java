@@ -0,0 +1,88 @@
+package com.demo.instantpay.infrastructure.messaging;
+
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxClaimRepository;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ShardOutboxRelay Unit Tests")
+class ShardOutboxRelayTest {
+    @Mock
+    private ShardRouter shardRouter;
+    @Mock
+    private KafkaNotificationProducer kafkaNotificationProducer;
+    @Mock
+    private OutboxClaimRepository outboxClaimRepository;
+
+    private ShardOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new ShardOutboxRelay(shardRouter, kafkaNotificationProducer);
+        Function<JdbcTemplate, OutboxClaimRepository> claimRepositories = jdbcTemplate -> outboxClaimRepository;
+        ReflectionTestUtils.setField(relay, "claimRepositories", claimRepositories);
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "sendTimeout", Duration.ofSeconds(1));
+        when(shardRouter.shards()).thenReturn(List.of(new Shard(0, null, null)));
+    }
+
+    @Test
+    @DisplayName("Should leave the events after an unacknowledged one of the same key pending")
+    void shouldNotReorderKeyAfterPartialFailure() {
+        OutboxMessage a1 = message("a");
+        OutboxMessage b1 = message("b");
+        OutboxMessage a2 = message("a");
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt())).thenReturn(List.of(a1, b1, a2));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenReturn(List.of(b1.id(), a2.id()));
+
+        relay.relayShardOutboxEvents();
+
+        verify(outboxClaimRepository).markSent(List.of(b1.id()));
+    }
+
+    @Test
+    @DisplayName("Should send each key's events in claim order on one lane per worker")
+    void shouldFanOutByKeyPreservingOrder() {
+        ReflectionTestUtils.setField(relay, "workers", 2);
+        OutboxMessage a1 = message("a");
+        OutboxMessage b1 = message("b");
+        OutboxMessage a2 = message("a");
+        when(outboxClaimRepository.claim(anyString(), any(), anyInt())).thenReturn(List.of(a1, b1, a2));
+        when(kafkaNotificationProducer.sendBatch(anyList(), any())).thenAnswer(invocation -> {
+            List<OutboxMessage> lane = invocation.getArgument(0);
+            return lane.stream().map(OutboxMessage::id).toList();
+        });
+
+        relay.relayShardOutboxEvents();
+
+        verify(outboxClaimRepository).claim(anyString(), any(), eq(4));
+        verify(kafkaNotificationProducer).sendBatch(List.of(a1, a2), Duration.ofSeconds(1));
+        verify(kafkaNotificationProducer).sendBatch(List.of(b1), Duration.ofSeconds(1));
+        verify(outboxClaimRepository).markSent(argThat(ids -> ids.size() == 3
+                && ids.containsAll(List.of(a1.id(), a2.id(), b1.id()))));
+    }
+
+    private OutboxMessage message(String key) {
+        return new OutboxMessage(UUID.randomUUID(), "payment.completed", key, "{}", OffsetDateTime.now());
+    }
+}
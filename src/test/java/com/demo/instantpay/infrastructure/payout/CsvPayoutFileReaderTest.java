@@ -0,0 +1,98 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CsvPayoutFileReader Unit Tests")
+class CsvPayoutFileReaderTest {
+    private static final UUID SENDER = UUID.randomUUID();
+    private static final UUID RECIPIENT = UUID.randomUUID();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should read entries in file order using the header's column order")
+    void shouldReadEntries() throws IOException {
+        Path file = write("""
+                amount,currency,reference,sender_account_id,recipient_account_id
+                10.50,USD,"Salary, March",%1$s,%2$s
+
+                0.01,USD,,%1$s,%2$s
+                """.formatted(SENDER, RECIPIENT));
+
+        try (PayoutFileReader reader = new CsvPayoutFileReader(file)) {
+            PayoutInstruction first = reader.next();
+            assertThat(first.entryNumber()).isEqualTo(1);
+            assertThat(first.senderAccountId()).isEqualTo(SENDER);
+            assertThat(first.recipientAccountId()).isEqualTo(RECIPIENT);
+            assertThat(first.amount()).isEqualByComparingTo("10.50");
+            assertThat(first.reference()).isEqualTo("Salary, March");
+            assertThat(first.isValid()).isTrue();
+
+            PayoutInstruction second = reader.next();
+            assertThat(second.entryNumber()).isEqualTo(2);
+            assertThat(second.amount()).isEqualByComparingTo("0.01");
+
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a malformed line as an invalid entry and keep reading")
+    void shouldReportMalformedLine() throws IOException {
+        Path file = write("""
+                sender_account_id,recipient_account_id,amount,currency
+                not-a-uuid,%2$s,1.00,USD
+                %1$s,%2$s
+                %1$s,%2$s,2.00,USD
+                """.formatted(SENDER, RECIPIENT));
+
+        try (PayoutFileReader reader = new CsvPayoutFileReader(file)) {
+            assertThat(reader.next().error()).startsWith("Malformed field");
+            assertThat(reader.next().error()).startsWith("Expected at least");
+            PayoutInstruction valid = reader.next();
+            assertThat(valid.isValid()).isTrue();
+            assertThat(valid.entryNumber()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should resume after skipped entries")
+    void shouldSkipEntries() throws IOException {
+        StringBuilder content = new StringBuilder("sender_account_id,recipient_account_id,amount,currency\n");
+        for (int i = 1; i <= 5; i++) {
+            content.append(SENDER).append(',').append(RECIPIENT).append(',').append(i).append(".00,USD\n");
+        }
+
+        try (PayoutFileReader reader = new CsvPayoutFileReader(write(content.toString()))) {
+            reader.skip(3);
+            PayoutInstruction next = reader.next();
+            assertThat(next.entryNumber()).isEqualTo(4);
+            assertThat(next.amount()).isEqualByComparingTo("4.00");
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a file whose header lacks a required column")
+    void shouldRejectMissingColumn() throws IOException {
+        Path file = write("sender_account_id,amount,currency\n");
+
+        assertThatThrownBy(() -> new CsvPayoutFileReader(file))
+                .isInstanceOf(PayoutFileException.class)
+                .hasMessageContaining("recipient_account_id");
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("payout.csv"), content);
+    }
+}
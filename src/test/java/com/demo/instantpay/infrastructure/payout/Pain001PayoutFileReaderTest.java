@@ -0,0 +1,95 @@
+package com.demo.instantpay.infrastructure.payout;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Pain001PayoutFileReader Unit Tests")
+class Pain001PayoutFileReaderTest {
+    private static final UUID PAYROLL = UUID.randomUUID();
+    private static final UUID OPERATIONS = UUID.randomUUID();
+    private static final UUID EMPLOYEE = UUID.randomUUID();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should read every credit transfer with the debtor of its payment information block")
+    void shouldReadCreditTransfers() throws IOException {
+        Path file = write("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pain.001.001.09">
+                  <CstmrCdtTrfInitn>
+                    <GrpHdr><MsgId>MSG-1</MsgId><NbOfTxs>3</NbOfTxs></GrpHdr>
+                    <PmtInf>
+                      <PmtInfId>P-1</PmtInfId>
+                      <DbtrAcct><Id><Othr><Id>%1$s</Id></Othr></Id></DbtrAcct>
+                      <CdtTrfTxInf>
+                        <PmtId><EndToEndId>E2E-1</EndToEndId></PmtId>
+                        <Amt><InstdAmt Ccy="EUR">1200.00</InstdAmt></Amt>
+                        <CdtrAcct><Id><Othr><Id>%3$s</Id></Othr></Id></CdtrAcct>
+                      </CdtTrfTxInf>
+                      <CdtTrfTxInf>
+                        <PmtId><EndToEndId>E2E-2</EndToEndId></PmtId>
+                        <Amt><InstdAmt Ccy="EUR">5.00</InstdAmt></Amt>
+                        <CdtrAcct><Id><IBAN>DE89370400440532013000</IBAN></Id></CdtrAcct>
+                      </CdtTrfTxInf>
+                    </PmtInf>
+                    <PmtInf>
+                      <DbtrAcct><Id><Othr><Id>%2$s</Id></Othr></Id></DbtrAcct>
+                      <CdtTrfTxInf>
+                        <Amt><InstdAmt Ccy="EUR">7.25</InstdAmt></Amt>
+                        <CdtrAcct><Id><Othr><Id>%3$s</Id></Othr></Id></CdtrAcct>
+                      </CdtTrfTxInf>
+                    </PmtInf>
+                  </CstmrCdtTrfInitn>
+                </Document>
+                """.formatted(PAYROLL, OPERATIONS, EMPLOYEE));
+
+        try (PayoutFileReader reader = new Pain001PayoutFileReader(file)) {
+            PayoutInstruction first = reader.next();
+            assertThat(first.entryNumber()).isEqualTo(1);
+            assertThat(first.senderAccountId()).isEqualTo(PAYROLL);
+            assertThat(first.recipientAccountId()).isEqualTo(EMPLOYEE);
+            assertThat(first.amount()).isEqualByComparingTo("1200.00");
+            assertThat(first.currency()).isEqualTo("EUR");
+            assertThat(first.reference()).isEqualTo("E2E-1");
+
+            PayoutInstruction iban = reader.next();
+            assertThat(iban.entryNumber()).isEqualTo(2);
+            assertThat(iban.isValid()).isFalse();
+
+            PayoutInstruction third = reader.next();
+            assertThat(third.senderAccountId()).isEqualTo(OPERATIONS);
+            assertThat(third.amount()).isEqualByComparingTo("7.25");
+
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse documents declaring a DTD")
+    void shouldRefuseDtd() throws IOException {
+        Path file = write("""
+                <?xml version="1.0"?>
+                <!DOCTYPE Document [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+                <Document><CstmrCdtTrfInitn><PmtInf><CdtTrfTxInf><PmtId><EndToEndId>&xxe;</EndToEndId></PmtId></CdtTrfTxInf></PmtInf></CstmrCdtTrfInitn></Document>
+                """);
+
+        try (PayoutFileReader reader = new Pain001PayoutFileReader(file)) {
+            assertThatThrownBy(reader::next).isInstanceOf(PayoutFileException.class);
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("payout.xml"), content);
+    }
+}
@@ -3,15 +3,18 @@ package com.demo.instantpay.infrastructure.persistence.repository;
 import com.demo.instantpay.AbstractDbIntegrationTest;
 import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
 import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.service.HotAccountConsolidationJob;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.math.BigDecimal;
@@ -25,8 +28,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 @DisplayName("AccountRepository Tests")
-@EnableJpaRepositories(basePackages = "com.alpian.instantpay.infrastructure.persistence.repository")
-@EntityScan(basePackages = "com.alpian.instantpay.infrastructure.persistence.entity")
+@EnableJpaRepositories(basePackages = "com.demo.instantpay.infrastructure.persistence.repository")
+@EntityScan(basePackages = "com.demo.instantpay.infrastructure.persistence.entity")
 @TestPropertySource(properties = {
         "spring.jpa.hibernate.ddl-auto=none",
         "spring.jpa.show-sql=false",
@@ -55,6 +58,10 @@ class AccountRepositoryTest extends AbstractDbIntegrationTest {
     private AccountRepository accountRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     private UserEntity user1;
     private UserEntity user2;
@@ -177,6 +184,17 @@ class AccountRepositoryTest extends AbstractDbIntegrationTest {
         assertThat(found).isEmpty();
     }
 
+    @Test
+    @DisplayName("Should lock all requested accounts in one statement ordered by ID")
+    void shouldFindAllAccountsByIdForUpdateOrderedById() {
+        List<AccountEntity> found = accountRepository.findAllByIdForUpdate(
+                List.of(account3.getId(), account1.getId(), UUID.randomUUID()));
+
+        assertThat(found).extracting(AccountEntity::getId)
+                .containsExactlyInAnyOrder(account1.getId(), account3.getId());
+        assertThat(found.get(0).getId().toString()).isLessThan(found.get(1).getId().toString());
+    }
+
     @Test
     @DisplayName("Should save and retrieve account with encrypted account number")
     void shouldSaveAndRetrieveAccountWithEncryptedAccountNumber() {
@@ -241,4 +259,49 @@ class AccountRepositoryTest extends AbstractDbIntegrationTest {
         Optional<AccountEntity> deleted = accountRepository.findById(accountId);
         assertThat(deleted).isEmpty();
     }
+
+    @Test
+    @DisplayName("Should accumulate slot credits and sweep them exactly once")
+    void shouldCreditAndSweepBalanceSlots() {
+        accountRepository.creditBalanceSlot(account1.getId(), 0, new BigDecimal("10.00"));
+        accountRepository.creditBalanceSlot(account1.getId(), 1, new BigDecimal("15.00"));
+        accountRepository.creditBalanceSlot(account1.getId(), 0, new BigDecimal("5.00"));
+
+        assertThat(accountRepository.findAccountIdsWithPendingSlotBalance()).containsExactly(account1.getId());
+        assertThat(totalBalance(account1.getId())).isEqualByComparingTo("1030.00");
+
+        assertThat(accountRepository.sweepBalanceSlots(account1.getId())).isEqualByComparingTo("30.00");
+        assertThat(accountRepository.sweepBalanceSlots(account1.getId())).isEqualByComparingTo("0");
+        assertThat(accountRepository.findAccountIdsWithPendingSlotBalance()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should fold slot credits into the account balance on consolidation")
+    void shouldConsolidateSlotCreditsIntoBalance() {
+        accountRepository.creditBalanceSlot(account1.getId(), 0, new BigDecimal("40.00"));
+        accountRepository.creditBalanceSlot(account1.getId(), 3, new BigDecimal("60.00"));
+        accountRepository.creditBalanceSlot(account3.getId(), 1, new BigDecimal("25.00"));
+
+        new HotAccountConsolidationJob(accountRepository, transactionManager).consolidate();
+        accountRepository.flush();
+
+        assertThat(balance(account1.getId())).isEqualByComparingTo("1100.00");
+        assertThat(balance(account3.getId())).isEqualByComparingTo("2025.00");
+        assertThat(totalBalance(account1.getId())).isEqualByComparingTo("1100.00");
+        assertThat(totalBalance(account3.getId())).isEqualByComparingTo("2025.00");
+        assertThat(accountRepository.findAccountIdsWithPendingSlotBalance()).isEmpty();
+    }
+
+    private BigDecimal balance(UUID accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+
+    private BigDecimal totalBalance(UUID accountId) {
+        return jdbcTemplate.queryForObject("""
+                        SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0)
+                        FROM accounts a
+                        WHERE a.id = ?
+                        """,
+                BigDecimal.class, accountId);
+    }
 }
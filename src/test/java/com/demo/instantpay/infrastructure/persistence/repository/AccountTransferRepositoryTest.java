@@ -0,0 +1,209 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.BatchItemResult;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.Outcome;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AccountTransferRepository Tests")
+class AccountTransferRepositoryTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer().withDatabaseName("instantpay_transfer_funds");
+
+    private static Shard database;
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+        database = Shard.open(0, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), 2,
+                "classpath:db/migration");
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        database.close();
+        stopContainer(POSTGRES);
+    }
+
+    private JdbcTemplate jdbcTemplate;
+    private AccountTransferRepository accountTransferRepository;
+    private String senderUsername;
+    private UUID senderAccount;
+    private UUID recipientAccount;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = database.jdbcTemplate();
+        accountTransferRepository = new AccountTransferRepository(jdbcTemplate);
+        senderUsername = "sender-" + UUID.randomUUID();
+        senderAccount = account(user(senderUsername), "USD", "1000.00");
+        recipientAccount = account(user("recipient-" + UUID.randomUUID()), "USD", "500.00");
+    }
+
+    @Test
+    @DisplayName("Should move the amount and write the transaction and outbox rows in one call")
+    void shouldTransferFunds() {
+        TransferCommand command = command(senderAccount, recipientAccount, "100.00", UUID.randomUUID());
+
+        TransferResult result = accountTransferRepository.transfer(command);
+
+        assertThat(result.outcome()).isEqualTo(Outcome.COMPLETED);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("900.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("600.00");
+        assertThat(jdbcTemplate.queryForObject("""
+                        SELECT status FROM transactions
+                        WHERE id = ? AND sender_account_id = ? AND recipient_account_id = ? AND amount = 100.00
+                        """,
+                String.class, command.transactionId(), senderAccount, recipientAccount)).isEqualTo("COMPLETED");
+        assertThat(jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*) FROM outbox_events
+                        WHERE aggregate_id = ? AND event_topic = 'payment.completed' AND status = 'PENDING'
+                          AND partition_key = ?
+                        """,
+                Integer.class, command.transactionId(), senderAccount)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave balances untouched and write nothing when funds are insufficient")
+    void shouldRejectInsufficientFunds() {
+        TransferCommand command = command(senderAccount, recipientAccount, "1000.01", UUID.randomUUID());
+
+        TransferResult result = accountTransferRepository.transfer(command);
+
+        assertThat(result.outcome()).isEqualTo(Outcome.INSUFFICIENT_FUNDS);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("1000.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("500.00");
+        assertThat(countRows("transactions", command.transactionId())).isZero();
+        assertThat(countOutbox(command.transactionId())).isZero();
+    }
+
+    @Test
+    @DisplayName("Should report a reused idempotency key as duplicate without moving money again")
+    void shouldRejectDuplicateIdempotencyKey() {
+        UUID idempotencyKey = UUID.randomUUID();
+        accountTransferRepository.transfer(command(senderAccount, recipientAccount, "100.00", idempotencyKey));
+        TransferCommand retry = command(senderAccount, recipientAccount, "100.00", idempotencyKey);
+
+        TransferResult result = accountTransferRepository.transfer(retry);
+
+        assertThat(result.outcome()).isEqualTo(Outcome.DUPLICATE);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("900.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("600.00");
+        assertThat(countRows("transactions", retry.transactionId())).isZero();
+        assertThat(countOutbox(retry.transactionId())).isZero();
+    }
+
+    @Test
+    @DisplayName("Should sweep the sender's slot credits into its balance when the balance alone falls short")
+    void shouldSweepSlotsToCoverTransfer() {
+        jdbcTemplate.update("""
+                        INSERT INTO account_balance_slots (account_id, slot, balance)
+                        VALUES (?, 0, 150.00), (?, 1, 50.00)
+                        """,
+                senderAccount, senderAccount);
+        TransferCommand command = command(senderAccount, recipientAccount, "1100.00", UUID.randomUUID());
+
+        TransferResult result = accountTransferRepository.transfer(command);
+
+        assertThat(result.outcome()).isEqualTo(Outcome.COMPLETED);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("100.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(balance) FROM account_balance_slots WHERE account_id = ?",
+                BigDecimal.class, senderAccount)).isEqualByComparingTo("0");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("1600.00");
+    }
+
+    @Test
+    @DisplayName("Should refuse a sender account owned by another user")
+    void shouldRejectForeignSenderAccount() {
+        TransferCommand command = new TransferCommand(UUID.randomUUID(), senderAccount, recipientAccount,
+                new BigDecimal("10.00"), "USD", UUID.randomUUID(), "someone-else", OffsetDateTime.now(),
+                "payment.completed", "{}");
+
+        assertThat(accountTransferRepository.transfer(command).outcome()).isEqualTo(Outcome.NOT_OWNER);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    @DisplayName("Should reserve idempotency keys in a batch, replay a retried key and free the key of a refused transfer")
+    void shouldReserveIdempotencyKeysInBatch() {
+        UUID idempotencyKey = UUID.randomUUID();
+        UUID refusedKey = UUID.randomUUID();
+        TransferCommand original = command(senderAccount, recipientAccount, "100.00", idempotencyKey, "{\"status\":\"COMPLETED\"}");
+        TransferCommand retry = command(senderAccount, recipientAccount, "100.00", idempotencyKey, "{}");
+        TransferCommand refused = command(senderAccount, recipientAccount, "5000.00", refusedKey, "{}");
+        OffsetDateTime expiresAt = OffsetDateTime.now().plusHours(1);
+
+        List<BatchItemResult> results = accountTransferRepository.transferAll(List.of(original, retry, refused), expiresAt);
+
+        assertThat(results.get(0).result().outcome()).isEqualTo(Outcome.COMPLETED);
+        assertThat(results.get(1).storedResponse()).isEqualTo("{\"status\":\"COMPLETED\"}");
+        assertThat(results.get(2).result().outcome()).isEqualTo(Outcome.INSUFFICIENT_FUNDS);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("900.00");
+        assertThat(countRows("transactions", retry.transactionId())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE username = ? AND idempotency_key = ?",
+                Integer.class, senderUsername, refusedKey)).isZero();
+
+        List<BatchItemResult> later = accountTransferRepository.transferAll(
+                List.of(command(senderAccount, recipientAccount, "100.00", idempotencyKey)), expiresAt);
+
+        assertThat(later.getFirst().storedResponse()).isEqualTo("{\"status\":\"COMPLETED\"}");
+        assertThat(balance(senderAccount)).isEqualByComparingTo("900.00");
+    }
+
+    private TransferCommand command(UUID sender, UUID recipient, String amount, UUID idempotencyKey) {
+        return command(sender, recipient, amount, idempotencyKey, "{}");
+    }
+
+    private TransferCommand command(UUID sender, UUID recipient, String amount, UUID idempotencyKey, String payload) {
+        return new TransferCommand(UUID.randomUUID(), sender, recipient, new BigDecimal(amount), "USD",
+                idempotencyKey, senderUsername, OffsetDateTime.now(), "payment.completed", payload);
+    }
+
+    private UUID user(String username) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, username, password_hash, role) VALUES (?, ?, '$2a$10$hashed', 'USER')",
+                id, username);
+        return id;
+    }
+
+    private UUID account(UUID userId, String currency, String balance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("""
+                        INSERT INTO accounts (id, user_id, account_number_encrypted, balance, currency)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                id, userId, new byte[]{1}, new BigDecimal(balance), currency);
+        return id;
+    }
+
+    private BigDecimal balance(UUID accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+
+    private int countRows(String table, UUID id) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class, id);
+        return count == null ? 0 : count;
+    }
+
+    private int countOutbox(UUID transactionId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE aggregate_id = ?",
+                Integer.class, transactionId);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,65 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRate;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRates;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FxRateRepository Tests")
+class FxRateRepositoryTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer().withDatabaseName("instantpay_fx_rates");
+
+    private static Shard database;
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+        database = Shard.open(0, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), 2,
+                "classpath:db/migration");
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        database.close();
+        stopContainer(POSTGRES);
+    }
+
+    private JdbcTemplate jdbcTemplate;
+    private FxRateRepository fxRateRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = database.jdbcTemplate();
+        jdbcTemplate.update("DELETE FROM fx_rates");
+        fxRateRepository = new FxRateRepository(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should move the version forward on every insert, update and delete")
+    void shouldVersionEveryChange() {
+        FxRates empty = fxRateRepository.findAll();
+        jdbcTemplate.update("INSERT INTO fx_rates (base_currency, quote_currency, rate) VALUES ('USD', 'EUR', 0.92), ('USD', 'CHF', 0.88)");
+        FxRates inserted = fxRateRepository.findAll();
+        jdbcTemplate.update("UPDATE fx_rates SET rate = 0.93 WHERE quote_currency = 'EUR'");
+        FxRates updated = fxRateRepository.findAll();
+        jdbcTemplate.update("DELETE FROM fx_rates WHERE quote_currency = 'CHF'");
+        FxRates deleted = fxRateRepository.findAll();
+
+        assertThat(empty.rates()).isEmpty();
+        assertThat(inserted.version()).isGreaterThan(empty.version());
+        assertThat(updated.version()).isGreaterThan(inserted.version());
+        assertThat(deleted.version()).isGreaterThan(updated.version());
+        assertThat(deleted.rates()).extracting(FxRate::quoteCurrency).containsExactly("EUR");
+        assertThat(deleted.rates().getFirst().rate()).isEqualByComparingTo("0.93");
+    }
+}
@@ -0,0 +1,184 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.infrastructure.messaging.OutboxMessage;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("OutboxClaimRepository Tests")
+class OutboxClaimRepositoryTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer().withDatabaseName("instantpay_outbox_claims");
+
+    private static Shard database;
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+        database = Shard.open(0, POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), 8,
+                "classpath:db/migration");
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        database.close();
+        stopContainer(POSTGRES);
+    }
+
+    private OutboxClaimRepository outboxClaimRepository;
+
+    @BeforeEach
+    void setUp() {
+        database.jdbcTemplate().update("DELETE FROM outbox_events");
+        outboxClaimRepository = new OutboxClaimRepository(database.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should claim the oldest pending events in creation order")
+    void shouldClaimOldestFirst() {
+        List<UUID> ids = insertPending(5);
+
+        List<OutboxMessage> claimed = outboxClaimRepository.claim("relay-a", Duration.ofMinutes(1), 3);
+
+        assertThat(claimed).extracting(OutboxMessage::id).containsExactlyElementsOf(ids.subList(0, 3));
+    }
+
+    @Test
+    @DisplayName("Should not hand claimed events to another relay until the lease runs out")
+    void shouldRespectLease() {
+        insertPending(2);
+
+        assertThat(outboxClaimRepository.claim("relay-a", Duration.ofMinutes(1), 10)).hasSize(2);
+        assertThat(outboxClaimRepository.claim("relay-b", Duration.ofMinutes(1), 10)).isEmpty();
+
+        database.jdbcTemplate().update("UPDATE outbox_events SET claimed_until = CURRENT_TIMESTAMP - INTERVAL '1 second'");
+
+        assertThat(outboxClaimRepository.claim("relay-b", Duration.ofMinutes(1), 10)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should not claim events that are not pending")
+    void shouldSkipNonPendingEvents() {
+        insertPending(1);
+        database.jdbcTemplate().update("UPDATE outbox_events SET status = 'SENT'");
+
+        assertThat(outboxClaimRepository.claim("relay-a", Duration.ofMinutes(1), 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should key claimed events by partition key and fall back to the aggregate id")
+    void shouldKeyEventsByPartitionKey() {
+        UUID keyed = insertPending(2).getFirst();
+        UUID account = UUID.randomUUID();
+        database.jdbcTemplate().update("UPDATE outbox_events SET partition_key = ? WHERE id = ?", account, keyed);
+        UUID aggregate = database.jdbcTemplate().queryForObject(
+                "SELECT aggregate_id FROM outbox_events WHERE id <> ?", UUID.class, keyed);
+
+        List<OutboxMessage> claimed = outboxClaimRepository.claim("relay-a", Duration.ofMinutes(1), 10);
+
+        assertThat(claimed).extracting(OutboxMessage::key).containsExactly(account.toString(), aggregate.toString());
+    }
+
+    @Test
+    @DisplayName("Should leave events younger than the minimum age unclaimed")
+    void shouldSkipEventsYoungerThanMinAge() {
+        insertPending(1);
+        database.jdbcTemplate().update("UPDATE outbox_events SET created_at = CURRENT_TIMESTAMP");
+
+        assertThat(outboxClaimRepository.claim("relay-a", Duration.ofMinutes(1), 10, Duration.ofMinutes(1))).isEmpty();
+        assertThat(outboxClaimRepository.claim("relay-a", Duration.ofMinutes(1), 10, Duration.ZERO)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should not let another relay overtake an unacknowledged event of the same key")
+    void shouldKeepKeyOrderAfterPartialFailure() {
+        UUID account = UUID.randomUUID();
+        List<UUID> ids = insertPending(3);
+        database.jdbcTemplate().update("UPDATE outbox_events SET partition_key = ? WHERE id = ANY(?)",
+                ps -> {
+                    ps.setObject(1, account);
+                    ps.setArray(2, ps.getConnection().createArrayOf("uuid", ids.subList(0, 2).toArray()));
+                });
+        database.jdbcTemplate().update("UPDATE outbox_events SET claimed_by = 'relay-a', claimed_until = CURRENT_TIMESTAMP + INTERVAL '1 minute' WHERE id = ?",
+                ids.getFirst());
+
+        assertThat(outboxClaimRepository.claim("relay-b", Duration.ofMinutes(1), 10))
+                .extracting(OutboxMessage::id).containsExactly(ids.get(2));
+        assertThat(outboxClaimRepository.claimIds("fast-path", Duration.ofMinutes(1), List.of(ids.get(1)))).isEmpty();
+
+        database.jdbcTemplate().update("UPDATE outbox_events SET claimed_until = CURRENT_TIMESTAMP - INTERVAL '1 second' WHERE id = ?",
+                ids.getFirst());
+
+        assertThat(outboxClaimRepository.claim("relay-b", Duration.ofMinutes(1), 10))
+                .extracting(OutboxMessage::id).containsExactly(ids.get(0), ids.get(1));
+    }
+
+    @Test
+    @DisplayName("Should claim given events together with the older events of their key, and only if none is held elsewhere")
+    void shouldClaimIdsInKeyOrder() {
+        UUID account = UUID.randomUUID();
+        List<UUID> ids = insertPending(2);
+        database.jdbcTemplate().update("UPDATE outbox_events SET partition_key = ?", account);
+
+        assertThat(outboxClaimRepository.claimIds("fast-path", Duration.ofMinutes(1), List.of(ids.get(1)))).isEmpty();
+        assertThat(outboxClaimRepository.claimIds("fast-path", Duration.ofMinutes(1), ids))
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(outboxClaimRepository.claimIds("fast-path-2", Duration.ofMinutes(1), ids)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should relay every event exactly once across concurrent relays")
+    void shouldClaimDisjointBatchesAcrossConcurrentRelays() {
+        List<UUID> ids = insertPending(2_000);
+        ConcurrentLinkedQueue<UUID> relayed = new ConcurrentLinkedQueue<>();
+
+        try (ExecutorService relays = Executors.newFixedThreadPool(6)) {
+            for (int relay = 0; relay < 6; relay++) {
+                String relayId = "relay-" + relay;
+                relays.execute(() -> {
+                    List<OutboxMessage> batch;
+                    while (!(batch = outboxClaimRepository.claim(relayId, Duration.ofMinutes(1), 25)).isEmpty()) {
+                        List<UUID> batchIds = batch.stream().map(OutboxMessage::id).toList();
+                        relayed.addAll(batchIds);
+                        outboxClaimRepository.markSent(batchIds);
+                    }
+                });
+            }
+        }
+
+        assertThat(relayed).hasSize(ids.size()).doesNotHaveDuplicates();
+        assertThat(relayed).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(database.jdbcTemplate().queryForObject(
+                "SELECT count(*) FROM outbox_events WHERE status <> 'SENT' OR processed_at IS NULL", Long.class)).isZero();
+    }
+
+    private List<UUID> insertPending(int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            database.jdbcTemplate().update("""
+                            INSERT INTO outbox_events (id, aggregate_type, aggregate_id, event_topic, payload, status, created_at)
+                            VALUES (?, 'Transaction', ?, 'payment.completed', '{}', 'PENDING',
+                                    TIMESTAMPTZ '2025-01-01 00:00:00+00' + ? * INTERVAL '1 millisecond')
+                            """,
+                    id, UUID.randomUUID(), i);
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -27,8 +27,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @DisplayName("OutboxEventRepository Tests")
-@EnableJpaRepositories(basePackages = "com.alpian.instantpay.infrastructure.persistence.repository")
-@EntityScan(basePackages = "com.alpian.instantpay.infrastructure.persistence.entity")
+@EnableJpaRepositories(basePackages = "com.demo.instantpay.infrastructure.persistence.repository")
+@EntityScan(basePackages = "com.demo.instantpay.infrastructure.persistence.entity")
 @TestPropertySource(properties = {
         "spring.jpa.hibernate.ddl-auto=none",
         "spring.jpa.show-sql=false",
@@ -0,0 +1,250 @@
+package com.demo.instantpay.infrastructure.persistence.repository;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.persistence.converter.EncryptionAttributeConverter;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.sharding.Shard;
+import com.demo.instantpay.infrastructure.sharding.ShardRouter;
+import com.demo.instantpay.service.ShardedPaymentService;
+import com.demo.instantpay.service.SingleStatementTransferExecutor;
+import com.demo.instantpay.service.TransferSagaRecoveryJob;
+import com.demo.instantpay.service.VelocityLimiter;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("ShardTransferRepository Tests")
+class ShardTransferRepositoryTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> SHARD_0 = createPostgresContainer().withDatabaseName("instantpay_shard_0");
+    private static final PostgreSQLContainer<?> SHARD_1 = createPostgresContainer().withDatabaseName("instantpay_shard_1");
+
+    private static ShardRouter shardRouter;
+
+    @BeforeAll
+    static void startShards() {
+        startContainer(SHARD_0);
+        startContainer(SHARD_1);
+        shardRouter = new ShardRouter(List.of(open(0, SHARD_0), open(1, SHARD_1)), 128);
+    }
+
+    @AfterAll
+    static void stopShards() {
+        shardRouter.close();
+        stopContainer(SHARD_0);
+        stopContainer(SHARD_1);
+    }
+
+    private ShardTransferRepository shardTransferRepository;
+    private SingleStatementTransferExecutor singleStatementTransferExecutor;
+    private ShardAccountRepository shardAccountRepository;
+    private ShardedPaymentService shardedPaymentService;
+    private UserEntity sender;
+    private UserEntity recipient;
+
+    @BeforeEach
+    void setUp() {
+        EncryptionAttributeConverter converter = new EncryptionAttributeConverter();
+        ReflectionTestUtils.setField(converter, "encryptionKeyBase64", "VTgDasP1R776SZNpu+5p+KYyznjZUaGbzBO2Pfs7rAY=");
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        shardTransferRepository = new ShardTransferRepository();
+        shardAccountRepository = new ShardAccountRepository(shardRouter, converter);
+        singleStatementTransferExecutor = new SingleStatementTransferExecutor(mock(AccountTransferRepository.class), objectMapper);
+        shardedPaymentService = new ShardedPaymentService(shardRouter, shardTransferRepository,
+                singleStatementTransferExecutor, velocityLimiter(new VelocityLimitProperties()));
+        sender = user("shard-sender-");
+        recipient = user("shard-recipient-");
+    }
+
+    @Test
+    @DisplayName("Should transfer within one shard in a single local transaction")
+    void shouldTransferWithinShard() {
+        UUID senderAccount = accountOn(0, sender, "USD");
+        UUID recipientAccount = accountOn(0, recipient, "USD");
+
+        PaymentResponse response = shardedPaymentService.sendMoney(
+                request(senderAccount, recipientAccount, "100.00"), UUID.randomUUID(), sender.getUsername());
+
+        assertThat(response.status()).isEqualTo("COMPLETED");
+        assertThat(balance(senderAccount)).isEqualByComparingTo("900.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("1100.00");
+        assertThat(count(0, "SELECT COUNT(*) FROM transactions WHERE id = ?", response.transactionId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should debit and credit across shards and publish completion from the recipient shard")
+    void shouldTransferAcrossShards() {
+        UUID senderAccount = accountOn(0, sender, "USD");
+        UUID recipientAccount = accountOn(1, recipient, "USD");
+
+        PaymentResponse response = shardedPaymentService.sendMoney(
+                request(senderAccount, recipientAccount, "250.00"), UUID.randomUUID(), sender.getUsername());
+
+        assertThat(response.status()).isEqualTo("COMPLETED");
+        assertThat(balance(senderAccount)).isEqualByComparingTo("750.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("1250.00");
+        assertThat(sagaStatus(0, response.transactionId())).isEqualTo("COMPLETED");
+        assertThat(transactionStatus(0, response.transactionId())).isEqualTo("COMPLETED");
+        assertThat(count(1, "SELECT COUNT(*) FROM outbox_events WHERE aggregate_id = ? AND event_topic = 'payment.completed'",
+                response.transactionId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refund the sender when the recipient shard refuses the credit")
+    void shouldCompensateRefusedCredit() {
+        UUID senderAccount = accountOn(0, sender, "USD");
+        UUID recipientAccount = accountOn(1, recipient, "EUR");
+
+        assertThatThrownBy(() -> shardedPaymentService.sendMoney(
+                request(senderAccount, recipientAccount, "100.00"), UUID.randomUUID(), sender.getUsername()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Currency mismatch for recipient");
+
+        assertThat(balance(senderAccount)).isEqualByComparingTo("1000.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("1000.00");
+        assertThat(count(0, """
+                SELECT COUNT(*) FROM outbox_events o
+                JOIN transfer_sagas s ON s.id = o.aggregate_id
+                WHERE s.sender_account_id = ? AND s.status = 'COMPENSATED' AND o.event_topic = 'payment.compensated'
+                """, senderAccount)).isEqualTo(1);
+        assertThat(count(0, "SELECT COUNT(*) FROM transactions WHERE sender_account_id = ? AND status = 'FAILED'",
+                senderAccount)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a reused idempotency key and insufficient funds across shards")
+    void shouldRejectDuplicateAndInsufficientFunds() {
+        UUID senderAccount = accountOn(0, sender, "USD");
+        UUID recipientAccount = accountOn(1, recipient, "USD");
+        UUID idempotencyKey = UUID.randomUUID();
+        shardedPaymentService.sendMoney(request(senderAccount, recipientAccount, "10.00"), idempotencyKey, sender.getUsername());
+
+        assertThatThrownBy(() -> shardedPaymentService.sendMoney(
+                request(senderAccount, recipientAccount, "10.00"), idempotencyKey, sender.getUsername()))
+                .isInstanceOf(IdempotencyException.class);
+        assertThatThrownBy(() -> shardedPaymentService.sendMoney(
+                request(senderAccount, recipientAccount, "5000.00"), UUID.randomUUID(), sender.getUsername()))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(balance(senderAccount)).isEqualByComparingTo("990.00");
+    }
+
+    @Test
+    @DisplayName("Should count payments against velocity limits and hand back the ones that were refused")
+    void shouldEnforceVelocityLimits() {
+        VelocityLimitProperties properties = new VelocityLimitProperties();
+        properties.setEnabled(true);
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setHourly(new BigDecimal("300.00"));
+        properties.getTiers().put("STANDARD", limits);
+        ShardedPaymentService limitedService = new ShardedPaymentService(shardRouter, shardTransferRepository,
+                singleStatementTransferExecutor, velocityLimiter(properties));
+        UUID senderAccount = accountOn(0, sender, "USD");
+        UUID recipientAccount = accountOn(1, recipient, "USD");
+        UUID euroAccount = accountOn(1, recipient, "EUR");
+
+        assertThatThrownBy(() -> limitedService.sendMoney(
+                request(senderAccount, euroAccount, "200.00"), UUID.randomUUID(), sender.getUsername()))
+                .isInstanceOf(IllegalArgumentException.class);
+        limitedService.sendMoney(request(senderAccount, recipientAccount, "250.00"), UUID.randomUUID(), sender.getUsername());
+        assertThatThrownBy(() -> limitedService.sendMoney(
+                request(senderAccount, recipientAccount, "100.00"), UUID.randomUUID(), sender.getUsername()))
+                .isInstanceOf(VelocityLimitExceededException.class);
+
+        assertThat(balance(senderAccount)).isEqualByComparingTo("750.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("1250.00");
+    }
+
+    @Test
+    @DisplayName("Should finish a saga left debited by a crash")
+    void shouldRecoverStalledSaga() {
+        UUID senderAccount = accountOn(0, sender, "USD");
+        UUID recipientAccount = accountOn(1, recipient, "USD");
+        TransferCommand command = new TransferCommand(UUID.randomUUID(), senderAccount, recipientAccount,
+                new BigDecimal("40.00"), "USD", UUID.randomUUID(), sender.getUsername(), OffsetDateTime.now(),
+                "payment.completed", "{}");
+        shardTransferRepository.debit(shardRouter.shardFor(senderAccount), command);
+        assertThat(transactionStatus(0, command.transactionId())).isEqualTo("PENDING");
+
+        new TransferSagaRecoveryJob(shardRouter, shardTransferRepository, shardedPaymentService, 0, 100).recover();
+
+        assertThat(sagaStatus(0, command.transactionId())).isEqualTo("COMPLETED");
+        assertThat(transactionStatus(0, command.transactionId())).isEqualTo("COMPLETED");
+        assertThat(balance(senderAccount)).isEqualByComparingTo("960.00");
+        assertThat(balance(recipientAccount)).isEqualByComparingTo("1040.00");
+    }
+
+    private static VelocityLimiter velocityLimiter(VelocityLimitProperties properties) {
+        return new VelocityLimiter(properties, mock(AccountRepository.class), mock(TransactionRepository.class));
+    }
+
+    private static Shard open(int index, PostgreSQLContainer<?> container) {
+        return Shard.open(index, container.getJdbcUrl(), container.getUsername(), container.getPassword(), 4,
+                "classpath:db/migration");
+    }
+
+    private UserEntity user(String prefix) {
+        return UserEntity.builder()
+                .id(UUID.randomUUID())
+                .username(prefix + UUID.randomUUID())
+                .passwordHash("$2a$10$hashed")
+                .role("USER")
+                .build();
+    }
+
+    private UUID accountOn(int shardIndex, UserEntity owner, String currency) {
+        while (true) {
+            UUID accountId = shardAccountRepository.createAccount(owner, "SHARD-" + UUID.randomUUID(),
+                    new BigDecimal("1000.00"), currency);
+            if (shardRouter.shardFor(accountId).index() == shardIndex) {
+                return accountId;
+            }
+        }
+    }
+
+    private PaymentRequest request(UUID senderAccount, UUID recipientAccount, String amount) {
+        return new PaymentRequest(new BigDecimal(amount), "USD", senderAccount, recipientAccount);
+    }
+
+    private BigDecimal balance(UUID accountId) {
+        return shardAccountRepository.findTotalBalance(accountId).orElseThrow();
+    }
+
+    private String sagaStatus(int shardIndex, UUID sagaId) {
+        return shardRouter.shards().get(shardIndex).jdbcTemplate()
+                .queryForObject("SELECT status FROM transfer_sagas WHERE id = ?", String.class, sagaId);
+    }
+
+    private String transactionStatus(int shardIndex, UUID transactionId) {
+        return shardRouter.shards().get(shardIndex).jdbcTemplate()
+                .queryForObject("SELECT status FROM transactions WHERE id = ?", String.class, transactionId);
+    }
+
+    private int count(int shardIndex, String sql, Object... args) {
+        Integer count = shardRouter.shards().get(shardIndex).jdbcTemplate().queryForObject(sql, Integer.class, args);
+        return count == null ? 0 : count;
+    }
+}
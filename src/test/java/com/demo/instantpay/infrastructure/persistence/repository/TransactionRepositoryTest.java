@@ -29,8 +29,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 @DisplayName("TransactionRepository Tests")
-@EnableJpaRepositories(basePackages = "com.alpian.instantpay.infrastructure.persistence.repository")
-@EntityScan(basePackages = "com.alpian.instantpay.infrastructure.persistence.entity")
+@EnableJpaRepositories(basePackages = "com.demo.instantpay.infrastructure.persistence.repository")
+@EntityScan(basePackages = "com.demo.instantpay.infrastructure.persistence.entity")
 @TestPropertySource(properties = {
         "spring.jpa.hibernate.ddl-auto=none",
         "spring.jpa.show-sql=false",
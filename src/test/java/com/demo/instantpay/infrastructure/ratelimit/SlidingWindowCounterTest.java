@@ -0,0 +1,57 @@
+package com.demo.instantpay.infrastructure.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("SlidingWindowCounter Unit Tests")
+class SlidingWindowCounterTest {
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    @Test
+    @DisplayName("Should sum values inside the window and drop them once they slide out")
+    void shouldSlideValuesOutOfWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+        counter.add(100, 0);
+        counter.add(50, 30 * MINUTE);
+
+        assertThat(counter.sum(59 * MINUTE)).isEqualTo(150);
+        assertThat(counter.sum(60 * MINUTE)).isEqualTo(50);
+        assertThat(counter.sum(90 * MINUTE)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reuse a bucket for a later time without carrying over its old value")
+    void shouldResetReusedBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+        counter.add(100, 5 * MINUTE);
+        counter.add(7, 65 * MINUTE);
+
+        assertThat(counter.sum(65 * MINUTE)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should drop values for a time whose bucket was already reused")
+    void shouldDropValuesOlderThanReusedBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+        counter.add(7, 65 * MINUTE);
+        counter.add(100, 5 * MINUTE);
+        counter.add(-100, 5 * MINUTE);
+
+        assertThat(counter.sum(65 * MINUTE)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should take back a value added to a bucket still in the window")
+    void shouldSubtractFromLiveBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+        counter.add(100, 10 * MINUTE);
+        counter.add(40, 10 * MINUTE);
+        counter.add(-100, 10 * MINUTE);
+
+        assertThat(counter.sum(20 * MINUTE)).isEqualTo(40);
+    }
+}
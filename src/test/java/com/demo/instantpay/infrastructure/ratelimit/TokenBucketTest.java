@@ -0,0 +1,56 @@
+package com.demo.instantpay.infrastructure.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TokenBucket Unit Tests")
+class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Should allow a burst up to capacity and then report the wait for the next token")
+    void shouldAllowBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    @DisplayName("Should refill at the configured rate")
+    void shouldRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+        assertThat(bucket.tryAcquire(0)).isZero();
+
+        assertThat(bucket.tryAcquire(SECOND / 20)).isEqualTo(SECOND / 20);
+        assertThat(bucket.tryAcquire(SECOND / 10)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not save up more tokens than its capacity while idle")
+    void shouldCapTokensAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        long later = 60 * SECOND;
+
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should report full once every taken token is refilled")
+    void shouldReportFullAfterRefill() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.isFull(SECOND / 10)).isFalse();
+        assertThat(bucket.isFull(2 * SECOND / 10)).isTrue();
+    }
+}
@@ -0,0 +1,112 @@
+package com.demo.instantpay.infrastructure.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TransientFailureClassifier Unit Tests")
+class TransientFailureClassifierTest {
+
+    private final TransientFailureClassifier classifier = new TransientFailureClassifier();
+
+    @Test
+    @DisplayName("Should classify deadlock and serialization failures in the cause chain as retryable")
+    void shouldClassifyTransientSqlStatesAsRetryable() {
+        assertThat(classifier.classify(wrap("40P01"))).isTrue();
+        assertThat(classifier.classify(wrap("40001"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should classify optimistic locking conflicts as retryable")
+    void shouldClassifyOptimisticLockingFailuresAsRetryable() {
+        assertThat(classifier.classify(new ObjectOptimisticLockingFailureException("AccountEntity", UUID.randomUUID())))
+                .isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not retry other SQL states or non SQL failures")
+    void shouldNotClassifyOtherFailuresAsRetryable() {
+        assertThat(classifier.classify(wrap("23505"))).isFalse();
+        assertThat(classifier.classify(new IllegalArgumentException("Amount must be positive"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should retry a deadlocked call and count the recovery")
+    void shouldRetryDeadlockedCallAndCountRecovery() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .customPolicy(new SimpleRetryPolicy(3, classifier))
+                .noBackoff()
+                .withListener(new RetryMetricsListener(meterRegistry, "test.retry", classifier))
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryTemplate.execute(context -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw wrap("40P01");
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(2);
+        assertThat(meterRegistry.counter("test.retry.attempts.failed", "reason", "40P01").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("test.retry.retried", "outcome", "recovered").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should stop after the configured attempts and count the exhaustion")
+    void shouldStopAfterMaxAttempts() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .customPolicy(new SimpleRetryPolicy(3, classifier))
+                .noBackoff()
+                .withListener(new RetryMetricsListener(meterRegistry, "test.retry", classifier))
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryTemplate.execute(context -> {
+            attempts.incrementAndGet();
+            throw wrap("40001");
+        })).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.counter("test.retry.retried", "outcome", "exhausted").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should neither retry nor count business failures")
+    void shouldNotCountBusinessFailures() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .customPolicy(new SimpleRetryPolicy(3, classifier))
+                .noBackoff()
+                .withListener(new RetryMetricsListener(meterRegistry, "test.retry", classifier))
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryTemplate.execute(context -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Amount must be positive");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    private static CannotAcquireLockException wrap(String sqlState) {
+        return new CannotAcquireLockException("could not execute statement",
+                new SQLException("database error", sqlState));
+    }
+}
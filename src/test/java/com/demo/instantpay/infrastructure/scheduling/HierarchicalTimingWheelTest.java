@@ -0,0 +1,84 @@
+package com.demo.instantpay.infrastructure.scheduling;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("HierarchicalTimingWheel Unit Tests")
+class HierarchicalTimingWheelTest {
+
+    @Test
+    @DisplayName("Should fire entries in due order once their tick is reached")
+    void shouldFireEntriesInDueOrder() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        wheel.add("c", 50);
+        wheel.add("a", 10);
+        wheel.add("b", 30);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(29, fired::add);
+        assertThat(fired).containsExactly("a");
+
+        wheel.advanceTo(60, fired::add);
+        assertThat(fired).containsExactly("a", "b", "c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should cascade entries beyond one rotation down to the tick they are due")
+    void shouldCascadeEntriesAcrossLevels() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 4, 5);
+        List<Long> dueTicks = List.of(7L, 9L, 20L, 21L, 70L, 300L);
+        dueTicks.forEach(due -> wheel.add(due, due));
+        List<Long> fired = new ArrayList<>();
+
+        for (long now = 6; now <= 300; now++) {
+            long tick = now;
+            wheel.advanceTo(now, due -> {
+                assertThat(due).isEqualTo(tick);
+                fired.add(due);
+            });
+        }
+
+        assertThat(fired).containsExactlyElementsOf(dueTicks);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should fire every entry passed over by a large jump in time")
+    void shouldFireEntriesPassedOverByJump() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1, 16, 0);
+        for (int i = 1; i <= 1000; i++) {
+            wheel.add(i, i * 7L);
+        }
+        List<Integer> fired = new ArrayList<>();
+
+        wheel.advanceTo(3500, fired::add);
+
+        assertThat(fired).hasSize(500).isSorted();
+        assertThat(wheel.size()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("Should refuse entries that are already due")
+    void shouldRefuseEntriesAlreadyDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 1_000);
+
+        assertThat(wheel.add("past", 500)).isFalse();
+        assertThat(wheel.add("current tick", 1_050)).isFalse();
+        assertThat(wheel.add("next tick", 1_100)).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive tick")
+    void shouldRejectNonPositiveTick() {
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<String>(0, 8, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
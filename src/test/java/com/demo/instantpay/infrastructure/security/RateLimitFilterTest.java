@@ -0,0 +1,133 @@
+package com.demo.instantpay.infrastructure.security;
+
+import com.demo.instantpay.infrastructure.config.RateLimitProperties;
+import com.demo.instantpay.infrastructure.ratelimit.RequestRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RateLimitFilter Unit Tests")
+class RateLimitFilterTest {
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setUser(new RateLimitProperties.Bucket(0.1, 3));
+        properties.setAccount(new RateLimitProperties.Bucket(0.1, 1));
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        filter = new RateLimitFilter(new RequestRateLimiter(properties, new SimpleMeterRegistry()), objectMapper,
+                properties.getMaxBodyBytes());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After once the user's bucket is empty")
+    void shouldRejectWhenUserBucketIsEmpty() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(filter(new MockHttpServletRequest("GET", "/api/payments/holds")).getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = filter(new MockHttpServletRequest("GET", "/api/payments/holds"));
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        assertThat(rejected.getContentAsString()).contains("RATE_LIMITED");
+    }
+
+    @Test
+    @DisplayName("Should limit each sender account and still pass the body on")
+    void shouldLimitSenderAccount() throws Exception {
+        UUID senderAccountId = UUID.randomUUID();
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(payment(senderAccountId), accepted, chain);
+        MockHttpServletResponse rejected = filter(payment(senderAccountId));
+        MockHttpServletResponse otherAccount = filter(payment(UUID.randomUUID()));
+
+        assertThat(accepted.getStatus()).isEqualTo(200);
+        HttpServletRequest forwarded = (HttpServletRequest) chain.getRequest();
+        assertThat(new String(forwarded.getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                .contains(senderAccountId.toString());
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(otherAccount.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should refuse a payment body without Content-Length with 411")
+    void shouldRejectChunkedPaymentBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/payments/holds");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.addHeader(HttpHeaders.TRANSFER_ENCODING, "chunked");
+
+        MockHttpServletResponse rejected = filter(request);
+
+        assertThat(rejected.getStatus()).isEqualTo(411);
+        assertThat(rejected.getContentAsString()).contains("LENGTH_REQUIRED");
+    }
+
+    @Test
+    @DisplayName("Should refuse a payment body over the size limit with 413")
+    void shouldRejectOversizedPaymentBody() throws Exception {
+        MockHttpServletRequest request = payment(UUID.randomUUID());
+        request.setContent(new byte[new RateLimitProperties().getMaxBodyBytes() + 1]);
+
+        MockHttpServletResponse rejected = filter(request);
+
+        assertThat(rejected.getStatus()).isEqualTo(413);
+        assertThat(rejected.getContentAsString()).contains("PAYLOAD_TOO_LARGE");
+    }
+
+    @Test
+    @DisplayName("Should leave unauthenticated requests and other paths alone")
+    void shouldSkipUnauthenticatedAndOtherPaths() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter(new MockHttpServletRequest("GET", "/api/payouts/batch")).getStatus()).isEqualTo(200);
+            assertThat(filter(new MockHttpServletRequest("GET", "/api/payments-export")).getStatus()).isEqualTo(200);
+        }
+        SecurityContextHolder.clearContext();
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter(new MockHttpServletRequest("GET", "/api/payments/holds")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest payment(UUID senderAccountId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/payments");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(("""
+                {"amount": 10.00, "currency": "USD", "senderAccountId": "%s", "recipientAccountId": "%s"}
+                """.formatted(senderAccountId, UUID.randomUUID())).getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
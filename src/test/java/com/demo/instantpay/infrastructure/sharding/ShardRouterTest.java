@@ -0,0 +1,116 @@
+package com.demo.instantpay.infrastructure.sharding;
+
+import com.demo.instantpay.infrastructure.persistence.repository.AccountPlacementRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ShardRouter Unit Tests")
+class ShardRouterTest {
+    private static final int ACCOUNTS = 20_000;
+
+    @Test
+    @DisplayName("Should route the same account id to the same shard")
+    void shouldRouteDeterministically() {
+        ShardRouter router = router(4);
+        ShardRouter sameLayout = router(4);
+        UUID accountId = UUID.randomUUID();
+
+        assertThat(router.shardFor(accountId).index()).isEqualTo(sameLayout.shardFor(accountId).index());
+    }
+
+    @Test
+    @DisplayName("Should spread accounts roughly evenly across shards")
+    void shouldSpreadAccountsEvenly() {
+        ShardRouter router = router(4);
+
+        Map<Integer, Long> counts = accounts().stream()
+                .collect(Collectors.groupingBy(id -> router.shardFor(id).index(), Collectors.counting()));
+
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(ACCOUNTS / 4 * 7 / 10L, ACCOUNTS / 4 * 13 / 10L));
+    }
+
+    @Test
+    @DisplayName("Should only move accounts to the new shard when a shard is added")
+    void shouldMoveOnlyAccountsOfNewShard() {
+        ShardRouter before = router(3);
+        ShardRouter after = router(4);
+
+        List<UUID> accounts = accounts();
+        List<UUID> moved = accounts.stream()
+                .filter(id -> before.shardFor(id).index() != after.shardFor(id).index())
+                .toList();
+
+        assertThat(moved).allSatisfy(id -> assertThat(after.shardFor(id).index()).isEqualTo(3));
+        assertThat(moved.size()).isBetween(ACCOUNTS / 4 * 7 / 10, ACCOUNTS / 4 * 13 / 10);
+    }
+
+    @Test
+    @DisplayName("Should keep placed accounts on their recorded shard when a shard is added")
+    void shouldKeepPlacedAccountsWhenShardIsAdded() {
+        Map<UUID, Integer> directory = new HashMap<>();
+        AccountPlacementRepository placements = mock(AccountPlacementRepository.class);
+        doAnswer(invocation -> directory.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(placements).record(any(), anyInt());
+        when(placements.findShardIndex(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(directory.get(invocation.<UUID>getArgument(0))));
+        ShardRouter before = router(3, placements);
+        List<UUID> accounts = accounts();
+        accounts.forEach(before::place);
+
+        ShardRouter after = router(4, placements);
+
+        assertThat(accounts).allSatisfy(id -> assertThat(after.shardFor(id).index()).isEqualTo(directory.get(id)));
+        assertThat(after.place(UUID.randomUUID()).index()).isBetween(0, 3);
+    }
+
+    @Test
+    @DisplayName("Should route accounts without a placement by the hash ring")
+    void shouldFallBackToRingWithoutPlacement() {
+        AccountPlacementRepository placements = mock(AccountPlacementRepository.class);
+        when(placements.findShardIndex(any())).thenReturn(Optional.empty());
+        UUID accountId = UUID.randomUUID();
+
+        assertThat(router(4, placements).shardFor(accountId).index()).isEqualTo(router(4).shardFor(accountId).index());
+    }
+
+    @Test
+    @DisplayName("Should reject an empty shard list")
+    void shouldRejectEmptyShardList() {
+        assertThatThrownBy(() -> new ShardRouter(List.of(), 16))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ShardRouter router(int shardCount) {
+        return router(shardCount, null);
+    }
+
+    private ShardRouter router(int shardCount, AccountPlacementRepository placements) {
+        return new ShardRouter(IntStream.range(0, shardCount)
+                .mapToObj(index -> new Shard(index, null, null))
+                .toList(), 128, placements);
+    }
+
+    private List<UUID> accounts() {
+        List<UUID> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(UUID.randomUUID());
+        }
+        return accounts;
+    }
+}
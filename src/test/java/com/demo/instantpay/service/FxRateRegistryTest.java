@@ -0,0 +1,41 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRate;
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRates;
+import com.demo.instantpay.service.exception.FxRateUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FxRateRegistry Unit Tests")
+class FxRateRegistryTest {
+    @Mock
+    private FxRateRepository fxRateRepository;
+
+    @Test
+    @DisplayName("Should refuse quotes until rates were read within the maximum age")
+    void shouldRefuseQuotesFromStaleRates() {
+        FxRateRegistry registry = new FxRateRegistry(fxRateRepository, Duration.ofMinutes(5));
+        when(fxRateRepository.findAll()).thenReturn(new FxRates(3, List.of(
+                new FxRate("USD", "EUR", new BigDecimal("0.9200000000"), OffsetDateTime.now()))));
+
+        assertThatThrownBy(() -> registry.quote("USD", "EUR")).isInstanceOf(FxRateUnavailableException.class);
+
+        registry.refresh();
+
+        assertThat(registry.quote("USD", "EUR").snapshotVersion()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,78 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.persistence.repository.FxRateRepository.FxRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FxRateSnapshot Unit Tests")
+class FxRateSnapshotTest {
+    private static final OffsetDateTime EARLIER = OffsetDateTime.of(2026, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime LATER = EARLIER.plusMinutes(5);
+    private static final Instant LOADED_AT = LATER.plusMinutes(1).toInstant();
+
+    @Test
+    @DisplayName("Should return configured rates stamped with the version of the rate table")
+    void shouldReturnConfiguredRates() {
+        FxRateSnapshot snapshot = FxRateSnapshot.of(7, List.of(
+                new FxRate("USD", "EUR", new BigDecimal("0.9200000000"), EARLIER),
+                new FxRate("GBP", "USD", new BigDecimal("1.2700000000"), LATER)), LOADED_AT);
+
+        FxQuote quote = snapshot.quote("USD", "EUR");
+
+        assertThat(quote.rate()).isEqualByComparingTo("0.92");
+        assertThat(quote.snapshotVersion()).isEqualTo(7);
+        assertThat(snapshot.version()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should derive inverse rates unless the inverse is configured explicitly")
+    void shouldDeriveInverseRates() {
+        FxRateSnapshot snapshot = FxRateSnapshot.of(1, List.of(
+                new FxRate("USD", "EUR", new BigDecimal("0.8000000000"), EARLIER),
+                new FxRate("USD", "CHF", new BigDecimal("0.8000000000"), EARLIER),
+                new FxRate("CHF", "USD", new BigDecimal("1.2400000000"), EARLIER)), LOADED_AT);
+
+        assertThat(snapshot.quote("EUR", "USD").rate()).isEqualByComparingTo("1.25");
+        assertThat(snapshot.quote("CHF", "USD").rate()).isEqualByComparingTo("1.24");
+    }
+
+    @Test
+    @DisplayName("Should return null for unknown currency pairs")
+    void shouldReturnNullForUnknownPairs() {
+        FxRateSnapshot snapshot = FxRateSnapshot.of(1, List.of(
+                new FxRate("USD", "EUR", new BigDecimal("0.9200000000"), EARLIER)), LOADED_AT);
+
+        assertThat(snapshot.quote("USD", "JPY")).isNull();
+        assertThat(snapshot.quote("JPY", "USD")).isNull();
+        assertThat(FxRateSnapshot.EMPTY.quote("USD", "EUR")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should become stale once read longer ago than the maximum age")
+    void shouldBecomeStaleAfterMaxAge() {
+        FxRateSnapshot snapshot = FxRateSnapshot.of(1, List.of(), LOADED_AT);
+        Duration maxAge = Duration.ofMinutes(5);
+
+        assertThat(snapshot.isOlderThan(maxAge, LOADED_AT.plus(maxAge).toEpochMilli())).isFalse();
+        assertThat(snapshot.isOlderThan(maxAge, LOADED_AT.plus(maxAge).plusMillis(1).toEpochMilli())).isTrue();
+        assertThat(FxRateSnapshot.EMPTY.isOlderThan(maxAge, LOADED_AT.toEpochMilli())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should round converted amounts to the currency scale")
+    void shouldRoundConvertedAmounts() {
+        FxQuote quote = new FxQuote(new BigDecimal("0.9215333333"), 1L);
+
+        assertThat(quote.convert(new BigDecimal("10.00"))).isEqualByComparingTo("9.22");
+        assertThat(quote.convert(new BigDecimal("10.00")).scale()).isEqualTo(PaymentService.EXPECTED_SCALE);
+    }
+}
@@ -0,0 +1,170 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.IdempotencyCacheProperties;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("IdempotencyKeyCache Unit Tests")
+class IdempotencyKeyCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyKeyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyCacheProperties properties = new IdempotencyCacheProperties();
+        properties.setEnabled(true);
+        properties.setExpectedKeys(1_000);
+        properties.setCompletedResults(2);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new IdempotencyKeyCache(properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should report a key as definitely new until its payment completes")
+    void shouldTrackCompletedKeys() {
+        UUID key = UUID.randomUUID();
+        assertThat(cache.isDefinitelyNew(key)).isTrue();
+
+        cache.execute(key, "alice", this::response);
+
+        assertThat(cache.isDefinitelyNew(key)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should replay a completed payment to a retry from the same user")
+    void shouldReplayCompletedPayment() {
+        UUID key = UUID.randomUUID();
+        AtomicInteger executions = new AtomicInteger();
+        PaymentResponse first = cache.execute(key, "alice", () -> {
+            executions.incrementAndGet();
+            return response();
+        });
+
+        PaymentResponse retry = cache.execute(key, "alice", () -> {
+            executions.incrementAndGet();
+            return response();
+        });
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(executions).hasValue(1);
+        assertThat(count("replayed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not replay a completed payment to another user")
+    void shouldNotReplayToAnotherUser() {
+        UUID key = UUID.randomUUID();
+        cache.execute(key, "alice", this::response);
+
+        assertThatThrownBy(() -> cache.execute(key, "mallory", () -> {
+            throw new IdempotencyException("Transaction already processed");
+        })).isInstanceOf(IdempotencyException.class);
+        assertThat(count("replayed")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should let a concurrent duplicate wait for the original and share its response")
+    void shouldCoalesceConcurrentDuplicates() throws Exception {
+        UUID key = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<PaymentResponse> original = callers.submit(() -> cache.execute(key, "alice", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return response();
+            }));
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+            Future<PaymentResponse> duplicate = callers.submit(() -> cache.execute(key, "alice", () -> {
+                executions.incrementAndGet();
+                return response();
+            }));
+            awaitCoalesced();
+
+            release.countDown();
+
+            assertThat(duplicate.get(2, TimeUnit.SECONDS)).isEqualTo(original.get(2, TimeUnit.SECONDS));
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should not remember a failed payment")
+    void shouldNotRememberFailures() {
+        UUID key = UUID.randomUUID();
+        assertThatThrownBy(() -> cache.execute(key, "alice", () -> {
+            throw new InsufficientFundsException("Insufficient funds");
+        })).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(cache.isDefinitelyNew(key)).isTrue();
+        assertThat(cache.execute(key, "alice", this::response).status()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should report a unique violation on the idempotency key as a duplicate")
+    void shouldTranslateDuplicateKeyViolation() {
+        SQLException duplicate = new SQLException(
+                "duplicate key value violates unique constraint \"transactions_idempotency_key_key\"", "23505");
+
+        assertThatThrownBy(() -> cache.execute(UUID.randomUUID(), "alice", () -> {
+            throw new DataIntegrityViolationException("could not execute statement", duplicate);
+        })).isInstanceOf(IdempotencyException.class);
+    }
+
+    @Test
+    @DisplayName("Should pass other integrity violations through unchanged")
+    void shouldPassOtherViolationsThrough() {
+        SQLException other = new SQLException("new row violates check constraint \"positive_balance\"", "23514");
+
+        assertThatThrownBy(() -> cache.execute(UUID.randomUUID(), "alice", () -> {
+            throw new DataIntegrityViolationException("could not execute statement", other);
+        })).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private void awaitCoalesced() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (count("coalesced") < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("payment.idempotency.cache").tag("result", result).counter().count();
+    }
+
+    private PaymentResponse response() {
+        return new PaymentResponse(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                new BigDecimal("10.00"), "USD", "COMPLETED", OffsetDateTime.now());
+    }
+}
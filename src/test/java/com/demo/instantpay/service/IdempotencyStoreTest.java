@@ -0,0 +1,118 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.IdempotencyStoreProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.IdempotencyKeyRepository;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyStore Unit Tests")
+class IdempotencyStoreTest {
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyStoreProperties properties;
+    private ObjectMapper objectMapper;
+    private IdempotencyStore store;
+    private UUID idempotencyKey;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyStoreProperties();
+        properties.setEnabled(true);
+        properties.setPurgeBatchSize(2);
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        store = new IdempotencyStore(properties, idempotencyKeyRepository, objectMapper);
+        idempotencyKey = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should reserve a free key and let the payment execute")
+    void shouldReserveFreeKey() {
+        when(idempotencyKeyRepository.reserve(eq("alice"), eq(idempotencyKey), any())).thenReturn(true);
+
+        assertThat(store.reserve("alice", idempotencyKey)).isEmpty();
+        verify(idempotencyKeyRepository, never()).findResponse(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should replay the stored response of a key already used")
+    void shouldReplayStoredResponse() {
+        PaymentResponse original = response();
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        store.complete("alice", idempotencyKey, original);
+        verify(idempotencyKeyRepository).storeResponse(eq("alice"), eq(idempotencyKey), stored.capture());
+
+        when(idempotencyKeyRepository.reserve(eq("alice"), eq(idempotencyKey), any())).thenReturn(false);
+        when(idempotencyKeyRepository.findResponse("alice", idempotencyKey)).thenReturn(Optional.of(stored.getValue()));
+
+        Optional<PaymentResponse> replayed = store.reserve("alice", idempotencyKey);
+
+        assertThat(replayed).isPresent();
+        assertThat(replayed.get().transactionId()).isEqualTo(original.transactionId());
+        assertThat(replayed.get().amount()).isEqualByComparingTo(original.amount());
+        assertThat(replayed.get().status()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should reject a used key without a stored response")
+    void shouldRejectUsedKeyWithoutResponse() {
+        when(idempotencyKeyRepository.reserve(eq("alice"), eq(idempotencyKey), any())).thenReturn(false);
+        when(idempotencyKeyRepository.findResponse("alice", idempotencyKey)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> store.reserve("alice", idempotencyKey))
+                .isInstanceOf(IdempotencyException.class);
+    }
+
+    @Test
+    @DisplayName("Should do nothing while disabled")
+    void shouldDoNothingWhenDisabled() {
+        properties.setEnabled(false);
+
+        assertThat(store.reserve("alice", idempotencyKey)).isEmpty();
+        store.complete("alice", idempotencyKey, response());
+        store.purgeExpired();
+
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    @DisplayName("Should purge expired keys batch by batch until a batch comes back short")
+    void shouldPurgeInBatches() {
+        when(idempotencyKeyRepository.deleteExpired(any(), anyInt())).thenReturn(2, 2, 1);
+
+        store.purgeExpired();
+
+        verify(idempotencyKeyRepository, times(3)).deleteExpired(any(), eq(2));
+    }
+
+    private PaymentResponse response() {
+        return new PaymentResponse(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                new BigDecimal("10.00"), "USD", "COMPLETED", OffsetDateTime.now(ZoneOffset.UTC));
+    }
+}
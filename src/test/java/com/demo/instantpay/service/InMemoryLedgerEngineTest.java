@@ -0,0 +1,313 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.LedgerRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.LedgerRepository.LedgerAccountRow;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("InMemoryLedgerEngine Unit Tests")
+class InMemoryLedgerEngineTest {
+    private static final String SENDER_USERNAME = "sender";
+
+    @TempDir
+    private Path journalDirectory;
+
+    private LedgerRepository ledgerRepository;
+    private InMemoryLedgerEngine engine;
+    private UUID senderAccountId;
+    private UUID recipientAccountId;
+    private UUID idempotencyKey;
+
+    @BeforeEach
+    void setUp() {
+        senderAccountId = UUID.randomUUID();
+        recipientAccountId = UUID.randomUUID();
+        idempotencyKey = UUID.randomUUID();
+        ledgerRepository = mockRepository(new BigDecimal("1000.00"), "USD", "USD");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null && engine.isRunning()) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should successfully process payment and persist transaction with outbox event")
+    void shouldSuccessfullyProcessPayment() {
+        engine = startEngine(ledgerRepository);
+
+        PaymentResponse response = engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME);
+
+        assertThat(response.status()).isEqualTo("COMPLETED");
+        assertThat(response.amount()).isEqualByComparingTo("100.00");
+
+        ArgumentCaptor<List<TransferCommand>> captor = ArgumentCaptor.captor();
+        verify(ledgerRepository, timeout(2_000)).persist(captor.capture());
+        TransferCommand persisted = captor.getValue().getFirst();
+        assertThat(persisted.transactionId()).isEqualTo(response.transactionId());
+        assertThat(persisted.idempotencyKey()).isEqualTo(idempotencyKey);
+        assertThat(persisted.eventTopic()).isEqualTo("payment.completed");
+        assertThat(persisted.eventPayload()).contains(response.transactionId().toString());
+    }
+
+    @Test
+    @DisplayName("Should throw InsufficientFundsException once the in-memory balance is spent")
+    void shouldThrowInsufficientFundsException() {
+        engine = startEngine(ledgerRepository);
+        engine.sendMoney(request("900.00"), UUID.randomUUID(), SENDER_USERNAME);
+
+        assertThatThrownBy(() -> engine.sendMoney(request("100.01"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(InsufficientFundsException.class)
+                .hasMessageContaining("Insufficient funds");
+
+        assertThat(engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME).status())
+                .isEqualTo("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should throw AccountNotFoundException when sender account not found")
+    void shouldThrowAccountNotFoundExceptionWhenSenderAccountNotFound() {
+        engine = startEngine(ledgerRepository);
+        PaymentRequest request = new PaymentRequest(new BigDecimal("100.00"), "USD", UUID.randomUUID(), recipientAccountId);
+
+        assertThatThrownBy(() -> engine.sendMoney(request, idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(AccountNotFoundException.class)
+                .hasMessageContaining("Sender account not found");
+    }
+
+    @Test
+    @DisplayName("Should throw AccountNotFoundException when recipient account not found")
+    void shouldThrowAccountNotFoundExceptionWhenRecipientAccountNotFound() {
+        engine = startEngine(ledgerRepository);
+        PaymentRequest request = new PaymentRequest(new BigDecimal("100.00"), "USD", senderAccountId, UUID.randomUUID());
+
+        assertThatThrownBy(() -> engine.sendMoney(request, idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(AccountNotFoundException.class)
+                .hasMessageContaining("Recipient account not found");
+    }
+
+    @Test
+    @DisplayName("Should load accounts created after startup on first use")
+    void shouldLoadAccountCreatedAfterStartup() {
+        UUID newRecipientId = UUID.randomUUID();
+        when(ledgerRepository.findAccount(newRecipientId))
+                .thenReturn(Optional.of(new LedgerAccountRow(newRecipientId, "recipient", "USD", BigDecimal.ZERO)));
+        engine = startEngine(ledgerRepository);
+        PaymentRequest request = new PaymentRequest(new BigDecimal("100.00"), "USD", senderAccountId, newRecipientId);
+
+        assertThat(engine.sendMoney(request, idempotencyKey, SENDER_USERNAME).status()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should throw IdempotencyException when idempotency key already exists")
+    void shouldThrowIdempotencyException() {
+        doAnswer(invocation -> {
+            invocation.<BiConsumer<UUID, OffsetDateTime>>getArgument(1).accept(idempotencyKey, OffsetDateTime.now());
+            return null;
+        }).when(ledgerRepository).forEachIdempotencyKeySince(any(), any());
+        engine = startEngine(ledgerRepository);
+
+        assertThatThrownBy(() -> engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(IdempotencyException.class)
+                .hasMessageContaining("already processed");
+    }
+
+    @Test
+    @DisplayName("Should evict keys once their window has passed and leave them to the database constraint")
+    void shouldEvictPersistedKeysAfterTheWindow() {
+        engine = startEngine(ledgerRepository, Duration.ZERO);
+        engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME);
+        verify(ledgerRepository, timeout(2_000)).persist(anyList());
+        // The write-behind thread only takes the next batch after releasing the keys of the first one.
+        engine.sendMoney(request("100.00"), UUID.randomUUID(), SENDER_USERNAME);
+        verify(ledgerRepository, timeout(2_000).times(2)).persist(anyList());
+
+        engine.evictExpiredIdempotencyKeys();
+
+        assertThat(engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME).status()).isEqualTo("COMPLETED");
+        verify(ledgerRepository, timeout(2_000).times(3)).persist(anyList());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when currency mismatch with sender")
+    void shouldThrowExceptionWhenCurrencyMismatchWithSender() {
+        engine = startEngine(mockRepository(new BigDecimal("1000.00"), "EUR", "USD"));
+
+        assertThatThrownBy(() -> engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Currency mismatch for sender");
+    }
+
+    @Test
+    @DisplayName("Should throw exception when currency mismatch with recipient")
+    void shouldThrowExceptionWhenCurrencyMismatchWithRecipient() {
+        engine = startEngine(mockRepository(new BigDecimal("1000.00"), "USD", "EUR"));
+
+        assertThatThrownBy(() -> engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Currency mismatch for recipient");
+    }
+
+    @Test
+    @DisplayName("Should throw exception when trying to transfer to same account")
+    void shouldThrowExceptionWhenTransferringToSameAccount() {
+        engine = startEngine(ledgerRepository);
+        PaymentRequest request = new PaymentRequest(new BigDecimal("100.00"), "USD", senderAccountId, senderAccountId);
+
+        assertThatThrownBy(() -> engine.sendMoney(request, idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Cannot transfer to the same account");
+    }
+
+    @Test
+    @DisplayName("Should throw AccessDeniedException when user attempts to use account they don't own")
+    void shouldThrowAccessDeniedExceptionWhenUserDoesNotOwnAccount() {
+        engine = startEngine(ledgerRepository);
+
+        assertThatThrownBy(() -> engine.sendMoney(request("100.00"), idempotencyKey, "someone-else"))
+                .isInstanceOf(AccessDeniedException.class);
+        verify(ledgerRepository, never()).persist(anyList());
+    }
+
+    @Test
+    @DisplayName("Should replay journaled transfers that were not persisted before a restart")
+    void shouldReplayUnpersistedJournalEntriesOnRestart() {
+        doThrow(new DataAccessResourceFailureException("database down")).when(ledgerRepository).persist(anyList());
+        engine = startEngine(ledgerRepository);
+        PaymentResponse response = engine.sendMoney(request("600.00"), idempotencyKey, SENDER_USERNAME);
+        engine.stop();
+
+        LedgerRepository restartedRepository = mockRepository(new BigDecimal("1000.00"), "USD", "USD");
+        engine = startEngine(restartedRepository);
+
+        ArgumentCaptor<List<TransferCommand>> captor = ArgumentCaptor.captor();
+        verify(restartedRepository, timeout(2_000)).persist(captor.capture());
+        assertThat(captor.getValue()).extracting(TransferCommand::transactionId)
+                .containsExactly(response.transactionId());
+        assertThatThrownBy(() -> engine.sendMoney(request("600.00"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(IdempotencyException.class);
+        assertThatThrownBy(() -> engine.sendMoney(request("600.00"), UUID.randomUUID(), SENDER_USERNAME))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    @DisplayName("Should quarantine and reverse a transfer the database refuses without stalling write-behind")
+    void shouldQuarantineTransferRefusedByDatabase() {
+        doThrow(new DuplicateKeyException("duplicate idempotency key")).when(ledgerRepository).persist(
+                argThat(commands -> commands.stream().anyMatch(command -> command.idempotencyKey().equals(idempotencyKey))));
+        engine = startEngine(ledgerRepository);
+        engine.sendMoney(request("600.00"), idempotencyKey, SENDER_USERNAME);
+        PaymentResponse next = engine.sendMoney(request("100.00"), UUID.randomUUID(), SENDER_USERNAME);
+
+        verify(ledgerRepository, timeout(2_000)).persist(argThat(commands -> commands.stream()
+                .anyMatch(command -> command.transactionId().equals(next.transactionId()))));
+        assertThat(engine.sendMoney(request("600.00"), UUID.randomUUID(), SENDER_USERNAME).status())
+                .isEqualTo("COMPLETED");
+        assertThatThrownBy(() -> engine.sendMoney(request("600.00"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(IdempotencyException.class);
+    }
+
+    @Test
+    @DisplayName("Should refuse a payment over the velocity limit and free its idempotency key")
+    void shouldRejectPaymentOverVelocityLimit() {
+        engine = startEngine(ledgerRepository, Duration.ofHours(24), velocityLimiter("150.00"));
+        engine.sendMoney(request("100.00"), UUID.randomUUID(), SENDER_USERNAME);
+
+        assertThatThrownBy(() -> engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME))
+                .isInstanceOf(VelocityLimitExceededException.class);
+        assertThat(engine.sendMoney(request("50.00"), idempotencyKey, SENDER_USERNAME).status()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should hand back the velocity limit of a payment the ledger refused")
+    void shouldReleaseVelocityLimitOfRefusedPayment() {
+        ledgerRepository = mockRepository(new BigDecimal("100.00"), "USD", "USD");
+        engine = startEngine(ledgerRepository, Duration.ofHours(24), velocityLimiter("150.00"));
+
+        assertThatThrownBy(() -> engine.sendMoney(request("120.00"), UUID.randomUUID(), SENDER_USERNAME))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(engine.sendMoney(request("100.00"), idempotencyKey, SENDER_USERNAME).status()).isEqualTo("COMPLETED");
+    }
+
+    private LedgerRepository mockRepository(BigDecimal senderBalance, String senderCurrency, String recipientCurrency) {
+        LedgerRepository repository = mock(LedgerRepository.class);
+        when(repository.findAllAccounts()).thenReturn(List.of(
+                new LedgerAccountRow(senderAccountId, SENDER_USERNAME, senderCurrency, senderBalance),
+                new LedgerAccountRow(recipientAccountId, "recipient", recipientCurrency, new BigDecimal("500.00"))));
+        when(repository.findPersistedTransactionIds(any())).thenReturn(Set.of());
+        return repository;
+    }
+
+    private InMemoryLedgerEngine startEngine(LedgerRepository repository) {
+        return startEngine(repository, Duration.ofHours(24));
+    }
+
+    private InMemoryLedgerEngine startEngine(LedgerRepository repository, Duration idempotencyWindow) {
+        return startEngine(repository, idempotencyWindow, new VelocityLimiter(new VelocityLimitProperties(),
+                mock(AccountRepository.class), mock(TransactionRepository.class)));
+    }
+
+    private InMemoryLedgerEngine startEngine(LedgerRepository repository, Duration idempotencyWindow,
+                                             VelocityLimiter velocityLimiter) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        SingleStatementTransferExecutor executor =
+                new SingleStatementTransferExecutor(mock(AccountTransferRepository.class), objectMapper);
+        InMemoryLedgerEngine ledgerEngine = new InMemoryLedgerEngine(repository, executor, velocityLimiter,
+                new SimpleMeterRegistry(), 2, journalDirectory, 64 * 1024, false, 100, 100, 5, idempotencyWindow);
+        ledgerEngine.start();
+        return ledgerEngine;
+    }
+
+    private static VelocityLimiter velocityLimiter(String hourly) {
+        VelocityLimitProperties properties = new VelocityLimitProperties();
+        properties.setEnabled(true);
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setHourly(new BigDecimal(hourly));
+        properties.getTiers().put("STANDARD", limits);
+        return new VelocityLimiter(properties, mock(AccountRepository.class), mock(TransactionRepository.class));
+    }
+
+    private PaymentRequest request(String amount) {
+        return new PaymentRequest(new BigDecimal(amount), "USD", senderAccountId, recipientAccountId);
+    }
+}
@@ -0,0 +1,201 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.MultiLegPaymentRequest;
+import com.demo.instantpay.api.dto.MultiLegPaymentResponse;
+import com.demo.instantpay.api.dto.PaymentLeg;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MultiLegPaymentService Unit Tests")
+class MultiLegPaymentServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private PaymentMapper paymentMapper;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+    @Mock
+    private VelocityLimiter velocityLimiter;
+    @InjectMocks
+    private MultiLegPaymentService multiLegPaymentService;
+
+    private AccountEntity senderAccount;
+    private AccountEntity sellerAccount;
+    private AccountEntity feeAccount;
+    private UUID idempotencyKey;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKey = UUID.randomUUID();
+        senderAccount = account("sender", "100.00");
+        sellerAccount = account("seller", "0.00");
+        feeAccount = account("platform", "0.00");
+    }
+
+    @Test
+    @DisplayName("Should debit the sender once and credit every leg in one transaction")
+    void shouldExecuteAllLegs() throws Exception {
+        stubAccounts();
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(paymentMapper.toPaymentResponse(any())).thenAnswer(invocation -> response(invocation.getArgument(0)));
+
+        MultiLegPaymentResponse response = multiLegPaymentService.sendMultiLeg(request(
+                new PaymentLeg(new BigDecimal("60.00"), sellerAccount.getId()),
+                new PaymentLeg(new BigDecimal("5.00"), feeAccount.getId()),
+                new PaymentLeg(new BigDecimal("15.00"), sellerAccount.getId())
+        ), idempotencyKey, "sender");
+
+        assertThat(response.totalAmount()).isEqualByComparingTo("80.00");
+        assertThat(response.legs()).hasSize(3);
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("20.00");
+        assertThat(sellerAccount.getBalance()).isEqualByComparingTo("75.00");
+        assertThat(feeAccount.getBalance()).isEqualByComparingTo("5.00");
+
+        ArgumentCaptor<List<TransactionEntity>> transactions = listCaptor();
+        verify(transactionRepository).saveAll(transactions.capture());
+        assertThat(transactions.getValue()).extracting(TransactionEntity::getIdempotencyKey)
+                .containsExactlyElementsOf(MultiLegPaymentService.legIdempotencyKeys(idempotencyKey, 3));
+
+        ArgumentCaptor<List<OutboxEventEntity>> events = listCaptor();
+        verify(outboxEventRepository).saveAll(events.capture());
+        assertThat(events.getValue()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should reject the whole payment when the sender cannot cover the sum of all legs")
+    void shouldRejectWhenTotalExceedsBalance() {
+        stubAccounts();
+
+        assertThatThrownBy(() -> multiLegPaymentService.sendMultiLeg(request(
+                new PaymentLeg(new BigDecimal("60.00"), sellerAccount.getId()),
+                new PaymentLeg(new BigDecimal("50.00"), feeAccount.getId())
+        ), idempotencyKey, "sender"))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(sellerAccount.getBalance()).isEqualByComparingTo("0.00");
+        verify(transactionRepository, never()).saveAll(anyList());
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should count the sum of all legs against the velocity limit and move nothing when it is exceeded")
+    void shouldRejectWhenTotalExceedsVelocityLimit() {
+        stubAccounts();
+        when(velocityLimiter.reserve(senderAccount.getId(), "sender", "USD", new BigDecimal("65.00")))
+                .thenThrow(new VelocityLimitExceededException("Spending limit exceeded for this account"));
+
+        assertThatThrownBy(() -> multiLegPaymentService.sendMultiLeg(request(
+                new PaymentLeg(new BigDecimal("60.00"), sellerAccount.getId()),
+                new PaymentLeg(new BigDecimal("5.00"), feeAccount.getId())
+        ), idempotencyKey, "sender"))
+                .isInstanceOf(VelocityLimitExceededException.class);
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("100.00");
+        verify(transactionRepository, never()).saveAll(anyList());
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw IdempotencyException when the payment was already processed")
+    void shouldRejectReplay() {
+        when(transactionRepository.existsByIdempotencyKey(
+                MultiLegPaymentService.legIdempotencyKeys(idempotencyKey, 1).getFirst())).thenReturn(true);
+
+        assertThatThrownBy(() -> multiLegPaymentService.sendMultiLeg(request(
+                new PaymentLeg(new BigDecimal("10.00"), sellerAccount.getId())
+        ), idempotencyKey, "sender"))
+                .isInstanceOf(IdempotencyException.class);
+
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a leg paying back into the sender account")
+    void shouldRejectLegToSender() {
+        assertThatThrownBy(() -> multiLegPaymentService.sendMultiLeg(request(
+                new PaymentLeg(new BigDecimal("10.00"), senderAccount.getId())
+        ), idempotencyKey, "sender"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("same account");
+    }
+
+    @Test
+    @DisplayName("Should derive distinct, stable idempotency keys per leg")
+    void shouldDeriveStableLegKeys() {
+        List<UUID> keys = MultiLegPaymentService.legIdempotencyKeys(idempotencyKey, 4);
+
+        assertThat(keys).doesNotHaveDuplicates().doesNotContain(idempotencyKey);
+        assertThat(MultiLegPaymentService.legIdempotencyKeys(idempotencyKey, 4)).isEqualTo(keys);
+    }
+
+    private void stubAccounts() {
+        when(accountRepository.findAllByIdForUpdate(any()))
+                .thenReturn(List.of(senderAccount, sellerAccount, feeAccount));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> ArgumentCaptor<List<T>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+
+    private MultiLegPaymentRequest request(PaymentLeg... legs) {
+        return new MultiLegPaymentRequest("USD", senderAccount.getId(), List.of(legs));
+    }
+
+    private PaymentResponse response(TransactionEntity tx) {
+        return new PaymentResponse(UUID.randomUUID(), tx.getSenderAccount().getId(), tx.getRecipientAccount().getId(),
+                tx.getAmount(), tx.getCurrency(), tx.getStatus().name(), OffsetDateTime.now());
+    }
+
+    private AccountEntity account(String username, String balance) {
+        return AccountEntity.builder()
+                .id(UUID.randomUUID())
+                .user(UserEntity.builder()
+                        .id(UUID.randomUUID())
+                        .username(username)
+                        .passwordHash("$2a$10$hashed")
+                        .role("USER")
+                        .createdAt(OffsetDateTime.now())
+                        .build())
+                .balance(new BigDecimal(balance))
+                .currency("USD")
+                .build();
+    }
+}
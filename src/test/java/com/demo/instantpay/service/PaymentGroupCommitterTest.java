@@ -0,0 +1,203 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.IdempotencyStoreProperties;
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.BatchItemResult;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.Outcome;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.infrastructure.persistence.repository.IdempotencyKeyRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentGroupCommitter Unit Tests")
+class PaymentGroupCommitterTest {
+    private static final UUID SENDER_ACCOUNT_ID = UUID.randomUUID();
+
+    @Mock
+    private AccountTransferRepository accountTransferRepository;
+
+    private ObjectMapper objectMapper;
+    private SingleStatementTransferExecutor executor;
+    private IdempotencyStore idempotencyStore;
+    private PaymentGroupCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        executor = new SingleStatementTransferExecutor(accountTransferRepository, objectMapper);
+        idempotencyStore = new IdempotencyStore(new IdempotencyStoreProperties(), mock(IdempotencyKeyRepository.class),
+                objectMapper);
+        committer = committer(new VelocityLimitProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        committer.stop();
+    }
+
+    @Test
+    @DisplayName("Should commit concurrent payments in one batch and return each caller its own response")
+    void shouldBatchConcurrentPayments() throws Exception {
+        when(accountTransferRepository.transferAll(anyList(), any())).thenAnswer(invocation -> {
+            List<TransferCommand> commands = invocation.getArgument(0);
+            return commands.stream()
+                    .map(command -> new BatchItemResult(new TransferResult(Outcome.COMPLETED, null), null))
+                    .toList();
+        });
+        committer.start();
+
+        int payments = 8;
+        List<Future<PaymentResponse>> responses = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < payments; i++) {
+                responses.add(callers.submit(() -> committer.submit(newRequest(), UUID.randomUUID(), "sender")));
+            }
+        }
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.get().status()).isEqualTo("COMPLETED"));
+        assertThat(responses.stream().map(this::transactionId).distinct()).hasSize(payments);
+        verify(accountTransferRepository, atMost(2)).transferAll(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Should fail only the payment whose outcome or savepoint failed")
+    void shouldIsolateFailuresPerPayment() {
+        List<PaymentGroupCommitter.PendingPayment> batch = List.of(
+                pending(), pending(), pending());
+        when(accountTransferRepository.transferAll(anyList(), any())).thenReturn(List.of(
+                new BatchItemResult(new TransferResult(Outcome.COMPLETED, null), null),
+                new BatchItemResult(new TransferResult(Outcome.INSUFFICIENT_FUNDS, null), null),
+                new BatchItemResult(null, new CannotAcquireLockException("deadlock"))));
+
+        committer.flush(batch);
+
+        assertThat(batch.get(0).result().join().status()).isEqualTo("COMPLETED");
+        assertThat(batch.get(1).result()).isCompletedExceptionally();
+        assertThatThrownBy(() -> batch.get(1).result().join()).hasCauseInstanceOf(InsufficientFundsException.class);
+        assertThatThrownBy(() -> batch.get(2).result().join()).hasCauseInstanceOf(CannotAcquireLockException.class);
+    }
+
+    @Test
+    @DisplayName("Should fail every payment of the batch when the commit fails")
+    void shouldFailWholeBatchWhenCommitFails() {
+        List<PaymentGroupCommitter.PendingPayment> batch = List.of(pending(), pending());
+        when(accountTransferRepository.transferAll(anyList(), any())).thenThrow(new CannotAcquireLockException("commit"));
+
+        committer.flush(batch);
+
+        assertThat(batch).allSatisfy(pending -> assertThat(pending.result()).isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Should reject payments when the committer is not running")
+    void shouldRejectWhenNotRunning() {
+        assertThatThrownBy(() -> committer.submit(newRequest(), UUID.randomUUID(), "sender"))
+                .isInstanceOf(PaymentBackpressureException.class);
+        verifyNoInteractions(accountTransferRepository);
+    }
+
+    @Test
+    @DisplayName("Should refuse payments over the velocity limit and hand back the ones the batch refused")
+    void shouldEnforceVelocityLimits() {
+        VelocityLimitProperties properties = new VelocityLimitProperties();
+        properties.setEnabled(true);
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setHourly(new BigDecimal("150.00"));
+        properties.getTiers().put("STANDARD", limits);
+        committer = committer(properties);
+        when(accountTransferRepository.transferAll(anyList(), any()))
+                .thenReturn(List.of(new BatchItemResult(new TransferResult(Outcome.INSUFFICIENT_FUNDS, null), null)))
+                .thenReturn(List.of(new BatchItemResult(new TransferResult(Outcome.COMPLETED, null), null)));
+        committer.start();
+
+        assertThatThrownBy(() -> committer.submit(newRequest("120.00"), UUID.randomUUID(), "sender"))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(committer.submit(newRequest("100.00"), UUID.randomUUID(), "sender").status()).isEqualTo("COMPLETED");
+        assertThatThrownBy(() -> committer.submit(newRequest("100.00"), UUID.randomUUID(), "sender"))
+                .isInstanceOf(VelocityLimitExceededException.class);
+        verify(accountTransferRepository, times(2)).transferAll(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Should reserve idempotency keys in the batch and replay the stored response to a retry")
+    void shouldReplayStoredResponse() throws Exception {
+        IdempotencyStoreProperties properties = new IdempotencyStoreProperties();
+        properties.setEnabled(true);
+        idempotencyStore = new IdempotencyStore(properties, mock(IdempotencyKeyRepository.class), objectMapper);
+        committer = committer(new VelocityLimitProperties());
+        PaymentResponse original = new PaymentResponse(UUID.randomUUID(), SENDER_ACCOUNT_ID, UUID.randomUUID(),
+                new BigDecimal("10.00"), "USD", "COMPLETED", OffsetDateTime.now());
+        when(accountTransferRepository.transferAll(anyList(), any(OffsetDateTime.class))).thenReturn(
+                List.of(new BatchItemResult(null, null, objectMapper.writeValueAsString(original))));
+        committer.start();
+
+        PaymentResponse replayed = committer.submit(newRequest("10.00"), UUID.randomUUID(), "sender");
+
+        assertThat(replayed.transactionId()).isEqualTo(original.transactionId());
+        verify(accountTransferRepository).transferAll(anyList(), any(OffsetDateTime.class));
+    }
+
+    private PaymentGroupCommitter committer(VelocityLimitProperties velocityLimitProperties) {
+        VelocityLimiter velocityLimiter = new VelocityLimiter(velocityLimitProperties,
+                mock(AccountRepository.class), mock(TransactionRepository.class));
+        return new PaymentGroupCommitter(accountTransferRepository, executor, velocityLimiter, idempotencyStore,
+                new SimpleMeterRegistry(), 8, 200, 100, 1);
+    }
+
+    private PaymentGroupCommitter.PendingPayment pending() {
+        TransferCommand command = executor.prepare(newRequest(), UUID.randomUUID(), "sender");
+        return new PaymentGroupCommitter.PendingPayment(command, new CompletableFuture<>());
+    }
+
+    private PaymentRequest newRequest() {
+        return new PaymentRequest(new BigDecimal("10.00"), "USD", UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private PaymentRequest newRequest(String amount) {
+        return new PaymentRequest(new BigDecimal(amount), "USD", SENDER_ACCOUNT_ID, UUID.randomUUID());
+    }
+
+    private UUID transactionId(Future<PaymentResponse> response) {
+        try {
+            return response.get().transactionId();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentHoldStateException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentHoldService Unit Tests")
+class PaymentHoldServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private PaymentMapper paymentMapper;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+    @Mock
+    private VelocityLimiter velocityLimiter;
+
+    private PaymentHoldService paymentHoldService;
+    private AccountEntity customerAccount;
+    private AccountEntity merchantAccount;
+
+    @BeforeEach
+    void setUp() {
+        paymentHoldService = new PaymentHoldService(accountRepository, transactionRepository, outboxEventRepository,
+                paymentMapper, objectMapper, hotAccountRegistry, velocityLimiter, Duration.ofDays(7));
+        customerAccount = account("customer");
+        merchantAccount = account("merchant");
+    }
+
+    @Test
+    @DisplayName("Should reserve funds with a guarded debit and record a pending hold")
+    void shouldAuthorizeHold() throws Exception {
+        PaymentRequest request = new PaymentRequest(new BigDecimal("25.00"), "USD", customerAccount.getId(), merchantAccount.getId());
+        when(accountRepository.findAllById(any())).thenReturn(List.of(customerAccount, merchantAccount));
+        when(accountRepository.debitIfCovered(customerAccount.getId(), request.amount())).thenReturn(1);
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        stubEvents();
+
+        paymentHoldService.authorize(request, UUID.randomUUID(), "customer");
+
+        ArgumentCaptor<TransactionEntity> hold = ArgumentCaptor.forClass(TransactionEntity.class);
+        verify(transactionRepository).save(hold.capture());
+        assertThat(hold.getValue().getStatus()).isEqualTo(TransactionEntity.TransactionStatus.PENDING);
+        assertThat(hold.getValue().getHoldExpiresAt()).isAfter(OffsetDateTime.now().plusDays(6));
+        assertThat(savedEvent().getEventTopic()).isEqualTo(PaymentHoldService.AUTHORIZED_EVENT_TOPIC);
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reject authorization when the guarded debit does not apply")
+    void shouldRejectAuthorizationWithoutFunds() {
+        PaymentRequest request = new PaymentRequest(new BigDecimal("25.00"), "USD", customerAccount.getId(), merchantAccount.getId());
+        when(accountRepository.findAllById(any())).thenReturn(List.of(customerAccount, merchantAccount));
+        when(accountRepository.debitIfCovered(customerAccount.getId(), request.amount())).thenReturn(0);
+
+        assertThatThrownBy(() -> paymentHoldService.authorize(request, UUID.randomUUID(), "customer"))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        verify(transactionRepository, never()).save(any());
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject authorization over the velocity limit before reserving funds")
+    void shouldRejectAuthorizationOverVelocityLimit() {
+        PaymentRequest request = new PaymentRequest(new BigDecimal("25.00"), "USD", customerAccount.getId(), merchantAccount.getId());
+        when(accountRepository.findAllById(any())).thenReturn(List.of(customerAccount, merchantAccount));
+        when(velocityLimiter.reserve(customerAccount.getId(), "customer", "USD", request.amount()))
+                .thenThrow(new VelocityLimitExceededException("Spending limit exceeded for this account"));
+
+        assertThatThrownBy(() -> paymentHoldService.authorize(request, UUID.randomUUID(), "customer"))
+                .isInstanceOf(VelocityLimitExceededException.class);
+
+        verify(accountRepository, never()).debitIfCovered(any(), any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should credit the recipient and complete the hold on capture")
+    void shouldCaptureHold() throws Exception {
+        TransactionEntity hold = hold(OffsetDateTime.now().plusHours(1));
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+        stubEvents();
+
+        paymentHoldService.capture(hold.getId(), "merchant");
+
+        verify(accountRepository).credit(merchantAccount.getId(), hold.getAmount());
+        assertThat(hold.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.COMPLETED);
+        assertThat(savedEvent().getEventTopic()).isEqualTo(PaymentHoldService.COMPLETED_EVENT_TOPIC);
+    }
+
+    @Test
+    @DisplayName("Should refuse to capture an expired hold")
+    void shouldRefuseExpiredCapture() {
+        TransactionEntity hold = hold(OffsetDateTime.now().minusMinutes(1));
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+
+        assertThatThrownBy(() -> paymentHoldService.capture(hold.getId(), "merchant"))
+                .isInstanceOf(PaymentHoldStateException.class);
+
+        verify(accountRepository, never()).credit(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should refund the sender and cancel the hold on void")
+    void shouldVoidHold() throws Exception {
+        TransactionEntity hold = hold(OffsetDateTime.now().plusHours(1));
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+        stubEvents();
+
+        paymentHoldService.voidHold(hold.getId(), "merchant");
+
+        verify(accountRepository).credit(customerAccount.getId(), hold.getAmount());
+        assertThat(hold.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.CANCELLED);
+    }
+
+    @Test
+    @DisplayName("Should refuse to finalize a hold twice")
+    void shouldRefuseSecondFinalization() {
+        TransactionEntity hold = hold(OffsetDateTime.now().plusHours(1));
+        hold.setStatus(TransactionEntity.TransactionStatus.CANCELLED);
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+
+        assertThatThrownBy(() -> paymentHoldService.capture(hold.getId(), "merchant"))
+                .isInstanceOf(PaymentHoldStateException.class)
+                .hasMessageContaining("CANCELLED");
+    }
+
+    @Test
+    @DisplayName("Should refuse a payer who tries to void their own hold")
+    void shouldRefusePayerVoid() {
+        TransactionEntity hold = hold(OffsetDateTime.now().plusHours(1));
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+
+        assertThatThrownBy(() -> paymentHoldService.voidHold(hold.getId(), "customer"))
+                .isInstanceOf(AccessDeniedException.class);
+        verify(accountRepository, never()).credit(any(), any());
+        assertThat(hold.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("Should refuse a payer who tries to capture their own hold")
+    void shouldRefusePayerCapture() {
+        TransactionEntity hold = hold(OffsetDateTime.now().plusHours(1));
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+
+        assertThatThrownBy(() -> paymentHoldService.capture(hold.getId(), "customer"))
+                .isInstanceOf(AccessDeniedException.class);
+        verify(accountRepository, never()).credit(any(), any());
+        assertThat(hold.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("Should refuse users who are not a party to the hold")
+    void shouldRefuseOutsider() {
+        TransactionEntity hold = hold(OffsetDateTime.now().plusHours(1));
+        when(transactionRepository.findByIdForUpdate(hold.getId())).thenReturn(Optional.of(hold));
+
+        assertThatThrownBy(() -> paymentHoldService.voidHold(hold.getId(), "someone-else"))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    @DisplayName("Should release expired holds with one refund per sender")
+    void shouldReleaseExpiredHolds() throws Exception {
+        TransactionEntity first = hold(OffsetDateTime.now().minusHours(2));
+        TransactionEntity second = hold(OffsetDateTime.now().minusHours(1));
+        when(transactionRepository.lockExpiredHolds(any(), anyInt())).thenReturn(List.of(first, second));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+
+        int released = paymentHoldService.releaseExpired(100);
+
+        assertThat(released).isEqualTo(2);
+        verify(accountRepository).credit(eq(customerAccount.getId()), eq(new BigDecimal("50.00")));
+        assertThat(List.of(first, second)).extracting(TransactionEntity::getStatus)
+                .containsOnly(TransactionEntity.TransactionStatus.CANCELLED);
+    }
+
+    private void stubEvents() throws Exception {
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(paymentMapper.toPaymentResponse(any())).thenReturn(new PaymentResponse(UUID.randomUUID(),
+                customerAccount.getId(), merchantAccount.getId(), BigDecimal.TEN, "USD", "PENDING", OffsetDateTime.now()));
+    }
+
+    private OutboxEventEntity savedEvent() {
+        ArgumentCaptor<OutboxEventEntity> event = ArgumentCaptor.forClass(OutboxEventEntity.class);
+        verify(outboxEventRepository).save(event.capture());
+        return event.getValue();
+    }
+
+    private TransactionEntity hold(OffsetDateTime expiresAt) {
+        return TransactionEntity.builder()
+                .id(UUID.randomUUID())
+                .senderAccount(customerAccount)
+                .recipientAccount(merchantAccount)
+                .amount(new BigDecimal("25.00"))
+                .currency("USD")
+                .status(TransactionEntity.TransactionStatus.PENDING)
+                .idempotencyKey(UUID.randomUUID())
+                .holdExpiresAt(expiresAt)
+                .build();
+    }
+
+    private AccountEntity account(String username) {
+        return AccountEntity.builder()
+                .id(UUID.randomUUID())
+                .user(UserEntity.builder()
+                        .id(UUID.randomUUID())
+                        .username(username)
+                        .passwordHash("$2a$10$hashed")
+                        .role("USER")
+                        .createdAt(OffsetDateTime.now())
+                        .build())
+                .balance(new BigDecimal("100.00"))
+                .currency("USD")
+                .build();
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.AbstractDbIntegrationTest;
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.IdempotencyStoreProperties;
+import com.demo.instantpay.infrastructure.config.NettingProperties;
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.UserEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.IdempotencyKeyRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.UserRepository;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@DisplayName("PaymentNettingService Tests")
+@EnableJpaRepositories(basePackages = "com.demo.instantpay.infrastructure.persistence.repository")
+@EntityScan(basePackages = "com.demo.instantpay.infrastructure.persistence.entity")
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.flyway.enabled=true"
+})
+class PaymentNettingServiceTest extends AbstractDbIntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = createPostgresContainer().withDatabaseName("instantpay_netting");
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registerDatasourceProperties(registry, POSTGRES);
+    }
+
+    @BeforeAll
+    static void startPostgresContainer() {
+        startContainer(POSTGRES);
+    }
+
+    @AfterAll
+    static void stopPostgresContainer() {
+        stopContainer(POSTGRES);
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AccountEntity payerAccount;
+    private AccountEntity payeeAccount;
+
+    @BeforeEach
+    void setUp() {
+        payerAccount = account("payer", "1111111111", "1000.00");
+        payeeAccount = account("payee", "2222222222", "500.00");
+    }
+
+    @Test
+    @DisplayName("Should record the payment as pending without touching either balance")
+    void shouldRecordPendingPayment() {
+        PaymentResponse response = service(new VelocityLimitProperties(), new IdempotencyStoreProperties())
+                .record(request("100.00"), UUID.randomUUID(), "payer");
+
+        assertThat(response.status()).isEqualTo("PENDING");
+        assertThat(transactionStatus(response.transactionId())).isEqualTo("PENDING");
+        assertThat(balance(payerAccount.getId())).isEqualByComparingTo("1000.00");
+        assertThat(balance(payeeAccount.getId())).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    @DisplayName("Should reject a reused idempotency key and record nothing for it")
+    void shouldRejectDuplicateIdempotencyKey() {
+        PaymentNettingService service = service(new VelocityLimitProperties(), new IdempotencyStoreProperties());
+        UUID idempotencyKey = UUID.randomUUID();
+        service.record(request("100.00"), idempotencyKey, "payer");
+
+        assertThatThrownBy(() -> service.record(request("100.00"), idempotencyKey, "payer"))
+                .isInstanceOf(IdempotencyException.class);
+        assertThat(pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should replay the stored response to a reused key when the idempotency store is enabled")
+    void shouldReplayStoredResponse() {
+        IdempotencyStoreProperties storeProperties = new IdempotencyStoreProperties();
+        storeProperties.setEnabled(true);
+        PaymentNettingService service = service(new VelocityLimitProperties(), storeProperties);
+        UUID idempotencyKey = UUID.randomUUID();
+        PaymentResponse original = service.record(request("100.00"), idempotencyKey, "payer");
+
+        PaymentResponse replayed = service.record(request("100.00"), idempotencyKey, "payer");
+
+        assertThat(replayed.transactionId()).isEqualTo(original.transactionId());
+        assertThat(pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a payment the sender's balance obviously cannot cover")
+    void shouldRejectOverdraft() {
+        assertThatThrownBy(() -> service(new VelocityLimitProperties(), new IdempotencyStoreProperties())
+                .record(request("1000.01"), UUID.randomUUID(), "payer"))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject a payment over the velocity limit")
+    void shouldRejectOverVelocityLimit() {
+        VelocityLimitProperties velocityProperties = new VelocityLimitProperties();
+        velocityProperties.setEnabled(true);
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setHourly(new BigDecimal("150.00"));
+        velocityProperties.getTiers().put("STANDARD", limits);
+        PaymentNettingService service = service(velocityProperties, new IdempotencyStoreProperties());
+        service.record(request("100.00"), UUID.randomUUID(), "payer");
+
+        assertThatThrownBy(() -> service.record(request("100.00"), UUID.randomUUID(), "payer"))
+                .isInstanceOf(VelocityLimitExceededException.class);
+        assertThat(pendingCount()).isEqualTo(1);
+    }
+
+    private PaymentNettingService service(VelocityLimitProperties velocityProperties,
+                                          IdempotencyStoreProperties storeProperties) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        NettingProperties nettingProperties = new NettingProperties();
+        nettingProperties.setPairs(List.of(payerAccount.getId() + ":" + payeeAccount.getId()));
+        return new PaymentNettingService(accountRepository, transactionRepository,
+                Mappers.getMapper(PaymentMapper.class),
+                new VelocityLimiter(velocityProperties, accountRepository, transactionRepository),
+                new IdempotencyStore(storeProperties, new IdempotencyKeyRepository(jdbcTemplate), objectMapper),
+                nettingProperties);
+    }
+
+    private PaymentRequest request(String amount) {
+        return new PaymentRequest(new BigDecimal(amount), "USD", payerAccount.getId(), payeeAccount.getId());
+    }
+
+    private AccountEntity account(String username, String accountNumber, String balance) {
+        UserEntity user = userRepository.save(UserEntity.builder()
+                .username(username)
+                .passwordHash("$2a$10$hashed")
+                .role("USER")
+                .createdAt(OffsetDateTime.now())
+                .build());
+        return accountRepository.save(AccountEntity.builder()
+                .user(user)
+                .accountNumber(accountNumber)
+                .balance(new BigDecimal(balance))
+                .currency("USD")
+                .createdAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .build());
+    }
+
+    private String transactionStatus(UUID transactionId) {
+        transactionRepository.flush();
+        return jdbcTemplate.queryForObject("SELECT status FROM transactions WHERE id = ?", String.class, transactionId);
+    }
+
+    private BigDecimal balance(UUID accountId) {
+        accountRepository.flush();
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+
+    private int pendingCount() {
+        transactionRepository.flush();
+        Integer count = jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*) FROM transactions
+                        WHERE sender_account_id = ? AND status = 'PENDING'
+                        """,
+                Integer.class, payerAccount.getId());
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,164 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.NettingProperties;
+import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.OutboxEventRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.mapper.PaymentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentNettingSettler Unit Tests")
+class PaymentNettingSettlerTest {
+    @Mock
+    private PaymentNettingService paymentNettingService;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private PaymentMapper paymentMapper;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PaymentNettingSettler settler;
+    private AccountEntity marketplace;
+    private AccountEntity settlement;
+    private NettingPair pair;
+
+    @BeforeEach
+    void setUp() {
+        settler = new PaymentNettingSettler(paymentNettingService, accountRepository, transactionRepository,
+                outboxEventRepository, paymentMapper, objectMapper, transactionManager, new NettingProperties());
+        marketplace = account(new BigDecimal("100.00"));
+        settlement = account(new BigDecimal("20.00"));
+        pair = NettingPair.of(marketplace.getId(), settlement.getId());
+    }
+
+    @Test
+    @DisplayName("Should apply only the net movement of a pair and complete every payment")
+    void shouldApplyNetMovement() throws Exception {
+        List<TransactionEntity> pending = List.of(
+                pending(marketplace, settlement, "30.00"),
+                pending(settlement, marketplace, "45.00"),
+                pending(marketplace, settlement, "5.00"));
+        stubPair(pending);
+
+        settler.settle(pair);
+
+        assertThat(marketplace.getBalance()).isEqualByComparingTo("110.00");
+        assertThat(settlement.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(pending).allSatisfy(tx ->
+                assertThat(tx.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.COMPLETED));
+        verify(accountRepository).saveAll(any());
+        assertThat(savedEvents()).extracting(OutboxEventEntity::getEventTopic)
+                .containsOnly(PaymentNettingSettler.COMPLETED_EVENT_TOPIC)
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should fail a payment the sender cannot cover at its turn in arrival order")
+    void shouldFailUncoveredPayment() throws Exception {
+        TransactionEntity overdraft = pending(settlement, marketplace, "50.00");
+        TransactionEntity covered = pending(marketplace, settlement, "40.00");
+        stubPair(List.of(overdraft, covered));
+
+        settler.settle(pair);
+
+        assertThat(overdraft.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.FAILED);
+        assertThat(covered.getStatus()).isEqualTo(TransactionEntity.TransactionStatus.COMPLETED);
+        assertThat(marketplace.getBalance()).isEqualByComparingTo("60.00");
+        assertThat(settlement.getBalance()).isEqualByComparingTo("60.00");
+        assertThat(savedEvents()).extracting(OutboxEventEntity::getEventTopic)
+                .containsExactly(PaymentNettingSettler.FAILED_EVENT_TOPIC, PaymentNettingSettler.COMPLETED_EVENT_TOPIC);
+    }
+
+    @Test
+    @DisplayName("Should sweep balance slots before netting")
+    void shouldSweepBalanceSlots() throws Exception {
+        settlement.setBalanceSlots(4);
+        when(accountRepository.sweepBalanceSlots(settlement.getId())).thenReturn(new BigDecimal("80.00"));
+        stubPair(List.of(pending(settlement, marketplace, "90.00")));
+
+        settler.settle(pair);
+
+        assertThat(settlement.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(marketplace.getBalance()).isEqualByComparingTo("190.00");
+    }
+
+    @Test
+    @DisplayName("Should write nothing when the pair has no pending payments")
+    void shouldSkipIdlePair() {
+        when(accountRepository.findAllByIdForUpdate(anyList())).thenReturn(List.of(marketplace, settlement));
+        when(transactionRepository.findBetweenAccounts(eq(TransactionEntity.TransactionStatus.PENDING),
+                eq(pair.first()), eq(pair.second()), any())).thenReturn(List.of());
+
+        settler.settle(pair);
+
+        verify(accountRepository, never()).saveAll(any());
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    private void stubPair(List<TransactionEntity> pending) throws Exception {
+        when(accountRepository.findAllByIdForUpdate(anyList())).thenReturn(List.of(marketplace, settlement));
+        when(transactionRepository.findBetweenAccounts(eq(TransactionEntity.TransactionStatus.PENDING),
+                eq(pair.first()), eq(pair.second()), any())).thenReturn(pending);
+        when(paymentMapper.toPaymentResponse(any())).thenReturn(new PaymentResponse(UUID.randomUUID(),
+                marketplace.getId(), settlement.getId(), BigDecimal.ONE, "USD", "COMPLETED", OffsetDateTime.now()));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutboxEventEntity> savedEvents() {
+        ArgumentCaptor<List<OutboxEventEntity>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(events.capture());
+        return events.getValue();
+    }
+
+    private AccountEntity account(BigDecimal balance) {
+        return AccountEntity.builder()
+                .id(UUID.randomUUID())
+                .balance(balance)
+                .currency("USD")
+                .build();
+    }
+
+    private TransactionEntity pending(AccountEntity sender, AccountEntity recipient, String amount) {
+        return TransactionEntity.builder()
+                .id(UUID.randomUUID())
+                .senderAccount(sender)
+                .recipientAccount(recipient)
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .status(TransactionEntity.TransactionStatus.PENDING)
+                .idempotencyKey(UUID.randomUUID())
+                .build();
+    }
+}
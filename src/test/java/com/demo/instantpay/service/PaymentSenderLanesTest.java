@@ -0,0 +1,161 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentSenderLanes Unit Tests")
+class PaymentSenderLanesTest {
+    @Mock
+    private PaymentService paymentService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentSenderLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lanes = new PaymentSenderLanes(paymentService, meterRegistry, 2);
+        lanes.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.stop();
+    }
+
+    @Test
+    @DisplayName("Should execute payments of the same sender one at a time")
+    void shouldSerializePaymentsOfSameSender() throws Exception {
+        lanes = restartWithDepth(100);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(paymentService.sendMoney(any(), any(), anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            inFlight.decrementAndGet();
+            return response(invocation.getArgument(0));
+        });
+
+        UUID senderAccountId = UUID.randomUUID();
+        List<Future<PaymentResponse>> responses = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                responses.add(callers.submit(() -> lanes.submit(request(senderAccountId), UUID.randomUUID(), "sender")));
+            }
+        }
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.get().status()).isEqualTo("COMPLETED"));
+        assertThat(maxInFlight).hasValue(1);
+        verify(paymentService, times(20)).sendMoney(any(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should run payments of different senders in parallel")
+    void shouldRunDifferentSendersInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(paymentService.sendMoney(any(), any(), anyString())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(2, TimeUnit.SECONDS)).isTrue();
+            return response(invocation.getArgument(0));
+        });
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<PaymentResponse> first = callers.submit(() -> lanes.submit(request(UUID.randomUUID()), UUID.randomUUID(), "a"));
+            Future<PaymentResponse> second = callers.submit(() -> lanes.submit(request(UUID.randomUUID()), UUID.randomUUID(), "b"));
+
+            assertThat(first.get(5, TimeUnit.SECONDS).status()).isEqualTo("COMPLETED");
+            assertThat(second.get(5, TimeUnit.SECONDS).status()).isEqualTo("COMPLETED");
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a payment when its sender lane is full")
+    void shouldRejectWhenLaneIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(paymentService.sendMoney(any(), any(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return response(invocation.getArgument(0));
+        });
+        UUID senderAccountId = UUID.randomUUID();
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PaymentResponse>> accepted = new ArrayList<>();
+            accepted.add(callers.submit(() -> lanes.submit(request(senderAccountId), UUID.randomUUID(), "sender")));
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+            accepted.add(callers.submit(() -> lanes.submit(request(senderAccountId), UUID.randomUUID(), "sender")));
+            accepted.add(callers.submit(() -> lanes.submit(request(senderAccountId), UUID.randomUUID(), "sender")));
+            awaitQueued(3);
+
+            assertThatThrownBy(() -> lanes.submit(request(senderAccountId), UUID.randomUUID(), "sender"))
+                    .isInstanceOf(PaymentBackpressureException.class);
+
+            release.countDown();
+            assertThat(accepted).allSatisfy(response -> assertThat(response.get().status()).isEqualTo("COMPLETED"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should propagate the payment's own exception to its caller")
+    void shouldPropagatePaymentException() {
+        when(paymentService.sendMoney(any(), any(), anyString())).thenThrow(new InsufficientFundsException("Insufficient funds"));
+
+        assertThatThrownBy(() -> lanes.submit(request(UUID.randomUUID()), UUID.randomUUID(), "sender"))
+                .isInstanceOf(InsufficientFundsException.class)
+                .hasMessageContaining("Insufficient funds");
+    }
+
+    private PaymentSenderLanes restartWithDepth(int maxQueueDepth) {
+        lanes.stop();
+        PaymentSenderLanes restarted = new PaymentSenderLanes(paymentService, new SimpleMeterRegistry(), maxQueueDepth);
+        restarted.start();
+        return restarted;
+    }
+
+    private void awaitQueued(long payments) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (meterRegistry.get("payment.sender_lane.queue.depth").summary().count() < payments
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private PaymentRequest request(UUID senderAccountId) {
+        return new PaymentRequest(new BigDecimal("10.00"), "USD", senderAccountId, UUID.randomUUID());
+    }
+
+    private PaymentResponse response(PaymentRequest request) {
+        return new PaymentResponse(UUID.randomUUID(), request.senderAccountId(), request.recipientAccountId(),
+                request.amount(), request.currency(), "COMPLETED", OffsetDateTime.now());
+    }
+}
@@ -2,6 +2,7 @@ package com.demo.instantpay.service;
 
 import com.demo.instantpay.api.dto.PaymentRequest;
 import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.messaging.OutboxFastPath;
 import com.demo.instantpay.infrastructure.persistence.entity.AccountEntity;
 import com.demo.instantpay.infrastructure.persistence.entity.OutboxEventEntity;
 import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
@@ -22,6 +23,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -47,6 +49,21 @@ class PaymentServiceTest {
     private PaymentMapper paymentMapper;
     @Mock
     private ObjectMapper objectMapper;
+    @Mock
+    private SingleStatementTransferExecutor singleStatementTransferExecutor;
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+    @Mock
+    private FxRateRegistry fxRateRegistry;
+    @Mock
+    private VelocityLimiter velocityLimiter;
+    @Mock
+    private IdempotencyKeyCache idempotencyKeyCache;
+    @Mock
+    private IdempotencyStore idempotencyStore;
+    @Mock
+    private OutboxFastPath outboxFastPath;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -111,10 +128,8 @@ class PaymentServiceTest {
     void shouldSuccessfullyProcessPayment() throws Exception {
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(recipientAccountId))
-                .thenReturn(Optional.of(recipientAccount));
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccount));
         when(objectMapper.writeValueAsString(any()))
                 .thenReturn("{\"transactionId\":\"test\"}");
         when(paymentMapper.toPaymentResponse(any()))
@@ -164,6 +179,36 @@ class PaymentServiceTest {
                 OutboxEventEntity.EventStatus.PENDING
         );
         assertThat(outboxEvent.getEventTopic()).isEqualTo("payment.completed");
+        verify(outboxFastPath).publishAfterCommit(outboxEvent);
+    }
+
+    @Test
+    @DisplayName("Should credit the converted amount and record the applied rate for a cross-currency payment")
+    void shouldConvertCrossCurrencyPayment() throws Exception {
+        recipientAccount.setCurrency("EUR");
+        when(transactionRepository.findByIdempotencyKey(idempotencyKey))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccount));
+        when(fxRateRegistry.quote("USD", "EUR"))
+                .thenReturn(new FxQuote(new BigDecimal("0.9215"), 42L));
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("{\"transactionId\":\"test\"}");
+
+        paymentService.sendMoney(paymentRequest, idempotencyKey, "sender");
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo(new BigDecimal("900.00"));
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo(new BigDecimal("592.15"));
+
+        ArgumentCaptor<TransactionEntity> transactionCaptor = ArgumentCaptor.forClass(TransactionEntity.class);
+        verify(transactionRepository).save(transactionCaptor.capture());
+        TransactionEntity savedTransaction = transactionCaptor.getValue();
+        assertThat(savedTransaction.getAmount()).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(savedTransaction.getCurrency()).isEqualTo("USD");
+        assertThat(savedTransaction.getCreditedAmount()).isEqualByComparingTo(new BigDecimal("92.15"));
+        assertThat(savedTransaction.getCreditedCurrency()).isEqualTo("EUR");
+        assertThat(savedTransaction.getFxRate()).isEqualByComparingTo(new BigDecimal("0.9215"));
+        assertThat(savedTransaction.getFxRateVersion()).isEqualTo(42L);
     }
 
     @Test
@@ -172,10 +217,8 @@ class PaymentServiceTest {
         senderAccount.setBalance(new BigDecimal("50.00"));
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(recipientAccountId))
-                .thenReturn(Optional.of(recipientAccount));
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccount));
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(InsufficientFundsException.class)
@@ -191,8 +234,8 @@ class PaymentServiceTest {
     void shouldThrowAccountNotFoundExceptionWhenSenderAccountNotFound() {
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of());
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(AccountNotFoundException.class)
@@ -207,10 +250,8 @@ class PaymentServiceTest {
     void shouldThrowAccountNotFoundExceptionWhenRecipientAccountNotFound() {
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(recipientAccountId))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount));
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(AccountNotFoundException.class)
@@ -240,6 +281,23 @@ class PaymentServiceTest {
         verify(outboxEventRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Should replay the stored response when the idempotency key is already reserved")
+    void shouldReplayStoredResponse() {
+        PaymentResponse stored = new PaymentResponse(UUID.randomUUID(), paymentRequest.senderAccountId(),
+                paymentRequest.recipientAccountId(), paymentRequest.amount(), paymentRequest.currency(),
+                "COMPLETED", OffsetDateTime.now());
+        when(idempotencyStore.reserve("sender", idempotencyKey)).thenReturn(Optional.of(stored));
+
+        PaymentResponse response = paymentService.sendMoney(paymentRequest, idempotencyKey, "sender");
+
+        assertThat(response).isEqualTo(stored);
+        verify(velocityLimiter, never()).reserve(any(), any(), any(), any());
+        verify(accountRepository, never()).save(any());
+        verify(transactionRepository, never()).save(any());
+        verify(outboxEventRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Should throw exception when currency mismatch with sender")
     void shouldThrowExceptionWhenCurrencyMismatchWithSender() {
@@ -251,10 +309,8 @@ class PaymentServiceTest {
 
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(paymentRequest.recipientAccountId()))
-                .thenReturn(Optional.of(recipientAccountForTest));
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccountForTest));
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -267,10 +323,8 @@ class PaymentServiceTest {
         recipientAccount.setCurrency("EUR");
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIdForUpdate(recipientAccountId))
-                .thenReturn(Optional.of(recipientAccount));
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccount));
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -288,8 +342,8 @@ class PaymentServiceTest {
         );
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, senderAccountId)))
+                .thenReturn(List.of(senderAccount));
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -319,8 +373,8 @@ class PaymentServiceTest {
 
         when(transactionRepository.findByIdempotencyKey(idempotencyKey))
                 .thenReturn(Optional.empty());
-        when(accountRepository.findByIdForUpdate(senderAccountId))
-                .thenReturn(Optional.of(otherUserAccount));
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(otherUserAccount, recipientAccount));
 
         assertThatThrownBy(() -> paymentService.sendMoney(paymentRequest, idempotencyKey, "sender"))
                 .isInstanceOf(org.springframework.security.access.AccessDeniedException.class)
@@ -330,4 +384,89 @@ class PaymentServiceTest {
         verify(transactionRepository, never()).save(any());
         verify(outboxEventRepository, never()).save(any());
     }
+
+    @Test
+    @DisplayName("Should delegate to single statement executor when that transfer mode is configured")
+    void shouldDelegateToSingleStatementExecutorWhenConfigured() {
+        ReflectionTestUtils.setField(paymentService, "transferMode", TransferMode.SINGLE_STATEMENT);
+        PaymentResponse expected = new PaymentResponse(
+                UUID.randomUUID(),
+                senderAccountId,
+                recipientAccountId,
+                new BigDecimal("100.00"),
+                "USD",
+                "COMPLETED",
+                OffsetDateTime.now()
+        );
+        when(singleStatementTransferExecutor.execute(paymentRequest, idempotencyKey, "sender"))
+                .thenReturn(expected);
+
+        PaymentResponse response = paymentService.sendMoney(paymentRequest, idempotencyKey, "sender");
+
+        assertThat(response).isEqualTo(expected);
+        verifyNoInteractions(accountRepository, transactionRepository, outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should read accounts without row locks in optimistic transfer mode")
+    void shouldReadAccountsWithoutLocksInOptimisticMode() throws Exception {
+        ReflectionTestUtils.setField(paymentService, "transferMode", TransferMode.OPTIMISTIC);
+        when(transactionRepository.findByIdempotencyKey(idempotencyKey))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findAllById(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccount));
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("{\"transactionId\":\"test\"}");
+
+        paymentService.sendMoney(paymentRequest, idempotencyKey, "sender");
+
+        verify(accountRepository, never()).findAllByIdForUpdate(any());
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo(new BigDecimal("900.00"));
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo(new BigDecimal("600.00"));
+        verify(accountRepository).save(senderAccount);
+        verify(accountRepository).save(recipientAccount);
+    }
+
+    @Test
+    @DisplayName("Should credit a striped recipient through a balance slot without locking its row")
+    void shouldCreditStripedRecipientThroughBalanceSlot() throws Exception {
+        when(hotAccountRegistry.isStriped(recipientAccountId)).thenReturn(true);
+        when(hotAccountRegistry.pickSlot(recipientAccountId)).thenReturn(3);
+        when(transactionRepository.findByIdempotencyKey(idempotencyKey))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId)))
+                .thenReturn(List.of(senderAccount));
+        when(accountRepository.findById(recipientAccountId))
+                .thenReturn(Optional.of(recipientAccount));
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("{\"transactionId\":\"test\"}");
+
+        paymentService.sendMoney(paymentRequest, idempotencyKey, "sender");
+
+        verify(accountRepository).creditBalanceSlot(recipientAccountId, 3, new BigDecimal("100.00"));
+        verify(accountRepository).save(senderAccount);
+        verify(accountRepository, never()).save(recipientAccount);
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo(new BigDecimal("500.00"));
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo(new BigDecimal("900.00"));
+    }
+
+    @Test
+    @DisplayName("Should sweep balance slots into a striped sender before declaring insufficient funds")
+    void shouldSweepBalanceSlotsOfStripedSender() throws Exception {
+        senderAccount.setBalance(new BigDecimal("40.00"));
+        senderAccount.setBalanceSlots(4);
+        when(transactionRepository.findByIdempotencyKey(idempotencyKey))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdForUpdate(List.of(senderAccountId, recipientAccountId)))
+                .thenReturn(List.of(senderAccount, recipientAccount));
+        when(accountRepository.sweepBalanceSlots(senderAccountId))
+                .thenReturn(new BigDecimal("80.00"));
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("{\"transactionId\":\"test\"}");
+
+        paymentService.sendMoney(paymentRequest, idempotencyKey, "sender");
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo(new BigDecimal("20.00"));
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo(new BigDecimal("600.00"));
+    }
 }
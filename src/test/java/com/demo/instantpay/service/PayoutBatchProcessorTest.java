@@ -0,0 +1,179 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.config.PayoutProperties;
+import com.demo.instantpay.infrastructure.payout.PayoutFileFormat;
+import com.demo.instantpay.infrastructure.persistence.entity.TransactionEntity;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.BatchStatus;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.EntryStatus;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.PayoutBatch;
+import com.demo.instantpay.infrastructure.persistence.repository.PayoutBatchRepository.PayoutEntry;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PayoutBatchProcessor Unit Tests")
+class PayoutBatchProcessorTest {
+    private static final UUID SENDER = UUID.randomUUID();
+    private static final UUID OTHER_SENDER = UUID.randomUUID();
+    private static final UUID RECIPIENT = UUID.randomUUID();
+
+    @Mock
+    private PayoutBatchRepository payoutBatchRepository;
+    @Mock
+    private PaymentDispatcher paymentDispatcher;
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @TempDir
+    private Path directory;
+
+    private PayoutBatchProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        PayoutProperties properties = new PayoutProperties();
+        properties.setChunkSize(2);
+        properties.setDirectory(directory.toString());
+        processor = new PayoutBatchProcessor(payoutBatchRepository, paymentDispatcher, transactionRepository,
+                properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should execute every entry and checkpoint each chunk")
+    void shouldExecuteAndCheckpointChunks() throws IOException {
+        PayoutBatch batch = batch(csv(
+                SENDER + "," + RECIPIENT + ",10.00,USD",
+                OTHER_SENDER + "," + RECIPIENT + ",20.00,USD",
+                SENDER + "," + RECIPIENT + ",30.00,USD"), 0);
+        when(paymentDispatcher.sendMoney(any(), any(), eq("payroll"))).thenAnswer(invocation -> completed(invocation.getArgument(0)));
+
+        processor.process(batch);
+
+        List<List<PayoutEntry>> checkpoints = checkpoints(2);
+        assertThat(checkpoints.get(0)).extracting(PayoutEntry::entryNumber).containsExactly(1L, 2L);
+        assertThat(checkpoints.get(1)).extracting(PayoutEntry::entryNumber).containsExactly(3L);
+        assertThat(checkpoints).flatMap(chunk -> chunk).extracting(PayoutEntry::status).containsOnly(EntryStatus.COMPLETED);
+        verify(payoutBatchRepository).finish(batch.id(), BatchStatus.COMPLETED, null);
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    @DisplayName("Should record failed entries without stopping the batch")
+    void shouldRecordFailedEntries() throws IOException {
+        PayoutBatch batch = batch(csv(
+                "garbage," + RECIPIENT + ",10.00,USD",
+                SENDER + "," + RECIPIENT + ",20.00,USD"), 0);
+        when(paymentDispatcher.sendMoney(any(), any(), any())).thenThrow(new InsufficientFundsException("Insufficient funds"));
+
+        processor.process(batch);
+
+        List<PayoutEntry> results = checkpoints(1).getFirst();
+        assertThat(results).extracting(PayoutEntry::status).containsExactly(EntryStatus.FAILED, EntryStatus.FAILED);
+        assertThat(results.get(1).error()).isEqualTo("Insufficient funds");
+        verify(paymentDispatcher, times(1)).sendMoney(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should record nothing of a chunk interrupted by a transient failure and leave the batch to resume")
+    void shouldDeferChunkOnTransientFailure() throws IOException {
+        PayoutBatch batch = batch(csv(
+                SENDER + "," + RECIPIENT + ",10.00,USD",
+                OTHER_SENDER + "," + RECIPIENT + ",20.00,USD"), 0);
+        lenient().when(paymentDispatcher.sendMoney(any(), any(), any()))
+                .thenAnswer(invocation -> completed(invocation.getArgument(0)));
+        doThrow(new PaymentBackpressureException("Payment queue is full")).when(paymentDispatcher)
+                .sendMoney(argThat(request -> SENDER.equals(request.senderAccountId())), any(), any());
+
+        processor.process(batch);
+
+        verify(payoutBatchRepository, never()).checkpoint(any(), any());
+        verify(payoutBatchRepository, never()).finish(any(), any(), any());
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    @DisplayName("Should resume after the checkpoint and treat replayed entries as completed")
+    void shouldResumeAfterCheckpoint() throws IOException {
+        PayoutBatch batch = batch(csv(
+                SENDER + "," + RECIPIENT + ",10.00,USD",
+                SENDER + "," + RECIPIENT + ",20.00,USD",
+                SENDER + "," + RECIPIENT + ",30.00,USD"), 2);
+        UUID replayedKey = PayoutBatchProcessor.entryIdempotencyKey(batch.id(), 3);
+        TransactionEntity existing = TransactionEntity.builder().id(UUID.randomUUID()).build();
+        when(paymentDispatcher.sendMoney(any(), eq(replayedKey), any())).thenThrow(new IdempotencyException("Transaction already processed"));
+        when(transactionRepository.findByIdempotencyKey(replayedKey)).thenReturn(Optional.of(existing));
+
+        processor.process(batch);
+
+        PayoutEntry resumed = checkpoints(1).getFirst().getFirst();
+        assertThat(resumed.entryNumber()).isEqualTo(3);
+        assertThat(resumed.status()).isEqualTo(EntryStatus.COMPLETED);
+        assertThat(resumed.transactionId()).isEqualTo(existing.getId());
+    }
+
+    @Test
+    @DisplayName("Should derive distinct idempotency keys per batch entry")
+    void shouldDeriveEntryKeys() {
+        UUID batchId = UUID.randomUUID();
+
+        assertThat(PayoutBatchProcessor.entryIdempotencyKey(batchId, 1))
+                .isEqualTo(PayoutBatchProcessor.entryIdempotencyKey(batchId, 1))
+                .isNotEqualTo(PayoutBatchProcessor.entryIdempotencyKey(batchId, 2))
+                .isNotEqualTo(PayoutBatchProcessor.entryIdempotencyKey(UUID.randomUUID(), 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<PayoutEntry>> checkpoints(int calls) {
+        ArgumentCaptor<List<PayoutEntry>> results = ArgumentCaptor.forClass(List.class);
+        verify(payoutBatchRepository, times(calls)).checkpoint(any(), results.capture());
+        return new ArrayList<>(results.getAllValues());
+    }
+
+    private static String csv(String... lines) {
+        return "sender_account_id,recipient_account_id,amount,currency\n" + String.join("\n", lines) + "\n";
+    }
+
+    private PayoutBatch batch(String content, long processedEntries) throws IOException {
+        PayoutBatch batch = new PayoutBatch(UUID.randomUUID(), "payroll", PayoutFileFormat.CSV,
+                BatchStatus.PROCESSING, processedEntries, 0, 0, null, OffsetDateTime.now(), OffsetDateTime.now());
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(content.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(payoutBatchRepository).copyFile(eq(batch.id()), any());
+        return batch;
+    }
+
+    private PaymentResponse completed(PaymentRequest request) {
+        return new PaymentResponse(UUID.randomUUID(), request.senderAccountId(), request.recipientAccountId(),
+                request.amount(), request.currency(), "COMPLETED", OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,184 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.infrastructure.config.ScheduledPaymentProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.ScheduledPaymentRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.ScheduledPaymentRepository.ScheduledPayment;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.demo.instantpay.service.exception.PaymentBackpressureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScheduledPaymentEngine Unit Tests")
+class ScheduledPaymentEngineTest {
+    private static final OffsetDateTime FIRST_RUN = OffsetDateTime.of(2026, 1, 31, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    @Mock
+    private ScheduledPaymentRepository scheduledPaymentRepository;
+    @Mock
+    private PaymentDispatcher paymentDispatcher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledPaymentProperties properties;
+    private ScheduledPaymentEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ScheduledPaymentProperties();
+        engine = new ScheduledPaymentEngine(scheduledPaymentRepository, paymentDispatcher, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should pay an occurrence under its own idempotency key and advance to the next one")
+    void shouldPayOccurrenceAndAdvance() {
+        ScheduledPayment payment = payment("P1M", null, 1);
+        when(scheduledPaymentRepository.findById(payment.id())).thenReturn(Optional.of(payment));
+        when(scheduledPaymentRepository.advance(any(), anyLong(), any(), any())).thenReturn(true);
+
+        engine.fire(payment);
+
+        ArgumentCaptor<PaymentRequest> request = ArgumentCaptor.forClass(PaymentRequest.class);
+        verify(paymentDispatcher).sendMoney(request.capture(),
+                eq(ScheduledPaymentEngine.occurrenceIdempotencyKey(payment.id(), 1)), eq("alice"));
+        assertThat(request.getValue().amount()).isEqualByComparingTo("25.00");
+        verify(scheduledPaymentRepository).advance(payment.id(), 1, FIRST_RUN.plusMonths(2), null);
+        assertThat(meterRegistry.get("payment.scheduled.executions").tag("outcome", "completed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record a failed occurrence and still move on to the next one")
+    void shouldRecordFailedOccurrence() {
+        ScheduledPayment payment = payment("P1W", null, 0);
+        when(scheduledPaymentRepository.findById(payment.id())).thenReturn(Optional.of(payment));
+        when(paymentDispatcher.sendMoney(any(), any(), any())).thenThrow(new InsufficientFundsException("Insufficient funds"));
+        when(scheduledPaymentRepository.advance(any(), anyLong(), any(), any())).thenReturn(true);
+
+        engine.fire(payment);
+
+        verify(scheduledPaymentRepository).advance(payment.id(), 0, FIRST_RUN.plusWeeks(1), "Insufficient funds");
+        assertThat(meterRegistry.get("payment.scheduled.executions").tag("outcome", "failed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record an occurrence whose account is gone and move on to the next one")
+    void shouldAdvancePastMissingAccount() {
+        ScheduledPayment payment = payment("P1W", null, 0);
+        when(scheduledPaymentRepository.findById(payment.id())).thenReturn(Optional.of(payment));
+        when(paymentDispatcher.sendMoney(any(), any(), any()))
+                .thenThrow(new AccountNotFoundException("Recipient account not found"));
+        when(scheduledPaymentRepository.advance(any(), anyLong(), any(), any())).thenReturn(true);
+
+        engine.fire(payment);
+
+        verify(scheduledPaymentRepository).advance(payment.id(), 0, FIRST_RUN.plusWeeks(1), "Recipient account not found");
+    }
+
+    @Test
+    @DisplayName("Should retry the same occurrence after a transient failure instead of advancing")
+    void shouldRetrySameOccurrenceAfterTransientFailure() {
+        ScheduledPayment payment = payment("P1W", null, 0);
+        when(scheduledPaymentRepository.findById(payment.id())).thenReturn(Optional.of(payment));
+        when(paymentDispatcher.sendMoney(any(), any(), any()))
+                .thenThrow(new PaymentBackpressureException("Payment queue is full"))
+                .thenThrow(new ObjectOptimisticLockingFailureException("AccountEntity", UUID.randomUUID()));
+        engine.start();
+        try {
+            engine.fire(payment);
+            engine.fire(payment);
+        } finally {
+            engine.stop();
+        }
+
+        verify(paymentDispatcher, times(2)).sendMoney(any(),
+                eq(ScheduledPaymentEngine.occurrenceIdempotencyKey(payment.id(), 0)), any());
+        verify(scheduledPaymentRepository, never()).advance(any(), anyLong(), any(), any());
+        assertThat(meterRegistry.get("payment.scheduled.pending").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("payment.scheduled.executions").tag("outcome", "retried").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should double the retry backoff up to its maximum")
+    void shouldBackOffExponentially() {
+        properties.setRetryBackoff(Duration.ofSeconds(5));
+        properties.setMaxRetryBackoff(Duration.ofMinutes(1));
+
+        assertThat(engine.retryDelayMillis(1)).isEqualTo(5_000);
+        assertThat(engine.retryDelayMillis(2)).isEqualTo(10_000);
+        assertThat(engine.retryDelayMillis(4)).isEqualTo(40_000);
+        assertThat(engine.retryDelayMillis(5)).isEqualTo(60_000);
+        assertThat(engine.retryDelayMillis(100)).isEqualTo(60_000);
+    }
+
+    @Test
+    @DisplayName("Should treat an occurrence paid before a restart as done")
+    void shouldTreatReplayedOccurrenceAsPaid() {
+        ScheduledPayment payment = payment(null, null, 0);
+        when(scheduledPaymentRepository.findById(payment.id())).thenReturn(Optional.of(payment));
+        when(paymentDispatcher.sendMoney(any(), any(), any())).thenThrow(new IdempotencyException("Duplicate request"));
+
+        engine.fire(payment);
+
+        verify(scheduledPaymentRepository).advance(eq(payment.id()), eq(0L), isNull(), isNull());
+    }
+
+    @Test
+    @DisplayName("Should skip a payment cancelled or advanced since it was loaded")
+    void shouldSkipStalePayment() {
+        ScheduledPayment loaded = payment("P1D", null, 3);
+        when(scheduledPaymentRepository.findById(loaded.id()))
+                .thenReturn(Optional.of(loaded.withOccurrence(4, FIRST_RUN.plusDays(4))));
+
+        engine.fire(loaded);
+
+        verifyNoInteractions(paymentDispatcher);
+        verify(scheduledPaymentRepository, never()).advance(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should compute occurrences from the first run and stop after the last one")
+    void shouldComputeNextRunFromFirstRun() {
+        ScheduledPayment monthly = payment("P1M", 3, 0);
+
+        assertThat(ScheduledPaymentEngine.nextRunAt(monthly, 1)).isEqualTo(FIRST_RUN.withMonth(2).withDayOfMonth(28));
+        assertThat(ScheduledPaymentEngine.nextRunAt(monthly, 2)).isEqualTo(FIRST_RUN.withMonth(3));
+        assertThat(ScheduledPaymentEngine.nextRunAt(monthly, 3)).isNull();
+        assertThat(ScheduledPaymentEngine.nextRunAt(payment(null, null, 0), 1)).isNull();
+    }
+
+    private ScheduledPayment payment(String recurrence, Integer maxOccurrences, long occurrence) {
+        OffsetDateTime nextRunAt = recurrence == null ? FIRST_RUN
+                : FIRST_RUN.plus(Period.parse(recurrence).multipliedBy((int) occurrence));
+        return new ScheduledPayment(UUID.randomUUID(), "alice", UUID.randomUUID(), UUID.randomUUID(),
+                new BigDecimal("25.00"), "USD", FIRST_RUN, recurrence, maxOccurrences, occurrence, nextRunAt,
+                ScheduledPaymentRepository.Status.ACTIVE, null, null, null);
+    }
+}
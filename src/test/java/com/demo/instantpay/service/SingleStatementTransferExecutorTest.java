@@ -0,0 +1,108 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.api.dto.PaymentRequest;
+import com.demo.instantpay.api.dto.PaymentResponse;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.Outcome;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferCommand;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountTransferRepository.TransferResult;
+import com.demo.instantpay.service.exception.AccountNotFoundException;
+import com.demo.instantpay.service.exception.IdempotencyException;
+import com.demo.instantpay.service.exception.InsufficientFundsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SingleStatementTransferExecutor Unit Tests")
+class SingleStatementTransferExecutorTest {
+    @Mock
+    private AccountTransferRepository accountTransferRepository;
+
+    private SingleStatementTransferExecutor executor;
+    private PaymentRequest paymentRequest;
+    private UUID idempotencyKey;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        executor = new SingleStatementTransferExecutor(accountTransferRepository, objectMapper);
+
+        idempotencyKey = UUID.randomUUID();
+        paymentRequest = new PaymentRequest(
+                new BigDecimal("100.00"),
+                "USD",
+                UUID.randomUUID(),
+                UUID.randomUUID()
+        );
+    }
+
+    @Test
+    @DisplayName("Should return completed payment response and pass outbox payload to the database function")
+    void shouldReturnCompletedResponse() {
+        when(accountTransferRepository.transfer(any()))
+                .thenReturn(new TransferResult(Outcome.COMPLETED, null));
+
+        PaymentResponse response = executor.execute(paymentRequest, idempotencyKey, "sender");
+
+        ArgumentCaptor<TransferCommand> commandCaptor = ArgumentCaptor.forClass(TransferCommand.class);
+        verify(accountTransferRepository).transfer(commandCaptor.capture());
+        TransferCommand command = commandCaptor.getValue();
+
+        assertThat(response.transactionId()).isEqualTo(command.transactionId());
+        assertThat(response.status()).isEqualTo("COMPLETED");
+        assertThat(response.amount()).isEqualByComparingTo("100.00");
+        assertThat(command.idempotencyKey()).isEqualTo(idempotencyKey);
+        assertThat(command.senderUsername()).isEqualTo("sender");
+        assertThat(command.eventTopic()).isEqualTo("payment.completed");
+        assertThat(command.eventPayload()).contains(command.transactionId().toString());
+    }
+
+    @Test
+    @DisplayName("Should map database outcomes to the same exceptions as the JPA path")
+    void shouldMapOutcomesToExceptions() {
+        assertOutcomeThrows(Outcome.DUPLICATE, IdempotencyException.class, "already processed");
+        assertOutcomeThrows(Outcome.SENDER_NOT_FOUND, AccountNotFoundException.class, "Sender account not found");
+        assertOutcomeThrows(Outcome.RECIPIENT_NOT_FOUND, AccountNotFoundException.class, "Recipient account not found");
+        assertOutcomeThrows(Outcome.NOT_OWNER, AccessDeniedException.class, "User does not own this account");
+        assertOutcomeThrows(Outcome.INSUFFICIENT_FUNDS, InsufficientFundsException.class, "Insufficient funds");
+        assertOutcomeThrows(Outcome.RECIPIENT_CURRENCY_MISMATCH, IllegalArgumentException.class, "Currency mismatch");
+    }
+
+    @Test
+    @DisplayName("Should reject same account transfer without calling the database")
+    void shouldRejectSameAccountTransfer() {
+        UUID accountId = UUID.randomUUID();
+        PaymentRequest sameAccountRequest = new PaymentRequest(new BigDecimal("10.00"), "USD", accountId, accountId);
+
+        assertThatThrownBy(() -> executor.execute(sameAccountRequest, idempotencyKey, "sender"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("same account");
+
+        verifyNoInteractions(accountTransferRepository);
+    }
+
+    private void assertOutcomeThrows(Outcome outcome, Class<? extends Throwable> type, String message) {
+        when(accountTransferRepository.transfer(any())).thenReturn(new TransferResult(outcome, "EUR"));
+
+        assertThatThrownBy(() -> executor.execute(paymentRequest, idempotencyKey, "sender"))
+                .isInstanceOf(type)
+                .hasMessageContaining(message);
+    }
+}
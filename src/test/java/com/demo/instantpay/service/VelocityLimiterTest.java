@@ -0,0 +1,135 @@
+package com.demo.instantpay.service;
+
+import com.demo.instantpay.infrastructure.config.VelocityLimitProperties;
+import com.demo.instantpay.infrastructure.persistence.repository.AccountRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository;
+import com.demo.instantpay.infrastructure.persistence.repository.TransactionRepository.RecentSpend;
+import com.demo.instantpay.service.exception.VelocityLimitExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VelocityLimiter Unit Tests")
+class VelocityLimiterTest {
+    private static final UUID ACCOUNT = UUID.randomUUID();
+    private static final UUID PREMIUM_ACCOUNT = UUID.randomUUID();
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private VelocityLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        VelocityLimitProperties properties = new VelocityLimitProperties();
+        properties.setEnabled(true);
+        properties.getTiers().put("STANDARD", limits("100.00", "250.00"));
+        properties.getTiers().put("PREMIUM", limits("1000.00", null));
+        properties.setUser(limits(null, "400.00"));
+        limiter = new VelocityLimiter(properties, accountRepository, transactionRepository);
+
+        AccountRepository.TieredAccount premium = mock(AccountRepository.TieredAccount.class);
+        when(premium.getId()).thenReturn(PREMIUM_ACCOUNT);
+        when(premium.getLimitTier()).thenReturn("PREMIUM");
+        when(accountRepository.findAccountsOutsideTier("STANDARD")).thenReturn(List.of(premium));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a payment that would exceed the hourly limit of the account tier")
+    void shouldRejectOverHourlyLimit() {
+        limiter.rebuild();
+        limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("60.00"));
+
+        assertThatThrownBy(() -> limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("40.01")))
+                .isInstanceOf(VelocityLimitExceededException.class)
+                .hasMessageContaining("account");
+        assertThatCode(() -> limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("40.00")))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should apply the limits of the account's own tier")
+    void shouldApplyAccountTier() {
+        limiter.rebuild();
+
+        assertThatCode(() -> limiter.reserve(PREMIUM_ACCOUNT, "bob", "USD", new BigDecimal("350.00")))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should count spend from before startup")
+    void shouldCountRecentSpendAfterRebuild() {
+        RecentSpend spend = mock(RecentSpend.class);
+        when(spend.getSenderAccountId()).thenReturn(ACCOUNT);
+        when(spend.getSenderUsername()).thenReturn("alice");
+        when(spend.getCurrency()).thenReturn("USD");
+        when(spend.getMinuteMillis()).thenReturn(System.currentTimeMillis() - 3 * 60 * 60 * 1000L);
+        when(spend.getAmount()).thenReturn(new BigDecimal("200.00"));
+        when(transactionRepository.findRecentSpendPerMinute(any())).thenReturn(List.of(spend));
+
+        limiter.rebuild();
+
+        limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("50.00"));
+        assertThatThrownBy(() -> limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("0.01")))
+                .isInstanceOf(VelocityLimitExceededException.class);
+    }
+
+    @Test
+    @DisplayName("Should enforce the user limit across the user's accounts")
+    void shouldEnforceUserLimitAcrossAccounts() {
+        limiter.rebuild();
+        limiter.reserve(PREMIUM_ACCOUNT, "carol", "USD", new BigDecimal("350.00"));
+
+        assertThatThrownBy(() -> limiter.reserve(ACCOUNT, "carol", "USD", new BigDecimal("60.00")))
+                .isInstanceOf(VelocityLimitExceededException.class)
+                .hasMessageContaining("user");
+        assertThatCode(() -> limiter.reserve(ACCOUNT, "carol", "EUR", new BigDecimal("60.00")))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should hand the amount back when the payment's transaction rolls back")
+    void shouldReleaseOnRollback() {
+        limiter.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+        limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("100.00"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThatCode(() -> limiter.reserve(ACCOUNT, "alice", "USD", new BigDecimal("100.00")))
+                .doesNotThrowAnyException();
+    }
+
+    private static VelocityLimitProperties.Limits limits(String hourly, String daily) {
+        VelocityLimitProperties.Limits limits = new VelocityLimitProperties.Limits();
+        limits.setHourly(hourly == null ? null : new BigDecimal(hourly));
+        limits.setDaily(daily == null ? null : new BigDecimal(daily));
+        return limits;
+    }
+}